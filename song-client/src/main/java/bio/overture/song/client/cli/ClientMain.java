@@ -21,6 +21,7 @@ import static bio.overture.song.core.exceptions.ServerErrors.UNAUTHORIZED_TOKEN;
 import static bio.overture.song.core.exceptions.ServerErrors.UNKNOWN_ERROR;
 import static bio.overture.song.core.exceptions.SongError.createSongError;
 
+import bio.overture.song.client.command.BulkSubmitCommand;
 import bio.overture.song.client.command.ConfigCommand;
 import bio.overture.song.client.command.ExportCommand;
 import bio.overture.song.client.command.FileUpdateCommand;
@@ -34,6 +35,7 @@ import bio.overture.song.client.command.SearchCommand;
 import bio.overture.song.client.command.SubmitCommand;
 import bio.overture.song.client.command.SuppressCommand;
 import bio.overture.song.client.command.UnpublishCommand;
+import bio.overture.song.client.command.VerifyFilesCommand;
 import bio.overture.song.client.config.Config;
 import bio.overture.song.client.config.CustomRestClientConfig;
 import bio.overture.song.client.errors.ErrorStatusHeader;
@@ -73,12 +75,14 @@ public class ClientMain {
     val builder = new CommandParserBuilder(restClientConfig.getProgramName(), options);
     builder.register("config", new ConfigCommand(restClientConfig));
     builder.register("submit", new SubmitCommand(restClientConfig, songApi));
+    builder.register("bulk-submit", new BulkSubmitCommand(restClientConfig, songApi));
     builder.register("ping", new PingCommand(songApi));
     builder.register("get-analysis-type", new GetAnalysisTypeCommand(songApi));
     builder.register("list-analysis-types", new ListAnalysisTypesCommand(songApi));
     builder.register("register-analysis-type", new RegisterAnalysisTypeCommand(songApi));
     builder.register("search", new SearchCommand(restClientConfig, songApi));
     builder.register("manifest", new ManifestCommand(restClientConfig, manifestClient));
+    builder.register("verify-files", new VerifyFilesCommand(restClientConfig, manifestClient));
     builder.register("publish", new PublishCommand(restClientConfig, songApi));
     builder.register("unpublish", new UnpublishCommand(restClientConfig, songApi));
     builder.register("suppress", new SuppressCommand(restClientConfig, songApi));
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command;
+
+import static bio.overture.song.core.utils.FileIO.readFileContent;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Stopwatch.createStarted;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.newBufferedReader;
+import static java.nio.file.Files.newBufferedWriter;
+import static java.nio.file.Files.walk;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+
+import bio.overture.song.client.config.CustomRestClientConfig;
+import bio.overture.song.sdk.SongApi;
+import bio.overture.song.sdk.config.HttpTransport;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.google.common.collect.Maps;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Submits every payload in a directory (files ending in {@code .json}, searched recursively) or in
+ * an NDJSON file (one payload per line) using a pool of concurrent workers that share the
+ * configured {@link SongApi}. Each successful submission is appended to a checkpoint file, so
+ * rerunning the same command skips payloads that were already accepted. Checkpoint entries are
+ * keyed on the path of the payload relative to the input directory, or on the line number of the
+ * NDJSON file, so the input can be spelled differently on rerun. A tab-separated results manifest
+ * maps every payload source to its analysisId or error.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Parameters(separators = "=", commandDescription = "Submit a directory or NDJSON file of payloads")
+public class BulkSubmitCommand extends Command {
+
+  private static final String JSON_EXTENSION = ".json";
+  private static final String CHECKPOINT_EXTENSION = ".checkpoint";
+  private static final String RESULTS_EXTENSION = ".results.tsv";
+  private static final String TAB = "\t";
+  private static final String SUBMITTED = "SUBMITTED";
+  private static final String RESUMED = "RESUMED";
+  private static final String FAILED = "FAILED";
+  private static final int QUEUE_SIZE_PER_THREAD = 4;
+
+  /** Config */
+  @Parameter(
+      names = {"-d", "--dir"},
+      description = "Directory containing payload files ending in '" + JSON_EXTENSION + "'")
+  private String dirName;
+
+  @Parameter(
+      names = {"-f", "--file"},
+      description = "NDJSON file containing one payload per line")
+  private String ndjsonFileName;
+
+  @Parameter(
+      names = {"-t", "--threads"},
+      description = "Number of concurrent submissions")
+  private int numThreads = 4;
+
+  @Parameter(
+      names = {"-c", "--checkpoint"},
+      description =
+          "Checkpoint file recording accepted payloads (default: <input>"
+              + CHECKPOINT_EXTENSION
+              + ")")
+  private String checkpointFileName;
+
+  @Parameter(
+      names = {"-o", "--output"},
+      description = "Results manifest file (default: <input>" + RESULTS_EXTENSION + ")")
+  private String resultsFileName;
+
+  /** Dependencies */
+  @NonNull private CustomRestClientConfig clientConfig;
+
+  @NonNull private SongApi songApi;
+
+  /** State */
+  private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+  private final AtomicInteger submittedCount = new AtomicInteger(0);
+  private final AtomicInteger failedCount = new AtomicInteger(0);
+  private final AtomicInteger resumedCount = new AtomicInteger(0);
+  private final AtomicInteger uncheckpointedCount = new AtomicInteger(0);
+
+  @Override
+  public void run() throws IOException {
+    val isDirMode = !isNullOrEmpty(dirName);
+    val isFileMode = !isNullOrEmpty(ndjsonFileName);
+    if (isDirMode == isFileMode) {
+      err("Exactly one of the '--dir' or '--file' options must be defined");
+      return;
+    }
+    if (numThreads < 1) {
+      err("The number of threads must be greater than 0, but was %s", numThreads);
+      return;
+    }
+
+    val inputPath = Paths.get(isDirMode ? dirName : ndjsonFileName);
+    if (isDirMode && !isDirectory(inputPath)) {
+      err("The directory '%s' does not exist", inputPath.toAbsolutePath());
+      return;
+    } else if (isFileMode && !isRegularFile(inputPath)) {
+      err("The file '%s' does not exist", inputPath.toAbsolutePath());
+      return;
+    }
+    checkMaxConnections();
+
+    val checkpointPath = resolveOutputPath(checkpointFileName, inputPath, CHECKPOINT_EXTENSION);
+    val resultsPath = resolveOutputPath(resultsFileName, inputPath, RESULTS_EXTENSION);
+    val completed = readCheckpoint(checkpointPath);
+
+    val stopwatch = createStarted();
+    try (val checkpoint =
+            new SynchronizedLineWriter(newBufferedWriter(checkpointPath, UTF_8, CREATE, APPEND));
+        val results =
+            new SynchronizedLineWriter(
+                newBufferedWriter(resultsPath, UTF_8, CREATE, TRUNCATE_EXISTING))) {
+      results.writeLine("source", "status", "analysisId", "error");
+      val executor = newBoundedExecutor();
+      try (val sources = isDirMode ? listPayloadFiles(inputPath) : listNdjsonLines(inputPath)) {
+        sources.forEach(
+            source -> {
+              val analysisId = completed.get(source.getKey());
+              if (analysisId != null) {
+                resumedCount.incrementAndGet();
+                results.writeLine(source.getName(), RESUMED, analysisId, "");
+              } else {
+                executor.execute(() -> submit(source, checkpoint, results));
+              }
+            });
+      } finally {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      err("Bulk submission was interrupted. Rerun the command to resume from the checkpoint");
+    }
+    stopwatch.stop();
+    summarize(stopwatch.elapsed(NANOSECONDS), checkpointPath, resultsPath);
+  }
+
+  private void submit(
+      PayloadSource source, SynchronizedLineWriter checkpoint, SynchronizedLineWriter results) {
+    val start = System.nanoTime();
+    String analysisId;
+    try {
+      analysisId =
+          songApi.submit(clientConfig.getStudyId(), source.getPayload().get()).getAnalysisId();
+      latencies.add(System.nanoTime() - start);
+      submittedCount.incrementAndGet();
+    } catch (Exception e) {
+      latencies.add(System.nanoTime() - start);
+      failedCount.incrementAndGet();
+      log.error("Failed to submit '{}': {}", source.getName(), e.getMessage());
+      results.writeLine(source.getName(), FAILED, "", sanitize(e.getMessage()));
+      return;
+    }
+
+    // The payload was accepted, so a checkpoint failure must not report it as FAILED
+    try {
+      checkpoint.writeLine(source.getKey(), analysisId);
+      results.writeLine(source.getName(), SUBMITTED, analysisId, "");
+    } catch (UncheckedIOException e) {
+      uncheckpointedCount.incrementAndGet();
+      log.error(
+          "Submitted '{}' as analysis '{}', but failed to record it in the checkpoint: {}",
+          source.getName(),
+          analysisId,
+          e.getMessage());
+      results.writeLine(
+          source.getName(),
+          SUBMITTED,
+          analysisId,
+          "Not recorded in the checkpoint: " + sanitize(e.getMessage()));
+    }
+  }
+
+  private void summarize(long elapsedNanos, Path checkpointPath, Path resultsPath) {
+    val submitted = submittedCount.get();
+    val failed = failedCount.get();
+    val attempted = submitted + failed;
+    val elapsedSeconds = elapsedNanos / 1e9;
+    val throughput = elapsedSeconds > 0 ? attempted / elapsedSeconds : 0;
+    List<Long> sorted;
+    synchronized (latencies) {
+      sorted = latencies.stream().sorted().collect(toList());
+    }
+    output(
+        "Submitted: %s, Failed: %s, Resumed from checkpoint: %s\n",
+        submitted, failed, resumedCount);
+    output("Elapsed: %.2fs, Throughput: %.2f payloads/s\n", elapsedSeconds, throughput);
+    output(
+        "Latency (ms): p50=%s, p95=%s, p99=%s, max=%s\n",
+        percentileMillis(sorted, 50),
+        percentileMillis(sorted, 95),
+        percentileMillis(sorted, 99),
+        percentileMillis(sorted, 100));
+    output("Checkpoint: %s\nResults: %s\n", checkpointPath, resultsPath);
+    if (uncheckpointedCount.get() > 0) {
+      err(
+          "%s submitted payloads could not be recorded in the checkpoint and would be resubmitted on rerun. See '%s' for their analysisIds\n",
+          uncheckpointedCount, resultsPath);
+    }
+    if (failed > 0) {
+      err(
+          "%s payloads failed to submit. See '%s' for details and rerun to retry them\n",
+          failed, resultsPath);
+    }
+  }
+
+  private void checkMaxConnections() {
+    if (clientConfig.getTransport() == HttpTransport.POOLED
+        && numThreads > clientConfig.getMaxConnectionsPerRoute()) {
+      output(
+          "WARNING: selected number of threads (%s) is greater than the maximum number of pooled connections per route (%s)\n",
+          numThreads, clientConfig.getMaxConnectionsPerRoute());
+    }
+  }
+
+  /**
+   * The work queue is bounded so that large inputs are read lazily. When it is full, the reading
+   * thread submits the payload itself, which throttles reading to the submission rate.
+   */
+  private ThreadPoolExecutor newBoundedExecutor() {
+    return new ThreadPoolExecutor(
+        numThreads,
+        numThreads,
+        0L,
+        MILLISECONDS,
+        new ArrayBlockingQueue<>(numThreads * QUEUE_SIZE_PER_THREAD),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @SneakyThrows
+  private static Stream<PayloadSource> listPayloadFiles(Path dirPath) {
+    return walk(dirPath)
+        .filter(p -> isRegularFile(p) && p.getFileName().toString().endsWith(JSON_EXTENSION))
+        .sorted()
+        .map(
+            p ->
+                new PayloadSource(
+                    dirPath.relativize(p).toString(), p.toString(), () -> readPayloadFile(p)));
+  }
+
+  @SneakyThrows
+  private static Stream<PayloadSource> listNdjsonLines(Path filePath) {
+    val lineCounter = new AtomicInteger(0);
+    val fileName = filePath.getFileName().toString();
+    val reader = newBufferedReader(filePath, UTF_8);
+    return reader
+        .lines()
+        .onClose(() -> closeQuietly(reader))
+        .map(
+            line -> {
+              val lineNumber = lineCounter.incrementAndGet();
+              return new PayloadSource(
+                  fileName + ":" + lineNumber, filePath + ":" + lineNumber, () -> line);
+            })
+        .filter(s -> !s.getPayload().get().isBlank());
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      log.warn("Failed to close reader: {}", e.getMessage());
+    }
+  }
+
+  private static String readPayloadFile(Path path) {
+    try {
+      return readFileContent(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Reads the source to analysisId entries that were accepted in a previous run. */
+  @SneakyThrows
+  private static Map<String, String> readCheckpoint(Path checkpointPath) {
+    val completed = Maps.<String, String>newHashMap();
+    if (exists(checkpointPath)) {
+      checkState(
+          isRegularFile(checkpointPath),
+          "The checkpoint path '%s' is not a file",
+          checkpointPath.toAbsolutePath());
+      try (val reader = newBufferedReader(checkpointPath, UTF_8)) {
+        reader
+            .lines()
+            .map(line -> line.split(TAB, 2))
+            .filter(parts -> parts.length == 2)
+            .forEach(parts -> completed.put(parts[0], parts[1]));
+      }
+    }
+    return completed;
+  }
+
+  private static Path resolveOutputPath(String fileName, Path inputPath, String extension) {
+    if (!isNullOrEmpty(fileName)) {
+      return Paths.get(fileName);
+    }
+    val normalized = inputPath.toAbsolutePath().normalize();
+    return normalized.resolveSibling(normalized.getFileName() + extension);
+  }
+
+  private static String percentileMillis(List<Long> sortedNanos, int percentile) {
+    if (sortedNanos.isEmpty()) {
+      return "n/a";
+    }
+    val index = (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1;
+    val nanos = sortedNanos.get(Math.max(0, index));
+    return format("%.1f", nanos / 1e6);
+  }
+
+  private static String sanitize(String message) {
+    return isNullOrEmpty(message) ? "" : message.replaceAll("[\\t\\r\\n]+", " ");
+  }
+
+  @lombok.Value
+  private static class PayloadSource {
+    /** Identifies the payload in the checkpoint, independently of how the input was spelled */
+    @NonNull String key;
+
+    @NonNull String name;
+    @NonNull Supplier<String> payload;
+  }
+
+  /** Writes and flushes whole tab-separated lines, so that entries survive an interrupted run. */
+  @RequiredArgsConstructor
+  private static class SynchronizedLineWriter implements AutoCloseable {
+    @NonNull private final BufferedWriter writer;
+
+    public synchronized void writeLine(String... columns) {
+      try {
+        writer.write(String.join(TAB, columns));
+        writer.newLine();
+        writer.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+}
@@ -16,42 +16,48 @@
  */
 package bio.overture.song.client.command;
 
+import static bio.overture.song.client.command.export.ExportCheckpoint.openExportCheckpoint;
 import static bio.overture.song.client.command.rules.ModeRule.createModeRule;
-import static bio.overture.song.core.utils.JsonUtils.toPrettyJson;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Stopwatch.createUnstarted;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Lists.partition;
-import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
 import static com.google.common.io.Files.readLines;
 import static java.lang.String.format;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.exists;
 import static java.nio.file.Files.isRegularFile;
-import static java.nio.file.Files.newBufferedWriter;
 import static java.util.Objects.isNull;
-import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.Executors.newWorkStealingPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import bio.overture.song.client.cli.Status;
+import bio.overture.song.client.command.export.AdaptiveBatchSizer;
+import bio.overture.song.client.command.export.ExportCheckpoint;
+import bio.overture.song.client.command.export.ExportedPayloadWriter;
 import bio.overture.song.client.command.rules.ModeRule;
 import bio.overture.song.client.command.rules.ParamTerm;
 import bio.overture.song.client.command.rules.RuleProcessor;
-import bio.overture.song.core.model.ExportedPayload;
 import bio.overture.song.sdk.SongApi;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Charsets;
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import lombok.NonNull;
@@ -65,7 +71,13 @@ import lombok.val;
 @Parameters(separators = "=", commandDescription = "Export a payload")
 public class ExportCommand extends Command {
 
-  private static final int BATCH_SIZE = 100;
+  private static final int MIN_BATCH_SIZE = 1;
+  private static final int INITIAL_BATCH_SIZE = 10;
+  private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+  private static final Duration TARGET_BATCH_LATENCY = Duration.ofSeconds(2);
+  private static final String DEFAULT_CHECKPOINT_FILENAME = "export.checkpoint";
+  private static final ThreadFactory EXPORT_PROGRESS_THREAD_FACTORY =
+      new ThreadFactoryBuilder().setNameFormat("export-progress").setDaemon(true).build();
 
   private static final String STUDY_SWITCH_SHORT = "-s";
   private static final String STUDY_SWITCH_LONG = "--studyId";
@@ -78,10 +90,8 @@ public class ExportCommand extends Command {
   private static final String INCLUDE_ANALYSIS_ID_SHORT = "-i";
   private static final String INCLUDE_ANALYSIS_ID_LONG = "--include-analysis-id";
 
-  private static final String ANALYSIS_ID = "analysisId";
   private static final String STUDY_MODE = "STUDY_MODE";
   private static final String ANALYSIS_MODE = "ANALYSIS_MODE";
-  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
   private static final int NUM_THREADS_AVAILABLE = Runtime.getRuntime().availableProcessors();
   private static final Function<String, Boolean> IS_STRING_DEFINED_FUNCTION =
       x -> !isNullOrEmpty(x);
@@ -125,19 +135,52 @@ public class ExportCommand extends Command {
       required = true)
   private String outputDir;
 
+  @Parameter(
+      names = {"-z", "--gzip"},
+      description = "Gzip the exported files")
+  private boolean gzip;
+
+  @Parameter(
+      names = {"--ndjson"},
+      description = "Write a single NDJSON file per study instead of one file per analysis")
+  private boolean ndjson;
+
+  @Parameter(
+      names = {"-c", "--checkpoint"},
+      description =
+          "["
+              + ANALYSIS_MODE
+              + "] File recording exported analysisIds, which are skipped on rerun (default: <output-dir>/"
+              + DEFAULT_CHECKPOINT_FILENAME
+              + ")")
+  private String checkpointFilename;
+
+  @Parameter(
+      names = {"--max-batch-size"},
+      description =
+          "["
+              + ANALYSIS_MODE
+              + "] Maximum number of analysisIds per request. Batches adapt to the observed latency")
+  private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+  @Parameter(
+      names = {"--progress-interval"},
+      description =
+          "[" + ANALYSIS_MODE + "] Seconds between progress reports (0 disables reporting)")
+  private int progressInterval = 10;
+
   /** Dependencies */
   @NonNull private SongApi songApi;
 
   /** State */
-  private AtomicInteger fileCount = new AtomicInteger(0);
-
   private ModeRule studyMode;
+
   private ModeRule analysisMode;
   private ParamTerm<String> inputFileTerm;
   private Stopwatch stopwatch = createUnstarted();
 
   @Override
-  public void run() {
+  public void run() throws IOException {
     // Process rules
     val ruleStatus = checkRules();
     if (ruleStatus.hasErrors()) {
@@ -154,11 +197,8 @@ public class ExportCommand extends Command {
       // Get a unique analysisIds
       val uniqueAnalysisIds = getUniqueAnalysisIds();
 
-      // Partition and submit each partition to executor
-      val futureMap = parallelProcessAnalyses(uniqueAnalysisIds);
-
-      // Summarize
-      summarize(futureMap, uniqueAnalysisIds);
+      // Stream batches to disk, skipping analysisIds exported by a previous run
+      processAnalysisMode(uniqueAnalysisIds);
     } else {
       throw new IllegalStateException("Unsupported mode");
     }
@@ -202,9 +242,17 @@ public class ExportCommand extends Command {
     }
   }
 
-  private void processStudyMode() {
+  private void processStudyMode() throws IOException {
     val exportedPayloads = songApi.exportStudy(studyId);
-    val exportStatus = exportedPayloadsToDisk("Study(" + studyId + ")", exportedPayloads);
+    val exportStatus = new Status();
+    try (val writer = newPayloadWriter()) {
+      for (val exportedPayload : exportedPayloads) {
+        writer.write(exportedPayload);
+      }
+    } catch (Throwable e) {
+      exportStatus.err(
+          "ERROR [Study(%s)] -- (%s): %s ", studyId, e.getClass().getName(), e.getMessage());
+    }
     if (exportStatus.hasErrors()) {
       save(exportStatus);
     } else {
@@ -226,116 +274,160 @@ public class ExportCommand extends Command {
     }
 
     // Remove duplicates
-    return newArrayList(newHashSet(analysisIds));
+    return newArrayList(newLinkedHashSet(analysisIds));
   }
 
-  @SneakyThrows
-  private Map<String, Future<Status>> parallelProcessAnalyses(List<String> uniqueAnalysisIds) {
-    val executorService = newFixedThreadPool(numThreads);
-    // Partition and submit each partition to executor
-    int batchCount = 0;
-    val partitions = partition(uniqueAnalysisIds, BATCH_SIZE);
-    val futureMap = Maps.<String, Future<Status>>newHashMap();
-    log.debug(
-        "Partitioning {} analysisId export requests into {} batches...",
-        uniqueAnalysisIds.size(),
-        partitions.size());
-    stopwatch.reset();
-    stopwatch.start();
-    for (val partition : partitions) {
-      val batchId = "batch_" + batchCount++;
-      futureMap.put(batchId, executorService.submit(() -> processAnalysis(batchId, partition)));
-      log.debug("Submitted {}", batchId);
+  /**
+   * Workers repeatedly take the next batch from a shared queue of analysisIds, so a slow batch
+   * never holds up the rest of the export. Each batch is written to disk as soon as it is received
+   * and then recorded in the checkpoint file. The batch size adapts to the observed export latency.
+   */
+  private void processAnalysisMode(List<String> uniqueAnalysisIds) throws IOException {
+    val checkpointPath =
+        isNullOrEmpty(checkpointFilename)
+            ? Paths.get(outputDir).resolve(DEFAULT_CHECKPOINT_FILENAME)
+            : Paths.get(checkpointFilename);
+    createDirectories(Paths.get(outputDir));
+    val progress = new ExportProgress(uniqueAnalysisIds.size());
+    val errors = new ConcurrentLinkedQueue<String>();
+
+    try (val checkpoint = openExportCheckpoint(checkpointPath);
+        val writer = newPayloadWriter()) {
+      val pendingIds = new ConcurrentLinkedQueue<String>();
+      for (val analysisId : uniqueAnalysisIds) {
+        if (checkpoint.getCompletedIds().contains(analysisId)) {
+          progress.skipped.incrementAndGet();
+        } else {
+          pendingIds.add(analysisId);
+        }
+      }
+      log.debug(
+          "Exporting {} analysisIds with {} threads ({} already exported)",
+          pendingIds.size(),
+          numThreads,
+          progress.skipped.get());
+
+      val batchSizer =
+          new AdaptiveBatchSizer(
+              MIN_BATCH_SIZE, INITIAL_BATCH_SIZE, maxBatchSize, TARGET_BATCH_LATENCY);
+      val workerPool = newWorkStealingPool(numThreads);
+      val progressReporter = newSingleThreadScheduledExecutor(EXPORT_PROGRESS_THREAD_FACTORY);
+      if (progressInterval > 0) {
+        progressReporter.scheduleAtFixedRate(
+            () -> reportProgress(progress), progressInterval, progressInterval, SECONDS);
+      }
+      stopwatch.reset();
+      stopwatch.start();
+      try {
+        Runnable worker =
+            () -> exportBatches(pendingIds, batchSizer, writer, checkpoint, progress, errors);
+        val workers = Lists.<Future<?>>newArrayList();
+        for (int i = 0; i < numThreads; i++) {
+          workers.add(workerPool.submit(worker));
+        }
+        for (val future : workers) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        errors.add("The export was interrupted. Rerun the command to resume from the checkpoint");
+      } catch (ExecutionException e) {
+        errors.add(format("Unexpected export error: %s", e.getCause().getMessage()));
+      } finally {
+        stopwatch.stop();
+        progressReporter.shutdownNow();
+        workerPool.shutdownNow();
+      }
     }
-    log.debug("Waiting for {} export requests to complete...", partitions.size());
-    executorService.shutdown();
-    executorService.awaitTermination(5, TimeUnit.HOURS);
-    stopwatch.stop();
-    log.debug("Downloads have completed, generating summary output..");
-    return futureMap;
+    summarize(progress, errors, checkpointPath);
   }
 
-  @SneakyThrows
-  private Status processAnalysis(String name, List<String> analysisIds) {
-    // Get data from ExportService
-    Status exportStatus = new Status();
-    List<ExportedPayload> exportedPayloads = null;
-    try {
-      exportedPayloads = songApi.exportAnalyses(analysisIds);
-    } catch (Throwable t) {
-      exportStatus.err("ExportError: %s", t.getMessage());
-    }
-
-    if (exportStatus.hasErrors()) {
-      return exportStatus;
+  private void exportBatches(
+      Queue<String> pendingIds,
+      AdaptiveBatchSizer batchSizer,
+      ExportedPayloadWriter writer,
+      ExportCheckpoint checkpoint,
+      ExportProgress progress,
+      Queue<String> errors) {
+    List<String> batch;
+    while (!Thread.currentThread().isInterrupted()
+        && !(batch = pollBatch(pendingIds, batchSizer.getBatchSize())).isEmpty()) {
+      val start = System.nanoTime();
+      try {
+        val exportedPayloads = songApi.exportAnalyses(batch);
+        batchSizer.onSuccess(batch.size(), System.nanoTime() - start);
+        for (val exportedPayload : exportedPayloads) {
+          writer.write(exportedPayload);
+        }
+        checkpoint.record(batch);
+        progress.exported.addAndGet(batch.size());
+      } catch (Throwable t) {
+        batchSizer.onFailure();
+        progress.failed.addAndGet(batch.size());
+        val message =
+            format(
+                "ERROR [%s analysisIds starting at '%s'] -- (%s): %s",
+                batch.size(), batch.get(0), t.getClass().getName(), t.getMessage());
+        log.error(message);
+        errors.add(message);
+      }
     }
+  }
 
-    // Extract payloads and store to outputDir
-    exportStatus.save(exportedPayloadsToDisk(name, exportedPayloads));
-    return exportStatus;
+  /** Progress is reported as it happens, rather than saved to the status of the command */
+  private void reportProgress(ExportProgress progress) {
+    val progressStatus = new Status();
+    progressStatus.output(progress.describe(stopwatch.elapsed(MILLISECONDS)));
+    progressStatus.reportOutput();
   }
 
-  private Status exportedPayloadsToDisk(String batchId, List<ExportedPayload> exportedPayloads) {
-    val status = new Status();
-    try {
-      val dirPath = Paths.get(outputDir);
-      exportedPayloads.forEach(x -> exportedPayloadToFile(x, dirPath));
-      status.output(
-          "Successfully exported payloads for '%s' batch to output directory %s",
-          batchId, dirPath.toAbsolutePath().toString());
-    } catch (Throwable e) {
-      val message =
-          format("ERROR [%s] -- (%s): %s ", batchId, e.getClass().getName(), e.getMessage());
-      log.error(message);
-      status.err(message);
+  private static List<String> pollBatch(Queue<String> pendingIds, int batchSize) {
+    val batch = Lists.<String>newArrayListWithCapacity(batchSize);
+    String analysisId;
+    while (batch.size() < batchSize && (analysisId = pendingIds.poll()) != null) {
+      batch.add(analysisId);
     }
-    return status;
+    return batch;
   }
 
-  @SneakyThrows
-  private void exportedPayloadToFile(ExportedPayload exportedPayload, Path dirPath) {
-    val studyDir = dirPath.resolve(exportedPayload.getStudyId());
-    if (!exists(studyDir)) {
-      createDirectories(studyDir);
-    }
-    for (val jsonNode : exportedPayload.getPayloads()) {
-      String fileName;
-      if (jsonNode.has(ANALYSIS_ID)) {
-        fileName = format("%s.json", jsonNode.path(ANALYSIS_ID).textValue());
-      } else {
-        fileName = format("payload_%s.json", fileCount.getAndIncrement());
-      }
-      val filePath = studyDir.resolve(fileName);
-      val bw = newBufferedWriter(filePath);
-      bw.write(toPrettyJson(jsonNode));
-      bw.close();
-    }
+  private ExportedPayloadWriter newPayloadWriter() {
+    return new ExportedPayloadWriter(Paths.get(outputDir), gzip, ndjson);
   }
 
-  @SneakyThrows
-  private void summarize(Map<String, Future<Status>> futureMap, List<String> uniqueAnalysisIds) {
-    val errorStatus = new Status();
-    for (val futureEntry : futureMap.entrySet()) {
-      val batchId = futureEntry.getKey();
-      val future = futureEntry.getValue();
-      val incomplete = future.isCancelled() || !future.isDone();
-      val status = future.get();
-      if (status.hasErrors()) {
-        errorStatus.err("ERROR[%s]: %s\n", batchId, status.getErrors());
-      }
-      if (incomplete) {
-        errorStatus.err("ERROR[%s]: The batchId '%s' was terminated prematurely", batchId);
-      }
-    }
-    if (errorStatus.hasErrors()) {
+  private void summarize(ExportProgress progress, Queue<String> errors, Path checkpointPath) {
+    if (!errors.isEmpty()) {
+      val errorStatus = new Status();
+      errors.forEach(x -> errorStatus.err("%s\n", x));
+      errorStatus.err(
+          "Failed to export %s of %s analysisIds. Rerun the command to retry them\n",
+          progress.failed.get(), progress.total);
       save(errorStatus);
     } else {
       output(
           "Successfully exported all %s analysisIds to output directory '%s'\n",
-          uniqueAnalysisIds.size(), outputDir);
+          progress.total, outputDir);
+    }
+    if (progress.skipped.get() > 0) {
+      output(
+          "Skipped %s analysisIds already recorded in the checkpoint file '%s'\n",
+          progress.skipped.get(), checkpointPath);
+    }
+    output("%s\n", progress.describe(stopwatch.elapsed(MILLISECONDS)));
+  }
+
+  @RequiredArgsConstructor
+  private static class ExportProgress {
+    private final int total;
+    private final AtomicInteger exported = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+    private final AtomicInteger skipped = new AtomicInteger(0);
+
+    private String describe(long elapsedMillis) {
+      val done = exported.get();
+      val rate = elapsedMillis > 0 ? done * 1000.0 / elapsedMillis : 0;
+      return format(
+          "Exported %s/%s analysisIds (%s failed, %s skipped) in %.1fs: %.1f analyses/s",
+          done, total, failed.get(), skipped.get(), elapsedMillis / 1000.0, rate);
     }
-    log.debug(
-        "[STOPWATCH]: took '%s' seconds to run %s batches, with %s analysisIds per batch and with %s threads",
-        stopwatch.elapsed(SECONDS), futureMap.keySet().size(), BATCH_SIZE, numThreads);
   }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Stopwatch.createStarted;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.readAllLines;
+import static java.util.Objects.isNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import bio.overture.song.client.config.CustomRestClientConfig;
+import bio.overture.song.sdk.ManifestClient;
+import bio.overture.song.sdk.model.FileVerification;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+@RequiredArgsConstructor
+@Parameters(
+    separators = "=",
+    commandDescription =
+        "Verify the md5 and size of local files against the files registered for the analyses")
+public class VerifyFilesCommand extends Command {
+
+  private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+  @Parameter(
+      names = {"-a", "--analysis-id"},
+      description = "AnalysisIds to verify",
+      variableArity = true)
+  private List<String> analysisIds = newArrayList();
+
+  @Parameter(
+      names = {"-f", "--input-file"},
+      description = "Input file containing a single column of analysisIds on each new line")
+  private String inputFilename;
+
+  @Parameter(
+      names = {"-d", "--input-dir"},
+      description = "Directory containing the files",
+      required = true)
+  private String inputDirName;
+
+  @Parameter(
+      names = {"-t", "--threads"},
+      description = "Number of files to hash concurrently")
+  private int numThreads = 4;
+
+  @NonNull private CustomRestClientConfig config;
+  @NonNull private ManifestClient manifestClient;
+
+  @Override
+  public void run() throws IOException {
+    val uniqueAnalysisIds = getUniqueAnalysisIds();
+    if (uniqueAnalysisIds.isEmpty()) {
+      err("At least one analysisId must be defined with '--analysis-id' or '--input-file'");
+      return;
+    }
+
+    val stopwatch = createStarted();
+    List<FileVerification> results;
+    try {
+      results =
+          manifestClient.verifyFiles(
+              config.getStudyId(), uniqueAnalysisIds, inputDirName, numThreads);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      err("File verification was interrupted");
+      return;
+    }
+    stopwatch.stop();
+
+    long bytesRead = 0;
+    int numFailed = 0;
+    for (val result : results) {
+      if (!isNull(result.getActualMd5sum())) {
+        bytesRead += result.getActualSize();
+      }
+      if (!result.isOk()) {
+        numFailed++;
+        err(
+            "[%s] analysisId=%s objectId=%s file=%s expectedSize=%s actualSize=%s expectedMd5=%s actualMd5=%s%s\n",
+            result.getStatus(),
+            result.getAnalysisId(),
+            result.getObjectId(),
+            result.getFileName(),
+            result.getExpectedSize(),
+            result.getActualSize(),
+            result.getExpectedMd5sum(),
+            result.getActualMd5sum(),
+            isNullOrEmpty(result.getMessage()) ? "" : " message=" + result.getMessage());
+      }
+    }
+    val elapsedMillis = Math.max(1, stopwatch.elapsed(MILLISECONDS));
+    output(
+        "Verified %s files from %s analyses: %s ok, %s failed. Hashed %.1f MB in %.1fs (%.1f MB/s)\n",
+        results.size(),
+        uniqueAnalysisIds.size(),
+        results.size() - numFailed,
+        numFailed,
+        bytesRead / BYTES_PER_MB,
+        elapsedMillis / 1000.0,
+        bytesRead / BYTES_PER_MB * 1000.0 / elapsedMillis);
+  }
+
+  private List<String> getUniqueAnalysisIds() throws IOException {
+    if (!isNullOrEmpty(inputFilename)) {
+      val filePath = Paths.get(inputFilename);
+      checkState(
+          isRegularFile(filePath),
+          "The path '%s' does not exist or is not a file",
+          filePath.toAbsolutePath().toString());
+      readAllLines(filePath, UTF_8).stream()
+          .map(String::trim)
+          .filter(x -> !x.isEmpty())
+          .forEach(analysisIds::add);
+    }
+    return newArrayList(newLinkedHashSet(analysisIds));
+  }
+}
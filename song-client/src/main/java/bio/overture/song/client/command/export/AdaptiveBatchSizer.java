@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command.export;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Chooses the number of analysisIds to request per export call. After each call, the batch size
+ * moves halfway towards the size that would have taken {@code targetLatency} at the observed
+ * per-analysis latency, so slow studies get small batches and fast ones get large batches. A failed
+ * call halves the batch size.
+ */
+public class AdaptiveBatchSizer {
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long targetLatencyNanos;
+  private final AtomicInteger batchSize;
+
+  public AdaptiveBatchSizer(
+      int minBatchSize, int initialBatchSize, int maxBatchSize, @NonNull Duration targetLatency) {
+    checkArgument(minBatchSize > 0, "The minimum batch size must be greater than 0");
+    checkArgument(
+        minBatchSize <= initialBatchSize && initialBatchSize <= maxBatchSize,
+        "The initial batch size must be between %s and %s",
+        minBatchSize,
+        maxBatchSize);
+    checkArgument(!targetLatency.isNegative() && !targetLatency.isZero());
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.targetLatencyNanos = targetLatency.toNanos();
+    this.batchSize = new AtomicInteger(initialBatchSize);
+  }
+
+  public int getBatchSize() {
+    return batchSize.get();
+  }
+
+  public void onSuccess(int completedBatchSize, long latencyNanos) {
+    val nanosPerAnalysis = Math.max(1L, latencyNanos / Math.max(1, completedBatchSize));
+    val idealBatchSize = clamp(targetLatencyNanos / nanosPerAnalysis);
+    batchSize.updateAndGet(current -> clamp(((long) current + idealBatchSize + 1) / 2));
+  }
+
+  public void onFailure() {
+    batchSize.updateAndGet(current -> clamp(current / 2));
+  }
+
+  private int clamp(long size) {
+    return (int) Math.max(minBatchSize, Math.min(maxBatchSize, size));
+  }
+}
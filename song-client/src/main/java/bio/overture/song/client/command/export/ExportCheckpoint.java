@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command.export;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.newBufferedWriter;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.stream.Collectors.toUnmodifiableSet;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Append-only record of the analysisIds that have been exported and written to disk. Ids are
+ * recorded only after their payloads are written, so a rerun skips them safely.
+ */
+public class ExportCheckpoint implements Closeable {
+
+  @Getter private final Set<String> completedIds;
+  private final BufferedWriter writer;
+
+  private ExportCheckpoint(Set<String> completedIds, BufferedWriter writer) {
+    this.completedIds = completedIds;
+    this.writer = writer;
+  }
+
+  public synchronized void record(@NonNull Collection<String> analysisIds) throws IOException {
+    for (val analysisId : analysisIds) {
+      writer.write(analysisId);
+      writer.newLine();
+    }
+    writer.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  public static ExportCheckpoint openExportCheckpoint(@NonNull Path checkpointFile)
+      throws IOException {
+    Set<String> completedIds = Set.of();
+    if (exists(checkpointFile)) {
+      completedIds =
+          readAllLines(checkpointFile, UTF_8).stream()
+              .map(String::trim)
+              .filter(x -> !x.isEmpty())
+              .collect(toUnmodifiableSet());
+    }
+    return new ExportCheckpoint(
+        completedIds, newBufferedWriter(checkpointFile, UTF_8, CREATE, APPEND));
+  }
+}
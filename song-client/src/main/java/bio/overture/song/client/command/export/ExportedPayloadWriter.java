@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command.export;
+
+import static bio.overture.song.core.utils.JsonUtils.jsonWriter;
+import static bio.overture.song.core.utils.JsonUtils.prettyJsonWriter;
+import static java.lang.String.format;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import bio.overture.song.core.model.ExportedPayload;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Streams exported payloads to disk as soon as they are received. By default, each payload is
+ * written to {@code <outputDir>/<studyId>/<analysisId>.json}. In NDJSON mode, every payload of a
+ * study is appended as one line to {@code <outputDir>/<studyId>.ndjson}. Either layout can be
+ * gzipped, in which case {@code .gz} is appended to the file names. Every write is forced to disk
+ * before it returns, so a payload is durable before the export checkpoint advances past it. In
+ * gzipped NDJSON mode, every write is a complete gzip member, so the file is valid after each
+ * write, and a rerun can append to it. Standard gzip readers decompress concatenated members as one
+ * stream. In plain NDJSON mode, a partial line left at the end of the file by a crash is truncated
+ * when the file is reopened, so that a rerun does not append to it.
+ */
+public class ExportedPayloadWriter implements Closeable {
+
+  private static final String ANALYSIS_ID = "analysisId";
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int NEW_LINE = '\n';
+
+  private final Path outputDir;
+  private final boolean gzip;
+  private final boolean ndjson;
+  private final AtomicInteger fileCount = new AtomicInteger(0);
+  private final Map<String, OutputStream> studyStreams = new ConcurrentHashMap<>();
+
+  public ExportedPayloadWriter(@NonNull Path outputDir, boolean gzip, boolean ndjson) {
+    this.outputDir = outputDir;
+    this.gzip = gzip;
+    this.ndjson = ndjson;
+  }
+
+  public void write(@NonNull ExportedPayload exportedPayload) throws IOException {
+    if (ndjson) {
+      writeLines(exportedPayload);
+    } else {
+      writeFiles(exportedPayload);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException error = null;
+    for (val out : studyStreams.values()) {
+      try {
+        synchronized (out) {
+          out.close();
+        }
+      } catch (IOException e) {
+        error = e;
+      }
+    }
+    studyStreams.clear();
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void writeFiles(ExportedPayload exportedPayload) throws IOException {
+    val studyDir = outputDir.resolve(exportedPayload.getStudyId());
+    createDirectories(studyDir);
+    for (val jsonNode : exportedPayload.getPayloads()) {
+      try (val out = openStream(studyDir.resolve(resolveFileName(jsonNode)))) {
+        prettyJsonWriter().writeValue(out, jsonNode);
+      }
+    }
+  }
+
+  private void writeLines(ExportedPayload exportedPayload) throws IOException {
+    val out = getStudyStream(exportedPayload.getStudyId());
+    synchronized (out) {
+      OutputStream unclosed = new UnclosedOutputStream(out);
+      try (val lines = gzip ? new GZIPOutputStream(unclosed, BUFFER_SIZE) : unclosed) {
+        for (val jsonNode : exportedPayload.getPayloads()) {
+          lines.write(jsonWriter().writeValueAsBytes(jsonNode));
+          lines.write(NEW_LINE);
+        }
+      }
+    }
+  }
+
+  private OutputStream getStudyStream(String studyId) throws IOException {
+    try {
+      return studyStreams.computeIfAbsent(
+          studyId,
+          x -> {
+            try {
+              createDirectories(outputDir);
+              val file = outputDir.resolve(withExtension(studyId + ".ndjson"));
+              val channel = FileChannel.open(file, CREATE, READ, WRITE);
+              if (!gzip) {
+                truncateToLastLine(channel);
+              }
+              channel.position(channel.size());
+              return new ForcedOutputStream(channel);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private String resolveFileName(JsonNode jsonNode) {
+    if (jsonNode.has(ANALYSIS_ID)) {
+      return withExtension(format("%s.json", jsonNode.path(ANALYSIS_ID).textValue()));
+    }
+    return withExtension(format("payload_%s.json", fileCount.getAndIncrement()));
+  }
+
+  private String withExtension(String fileName) {
+    return gzip ? fileName + ".gz" : fileName;
+  }
+
+  private OutputStream openStream(Path file) throws IOException {
+    val out = new ForcedOutputStream(FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING));
+    return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+  }
+
+  /** Truncates the file after its last new line, dropping a partially written last line */
+  private static void truncateToLastLine(FileChannel channel) throws IOException {
+    val buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    long end = channel.size();
+    while (end > 0) {
+      val start = Math.max(0, end - BUFFER_SIZE);
+      buffer.clear().limit((int) (end - start));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          break;
+        }
+      }
+      for (int i = buffer.position() - 1; i >= 0; i--) {
+        if (buffer.get(i) == NEW_LINE) {
+          channel.truncate(start + i + 1);
+          return;
+        }
+      }
+      end = start;
+    }
+    channel.truncate(0);
+  }
+
+  /** Forces the written bytes to disk on every flush, not only to the operating system */
+  private static class ForcedOutputStream extends BufferedOutputStream {
+    private final FileChannel channel;
+
+    ForcedOutputStream(FileChannel channel) {
+      super(Channels.newOutputStream(channel), BUFFER_SIZE);
+      this.channel = channel;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+      super.flush();
+      channel.force(false);
+    }
+  }
+
+  /**
+   * Flushes instead of closing the wrapped stream, so that a gzip member or a batch of lines can be
+   * closed without closing the study file. The study file itself is closed by {@link #close()}.
+   */
+  private static class UnclosedOutputStream extends FilterOutputStream {
+
+    UnclosedOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
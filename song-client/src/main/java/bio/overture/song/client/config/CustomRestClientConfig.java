@@ -1,5 +1,6 @@
 package bio.overture.song.client.config;
 
+import bio.overture.song.sdk.config.HttpTransport;
 import bio.overture.song.sdk.config.RestClientConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,4 +18,12 @@ public class CustomRestClientConfig implements RestClientConfig {
   private String serverUrl;
   private String programName;
   private boolean debug;
+  private boolean preferSmile;
+  private boolean gzipRequests;
+  @Builder.Default private HttpTransport transport = HttpTransport.SIMPLE;
+  @Builder.Default private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+  @Builder.Default private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  @Builder.Default private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+  private long readTimeout;
+  @Builder.Default private long keepAlive = DEFAULT_KEEP_ALIVE;
 }
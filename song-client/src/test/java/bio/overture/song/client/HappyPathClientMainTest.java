@@ -32,6 +32,8 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import bio.overture.song.client.cli.ClientMain;
@@ -53,13 +55,19 @@ import bio.overture.song.sdk.SongApi;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 import lombok.Lombok;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -263,6 +271,118 @@ public class HappyPathClientMainTest extends AbstractClientMainTest {
         objectToTree(expectedSubmitResponse), "submit", "--file", file.getAbsolutePath());
   }
 
+  @Test
+  @SneakyThrows
+  public void testBulkSubmit() {
+    val inputDir = tmp.newFolder().toPath();
+    val nestedDir = Files.createDirectory(inputDir.resolve("nested"));
+    val payloadFiles =
+        List.of(
+            inputDir.resolve("a.json"), inputDir.resolve("b.json"), nestedDir.resolve("c.json"));
+    Files.write(inputDir.resolve("ignored.txt"), DUMMY_PAYLOAD.toString().getBytes());
+    for (val payloadFile : payloadFiles) {
+      Files.write(payloadFile, DUMMY_PAYLOAD.toString().getBytes());
+    }
+    when(songApi.submit(DUMMY_STUDY_ID, DUMMY_PAYLOAD.toString()))
+        .thenReturn(SubmitResponse.builder().analysisId(DUMMY_ANALYSIS_ID).status("ok").build());
+
+    val checkpoint = tmp.getRoot().toPath().resolve("bulk.checkpoint");
+    val results = tmp.getRoot().toPath().resolve("bulk.tsv");
+    val args =
+        new String[] {
+          "bulk-submit",
+          "-d",
+          inputDir.toString(),
+          "-t",
+          "2",
+          "-c",
+          checkpoint.toString(),
+          "-o",
+          results.toString()
+        };
+
+    // Assert every json file is submitted and recorded
+    val c1 = executeMain(args);
+    assertEquals(0, getExitCode().intValue());
+    assertTrue(isBlank(c1.getErr()));
+    assertTrue(c1.getOut().contains("Submitted: 3, Failed: 0, Resumed from checkpoint: 0"));
+    assertEquals(3, Files.readAllLines(checkpoint).size());
+    val resultLines1 = Files.readAllLines(results);
+    assertEquals(4, resultLines1.size());
+    for (val payloadFile : payloadFiles) {
+      assertTrue(resultLines1.contains(payloadFile + "\tSUBMITTED\t" + DUMMY_ANALYSIS_ID + "\t"));
+    }
+
+    // Assert a rerun resumes from the checkpoint without resubmitting
+    val c2 = executeMain(args);
+    assertEquals(0, getExitCode().intValue());
+    assertTrue(c2.getOut().contains("Submitted: 0, Failed: 0, Resumed from checkpoint: 3"));
+    verify(songApi, times(3)).submit(DUMMY_STUDY_ID, DUMMY_PAYLOAD.toString());
+    val resultLines2 = Files.readAllLines(results);
+    for (val payloadFile : payloadFiles) {
+      assertTrue(resultLines2.contains(payloadFile + "\tRESUMED\t" + DUMMY_ANALYSIS_ID + "\t"));
+    }
+
+    // Assert the checkpoint is keyed on relative paths, so a differently spelled input dir resumes
+    assertTrue(Files.readAllLines(checkpoint).contains("nested/c.json\t" + DUMMY_ANALYSIS_ID));
+    args[2] = nestedDir.resolve("..").toString();
+    val c3 = executeMain(args);
+    assertEquals(0, getExitCode().intValue());
+    assertTrue(c3.getOut().contains("Submitted: 0, Failed: 0, Resumed from checkpoint: 3"));
+    verify(songApi, times(3)).submit(DUMMY_STUDY_ID, DUMMY_PAYLOAD.toString());
+  }
+
+  @Test
+  @SneakyThrows
+  public void testBulkSubmitNdjson() {
+    val otherPayload = mapper().createObjectNode().put("study", "other");
+    val ndjson = tmp.newFile("payloads.ndjson").toPath();
+    Files.write(ndjson, List.of(DUMMY_PAYLOAD.toString(), "", otherPayload.toString()));
+    when(songApi.submit(DUMMY_STUDY_ID, DUMMY_PAYLOAD.toString()))
+        .thenReturn(SubmitResponse.builder().analysisId(DUMMY_ANALYSIS_ID).status("ok").build());
+    when(songApi.submit(DUMMY_STUDY_ID, otherPayload.toString()))
+        .thenThrow(new IllegalStateException("bad\npayload"));
+
+    val c1 = executeMain("bulk-submit", "--file", ndjson.toString());
+    assertEquals(1, getExitCode().intValue());
+    assertTrue(c1.getErr().contains("1 payloads failed to submit"));
+    assertTrue(c1.getOut().contains("Submitted: 1, Failed: 1, Resumed from checkpoint: 0"));
+
+    val checkpoint = ndjson.resolveSibling("payloads.ndjson.checkpoint");
+    assertEquals(
+        List.of("payloads.ndjson:1\t" + DUMMY_ANALYSIS_ID), Files.readAllLines(checkpoint));
+    val resultLines = Files.readAllLines(ndjson.resolveSibling("payloads.ndjson.results.tsv"));
+    assertEquals(3, resultLines.size());
+    assertTrue(resultLines.contains(ndjson + ":3\tFAILED\t\tbad payload"));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testVerifyFiles() {
+    val inputDir = tmp.newFolder().toPath();
+    val content = randomGenerator.generateRandomAsciiString(64).getBytes();
+    Files.write(inputDir.resolve("file1.bam"), content);
+    val file =
+        new FileDTO()
+            .setFileName("file1.bam")
+            .setObjectId(DUMMY_OBJECT_ID)
+            .setFileSize((long) content.length)
+            .setFileMd5sum(Hashing.md5().hashBytes(content).toString());
+    when(songApi.getAnalysisFiles(DUMMY_STUDY_ID, DUMMY_ANALYSIS_ID)).thenReturn(List.of(file));
+
+    val c1 = executeMain("verify-files", "-a", DUMMY_ANALYSIS_ID, "-d", inputDir.toString());
+    assertEquals(0, getExitCode().intValue());
+    assertTrue(isBlank(c1.getErr()));
+    assertTrue(c1.getOut().contains("Verified 1 files from 1 analyses: 1 ok, 0 failed"));
+
+    Files.write(
+        inputDir.resolve("file1.bam"),
+        new StringBuilder(new String(content)).reverse().toString().getBytes());
+    val c2 = executeMain("verify-files", "-a", DUMMY_ANALYSIS_ID, "-d", inputDir.toString());
+    assertEquals(1, getExitCode().intValue());
+    assertTrue(c2.getErr().contains("[MD5_MISMATCH] analysisId=" + DUMMY_ANALYSIS_ID));
+  }
+
   @Test
   public void testAnalysisSearch() {
     val expectedAnalysis =
@@ -517,6 +637,75 @@ public class HappyPathClientMainTest extends AbstractClientMainTest {
     assertExport(studyDir2, map);
   }
 
+  @Test
+  @SneakyThrows
+  public void testExportNdjsonGzipResume() {
+    val payloads = Maps.<String, JsonNode>newLinkedHashMap();
+    IntStream.range(0, 25)
+        .mapToObj(x -> randomGenerator.generateRandomUUIDAsString())
+        .forEach(x -> payloads.put(x, mapper().createObjectNode().put("analysisId", x)));
+    val analysisIds = Lists.newArrayList(payloads.keySet());
+    val failingId = analysisIds.get(24);
+    val failing = new AtomicBoolean(true);
+    when(songApi.exportAnalyses(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<String> ids = invocation.getArgument(0);
+              if (failing.get() && ids.contains(failingId)) {
+                throw new IllegalStateException("export failed");
+              }
+              val batch = ids.stream().map(payloads::get).collect(toUnmodifiableList());
+              return List.of(createExportedPayload(DUMMY_STUDY_ID, batch));
+            });
+
+    val inputFile = tmp.newFile().toPath();
+    Files.write(inputFile, analysisIds);
+    val outputDir = tmp.newFolder().toPath();
+    val args =
+        new String[] {
+          "export",
+          "-f",
+          inputFile.toString(),
+          "-t",
+          "2",
+          "--ndjson",
+          "--gzip",
+          "-o",
+          outputDir.toString()
+        };
+
+    // The batch containing the failing id is not checkpointed
+    val c1 = executeMain(args);
+    assertEquals(1, getExitCode().intValue());
+    assertTrue(c1.getErr().contains("export failed"));
+    val checkpointed = Files.readAllLines(outputDir.resolve("export.checkpoint"));
+    assertFalse(checkpointed.contains(failingId));
+    assertTrue(checkpointed.size() < analysisIds.size());
+
+    // A rerun only exports the remaining ids and appends them to the same file
+    failing.set(false);
+    val c2 = executeMain(args);
+    assertEquals(0, getExitCode().intValue());
+    assertTrue(isBlank(c2.getErr()));
+    assertTrue(c2.getOut().contains("Skipped " + checkpointed.size() + " analysisIds"));
+    assertEquals(
+        Sets.newHashSet(analysisIds),
+        Sets.newHashSet(Files.readAllLines(outputDir.resolve("export.checkpoint"))));
+
+    val ndjsonFile = outputDir.resolve(DUMMY_STUDY_ID + ".ndjson.gz");
+    try (val reader =
+        new BufferedReader(
+            new InputStreamReader(new GZIPInputStream(Files.newInputStream(ndjsonFile))))) {
+      val actual = Lists.<JsonNode>newArrayList();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        actual.add(readTree(line));
+      }
+      assertEquals(analysisIds.size(), actual.size());
+      assertEquals(Sets.newHashSet(payloads.values()), Sets.newHashSet(actual));
+    }
+  }
+
   @SneakyThrows
   private static void assertExport(Path studyDir, Map<String, JsonNode> data) {
     val numFiles =
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import lombok.val;
+import org.junit.Test;
+
+public class AdaptiveBatchSizerTest {
+
+  private static final Duration TARGET_LATENCY = Duration.ofSeconds(2);
+  private static final long MILLIS = 1_000_000L;
+
+  @Test
+  public void testInitialBatchSize() {
+    assertEquals(10, new AdaptiveBatchSizer(1, 10, 100, TARGET_LATENCY).getBatchSize());
+  }
+
+  @Test
+  public void testFastBatchesGrowHalfwayToClampedIdealSize() {
+    val sizer = new AdaptiveBatchSizer(1, 10, 100, TARGET_LATENCY);
+    // 10 analyses in 100ms is 10ms per analysis, so 200 would take the target latency
+    sizer.onSuccess(10, 100 * MILLIS);
+    assertEquals(55, sizer.getBatchSize());
+
+    val unclamped = new AdaptiveBatchSizer(1, 10, 1000, TARGET_LATENCY);
+    unclamped.onSuccess(10, 100 * MILLIS);
+    assertEquals(105, unclamped.getBatchSize());
+  }
+
+  @Test
+  public void testSlowBatchesShrink() {
+    val sizer = new AdaptiveBatchSizer(1, 50, 100, TARGET_LATENCY);
+    // 50 analyses in 10s is 200ms per analysis, so 10 would take the target latency
+    sizer.onSuccess(50, 10_000 * MILLIS);
+    assertEquals(30, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testConvergesToIdealSize() {
+    val sizer = new AdaptiveBatchSizer(1, 100, 1000, TARGET_LATENCY);
+    for (int i = 0; i < 20; i++) {
+      val batchSize = sizer.getBatchSize();
+      sizer.onSuccess(batchSize, batchSize * 50 * MILLIS);
+    }
+    // Halfway steps are rounded up, so the size settles within one of the ideal size
+    assertEquals(41, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testFailureHalvesBatchSizeDownToMinimum() {
+    val sizer = new AdaptiveBatchSizer(2, 10, 100, TARGET_LATENCY);
+    sizer.onFailure();
+    assertEquals(5, sizer.getBatchSize());
+    sizer.onFailure();
+    assertEquals(2, sizer.getBatchSize());
+    sizer.onFailure();
+    assertEquals(2, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testZeroLatencyGrowsToMaximum() {
+    val sizer = new AdaptiveBatchSizer(1, 10, 100, TARGET_LATENCY);
+    for (int i = 0; i < 10; i++) {
+      sizer.onSuccess(sizer.getBatchSize(), 0);
+    }
+    assertEquals(100, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testInvalidSizesRejected() {
+    assertInvalid(0, 1, 10);
+    assertInvalid(5, 4, 10);
+    assertInvalid(1, 11, 10);
+  }
+
+  private static void assertInvalid(int min, int initial, int max) {
+    try {
+      new AdaptiveBatchSizer(min, initial, max, TARGET_LATENCY);
+      throw new AssertionError("Expected the batch sizes to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("batch size"));
+    }
+  }
+}
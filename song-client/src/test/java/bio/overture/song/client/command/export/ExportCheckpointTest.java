@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command.export;
+
+import static bio.overture.song.client.command.export.ExportCheckpoint.openExportCheckpoint;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExportCheckpointTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  @SneakyThrows
+  public void testNewCheckpointIsEmpty() {
+    val file = tmp.getRoot().toPath().resolve("export.checkpoint");
+    try (val checkpoint = openExportCheckpoint(file)) {
+      assertTrue(checkpoint.getCompletedIds().isEmpty());
+    }
+    assertTrue(Files.exists(file));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testRecordedIdsAreCompletedOnReopen() {
+    val file = tmp.getRoot().toPath().resolve("export.checkpoint");
+    try (val checkpoint = openExportCheckpoint(file)) {
+      checkpoint.record(List.of("AN1", "AN2"));
+      // Ids recorded in this run are not part of the completed ids read on open
+      assertTrue(checkpoint.getCompletedIds().isEmpty());
+    }
+    try (val checkpoint = openExportCheckpoint(file)) {
+      assertEquals(Set.of("AN1", "AN2"), checkpoint.getCompletedIds());
+      checkpoint.record(List.of("AN3"));
+    }
+    try (val checkpoint = openExportCheckpoint(file)) {
+      assertEquals(Set.of("AN1", "AN2", "AN3"), checkpoint.getCompletedIds());
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void testRecordedIdsAreFlushedImmediately() {
+    val file = tmp.getRoot().toPath().resolve("export.checkpoint");
+    try (val checkpoint = openExportCheckpoint(file)) {
+      checkpoint.record(List.of("AN1"));
+      assertEquals(List.of("AN1"), Files.readAllLines(file, UTF_8));
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void testBlankLinesAndWhitespaceIgnored() {
+    val file = tmp.getRoot().toPath().resolve("export.checkpoint");
+    Files.write(file, List.of(" AN1 ", "", "AN2", "   "), UTF_8);
+    try (val checkpoint = openExportCheckpoint(file)) {
+      assertEquals(Set.of("AN1", "AN2"), checkpoint.getCompletedIds());
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.client.command.export;
+
+import static bio.overture.song.core.model.ExportedPayload.createExportedPayload;
+import static bio.overture.song.core.utils.JsonUtils.readTree;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+import bio.overture.song.core.utils.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.io.ByteStreams;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExportedPayloadWriterTest {
+
+  private static final String STUDY_ID = "ABC123";
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  @SneakyThrows
+  public void testGzipNdjsonReadableAfterEveryWrite() {
+    val outputDir = tmp.getRoot().toPath();
+    val file = outputDir.resolve(STUDY_ID + ".ndjson.gz");
+    try (val writer = new ExportedPayloadWriter(outputDir, true, true)) {
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN1", "AN2")));
+      // Readable before the writer is closed, as after a crash
+      assertEquals(payloads("AN1", "AN2"), readGzipLines(file));
+
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN3")));
+      assertEquals(payloads("AN1", "AN2", "AN3"), readGzipLines(file));
+    }
+
+    // A rerun appends to the existing file
+    try (val writer = new ExportedPayloadWriter(outputDir, true, true)) {
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN4")));
+    }
+    assertEquals(payloads("AN1", "AN2", "AN3", "AN4"), readGzipLines(file));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testNdjsonReadableAfterEveryWrite() {
+    val outputDir = tmp.getRoot().toPath();
+    val file = outputDir.resolve(STUDY_ID + ".ndjson");
+    try (val writer = new ExportedPayloadWriter(outputDir, false, true)) {
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN1", "AN2")));
+      assertEquals(payloads("AN1", "AN2"), toPayloads(Files.readAllLines(file, UTF_8)));
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void testNdjsonPartialLineTruncatedOnResume() {
+    val outputDir = tmp.getRoot().toPath();
+    val file = outputDir.resolve(STUDY_ID + ".ndjson");
+    try (val writer = new ExportedPayloadWriter(outputDir, false, true)) {
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN1", "AN2")));
+    }
+
+    // A crash in the middle of a write leaves a partial last line
+    Files.write(file, "{\"analysisId\":\"AN3\",\"stu".getBytes(UTF_8), APPEND);
+    try (val writer = new ExportedPayloadWriter(outputDir, false, true)) {
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN3")));
+    }
+    assertEquals(payloads("AN1", "AN2", "AN3"), toPayloads(Files.readAllLines(file, UTF_8)));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testGzipFilePerAnalysis() {
+    val outputDir = tmp.getRoot().toPath();
+    try (val writer = new ExportedPayloadWriter(outputDir, true, false)) {
+      writer.write(createExportedPayload(STUDY_ID, payloads("AN1", "AN2")));
+    }
+    for (val payload : payloads("AN1", "AN2")) {
+      val file =
+          outputDir.resolve(STUDY_ID).resolve(payload.path("analysisId").textValue() + ".json.gz");
+      try (val in = new GZIPInputStream(Files.newInputStream(file))) {
+        assertEquals(payload, readTree(in));
+      }
+    }
+  }
+
+  private static List<JsonNode> payloads(String... analysisIds) {
+    return Arrays.stream(analysisIds)
+        .map(id -> (JsonNode) JsonUtils.ObjectNode().put("analysisId", id).put("studyId", STUDY_ID))
+        .collect(toList());
+  }
+
+  @SneakyThrows
+  private static List<JsonNode> readGzipLines(Path file) {
+    try (val in = new GZIPInputStream(Files.newInputStream(file))) {
+      val text = new String(ByteStreams.toByteArray(in), UTF_8);
+      return toPayloads(Arrays.asList(text.split("\n")));
+    }
+  }
+
+  private static List<JsonNode> toPayloads(List<String> lines) {
+    return lines.stream().map(ExportedPayloadWriterTest::parse).collect(toList());
+  }
+
+  @SneakyThrows
+  private static JsonNode parse(String json) {
+    return readTree(json);
+  }
+}
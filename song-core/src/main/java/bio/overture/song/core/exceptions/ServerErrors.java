@@ -124,7 +124,8 @@ public enum ServerErrors implements ServerError {
   UNKNOWN_ERROR(INTERNAL_SERVER_ERROR),
   ILLEGAL_ANALYSIS_TYPE_NAME(BAD_REQUEST),
   DUPLICATE_ANALYSIS_SCHEMA(INTERNAL_SERVER_ERROR),
-  DUPLICATE_ANALYSIS_DATA(INTERNAL_SERVER_ERROR);
+  DUPLICATE_ANALYSIS_DATA(INTERNAL_SERVER_ERROR),
+  PUBLISH_JOB_NOT_FOUND(NOT_FOUND);
 
   private static final String ERROR_ID_SEPARATOR = ".";
   private static final String ENUM_NAME_SEPARATOR = "_";
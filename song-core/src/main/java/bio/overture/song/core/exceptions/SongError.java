@@ -26,6 +26,7 @@ import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.time.format.DateTimeFormatter.ISO_ZONED_DATE_TIME;
 import static java.util.stream.Collectors.toUnmodifiableList;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 
 import bio.overture.song.core.utils.JsonUtils;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -116,7 +117,8 @@ public class SongError {
 
   @JsonIgnore
   public ResponseEntity<String> getResponseEntity() {
-    return ResponseEntity.status(httpStatusCode).body(toJson());
+    // Errors are always JSON, even when a binary format was negotiated for the response
+    return ResponseEntity.status(httpStatusCode).contentType(APPLICATION_JSON).body(toJson());
   }
 
   public static ResponseEntity<String> error(
@@ -6,6 +6,7 @@ import static lombok.AccessLevel.PRIVATE;
 
 import bio.overture.song.core.model.PageDTO;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import lombok.NoArgsConstructor;
@@ -20,6 +21,12 @@ public class Deserialization {
   @SneakyThrows
   public static <T> PageDTO<T> deserializePage(
       @NonNull String body, @NonNull Class<T> contentType) {
+    return deserializePage(MAPPER.readTree(body), contentType);
+  }
+
+  @SneakyThrows
+  public static <T> PageDTO<T> deserializePage(
+      @NonNull JsonNode body, @NonNull Class<T> contentType) {
     val reader = MAPPER.readerFor(new TypeReference<PageDTO<T>>() {});
     val erasedPage = reader.<PageDTO<T>>readValue(body);
     val contents =
@@ -36,6 +43,11 @@ public class Deserialization {
 
   @SneakyThrows
   public static <T> List<T> deserializeList(@NonNull String body, @NonNull Class<T> contentType) {
+    return deserializeList(MAPPER.readTree(body), contentType);
+  }
+
+  @SneakyThrows
+  public static <T> List<T> deserializeList(@NonNull JsonNode body, @NonNull Class<T> contentType) {
     val reader = MAPPER.readerFor(new TypeReference<List<T>>() {});
     val erasedList = reader.<List<T>>readValue(body);
     return erasedList.stream()
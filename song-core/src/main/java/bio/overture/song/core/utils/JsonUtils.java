@@ -26,20 +26,26 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.val;
@@ -50,11 +56,44 @@ public class JsonUtils {
   private static final String SINGLE_QUOTE = "'";
   private static final String DOUBLE_QUOTE = "\"";
 
+  /** Binary JSON format negotiated between the server and the Java SDK */
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  /**
+   * System property that toggles the bytecode-accelerated (Blackbird) databind module. Enabled
+   * unless explicitly set to false.
+   */
+  public static final String FAST_DATABIND_PROPERTY = "song.json.fastDatabind";
+
+  private static final boolean FAST_DATABIND =
+      Boolean.parseBoolean(System.getProperty(FAST_DATABIND_PROPERTY, "true"));
+
   protected static final ObjectMapper mapper = mapper();
 
+  /**
+   * Readers and writers are immutable and thread-safe, and unlike the mapper they are never
+   * reconfigured, so their serializer caches stay warm for the lifetime of the application.
+   */
+  private static final ObjectWriter JSON_WRITER = mapper.writer();
+
+  private static final ObjectWriter PRETTY_JSON_WRITER = mapper.writer(SongPrettyPrinter.instance);
+  private static final ObjectReader JSON_NODE_READER = mapper.readerFor(JsonNode.class);
+  private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new, fully configured mapper. Prefer the shared readers and writers for regular
+   * (de)serialization, and only use this to build a mapper that is configured once and reused.
+   */
   public static ObjectMapper mapper() {
-    val mapper = new ObjectMapper();
+    return configure(new ObjectMapper());
+  }
 
+  /** Creates a new mapper that reads and writes Smile, configured the same as {@link #mapper()} */
+  public static ObjectMapper smileMapper() {
+    return configure(new ObjectMapper(new SmileFactory()));
+  }
+
+  private static ObjectMapper configure(ObjectMapper mapper) {
     /* Register Moduless */
     val specialModule = new SimpleModule();
     specialModule.addDeserializer(String.class, SpecialStringJsonDeserializer.instance);
@@ -69,6 +108,9 @@ public class JsonUtils {
 
     mapper.registerModule(specialModule);
     mapper.registerModule(javaTimeModule);
+    if (FAST_DATABIND) {
+      mapper.registerModule(new BlackbirdModule());
+    }
 
     mapper.disable(DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES);
     mapper.disable(DeserializationFeature.FAIL_ON_UNRESOLVED_OBJECT_IDS);
@@ -83,12 +125,31 @@ public class JsonUtils {
     return mapper;
   }
 
+  /** Creates a new mapper with the mix-ins applied, intended to be built once and reused. */
+  public static ObjectMapper mapperWithMixIns(@NonNull Map<Class<?>, Class<?>> mixIns) {
+    val mapper = mapper();
+    mixIns.forEach(mapper::addMixIn);
+    return mapper;
+  }
+
+  public static ObjectWriter jsonWriter() {
+    return JSON_WRITER;
+  }
+
+  public static ObjectWriter prettyJsonWriter() {
+    return PRETTY_JSON_WRITER;
+  }
+
+  public static ObjectReader jsonReader(@NonNull Class<?> type) {
+    return READERS.computeIfAbsent(type, mapper::readerFor);
+  }
+
   public static JsonNode readTree(String json) throws IOException {
-    return mapper.readTree(json);
+    return JSON_NODE_READER.readTree(json);
   }
 
   public static JsonNode readTree(InputStream in) throws IOException {
-    return mapper.readTree(in);
+    return JSON_NODE_READER.readTree(in);
   }
 
   public static JsonNode objectToTree(@NonNull Object object) {
@@ -101,17 +162,17 @@ public class JsonUtils {
 
   @SneakyThrows
   public static JsonNode read(URL url) {
-    return mapper.readTree(url);
+    return JSON_NODE_READER.readValue(url);
   }
 
   @SneakyThrows
   public static String nodeToJSON(ObjectNode node) {
-    return mapper.writeValueAsString(node);
+    return JSON_WRITER.writeValueAsString(node);
   }
 
   @SneakyThrows
   public static String toJson(Object o) {
-    return mapper.writeValueAsString(o);
+    return JSON_WRITER.writeValueAsString(o);
   }
 
   @SneakyThrows
@@ -140,12 +201,12 @@ public class JsonUtils {
 
   @SneakyThrows
   public static String toPrettyJson(Object o) {
-    return mapper.writer(SongPrettyPrinter.instance).writeValueAsString(o);
+    return PRETTY_JSON_WRITER.writeValueAsString(o);
   }
 
   @SneakyThrows
   public static <T> T fromJson(String json, Class<T> toValue) {
-    return fromJson(mapper.readTree(json), toValue);
+    return fromJson(JSON_NODE_READER.readTree(json), toValue);
   }
 
   public static <T> T fromJson(JsonNode json, Class<T> toValue) {
@@ -163,7 +224,7 @@ public class JsonUtils {
   }
 
   public static <T> T convertValue(Object fromValue, Class<T> toValue) {
-    return mapper().convertValue(fromValue, toValue);
+    return mapper.convertValue(fromValue, toValue);
   }
 
   /**
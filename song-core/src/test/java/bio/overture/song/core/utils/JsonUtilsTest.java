@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.core.utils;
+
+import static bio.overture.song.core.utils.JsonUtils.convertValue;
+import static bio.overture.song.core.utils.JsonUtils.fromJson;
+import static bio.overture.song.core.utils.JsonUtils.jsonReader;
+import static bio.overture.song.core.utils.JsonUtils.mapperWithMixIns;
+import static bio.overture.song.core.utils.JsonUtils.toJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.collect.ImmutableMap;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import org.junit.Test;
+
+public class JsonUtilsTest {
+
+  @Test
+  public void testReadersAreShared() {
+    assertSame(jsonReader(Widget.class), jsonReader(Widget.class));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    val widget = new Widget("w1", "", LocalDateTime.of(2020, 1, 2, 3, 4, 5), List.of());
+    val json = toJson(widget);
+    assertEquals(
+        "{\"name\":\"w1\",\"description\":\"\",\"createdAt\":\"2020-01-02T03:04:05\",\"tags\":[]}",
+        json);
+
+    val result = fromJson(json, Widget.class);
+    assertEquals("w1", result.getName());
+    assertNull(result.getDescription());
+    assertEquals(widget.getCreatedAt(), result.getCreatedAt());
+    assertEquals(result, convertValue(result, Widget.class));
+  }
+
+  @Test
+  public void testMixInsDoNotLeakIntoSharedMapper() {
+    val widget = new Widget("w1", "", null, List.of());
+    val nonEmptyMapper = mapperWithMixIns(ImmutableMap.of(Widget.class, NonEmptyMixin.class));
+
+    assertEquals("{\"name\":\"w1\"}", nonEmptyMapper.valueToTree(widget).toString());
+    assertEquals(
+        "{\"name\":\"w1\",\"description\":\"\",\"createdAt\":null,\"tags\":[]}", toJson(widget));
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Widget {
+    private String name;
+    private String description;
+    private LocalDateTime createdAt;
+    private List<String> tags;
+  }
+
+  @JsonInclude(JsonInclude.Include.NON_EMPTY)
+  public static class NonEmptyMixin {}
+}
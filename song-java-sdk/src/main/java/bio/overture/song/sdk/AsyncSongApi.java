@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk;
+
+import static bio.overture.song.core.exceptions.SongError.parseErrorResponse;
+import static bio.overture.song.core.utils.Deserialization.deserializeList;
+import static bio.overture.song.core.utils.JsonUtils.fromJson;
+import static bio.overture.song.sdk.util.GzipClientHttpRequestInterceptor.MIN_COMPRESSED_REQUEST_SIZE;
+import static bio.overture.song.sdk.util.GzipClientHttpRequestInterceptor.compress;
+import static bio.overture.song.sdk.util.GzipClientHttpRequestInterceptor.decompress;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static lombok.AccessLevel.PRIVATE;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import bio.overture.song.core.exceptions.ServerException;
+import bio.overture.song.core.model.Analysis;
+import bio.overture.song.core.model.ExportedPayload;
+import bio.overture.song.core.model.FileDTO;
+import bio.overture.song.core.model.SubmitResponse;
+import bio.overture.song.sdk.config.RestClientConfig;
+import bio.overture.song.sdk.util.InFlightLimiter;
+import bio.overture.song.sdk.web.Endpoint;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Asynchronous counterpart of {@link SongApi}. Requests are sent with the non-blocking JDK {@link
+ * HttpClient}, so many requests can be in flight on a few threads. Requests over the in-flight
+ * limit are queued rather than blocking the caller. Failed requests complete exceptionally with a
+ * {@link ServerException}.
+ *
+ * <p>Request bodies are gzipped like those of {@link SongApi} when the rest client config enables
+ * gzipRequests. Unlike {@link SongApi}, responses are always requested as JSON, ignoring
+ * preferSmile, and failed requests are not retried.
+ */
+@RequiredArgsConstructor(access = PRIVATE)
+public class AsyncSongApi implements AutoCloseable {
+
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 256;
+  private static final String GZIP = "gzip";
+
+  @NonNull private final HttpClient httpClient;
+  @NonNull private final Endpoint endpoint;
+  @NonNull private final String accessToken;
+  @NonNull private final InFlightLimiter limiter;
+
+  /** Timeout of a whole request, or null to wait indefinitely */
+  private final Duration requestTimeout;
+
+  private final boolean compressRequests;
+
+  /** Executor created for this api and shut down by {@link #close()}, or null */
+  private final ExecutorService ownedExecutor;
+
+  /**
+   * Creates an api that runs the http client on its own thread pool. Close the api to shut the pool
+   * down.
+   */
+  public static AsyncSongApi createAsyncSongApi(
+      @NonNull RestClientConfig restClientConfig, int maxInFlightRequests) {
+    val threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    val executor =
+        Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setNameFormat("song-async-%d").setDaemon(true).build());
+    return createAsyncSongApi(restClientConfig, maxInFlightRequests, executor, executor);
+  }
+
+  /**
+   * Creates an api that runs the http client on the input executor. The executor is owned by the
+   * caller, and is not shut down when the api is closed.
+   */
+  public static AsyncSongApi createAsyncSongApi(
+      @NonNull RestClientConfig restClientConfig,
+      int maxInFlightRequests,
+      @NonNull Executor executor) {
+    return createAsyncSongApi(restClientConfig, maxInFlightRequests, executor, null);
+  }
+
+  private static AsyncSongApi createAsyncSongApi(
+      RestClientConfig restClientConfig,
+      int maxInFlightRequests,
+      Executor executor,
+      ExecutorService ownedExecutor) {
+    val httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(restClientConfig.getConnectTimeout()))
+            .executor(executor)
+            .build();
+    val readTimeout = restClientConfig.getReadTimeout();
+    return new AsyncSongApi(
+        httpClient,
+        new Endpoint(restClientConfig.getServerUrl()),
+        restClientConfig.getAccessToken(),
+        new InFlightLimiter(maxInFlightRequests),
+        readTimeout > 0 ? Duration.ofMillis(readTimeout) : null,
+        restClientConfig.isGzipRequests(),
+        ownedExecutor);
+  }
+
+  public CompletableFuture<SubmitResponse> submit(@NonNull String studyId, @NonNull String json) {
+    val request = request(endpoint.submit(studyId));
+    var body = json.getBytes(UTF_8);
+    if (compressRequests && body.length >= MIN_COMPRESSED_REQUEST_SIZE) {
+      body = compressBody(body);
+      request.header(CONTENT_ENCODING, GZIP);
+    }
+    request.POST(BodyPublishers.ofByteArray(body));
+    return send(request, b -> fromJson(b, SubmitResponse.class));
+  }
+
+  public CompletableFuture<Analysis> getAnalysis(
+      @NonNull String studyId, @NonNull String analysisId) {
+    val request = request(endpoint.getAnalysis(studyId, analysisId)).GET();
+    return send(request, body -> fromJson(body, Analysis.class));
+  }
+
+  public CompletableFuture<List<FileDTO>> getAnalysisFiles(
+      @NonNull String studyId, @NonNull String analysisId) {
+    val request = request(endpoint.getAnalysisFiles(studyId, analysisId)).GET();
+    return send(request, body -> deserializeList(body, FileDTO.class));
+  }
+
+  public CompletableFuture<String> publish(
+      @NonNull String studyId, @NonNull String analysisId, boolean ignoreUndefinedMd5) {
+    return put(endpoint.publish(studyId, analysisId, ignoreUndefinedMd5));
+  }
+
+  public CompletableFuture<String> unpublish(@NonNull String studyId, @NonNull String analysisId) {
+    return put(endpoint.unpublish(studyId, analysisId));
+  }
+
+  public CompletableFuture<String> suppress(@NonNull String studyId, @NonNull String analysisId) {
+    return put(endpoint.suppress(studyId, analysisId));
+  }
+
+  public CompletableFuture<List<ExportedPayload>> exportStudy(@NonNull String studyId) {
+    val request = request(endpoint.exportStudy(studyId)).GET();
+    return send(request, body -> deserializeList(body, ExportedPayload.class));
+  }
+
+  public CompletableFuture<List<ExportedPayload>> exportAnalyses(
+      @NonNull List<String> analysisIds) {
+    val request = request(endpoint.exportAnalysisIds(analysisIds)).GET();
+    return send(request, body -> deserializeList(body, ExportedPayload.class));
+  }
+
+  public CompletableFuture<List<Analysis>> idSearch(
+      String studyId, String sampleId, String specimenId, String donorId, String fileId) {
+    val request = request(endpoint.idSearch(studyId, sampleId, specimenId, donorId, fileId)).GET();
+    return send(request, body -> deserializeList(body, Analysis.class));
+  }
+
+  public int getInFlightRequests() {
+    return limiter.getInFlight();
+  }
+
+  /**
+   * Shuts down the thread pool created for this api, if any. Requests still in flight may not
+   * complete.
+   */
+  @Override
+  public void close() {
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+
+  private CompletableFuture<String> put(String url) {
+    return send(request(url).PUT(BodyPublishers.noBody()), Function.identity());
+  }
+
+  private HttpRequest.Builder request(String url) {
+    val builder =
+        HttpRequest.newBuilder(URI.create(url))
+            .header(ACCEPT, APPLICATION_JSON_VALUE)
+            .header(ACCEPT_ENCODING, GZIP)
+            .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+            .header(AUTHORIZATION, "Bearer " + accessToken);
+    if (requestTimeout != null) {
+      builder.timeout(requestTimeout);
+    }
+    return builder;
+  }
+
+  private <T> CompletableFuture<T> send(
+      HttpRequest.Builder request, Function<String, T> converter) {
+    return limiter.submit(
+        () ->
+            httpClient
+                .sendAsync(request.build(), BodyHandlers.ofByteArray())
+                .thenApply(AsyncSongApi::readBody)
+                .thenApply(converter));
+  }
+
+  private static String readBody(HttpResponse<byte[]> response) {
+    val body = decode(response);
+    if (response.statusCode() >= 400) {
+      throw new ServerException(parseErrorResponse(response.statusCode(), body));
+    }
+    return body;
+  }
+
+  private static String decode(HttpResponse<byte[]> response) {
+    val encoding = response.headers().firstValue(CONTENT_ENCODING);
+    if (encoding.isEmpty() || !GZIP.equalsIgnoreCase(encoding.get())) {
+      return new String(response.body(), UTF_8);
+    }
+    try (val in = decompress(new ByteArrayInputStream(response.body()))) {
+      return new String(ByteStreams.toByteArray(in), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte[] compressBody(byte[] body) {
+    try {
+      return compress(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
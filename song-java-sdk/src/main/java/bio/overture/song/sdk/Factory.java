@@ -17,23 +17,42 @@
 
 package bio.overture.song.sdk;
 
+import static bio.overture.song.core.utils.JsonUtils.mapper;
+import static bio.overture.song.core.utils.JsonUtils.smileMapper;
+import static bio.overture.song.sdk.AsyncSongApi.createAsyncSongApi;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import bio.overture.song.core.retry.DefaultRetryListener;
 import bio.overture.song.core.retry.RetryPolicies;
+import bio.overture.song.sdk.config.HttpTransport;
 import bio.overture.song.sdk.config.RestClientConfig;
 import bio.overture.song.sdk.config.RetryConfig;
 import bio.overture.song.sdk.errors.ServerResponseErrorHandler;
 import bio.overture.song.sdk.util.DefaultClientHttpRequestInterceptor;
+import bio.overture.song.sdk.util.GzipClientHttpRequestInterceptor;
 import bio.overture.song.sdk.web.Endpoint;
 import bio.overture.song.sdk.web.RestClient;
+import bio.overture.song.sdk.web.impl.CachingRestClientDecorator;
 import bio.overture.song.sdk.web.impl.DefaultRestClient;
 import bio.overture.song.sdk.web.impl.DefaultRetryRestClientDecorator;
+import bio.overture.song.sdk.web.impl.JdkClientHttpRequestFactory;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.retry.backoff.BackOffPolicy;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.RestTemplate;
@@ -46,8 +65,31 @@ public class Factory {
   @NonNull private final RestClientConfig restClientConfig;
   @NonNull private final RetryConfig retryConfig;
 
+  /**
+   * Maximum number of GET responses cached and revalidated with ETags. Caching is disabled if not
+   * positive.
+   */
+  private final int responseCacheSize;
+
+  /** Creates a factory whose song api does not cache responses */
+  public Factory(@NonNull RestClientConfig restClientConfig, @NonNull RetryConfig retryConfig) {
+    this(restClientConfig, retryConfig, 0);
+  }
+
   public SongApi buildSongApi() {
-    return new SongApi(buildRestClient(restClientConfig, retryConfig), new Endpoint());
+    val restClient = buildRestClient(restClientConfig, retryConfig);
+    if (responseCacheSize > 0) {
+      return new SongApi(buildCachingRestClient(restClient, responseCacheSize), new Endpoint());
+    }
+    return new SongApi(restClient, new Endpoint());
+  }
+
+  public AsyncSongApi buildAsyncSongApi(int maxInFlightRequests) {
+    return createAsyncSongApi(restClientConfig, maxInFlightRequests);
+  }
+
+  public static RestClient buildCachingRestClient(@NonNull RestClient restClient, int maxEntries) {
+    return new CachingRestClientDecorator(restClient, maxEntries);
   }
 
   public static RestClient buildRestClient(@NonNull RestClientConfig restClientConfig) {
@@ -66,12 +108,87 @@ public class Factory {
     val r = new RestTemplate();
     r.setErrorHandler(new ServerResponseErrorHandler());
     r.setUriTemplateHandler(new DefaultUriBuilderFactory(restClientConfig.getServerUrl()));
-    r.setRequestFactory(new SimpleClientHttpRequestFactory());
+    r.setRequestFactory(buildRequestFactory(restClientConfig));
     r.getInterceptors()
-        .add(new DefaultClientHttpRequestInterceptor(restClientConfig.getAccessToken()));
+        .add(
+            new DefaultClientHttpRequestInterceptor(
+                restClientConfig.getAccessToken(), restClientConfig.isPreferSmile()));
+    r.getInterceptors()
+        .add(new GzipClientHttpRequestInterceptor(restClientConfig.isGzipRequests()));
+    if (restClientConfig.isPreferSmile()) {
+      configureSmile(r);
+    }
     return r;
   }
 
+  public static ClientHttpRequestFactory buildRequestFactory(
+      @NonNull RestClientConfig restClientConfig) {
+    val transport = restClientConfig.getTransport();
+    if (transport == HttpTransport.POOLED) {
+      return buildPooledRequestFactory(restClientConfig);
+    } else if (transport == HttpTransport.HTTP2) {
+      return buildHttp2RequestFactory(restClientConfig);
+    }
+    val factory = new SimpleClientHttpRequestFactory();
+    factory.setConnectTimeout(toIntMillis(restClientConfig.getConnectTimeout()));
+    factory.setReadTimeout(toIntMillis(restClientConfig.getReadTimeout()));
+    return factory;
+  }
+
+  private static ClientHttpRequestFactory buildPooledRequestFactory(RestClientConfig config) {
+    val connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(config.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+    val httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(
+                (response, context) -> {
+                  val serverKeepAlive =
+                      DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                          response, context);
+                  return serverKeepAlive > 0
+                      ? Math.min(serverKeepAlive, config.getKeepAlive())
+                      : config.getKeepAlive();
+                })
+            .evictIdleConnections(config.getKeepAlive(), MILLISECONDS)
+            .evictExpiredConnections()
+            .build();
+    val factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+    factory.setConnectTimeout(toIntMillis(config.getConnectTimeout()));
+    factory.setReadTimeout(toIntMillis(config.getReadTimeout()));
+    return factory;
+  }
+
+  private static ClientHttpRequestFactory buildHttp2RequestFactory(RestClientConfig config) {
+    val httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(config.getConnectTimeout()))
+            .build();
+    val readTimeout =
+        config.getReadTimeout() > 0 ? Duration.ofMillis(config.getReadTimeout()) : null;
+    return new JdkClientHttpRequestFactory(httpClient, readTimeout);
+  }
+
+  private static int toIntMillis(long millis) {
+    return (int) Math.min(millis, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decodes JSON and Smile responses with the song mappers, so both formats map to the same
+   * objects. JSON is registered first so request bodies are still sent as JSON.
+   */
+  private static void configureSmile(RestTemplate restTemplate) {
+    val converters = restTemplate.getMessageConverters();
+    converters.removeIf(
+        c ->
+            c instanceof MappingJackson2HttpMessageConverter
+                || c instanceof MappingJackson2SmileHttpMessageConverter);
+    converters.add(new MappingJackson2HttpMessageConverter(mapper()));
+    converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper()));
+  }
+
   private static RetryTemplate buildRetryTemplate(RetryConfig retryConfig) {
     val result = new RetryTemplate();
     result.setBackOffPolicy(defineBackOffPolicy(retryConfig));
@@ -82,8 +199,12 @@ public class Factory {
     return result;
   }
 
+  /** Jitter spreads out the retries of clients that failed at the same time */
   private static BackOffPolicy defineBackOffPolicy(RetryConfig config) {
-    val backOffPolicy = new ExponentialBackOffPolicy();
+    val backOffPolicy =
+        Boolean.TRUE.equals(config.getJitter())
+            ? new ExponentialRandomBackOffPolicy()
+            : new ExponentialBackOffPolicy();
     backOffPolicy.setInitialInterval(config.getInitialBackoff());
     backOffPolicy.setMultiplier(config.getMultiplier());
     return backOffPolicy;
@@ -19,18 +19,42 @@ package bio.overture.song.sdk;
 
 import static bio.overture.song.core.utils.FileIO.checkDirectoryExists;
 import static bio.overture.song.sdk.errors.ManifestClientException.checkManifest;
+import static bio.overture.song.sdk.model.FileVerificationStatus.MD5_MISMATCH;
+import static bio.overture.song.sdk.model.FileVerificationStatus.MISSING;
+import static bio.overture.song.sdk.model.FileVerificationStatus.OK;
+import static bio.overture.song.sdk.model.FileVerificationStatus.SIZE_MISMATCH;
+import static bio.overture.song.sdk.model.FileVerificationStatus.UNREADABLE;
+import static bio.overture.song.sdk.util.FileChecksums.md5;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.collect.Maps.immutableEntry;
 import static java.nio.file.Files.exists;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.size;
 import static java.nio.file.Paths.get;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+import static java.util.Objects.isNull;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.stream.Collectors.toList;
 
 import bio.overture.song.core.model.File;
+import bio.overture.song.core.model.FileDTO;
+import bio.overture.song.sdk.errors.ManifestClientException;
+import bio.overture.song.sdk.model.FileVerification;
 import bio.overture.song.sdk.model.Manifest;
 import bio.overture.song.sdk.model.ManifestEntry;
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
@@ -63,6 +87,89 @@ public class ManifestClient {
     return m;
   }
 
+  /**
+   * Compares the md5 and size of each local file in {@code inputDirname} against the values
+   * registered in SONG for the given analyses, so mismatches are found before publishing. Files are
+   * hashed concurrently, largest first, on {@code numThreads} threads. A file whose size does not
+   * match is not hashed.
+   */
+  public List<FileVerification> verifyFiles(
+      @NonNull String studyId,
+      @NonNull Collection<String> analysisIds,
+      @NonNull String inputDirname,
+      int numThreads)
+      throws IOException, InterruptedException {
+    checkArgument(numThreads > 0, "The number of threads must be greater than 0");
+    val inputDirPath = get(inputDirname);
+    checkDirectoryExists(inputDirPath);
+
+    val files = Lists.<Map.Entry<String, FileDTO>>newArrayList();
+    for (val analysisId : analysisIds) {
+      val analysisFiles = songApi.getAnalysisFiles(studyId, analysisId);
+      checkManifest(!analysisFiles.isEmpty(), "The analysisId '%s' returned 0 files", analysisId);
+      analysisFiles.forEach(f -> files.add(immutableEntry(analysisId, f)));
+    }
+
+    val executorService = newFixedThreadPool(numThreads);
+    try {
+      val futures = Lists.<Future<FileVerification>>newArrayList();
+      files.stream()
+          .sorted(
+              comparing(
+                      (Map.Entry<String, FileDTO> e) -> e.getValue().getFileSize(),
+                      nullsFirst(naturalOrder()))
+                  .reversed())
+          .map(
+              e -> executorService.submit(() -> verifyFile(inputDirPath, e.getKey(), e.getValue())))
+          .forEach(futures::add);
+      val results = Lists.<FileVerification>newArrayList();
+      for (val future : futures) {
+        results.add(getResult(future));
+      }
+      return results;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static FileVerification getResult(Future<FileVerification> future)
+      throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw new ManifestClientException(e.getCause());
+    }
+  }
+
+  private static FileVerification verifyFile(Path inputDir, String analysisId, FileDTO f) {
+    val path = inputDir.resolve(f.getFileName()).toAbsolutePath().normalize();
+    val builder =
+        FileVerification.builder()
+            .analysisId(analysisId)
+            .objectId(f.getObjectId())
+            .fileName(path.toString())
+            .expectedMd5sum(f.getFileMd5sum())
+            .expectedSize(f.getFileSize());
+    if (!isRegularFile(path)) {
+      return builder.status(MISSING).message("The file does not exist").build();
+    }
+    try {
+      val actualSize = size(path);
+      builder.actualSize(actualSize);
+      if (!isNull(f.getFileSize()) && f.getFileSize() != actualSize) {
+        return builder.status(SIZE_MISMATCH).build();
+      }
+      val actualMd5sum = md5(path);
+      builder.actualMd5sum(actualMd5sum);
+      if (!actualMd5sum.equalsIgnoreCase(nullToEmpty(f.getFileMd5sum()))) {
+        return builder.status(MD5_MISMATCH).build();
+      }
+      return builder.status(OK).build();
+    } catch (IOException e) {
+      return builder.status(UNREADABLE).message(e.getMessage()).build();
+    }
+  }
+
   private static Manifest createManifest(
       Path inputDir, String analysisId, @NonNull List<? extends File> files) throws IOException {
     val manifest = new Manifest(analysisId);
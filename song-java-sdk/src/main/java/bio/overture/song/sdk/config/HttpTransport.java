@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.config;
+
+/** HTTP client used by the SDK to talk to the song server */
+public enum HttpTransport {
+
+  /** A new {@code HttpURLConnection} per call, relying on the JDK's implicit keep-alive */
+  SIMPLE,
+
+  /** Apache HttpClient with an explicit connection pool */
+  POOLED,
+
+  /** The JDK HttpClient, negotiating HTTP/2 and falling back to HTTP/1.1 */
+  HTTP2
+}
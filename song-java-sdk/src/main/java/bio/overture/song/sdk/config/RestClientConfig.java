@@ -17,9 +17,55 @@
 
 package bio.overture.song.sdk.config;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 public interface RestClientConfig {
 
+  int DEFAULT_MAX_CONNECTIONS = 50;
+  int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+  long DEFAULT_CONNECT_TIMEOUT = SECONDS.toMillis(30L);
+  long DEFAULT_KEEP_ALIVE = SECONDS.toMillis(30L);
+
   String getServerUrl();
 
   String getAccessToken();
+
+  /** Ask the server for Smile instead of JSON for structured responses */
+  default boolean isPreferSmile() {
+    return false;
+  }
+
+  /** Gzip request bodies. Requires a server that accepts gzip encoded requests */
+  default boolean isGzipRequests() {
+    return false;
+  }
+
+  default HttpTransport getTransport() {
+    return HttpTransport.SIMPLE;
+  }
+
+  /** Maximum open connections of the pooled transport */
+  default int getMaxConnections() {
+    return DEFAULT_MAX_CONNECTIONS;
+  }
+
+  /** Maximum open connections to a single host of the pooled transport */
+  default int getMaxConnectionsPerRoute() {
+    return DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  }
+
+  /** Connect timeout in milliseconds */
+  default long getConnectTimeout() {
+    return DEFAULT_CONNECT_TIMEOUT;
+  }
+
+  /** Read timeout in milliseconds. Zero waits indefinitely */
+  default long getReadTimeout() {
+    return 0L;
+  }
+
+  /** Time in milliseconds an idle pooled connection is kept open */
+  default long getKeepAlive() {
+    return DEFAULT_KEEP_ALIVE;
+  }
 }
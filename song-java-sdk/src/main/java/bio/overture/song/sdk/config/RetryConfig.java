@@ -24,4 +24,9 @@ public interface RetryConfig {
   Long getInitialBackoff();
 
   Double getMultiplier();
+
+  /** Randomize each backoff interval between its exponential value and the next one */
+  default Boolean getJitter() {
+    return false;
+  }
 }
@@ -16,6 +16,7 @@
  */
 package bio.overture.song.sdk.config.impl;
 
+import bio.overture.song.sdk.config.HttpTransport;
 import bio.overture.song.sdk.config.RestClientConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -32,4 +33,12 @@ public class DefaultRestClientConfig implements RestClientConfig {
 
   private String serverUrl;
   private String accessToken;
+  private boolean preferSmile;
+  private boolean gzipRequests;
+  @Builder.Default private HttpTransport transport = HttpTransport.SIMPLE;
+  @Builder.Default private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+  @Builder.Default private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  @Builder.Default private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+  private long readTimeout;
+  @Builder.Default private long keepAlive = DEFAULT_KEEP_ALIVE;
 }
@@ -41,4 +41,6 @@ public class DefaultRetryConfig implements RetryConfig {
   @Builder.Default private Long initialBackoff = DEFAULT_INITIAL_BACKOFF_INTERVAL;
 
   @Builder.Default private Double multiplier = DEFAULT_MULTIPLIER;
+
+  @Builder.Default private Boolean jitter = true;
 }
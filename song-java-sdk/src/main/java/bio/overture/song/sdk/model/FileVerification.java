@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.model;
+
+import static bio.overture.song.sdk.model.FileVerificationStatus.OK;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/** Result of comparing a local file against the md5 and size registered for it in SONG. */
+@Value
+@Builder
+public class FileVerification {
+
+  @NonNull String analysisId;
+  @NonNull String objectId;
+  @NonNull String fileName;
+  String expectedMd5sum;
+  Long expectedSize;
+  String actualMd5sum;
+  Long actualSize;
+  @NonNull FileVerificationStatus status;
+  String message;
+
+  public boolean isOk() {
+    return status == OK;
+  }
+}
@@ -17,16 +17,20 @@
 
 package bio.overture.song.sdk.util;
 
+import static bio.overture.song.core.utils.JsonUtils.APPLICATION_SMILE_VALUE;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
 
 import java.io.IOException;
+import java.util.List;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import org.springframework.http.HttpRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
@@ -34,18 +38,42 @@ import org.springframework.http.client.ClientHttpResponse;
 @RequiredArgsConstructor
 public class DefaultClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
 
+  private static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+  private static final MediaType APPLICATION_JSON_FALLBACK =
+      MediaType.valueOf("application/json;q=0.9");
+
   @NonNull private final String accessToken;
+  private final boolean preferSmile;
+
+  public DefaultClientHttpRequestInterceptor(@NonNull String accessToken) {
+    this(accessToken, false);
+  }
 
   @Override
   public ClientHttpResponse intercept(
       HttpRequest httpRequest, byte[] bytes, ClientHttpRequestExecution clientHttpRequestExecution)
       throws IOException {
     val h = httpRequest.getHeaders();
+    val accept = resolveAccept(h.getAccept());
     h.remove(CONTENT_TYPE);
     h.remove(ACCEPT);
-    h.setAccept(newArrayList(APPLICATION_JSON_UTF8));
+    h.setAccept(accept);
     h.setContentType(APPLICATION_JSON_UTF8);
     h.setBearerAuth(accessToken);
     return clientHttpRequestExecution.execute(httpRequest, bytes);
   }
+
+  /**
+   * RestTemplate lists the media types its converters can read for the expected response type.
+   * Smile is only requested when the response is decoded by Jackson, which is not the case when the
+   * caller expects the raw text of the body.
+   */
+  private List<MediaType> resolveAccept(List<MediaType> readableTypes) {
+    if (preferSmile
+        && readableTypes.contains(APPLICATION_SMILE)
+        && !readableTypes.contains(TEXT_PLAIN)) {
+      return newArrayList(APPLICATION_SMILE, APPLICATION_JSON_FALLBACK);
+    }
+    return newArrayList(APPLICATION_JSON_UTF8);
+  }
 }
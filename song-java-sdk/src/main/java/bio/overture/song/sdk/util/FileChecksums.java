@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.util;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static lombok.AccessLevel.PRIVATE;
+
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.val;
+
+@NoArgsConstructor(access = PRIVATE)
+public class FileChecksums {
+
+  /**
+   * Large sequential reads keep the disk busy with few system calls. The buffer is on the heap
+   * because {@link MessageDigest} copies direct and memory-mapped buffers into a small heap array
+   * before digesting them.
+   */
+  private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+
+  private static final String MD5 = "MD5";
+
+  /** Computes the lowercase hex md5 of a file. */
+  public static String md5(@NonNull Path file) throws IOException {
+    val digest = newMd5Digest();
+    val buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    try (val channel = FileChannel.open(file, READ)) {
+      while (channel.read(buffer) != -1) {
+        digest.update(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+    }
+    return BaseEncoding.base16().lowerCase().encode(digest.digest());
+  }
+
+  private static MessageDigest newMd5Digest() {
+    try {
+      return MessageDigest.getInstance(MD5);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
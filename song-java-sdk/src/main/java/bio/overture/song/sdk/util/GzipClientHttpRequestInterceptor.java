@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.util;
+
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Asks for gzip responses and decompresses them, and optionally gzips request bodies larger than
+ * {@link #MIN_COMPRESSED_REQUEST_SIZE}. Only enable request compression against servers that accept
+ * {@code Content-Encoding: gzip}.
+ */
+@RequiredArgsConstructor
+public class GzipClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+  public static final int MIN_COMPRESSED_REQUEST_SIZE = 2048;
+  private static final String GZIP = "gzip";
+
+  private final boolean compressRequests;
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest httpRequest, byte[] bytes, ClientHttpRequestExecution clientHttpRequestExecution)
+      throws IOException {
+    val h = httpRequest.getHeaders();
+    h.set(ACCEPT_ENCODING, GZIP);
+    var body = bytes;
+    if (compressRequests && bytes.length >= MIN_COMPRESSED_REQUEST_SIZE) {
+      body = compress(bytes);
+      h.set(CONTENT_ENCODING, GZIP);
+    }
+    val response = clientHttpRequestExecution.execute(httpRequest, body);
+    if (GZIP.equalsIgnoreCase(response.getHeaders().getFirst(CONTENT_ENCODING))) {
+      return new GzipClientHttpResponse(response);
+    }
+    return response;
+  }
+
+  public static byte[] compress(@NonNull byte[] bytes) throws IOException {
+    val out = new ByteArrayOutputStream(bytes.length / 4);
+    try (val gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  /** Bodies of responses such as 304 are empty even when they declare an encoding */
+  public static InputStream decompress(@NonNull InputStream in) throws IOException {
+    val pushback = new PushbackInputStream(in);
+    val first = pushback.read();
+    if (first < 0) {
+      return pushback;
+    }
+    pushback.unread(first);
+    return new GZIPInputStream(pushback);
+  }
+
+  @RequiredArgsConstructor
+  private static class GzipClientHttpResponse implements ClientHttpResponse {
+
+    @NonNull private final ClientHttpResponse response;
+    private InputStream body;
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+      return response.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+      return response.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return response.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      val headers = new HttpHeaders();
+      headers.putAll(response.getHeaders());
+      headers.remove(CONTENT_ENCODING);
+      headers.remove(CONTENT_LENGTH);
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      if (body == null) {
+        body = decompress(response.getBody());
+      }
+      return body;
+    }
+
+    @Override
+    public void close() {
+      response.close();
+    }
+  }
+}
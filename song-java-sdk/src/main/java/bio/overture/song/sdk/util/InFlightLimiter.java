@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Bounds the number of asynchronous operations running at once. Operations over the limit are
+ * queued and started as running ones complete, so callers are never blocked.
+ *
+ * <p>Queued operations are started by the thread that completed a running one. A single thread
+ * drains the queue in a loop at a time, so operations that complete synchronously, such as ones
+ * that fail before sending anything, do not start the next operation recursively.
+ */
+public class InFlightLimiter {
+
+  private final int maxInFlight;
+  private final Queue<Runnable> pending = new ArrayDeque<>();
+  private int inFlight;
+  private boolean draining;
+
+  public InFlightLimiter(int maxInFlight) {
+    checkArgument(maxInFlight > 0, "The in-flight limit must be positive, but was %s", maxInFlight);
+    this.maxInFlight = maxInFlight;
+  }
+
+  public <T> CompletableFuture<T> submit(@NonNull Supplier<CompletableFuture<T>> operation) {
+    val result = new CompletableFuture<T>();
+    Runnable start = () -> start(operation, result);
+    boolean startNow;
+    synchronized (this) {
+      startNow = inFlight < maxInFlight;
+      if (startNow) {
+        inFlight++;
+      } else {
+        pending.add(start);
+      }
+    }
+    if (startNow) {
+      start.run();
+    }
+    return result;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public synchronized int getPending() {
+    return pending.size();
+  }
+
+  private <T> void start(Supplier<CompletableFuture<T>> operation, CompletableFuture<T> result) {
+    CompletableFuture<T> future;
+    try {
+      future = operation.get();
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    future.whenComplete(
+        (value, error) -> {
+          release();
+          if (error == null) {
+            result.complete(value);
+          } else {
+            result.completeExceptionally(error);
+          }
+        });
+  }
+
+  private void release() {
+    synchronized (this) {
+      inFlight--;
+      if (draining) {
+        return;
+      }
+      draining = true;
+    }
+    drain();
+  }
+
+  /** Starts queued operations while slots are free. Slots released meanwhile are picked up here. */
+  private void drain() {
+    while (true) {
+      Runnable next;
+      synchronized (this) {
+        if (inFlight >= maxInFlight || pending.isEmpty()) {
+          draining = false;
+          return;
+        }
+        next = pending.poll();
+        inFlight++;
+      }
+      next.run();
+    }
+  }
+}
@@ -23,16 +23,27 @@ import static org.springframework.http.ResponseEntity.status;
 
 import bio.overture.song.core.exceptions.ServerException;
 import bio.overture.song.core.model.PageDTO;
+import com.fasterxml.jackson.databind.JsonNode;
 import java.util.List;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.val;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
 public interface RestClient {
 
   <R> ResponseEntity<R> get(String endpoint, Class<R> responseType) throws ServerException;
 
+  /**
+   * Sends a GET with additional request headers. Clients that do not support request headers ignore
+   * them.
+   */
+  default <R> ResponseEntity<R> get(String endpoint, HttpHeaders headers, Class<R> responseType)
+      throws ServerException {
+    return get(endpoint, responseType);
+  }
+
   <R> ResponseEntity<R> post(String endpoint, Object body, Class<R> responseType)
       throws ServerException;
 
@@ -41,32 +52,32 @@ public interface RestClient {
 
   default <R> ResponseEntity<List<R>> putList(String endpoint, Object body, Class<R> contentType)
       throws ServerException {
-    return convertToList(put(endpoint, body, String.class), contentType);
+    return convertTreeToList(put(endpoint, body, JsonNode.class), contentType);
   }
 
   default <R> ResponseEntity<List<R>> getList(String endpoint, Class<R> contentType)
       throws ServerException {
-    return convertToList(get(endpoint, String.class), contentType);
+    return convertTreeToList(get(endpoint, JsonNode.class), contentType);
   }
 
   default <R> ResponseEntity<List<R>> postList(String endpoint, Object body, Class<R> contentType)
       throws ServerException {
-    return convertToList(post(endpoint, body, String.class), contentType);
+    return convertTreeToList(post(endpoint, body, JsonNode.class), contentType);
   }
 
   default <R> ResponseEntity<PageDTO<R>> getPage(String endpoint, Class<R> contentType)
       throws ServerException {
-    return convertToPage(get(endpoint, String.class), contentType);
+    return convertTreeToPage(get(endpoint, JsonNode.class), contentType);
   }
 
   default <R> ResponseEntity<PageDTO<R>> putPage(String endpoint, Object body, Class<R> contentType)
       throws ServerException {
-    return convertToPage(put(endpoint, body, String.class), contentType);
+    return convertTreeToPage(put(endpoint, body, JsonNode.class), contentType);
   }
 
   default <R> ResponseEntity<PageDTO<R>> postPage(
       String endpoint, Object body, Class<R> contentType) throws ServerException {
-    return convertToPage(post(endpoint, body, String.class), contentType);
+    return convertTreeToPage(post(endpoint, body, JsonNode.class), contentType);
   }
 
   default <R> ResponseEntity<PageDTO<R>> postPage(String endpoint, Class<R> contentType)
@@ -111,4 +122,24 @@ public interface RestClient {
     val contents = deserializeList(response.getBody(), contentType);
     return status(response.getStatusCode()).body(contents);
   }
+
+  /**
+   * Same as {@link #convertToPage}, for a response already read as a tree. Named differently since
+   * both would have the same erasure.
+   */
+  default <T> ResponseEntity<PageDTO<T>> convertTreeToPage(
+      @NonNull ResponseEntity<JsonNode> response, @NonNull Class<T> contentType) {
+    val pageDTO = deserializePage(response.getBody(), contentType);
+    return status(response.getStatusCode()).body(pageDTO);
+  }
+
+  /**
+   * Same as {@link #convertToList}, for a response already read as a tree. Named differently since
+   * both would have the same erasure.
+   */
+  default <T> ResponseEntity<List<T>> convertTreeToList(
+      @NonNull ResponseEntity<JsonNode> response, @NonNull Class<T> contentType) {
+    val contents = deserializeList(response.getBody(), contentType);
+    return status(response.getStatusCode()).body(contents);
+  }
 }
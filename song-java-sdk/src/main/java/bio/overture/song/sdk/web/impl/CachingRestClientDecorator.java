@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.web.impl;
+
+import static bio.overture.song.core.utils.JsonUtils.fromJson;
+import static java.util.Objects.isNull;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.OK;
+
+import bio.overture.song.core.exceptions.ServerException;
+import bio.overture.song.sdk.web.RestClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Caches the bodies of GET responses that carry an ETag, and revalidates them with {@code
+ * If-None-Match} on every subsequent GET of the same endpoint. When the server answers with {@code
+ * 304 Not Modified}, the cached body is returned without being transferred again. Entries are
+ * always revalidated, so cached responses are never stale.
+ *
+ * <p>Typed responses are fetched and cached as JSON trees, so they are decoded by the message
+ * converters of the wrapped client and still negotiate Smile when it is preferred. Responses
+ * requested as strings are fetched and cached as JSON text, separately from the trees.
+ */
+public class CachingRestClientDecorator implements RestClient {
+
+  @NonNull private final RestClient restClient;
+  @NonNull private final Cache<String, CachedResponse> cache;
+
+  public CachingRestClientDecorator(@NonNull RestClient restClient, int maxEntries) {
+    this.restClient = restClient;
+    this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+  }
+
+  @Override
+  public <R> ResponseEntity<R> get(String endpoint, Class<R> responseType) throws ServerException {
+    return get(endpoint, new HttpHeaders(), responseType);
+  }
+
+  @Override
+  public <R> ResponseEntity<R> get(String endpoint, HttpHeaders headers, Class<R> responseType)
+      throws ServerException {
+    val asText = responseType == String.class;
+    val cacheKey = (asText ? "text:" : "tree:") + endpoint;
+    val cached = cache.getIfPresent(cacheKey);
+    val conditionalHeaders = new HttpHeaders();
+    conditionalHeaders.putAll(headers);
+    if (!isNull(cached)) {
+      conditionalHeaders.setIfNoneMatch(cached.getEtag());
+    }
+
+    Class<?> fetchedType = asText ? String.class : JsonNode.class;
+    ResponseEntity<?> response = restClient.get(endpoint, conditionalHeaders, fetchedType);
+    if (!isNull(cached) && response.getStatusCode() == NOT_MODIFIED) {
+      return ResponseEntity.status(OK)
+          .headers(response.getHeaders())
+          .body(convert(cached.getBody(), responseType));
+    }
+
+    val etag = response.getHeaders().getETag();
+    if (isNull(etag) || isNull(response.getBody())) {
+      cache.invalidate(cacheKey);
+    } else {
+      cache.put(cacheKey, new CachedResponse(etag, response.getBody()));
+    }
+    return ResponseEntity.status(response.getStatusCode())
+        .headers(response.getHeaders())
+        .body(convert(response.getBody(), responseType));
+  }
+
+  @Override
+  public <R> ResponseEntity<R> post(String endpoint, Object body, Class<R> responseType)
+      throws ServerException {
+    return restClient.post(endpoint, body, responseType);
+  }
+
+  @Override
+  public <R> ResponseEntity<R> put(String endpoint, Object body, Class<R> responseType)
+      throws ServerException {
+    return restClient.put(endpoint, body, responseType);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <R> R convert(Object body, Class<R> responseType) {
+    if (isNull(body) || responseType == String.class) {
+      return (R) body;
+    }
+    val tree = (JsonNode) body;
+    if (responseType.isInstance(tree)) {
+      // Callers get their own copy, so they cannot modify the cached tree
+      return (R) tree.deepCopy();
+    }
+    return fromJson(tree, responseType);
+  }
+
+  @Value
+  private static class CachedResponse {
+    @NonNull private final String etag;
+    @NonNull private final Object body;
+  }
+}
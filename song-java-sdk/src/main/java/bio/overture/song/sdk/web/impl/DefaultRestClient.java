@@ -27,6 +27,7 @@ import lombok.NonNull;
 import lombok.Value;
 import lombok.val;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
@@ -42,6 +43,14 @@ public class DefaultRestClient implements RestClient {
     return restTemplate.exchange(endpoint, GET, null, responseType);
   }
 
+  @Override
+  public <R> ResponseEntity<R> get(
+      @NonNull String endpoint, @NonNull HttpHeaders headers, Class<R> responseType)
+      throws ServerException {
+    val entity = new HttpEntity<Object>(headers);
+    return restTemplate.exchange(endpoint, GET, entity, responseType);
+  }
+
   @Override
   public <R> ResponseEntity<R> post(
       @NonNull String endpoint, Object body, @NonNull Class<R> responseType)
@@ -22,6 +22,7 @@ import bio.overture.song.sdk.web.RestClient;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.retry.support.RetryTemplate;
 
@@ -37,6 +38,12 @@ public class DefaultRetryRestClientDecorator implements RestClient {
     return retryTemplate.execute(r -> restClient.get(endpoint, responseType));
   }
 
+  @Override
+  public <R> ResponseEntity<R> get(String endpoint, HttpHeaders headers, Class<R> responseType)
+      throws ServerException {
+    return retryTemplate.execute(r -> restClient.get(endpoint, headers, responseType));
+  }
+
   @Override
   public <R> ResponseEntity<R> post(String endpoint, Object body, Class<R> responseType)
       throws ServerException {
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.web.impl;
+
+import static java.util.Objects.isNull;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Sends requests with the JDK {@link HttpClient}, which pools connections and negotiates HTTP/2
+ * when the server supports it.
+ */
+@RequiredArgsConstructor
+public class JdkClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+  /** Headers managed by the JDK client, which rejects requests that set them */
+  private static final Set<String> RESTRICTED_HEADERS = restrictedHeaders();
+
+  @NonNull private final HttpClient httpClient;
+
+  /** Timeout of a whole request, or null to wait indefinitely */
+  private final Duration requestTimeout;
+
+  @Override
+  public ClientHttpRequest createRequest(@NonNull URI uri, @NonNull HttpMethod httpMethod) {
+    return new JdkClientHttpRequest(uri, httpMethod);
+  }
+
+  private static Set<String> restrictedHeaders() {
+    val headers = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    headers.addAll(ImmutableSet.of("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+    return headers;
+  }
+
+  @RequiredArgsConstructor
+  private class JdkClientHttpRequest extends AbstractClientHttpRequest {
+
+    @NonNull private final URI uri;
+    @NonNull private final HttpMethod httpMethod;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    @Override
+    public String getMethodValue() {
+      return httpMethod.name();
+    }
+
+    @Override
+    public URI getURI() {
+      return uri;
+    }
+
+    @Override
+    protected OutputStream getBodyInternal(HttpHeaders headers) {
+      return body;
+    }
+
+    @Override
+    protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+      val bytes = body.toByteArray();
+      val request =
+          HttpRequest.newBuilder(uri)
+              .method(
+                  httpMethod.name(),
+                  bytes.length == 0 ? BodyPublishers.noBody() : BodyPublishers.ofByteArray(bytes));
+      if (!isNull(requestTimeout)) {
+        request.timeout(requestTimeout);
+      }
+      headers.forEach(
+          (name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name)) {
+              values.forEach(value -> request.header(name, value));
+            }
+          });
+      try {
+        return new JdkClientHttpResponse(
+            httpClient.send(request.build(), BodyHandlers.ofInputStream()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for " + uri);
+      }
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class JdkClientHttpResponse implements ClientHttpResponse {
+
+    @NonNull private final HttpResponse<InputStream> response;
+    private HttpHeaders headers;
+
+    @Override
+    public HttpStatus getStatusCode() {
+      return HttpStatus.valueOf(response.statusCode());
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return response.statusCode();
+    }
+
+    @Override
+    public String getStatusText() {
+      val status = HttpStatus.resolve(response.statusCode());
+      return isNull(status) ? "" : status.getReasonPhrase();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      if (isNull(headers)) {
+        headers = new HttpHeaders();
+        response.headers().map().entrySet().stream()
+            // HTTP/2 pseudo headers such as :status are not real headers
+            .filter(e -> !e.getKey().startsWith(":"))
+            .forEach(e -> headers.addAll(e.getKey(), e.getValue()));
+      }
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+      return response.body();
+    }
+
+    @Override
+    public void close() {
+      try {
+        response.body().close();
+      } catch (IOException e) {
+        // Nothing left to release
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk;
+
+import static bio.overture.song.core.exceptions.ServerErrors.ANALYSIS_ID_NOT_FOUND;
+import static bio.overture.song.core.exceptions.SongError.createSongError;
+import static bio.overture.song.core.utils.JsonUtils.toJson;
+import static bio.overture.song.sdk.AsyncSongApi.createAsyncSongApi;
+import static bio.overture.song.sdk.util.GzipClientHttpRequestInterceptor.MIN_COMPRESSED_REQUEST_SIZE;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import bio.overture.song.core.exceptions.ServerException;
+import bio.overture.song.core.model.SubmitResponse;
+import bio.overture.song.sdk.config.impl.DefaultRestClientConfig;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class AsyncSongApiTest {
+
+  private static final String STUDY_ID = "ABC123";
+  private static final String ACCESS_TOKEN = "myAccessToken";
+
+  @Rule public WireMockRule wireMockRule = new WireMockRule(options().dynamicPort());
+
+  private AsyncSongApi buildAsyncSongApi(int maxInFlightRequests) {
+    return createAsyncSongApi(config().build(), maxInFlightRequests);
+  }
+
+  private DefaultRestClientConfig.DefaultRestClientConfigBuilder config() {
+    return DefaultRestClientConfig.builder()
+        .serverUrl(format("http://localhost:%s", wireMockRule.port()))
+        .accessToken(ACCESS_TOKEN);
+  }
+
+  @Test
+  public void testSubmit() {
+    val expected = new SubmitResponse("AN1", "ok");
+    wireMockRule.stubFor(
+        post(urlMatching("/submit/" + STUDY_ID))
+            .withHeader(AUTHORIZATION, equalTo("Bearer " + ACCESS_TOKEN))
+            .willReturn(
+                aResponse()
+                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                    .withBody(toJson(expected))));
+
+    assertEquals(expected, buildAsyncSongApi(4).submit(STUDY_ID, "{}").join());
+  }
+
+  @Test
+  public void testErrorResponse() {
+    val error = createSongError(ANALYSIS_ID_NOT_FOUND, "The analysis was not found");
+    wireMockRule.stubFor(
+        get(urlMatching("/studies/" + STUDY_ID + "/analysis/AN1"))
+            .willReturn(
+                aResponse()
+                    .withStatus(404)
+                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                    .withBody(error.toJson())));
+
+    try {
+      buildAsyncSongApi(4).getAnalysis(STUDY_ID, "AN1").join();
+      throw new AssertionError("Expected the request to fail");
+    } catch (CompletionException e) {
+      assertTrue(e.getCause() instanceof ServerException);
+      val songError = ((ServerException) e.getCause()).getSongError();
+      assertEquals(ANALYSIS_ID_NOT_FOUND.getErrorId(), songError.getErrorId());
+    }
+  }
+
+  @Test
+  public void testInFlightLimit() {
+    val delayMs = 200;
+    val requests = 6;
+    wireMockRule.stubFor(
+        put(urlPathMatching("/studies/" + STUDY_ID + "/analysis/publish/.*"))
+            .willReturn(aResponse().withFixedDelay(delayMs).withBody("published")));
+
+    val api = buildAsyncSongApi(2);
+    val start = System.currentTimeMillis();
+    val futures =
+        IntStream.range(0, requests)
+            .mapToObj(i -> api.publish(STUDY_ID, "AN" + i, false))
+            .collect(toList());
+    assertEquals(2, api.getInFlightRequests());
+
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    val elapsed = System.currentTimeMillis() - start;
+    futures.forEach(f -> assertEquals("published", f.join()));
+    assertEquals(0, api.getInFlightRequests());
+    assertTrue(elapsed >= (requests / 2) * delayMs);
+    wireMockRule.verify(
+        requests, putRequestedFor(urlPathMatching("/studies/" + STUDY_ID + "/analysis/.*")));
+  }
+
+  @Test
+  public void testGzipSubmitWithCallerExecutor() {
+    val expected = new SubmitResponse("AN1", "ok");
+    wireMockRule.stubFor(
+        post(urlMatching("/submit/" + STUDY_ID))
+            .withHeader(CONTENT_ENCODING, equalTo("gzip"))
+            .willReturn(
+                aResponse()
+                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                    .withBody(toJson(expected))));
+
+    val executor = Executors.newSingleThreadExecutor();
+    try (val api = createAsyncSongApi(config().gzipRequests(true).build(), 4, executor)) {
+      val json = "{\"data\":\"" + "A".repeat(MIN_COMPRESSED_REQUEST_SIZE) + "\"}";
+      assertEquals(expected, api.submit(STUDY_ID, json).join());
+    }
+    // The executor belongs to the caller, so closing the api leaves it running
+    assertFalse(executor.isShutdown());
+    executor.shutdown();
+  }
+}
@@ -18,17 +18,26 @@
 package bio.overture.song.sdk;
 
 import static bio.overture.song.core.utils.RandomGenerator.createRandomGenerator;
+import static bio.overture.song.sdk.model.FileVerificationStatus.MD5_MISMATCH;
+import static bio.overture.song.sdk.model.FileVerificationStatus.MISSING;
+import static bio.overture.song.sdk.model.FileVerificationStatus.OK;
+import static bio.overture.song.sdk.model.FileVerificationStatus.SIZE_MISMATCH;
 import static com.google.common.base.Preconditions.checkState;
+import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toUnmodifiableList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 
 import bio.overture.song.core.model.FileDTO;
 import bio.overture.song.core.utils.RandomGenerator;
+import com.google.common.hash.Hashing;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 import java.util.stream.IntStream;
 import lombok.SneakyThrows;
@@ -109,6 +118,53 @@ public class ManifestClientTest {
     assertEquals(expectedString, actualFileContents);
   }
 
+  @Test
+  @SneakyThrows
+  public void testVerifyFiles() {
+    val mc = new ManifestClient(songApi);
+    val inputDir = tmp.newFolder().toPath();
+    val content = randomGenerator.generateRandomAsciiString(100).getBytes();
+    val md5 = Hashing.md5().hashBytes(content).toString();
+    val largeContent = new byte[20 * 1024 * 1024 + 7];
+    new Random(1).nextBytes(largeContent);
+    val largeMd5 = Hashing.md5().hashBytes(largeContent).toString();
+
+    Files.write(inputDir.resolve("ok.bam"), content);
+    Files.write(inputDir.resolve("large.bam"), largeContent);
+    Files.write(inputDir.resolve("wrongSize.bam"), content);
+    Files.write(inputDir.resolve("wrongMd5.bam"), content);
+    val files =
+        List.of(
+            createFileDTO("ok.bam", content.length, md5.toUpperCase()),
+            createFileDTO("large.bam", largeContent.length, largeMd5),
+            createFileDTO("wrongSize.bam", content.length + 1, md5),
+            createFileDTO("wrongMd5.bam", content.length, randomGenerator.generateRandomMD5()),
+            createFileDTO("missing.bam", content.length, md5));
+    when(songApi.getAnalysisFiles(DUMMY_STUDY_ID, DUMMY_ANALYSIS_ID)).thenReturn(files);
+
+    val results =
+        mc.verifyFiles(DUMMY_STUDY_ID, List.of(DUMMY_ANALYSIS_ID), inputDir.toString(), 3).stream()
+            .collect(toMap(x -> Paths.get(x.getFileName()).getFileName().toString(), x -> x));
+    assertEquals(files.size(), results.size());
+    assertEquals(OK, results.get("ok.bam").getStatus());
+    assertEquals(md5, results.get("ok.bam").getActualMd5sum());
+    assertEquals(OK, results.get("large.bam").getStatus());
+    assertEquals(largeMd5, results.get("large.bam").getActualMd5sum());
+    assertEquals(SIZE_MISMATCH, results.get("wrongSize.bam").getStatus());
+    assertNull(results.get("wrongSize.bam").getActualMd5sum());
+    assertEquals(MD5_MISMATCH, results.get("wrongMd5.bam").getStatus());
+    assertEquals(MISSING, results.get("missing.bam").getStatus());
+    results.values().forEach(x -> assertEquals(DUMMY_ANALYSIS_ID, x.getAnalysisId()));
+  }
+
+  private FileDTO createFileDTO(String fileName, long fileSize, String md5) {
+    return new FileDTO()
+        .setFileName(fileName)
+        .setObjectId(randomGenerator.generateRandomUUIDAsString())
+        .setFileSize(fileSize)
+        .setFileMd5sum(md5);
+  }
+
   @SneakyThrows
   private File touchFile(Path dir, String filename) {
     val path = dir.resolve(filename);
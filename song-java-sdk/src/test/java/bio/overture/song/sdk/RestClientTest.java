@@ -17,37 +17,55 @@
 
 package bio.overture.song.sdk;
 
+import static bio.overture.song.core.utils.JsonUtils.APPLICATION_SMILE_VALUE;
 import static bio.overture.song.core.utils.JsonUtils.mapper;
 import static bio.overture.song.core.utils.JsonUtils.objectToTree;
+import static bio.overture.song.core.utils.JsonUtils.smileMapper;
 import static bio.overture.song.core.utils.JsonUtils.toJson;
+import static bio.overture.song.sdk.Factory.buildCachingRestClient;
 import static bio.overture.song.sdk.Factory.buildRestClient;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.request;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.isNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.HttpMethod.PUT;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
 
 import bio.overture.song.core.model.PageDTO;
 import bio.overture.song.core.model.Sample;
+import bio.overture.song.sdk.config.HttpTransport;
 import bio.overture.song.sdk.config.impl.DefaultRestClientConfig;
 import bio.overture.song.sdk.web.RestClient;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.junit.Before;
@@ -162,6 +180,163 @@ public class RestClientTest {
     runPageTest(PUT, () -> restClient.putPage(EXAMPLE_ENDPOINT, EXAMPLE_BODY, Sample.class));
   }
 
+  @Test
+  public void testCachedGet() {
+    val cachingRestClient = buildCachingRestClient(restClient, 10);
+    val etag = "\"v1\"";
+    wireMockRule.resetAll();
+    wireMockRule.stubFor(
+        get(urlMatching(EXAMPLE_ENDPOINT))
+            .atPriority(2)
+            .willReturn(
+                aResponse()
+                    .withStatus(OK.value())
+                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_UTF8.toString())
+                    .withHeader(ETAG, etag)
+                    .withBody(toJson(EXAMPLE_SAMPLE1_JSON))));
+    wireMockRule.stubFor(
+        get(urlMatching(EXAMPLE_ENDPOINT))
+            .atPriority(1)
+            .withHeader(IF_NONE_MATCH, equalTo(etag))
+            .willReturn(aResponse().withStatus(NOT_MODIFIED.value()).withHeader(ETAG, etag)));
+
+    assertEquals(EXAMPLE_SAMPLE1, cachingRestClient.get(EXAMPLE_ENDPOINT, Sample.class).getBody());
+    val revalidated = cachingRestClient.get(EXAMPLE_ENDPOINT, Sample.class);
+    assertEquals(OK, revalidated.getStatusCode());
+    assertEquals(EXAMPLE_SAMPLE1, revalidated.getBody());
+    wireMockRule.verify(
+        1, getRequestedFor(urlMatching(EXAMPLE_ENDPOINT)).withHeader(IF_NONE_MATCH, equalTo(etag)));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testCachedSmileGet() {
+    val cachingRestClient =
+        buildCachingRestClient(
+            buildRestClient(
+                DefaultRestClientConfig.builder()
+                    .serverUrl(format("http://localhost:%s", wireMockRule.port()))
+                    .accessToken(ACCESS_TOKEN)
+                    .preferSmile(true)
+                    .build()),
+            10);
+    val etag = "\"v1\"";
+    wireMockRule.resetAll();
+    wireMockRule.stubFor(
+        get(urlMatching(EXAMPLE_ENDPOINT))
+            .atPriority(2)
+            .withHeader(ACCEPT, containing(APPLICATION_SMILE_VALUE))
+            .willReturn(
+                aResponse()
+                    .withStatus(OK.value())
+                    .withHeader(CONTENT_TYPE, APPLICATION_SMILE_VALUE)
+                    .withHeader(ETAG, etag)
+                    .withBody(smileMapper().writeValueAsBytes(EXAMPLE_SAMPLE1_JSON))));
+    wireMockRule.stubFor(
+        get(urlMatching(EXAMPLE_ENDPOINT))
+            .atPriority(1)
+            .withHeader(ACCEPT, containing(APPLICATION_SMILE_VALUE))
+            .withHeader(IF_NONE_MATCH, equalTo(etag))
+            .willReturn(aResponse().withStatus(NOT_MODIFIED.value()).withHeader(ETAG, etag)));
+
+    assertEquals(EXAMPLE_SAMPLE1, cachingRestClient.get(EXAMPLE_ENDPOINT, Sample.class).getBody());
+    assertEquals(EXAMPLE_SAMPLE1, cachingRestClient.get(EXAMPLE_ENDPOINT, Sample.class).getBody());
+    wireMockRule.verify(
+        2,
+        getRequestedFor(urlMatching(EXAMPLE_ENDPOINT))
+            .withHeader(ACCEPT, containing(APPLICATION_SMILE_VALUE)));
+    wireMockRule.verify(
+        1, getRequestedFor(urlMatching(EXAMPLE_ENDPOINT)).withHeader(IF_NONE_MATCH, equalTo(etag)));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testSmileGet() {
+    val smileRestClient =
+        buildRestClient(
+            DefaultRestClientConfig.builder()
+                .serverUrl(format("http://localhost:%s", wireMockRule.port()))
+                .accessToken(ACCESS_TOKEN)
+                .preferSmile(true)
+                .build());
+    wireMockRule.resetAll();
+    wireMockRule.stubFor(
+        get(urlMatching(EXAMPLE_ENDPOINT))
+            .withHeader(ACCEPT, containing(APPLICATION_SMILE_VALUE))
+            .willReturn(
+                aResponse()
+                    .withStatus(OK.value())
+                    .withHeader(CONTENT_TYPE, APPLICATION_SMILE_VALUE)
+                    .withBody(smileMapper().writeValueAsBytes(EXAMPLE_SAMPLE_PAGE_JSON))));
+    wireMockRule.stubFor(
+        get(urlMatching(EXAMPLE_ENDPOINT))
+            .withHeader(ACCEPT, equalTo(APPLICATION_JSON_UTF8.toString()))
+            .willReturn(
+                aResponse()
+                    .withStatus(OK.value())
+                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_UTF8.toString())
+                    .withBody(toJson(EXAMPLE_SAMPLE1_JSON))));
+
+    assertEquals(
+        EXAMPLE_SAMPLE_PAGE, smileRestClient.getPage(EXAMPLE_ENDPOINT, Sample.class).getBody());
+    assertEquals(
+        toJson(EXAMPLE_SAMPLE1_JSON),
+        smileRestClient.get(EXAMPLE_ENDPOINT, String.class).getBody());
+  }
+
+  @Test
+  public void testGzipPost() {
+    val gzipRestClient =
+        buildRestClient(
+            DefaultRestClientConfig.builder()
+                .serverUrl(format("http://localhost:%s", wireMockRule.port()))
+                .accessToken(ACCESS_TOKEN)
+                .gzipRequests(true)
+                .build());
+    val largeBody = mapper().createObjectNode().put("data", "A".repeat(10_000));
+    wireMockRule.resetAll();
+    wireMockRule.stubFor(
+        post(urlMatching(EXAMPLE_ENDPOINT))
+            .withHeader(CONTENT_ENCODING, equalTo("gzip"))
+            .withHeader(ACCEPT_ENCODING, equalTo("gzip"))
+            .willReturn(
+                aResponse()
+                    .withStatus(OK.value())
+                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_UTF8.toString())
+                    .withHeader(CONTENT_ENCODING, "gzip")
+                    .withBody(gzip(toJson(EXAMPLE_SAMPLE1_JSON)))));
+
+    assertEquals(
+        EXAMPLE_SAMPLE1, gzipRestClient.post(EXAMPLE_ENDPOINT, largeBody, Sample.class).getBody());
+  }
+
+  @Test
+  public void testTransports() {
+    for (val transport : HttpTransport.values()) {
+      val transportRestClient =
+          buildRestClient(
+              DefaultRestClientConfig.builder()
+                  .serverUrl(format("http://localhost:%s", wireMockRule.port()))
+                  .accessToken(ACCESS_TOKEN)
+                  .transport(transport)
+                  .readTimeout(SECONDS.toMillis(10))
+                  .build());
+      runSingleTest(GET, () -> transportRestClient.get(EXAMPLE_ENDPOINT, Sample.class));
+      runSingleTest(
+          POST, () -> transportRestClient.post(EXAMPLE_ENDPOINT, EXAMPLE_BODY, Sample.class));
+      runPageTest(PUT, () -> transportRestClient.putPage(EXAMPLE_ENDPOINT, Sample.class));
+    }
+  }
+
+  @SneakyThrows
+  private static byte[] gzip(String body) {
+    val out = new ByteArrayOutputStream();
+    try (val gzip = new GZIPOutputStream(out)) {
+      gzip.write(body.getBytes(UTF_8));
+    }
+    return out.toByteArray();
+  }
+
   private void runPageTest(
       HttpMethod httpMethod, Supplier<ResponseEntity<PageDTO<Sample>>> pageMethodCallback) {
     setupMock(httpMethod, EXAMPLE_ENDPOINT, OK, EXAMPLE_SAMPLE_PAGE_JSON);
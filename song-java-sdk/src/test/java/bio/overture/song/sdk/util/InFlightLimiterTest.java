@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.sdk.util;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import lombok.val;
+import org.junit.Test;
+
+public class InFlightLimiterTest {
+
+  @Test
+  public void testQueuedOperationsStartWhenSlotsAreReleased() {
+    val limiter = new InFlightLimiter(2);
+    val first = new CompletableFuture<String>();
+    val second = new CompletableFuture<String>();
+    val third = new CompletableFuture<String>();
+    List<CompletableFuture<String>> results =
+        List.of(
+            limiter.submit(() -> first), limiter.submit(() -> second), limiter.submit(() -> third));
+    assertEquals(2, limiter.getInFlight());
+    assertEquals(1, limiter.getPending());
+
+    first.complete("first");
+    assertEquals("first", results.get(0).join());
+    assertEquals(2, limiter.getInFlight());
+    assertEquals(0, limiter.getPending());
+
+    second.complete("second");
+    third.complete("third");
+    assertEquals("third", results.get(2).join());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testSynchronousFailuresDoNotRecurse() {
+    val limiter = new InFlightLimiter(1);
+    val blocker = new CompletableFuture<String>();
+    limiter.submit(() -> blocker);
+    val failures =
+        IntStream.range(0, 100_000)
+            .mapToObj(
+                i ->
+                    limiter.<String>submit(
+                        () -> {
+                          throw new IllegalStateException("failed " + i);
+                        }))
+            .collect(toList());
+    assertEquals(100_000, limiter.getPending());
+
+    // Completing the running operation starts every queued one from the same thread
+    blocker.complete("done");
+    assertEquals(0, limiter.getInFlight());
+    assertEquals(0, limiter.getPending());
+    failures.forEach(
+        f -> {
+          try {
+            f.join();
+            throw new AssertionError("Expected the operation to fail");
+          } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+          }
+        });
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest;
+
+import static bio.overture.song.loadtest.scenario.PayloadFactory.ANALYSIS_TYPE_REGISTRATION;
+import static java.lang.String.format;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.newInputStream;
+
+import bio.overture.song.loadtest.config.LoadTestConfig;
+import bio.overture.song.loadtest.report.LatencySummary;
+import bio.overture.song.loadtest.scenario.BulkSubmitScenario;
+import bio.overture.song.loadtest.scenario.ExportScenario;
+import bio.overture.song.loadtest.scenario.PaginatedCrawlScenario;
+import bio.overture.song.loadtest.scenario.PublishStormScenario;
+import bio.overture.song.loadtest.scenario.Scenario;
+import bio.overture.song.loadtest.scenario.ScenarioContext;
+import bio.overture.song.loadtest.standin.EgoStandIn;
+import bio.overture.song.loadtest.standin.IdStandIn;
+import bio.overture.song.loadtest.standin.StandInServer;
+import bio.overture.song.loadtest.standin.StorageStandIn;
+import bio.overture.song.sdk.Factory;
+import bio.overture.song.sdk.SongApi;
+import bio.overture.song.sdk.config.impl.DefaultRestClientConfig;
+import bio.overture.song.server.ServerMain;
+import bio.overture.song.server.model.entity.Study;
+import bio.overture.song.server.service.StudyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots a real song-server (secure profile) against a real Postgres, wired to embedded stand-ins
+ * for score storage, the federated ID service and Ego, then runs the configured scenarios and
+ * prints throughput and latency percentiles for each of them.
+ *
+ * <p>Usage: {@code java -jar song-load-test-exec.jar [config.yml]}
+ */
+@Slf4j
+public class LoadTestMain {
+
+  private static final String DEFAULT_CONFIG_FILENAME = "load-test.yml";
+  private static final String SYSTEM_SCOPE = "song.WRITE";
+
+  public static void main(String[] args) {
+    val config = buildConfig(args.length > 0 ? args[0] : DEFAULT_CONFIG_FILENAME);
+    val summaries = run(config);
+    System.out.println(LatencySummary.header());
+    summaries.forEach(s -> System.out.println(s.toRow()));
+  }
+
+  public static List<LatencySummary> run(@NonNull LoadTestConfig config) {
+    val storage = new StorageStandIn(config.getStandIns().getStorage());
+    val id = new IdStandIn(config.getStandIns().getId());
+    val ego =
+        new EgoStandIn(
+            config.getStandIns().getEgo(), config.getRun().getAccessToken(), SYSTEM_SCOPE);
+    val standIns = List.<StandInServer>of(storage, id, ego);
+    standIns.forEach(StandInServer::start);
+    ConfigurableApplicationContext server = null;
+    try {
+      server = startServer(config, storage, id, ego);
+      val context = setup(config, server, storage);
+      val summaries = new ArrayList<LatencySummary>();
+      for (val scenario : buildScenarios(config)) {
+        if (scenario.isEnabled()) {
+          log.info("Starting scenario '{}'", scenario.getName());
+          summaries.add(scenario.run(context));
+        }
+      }
+      standIns.forEach(
+          s ->
+              log.info(
+                  "Stand-in '{}' served {} requests ({} injected errors)",
+                  s.getName(),
+                  s.getRequestCount().get(),
+                  s.getInjectedErrorCount().get()));
+      return summaries;
+    } finally {
+      if (server != null) {
+        server.close();
+      }
+      standIns.forEach(StandInServer::stop);
+    }
+  }
+
+  private static ConfigurableApplicationContext startServer(
+      LoadTestConfig config, StorageStandIn storage, IdStandIn id, EgoStandIn ego) {
+    val serverConfig = config.getServer();
+    val props = new HashMap<String, Object>();
+    props.put("server.port", serverConfig.getPort());
+    props.put("management.server.port", -1);
+    props.put("spring.datasource.url", serverConfig.getDatasourceUrl());
+    props.put("spring.datasource.username", serverConfig.getDatasourceUsername());
+    props.put("spring.datasource.password", serverConfig.getDatasourcePassword());
+    props.put("score.url", storage.getBaseUrl());
+    props.put("id.useLocal", false);
+    id.getUriTemplates().forEach((k, v) -> props.put("id.federated.uriTemplate." + k, v));
+    props.put("auth.server.introspectionUri", ego.getIntrospectionUri());
+    props.put(
+        "spring.security.oauth2.resourceserver.jwt.public-key-location", ego.getPublicKeyUri());
+    return new SpringApplicationBuilder(ServerMain.class)
+        .profiles("secure")
+        .properties(props)
+        .run();
+  }
+
+  private static ScenarioContext setup(
+      LoadTestConfig config, ConfigurableApplicationContext server, StorageStandIn storage) {
+    val run = config.getRun();
+    val studyService = server.getBean(StudyService.class);
+    if (!studyService.isStudyExist(run.getStudyId())) {
+      studyService.saveStudy(
+          Study.builder()
+              .studyId(run.getStudyId())
+              .name("Load test")
+              .organization("song-load-test")
+              .description("Created by the song load-test harness")
+              .build());
+    }
+    val restClientConfig =
+        DefaultRestClientConfig.builder()
+            .serverUrl(format("http://localhost:%s", config.getServer().getPort()))
+            .accessToken(run.getAccessToken())
+            .build();
+    // No retries, so that every failure surfaces in the error counts
+    val restClient = Factory.buildRestClient(restClientConfig);
+    val songApi = new SongApi(restClient);
+    songApi.registerAnalysisType(ANALYSIS_TYPE_REGISTRATION);
+    return ScenarioContext.builder()
+        .runConfig(run)
+        .songApi(songApi)
+        .restClient(restClient)
+        .storageStandIn(storage)
+        .build();
+  }
+
+  private static List<Scenario> buildScenarios(LoadTestConfig config) {
+    val scenarios = config.getScenarios();
+    return List.of(
+        new BulkSubmitScenario(scenarios.getBulkSubmit()),
+        new PublishStormScenario(scenarios.getPublishStorm()),
+        new PaginatedCrawlScenario(scenarios.getPaginatedCrawl()),
+        new ExportScenario(scenarios.getExport()));
+  }
+
+  @SneakyThrows
+  public static LoadTestConfig buildConfig(@NonNull String file) {
+    InputStream is;
+    if (exists(Paths.get(file))) {
+      is = newInputStream(Paths.get(file));
+    } else {
+      is = LoadTestMain.class.getClassLoader().getResourceAsStream(file);
+    }
+    try (is) {
+      val mapper = new ObjectMapper(new YAMLFactory());
+      return mapper.readValue(is, LoadTestConfig.class);
+    }
+  }
+}
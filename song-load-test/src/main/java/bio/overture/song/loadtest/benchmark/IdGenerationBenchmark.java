@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.benchmark;
+
+import static java.lang.String.format;
+
+import bio.overture.song.server.config.IdConfig;
+import bio.overture.song.server.service.id.LocalIdService;
+import com.fasterxml.uuid.Generators;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Measures id generation throughput as the number of submitting threads grows, comparing generators
+ * shared by all threads with the per-thread generators of the LocalIdService. Runs in-process and
+ * needs no server.
+ *
+ * <p>Usage: {@code java -cp song-load-test-exec.jar
+ * -Dloader.main=bio.overture.song.loadtest.benchmark.IdGenerationBenchmark
+ * org.springframework.boot.loader.PropertiesLauncher [idsPerThread] [maxThreads]}
+ */
+public class IdGenerationBenchmark {
+
+  private static final int DEFAULT_IDS_PER_THREAD = 200_000;
+  private static final int DEFAULT_MAX_THREADS = 16;
+  private static final int WARMUP_ROUNDS = 2;
+  private static final String ROW_FORMAT = "%-24s %8s %14s";
+
+  public static void main(String[] args) {
+    val idsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_IDS_PER_THREAD;
+    val maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_THREADS;
+
+    // Equivalent to the previous LocalIdService, with one generator shared by every thread
+    val sharedNameBasedGenerator = IdConfig.createNameBasedGenerator();
+    val sharedRandomBasedGenerator = Generators.randomBasedGenerator();
+    val shared = new LocalIdService(() -> sharedNameBasedGenerator);
+    val perThread = new LocalIdService(IdConfig::createNameBasedGenerator);
+
+    System.out.println(format(ROW_FORMAT, "benchmark", "threads", "ids/s"));
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      run("name-based/shared", threads, idsPerThread, i -> shared.getSampleId("BENCH", "s-" + i));
+      run(
+          "name-based/per-thread",
+          threads,
+          idsPerThread,
+          i -> perThread.getSampleId("BENCH", "s-" + i));
+      run(
+          "random/shared",
+          threads,
+          idsPerThread,
+          i -> sharedRandomBasedGenerator.generate().toString());
+      run("random/per-thread", threads, idsPerThread, i -> perThread.generateAnalysisId());
+    }
+  }
+
+  private static void run(
+      String name, int threads, int idsPerThread, @NonNull IntConsumer generateId) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      measure(threads, idsPerThread, generateId);
+    }
+    val idsPerSecond = measure(threads, idsPerThread, generateId);
+    System.out.println(format(ROW_FORMAT, name, threads, format("%.0f", idsPerSecond)));
+  }
+
+  @SneakyThrows
+  private static double measure(int threads, int idsPerThread, IntConsumer generateId) {
+    val executor = Executors.newFixedThreadPool(threads);
+    try {
+      val ready = new CountDownLatch(threads);
+      val start = new CountDownLatch(1);
+      val tasks = new ArrayList<Callable<Void>>();
+      for (int t = 0; t < threads; t++) {
+        tasks.add(
+            () -> {
+              ready.countDown();
+              start.await();
+              for (int i = 0; i < idsPerThread; i++) {
+                generateId.accept(i);
+              }
+              return null;
+            });
+      }
+      val futures = new ArrayList<Future<Void>>();
+      tasks.forEach(task -> futures.add(executor.submit(task)));
+      ready.await();
+      val startNanos = System.nanoTime();
+      start.countDown();
+      for (val future : futures) {
+        future.get();
+      }
+      val durationNanos = System.nanoTime() - startNanos;
+      return (double) threads * idsPerThread * 1e9 / durationNanos;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
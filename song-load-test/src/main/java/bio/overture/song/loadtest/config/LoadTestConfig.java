@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.config;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/** Root configuration of the load-test harness, read from a YAML file. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestConfig {
+
+  @Builder.Default private ServerConfig server = new ServerConfig();
+  @Builder.Default private StandInsConfig standIns = new StandInsConfig();
+  @Builder.Default private RunConfig run = new RunConfig();
+  @Builder.Default private ScenariosConfig scenarios = new ScenariosConfig();
+
+  @Data
+  @NoArgsConstructor
+  public static class ServerConfig {
+    private int port = 8080;
+    private String datasourceUrl = "jdbc:postgresql://localhost:5432/song?stringtype=unspecified";
+    private String datasourceUsername = "postgres";
+    private String datasourcePassword = "password";
+  }
+
+  @Data
+  @NoArgsConstructor
+  public static class StandInsConfig {
+    private FaultConfig storage = new FaultConfig();
+    private FaultConfig id = new FaultConfig();
+    private FaultConfig ego = new FaultConfig();
+  }
+
+  /** Latency and error injection applied to every request served by a stand-in. */
+  @Data
+  @NoArgsConstructor
+  public static class FaultConfig {
+    private int port = 0;
+    private long latencyMs = 0;
+    private long jitterMs = 0;
+    private double errorRate = 0.0;
+    private int errorStatus = 503;
+  }
+
+  @Data
+  @NoArgsConstructor
+  public static class RunConfig {
+    private String studyId = "LOADTEST";
+    private String accessToken = UUID.randomUUID().toString();
+    private int threads = 8;
+  }
+
+  @Data
+  @NoArgsConstructor
+  public static class ScenariosConfig {
+    private BulkSubmitConfig bulkSubmit = new BulkSubmitConfig();
+    private ScenarioConfig publishStorm = new ScenarioConfig();
+    private PaginatedCrawlConfig paginatedCrawl = new PaginatedCrawlConfig();
+    private ExportConfig export = new ExportConfig();
+  }
+
+  @Data
+  @NoArgsConstructor
+  public static class ScenarioConfig {
+    private boolean enabled = true;
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = true)
+  @ToString(callSuper = true)
+  @NoArgsConstructor
+  public static class BulkSubmitConfig extends ScenarioConfig {
+    private int numAnalyses = 1000;
+    private int numFilesPerAnalysis = 2;
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = true)
+  @ToString(callSuper = true)
+  @NoArgsConstructor
+  public static class PaginatedCrawlConfig extends ScenarioConfig {
+    private int pageSize = 100;
+    private int numPasses = 1;
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = true)
+  @ToString(callSuper = true)
+  @NoArgsConstructor
+  public static class ExportConfig extends ScenarioConfig {
+    private int batchSize = 100;
+  }
+}
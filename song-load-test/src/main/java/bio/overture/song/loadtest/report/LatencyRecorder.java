@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.report;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Thread-safe recorder of per-operation latencies for a single scenario. Successful and failed
+ * operations are both timed, but only successful ones contribute to the latency percentiles.
+ */
+public class LatencyRecorder {
+
+  @Getter private final String name;
+  private final Queue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+  private final AtomicLong errorCount = new AtomicLong();
+  private volatile long startNanos;
+  private volatile long stopNanos;
+
+  public LatencyRecorder(@NonNull String name) {
+    this.name = name;
+  }
+
+  public void start() {
+    startNanos = System.nanoTime();
+  }
+
+  public void stop() {
+    stopNanos = System.nanoTime();
+  }
+
+  /**
+   * Times the supplied operation. Exceptions are counted as errors and rethrown so the caller can
+   * decide whether the scenario can continue.
+   */
+  public void time(@NonNull Runnable operation) {
+    val start = System.nanoTime();
+    try {
+      operation.run();
+      latenciesNanos.add(System.nanoTime() - start);
+    } catch (RuntimeException e) {
+      errorCount.incrementAndGet();
+      throw e;
+    }
+  }
+
+  public LatencySummary summarize() {
+    val sorted = latenciesNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+    val durationNanos = Math.max(stopNanos - startNanos, 1L);
+    val total = sorted.length + errorCount.get();
+    return LatencySummary.builder()
+        .name(name)
+        .count(sorted.length)
+        .errors(errorCount.get())
+        .durationMs(NANOSECONDS.toMillis(durationNanos))
+        .throughputPerSec(total * 1e9 / durationNanos)
+        .p50Ms(toMillis(percentile(sorted, 50)))
+        .p90Ms(toMillis(percentile(sorted, 90)))
+        .p99Ms(toMillis(percentile(sorted, 99)))
+        .maxMs(toMillis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]))
+        .build();
+  }
+
+  /** Nearest-rank percentile of an ascending array. Returns 0 for an empty array. */
+  static long percentile(@NonNull long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    val rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1e6;
+  }
+}
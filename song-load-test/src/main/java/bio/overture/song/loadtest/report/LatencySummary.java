@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.report;
+
+import static java.lang.String.format;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class LatencySummary {
+
+  private static final String ROW_FORMAT = "%-18s %8s %7s %10s %10s %10s %10s %10s";
+
+  String name;
+  long count;
+  long errors;
+  long durationMs;
+  double throughputPerSec;
+  double p50Ms;
+  double p90Ms;
+  double p99Ms;
+  double maxMs;
+
+  public static String header() {
+    return format(
+        ROW_FORMAT,
+        "scenario",
+        "ok",
+        "errors",
+        "ops/s",
+        "p50(ms)",
+        "p90(ms)",
+        "p99(ms)",
+        "max(ms)");
+  }
+
+  public String toRow() {
+    return format(
+        ROW_FORMAT,
+        name,
+        count,
+        errors,
+        format("%.1f", throughputPerSec),
+        format("%.1f", p50Ms),
+        format("%.1f", p90Ms),
+        format("%.1f", p99Ms),
+        format("%.1f", maxMs));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+
+import bio.overture.song.loadtest.report.LatencyRecorder;
+import bio.overture.song.loadtest.report.LatencySummary;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+@Slf4j
+public abstract class AbstractScenario implements Scenario {
+
+  @Getter private final String name;
+  @Getter private final boolean enabled;
+
+  protected AbstractScenario(@NonNull String name, boolean enabled) {
+    this.name = name;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Executes {@code task} for every input on a fixed pool of {@code threads} workers, timing each
+   * invocation. Failures are logged and counted, but never abort the scenario.
+   */
+  @SneakyThrows
+  protected <T> LatencySummary runConcurrently(
+      int threads, @NonNull Collection<T> inputs, @NonNull Consumer<T> task) {
+    val recorder = new LatencyRecorder(name);
+    val executor = Executors.newFixedThreadPool(threads);
+    log.info("[{}] Running {} operations on {} threads", name, inputs.size(), threads);
+    recorder.start();
+    for (val input : inputs) {
+      executor.submit(
+          () -> {
+            try {
+              recorder.time(() -> task.accept(input));
+            } catch (RuntimeException e) {
+              log.debug("[{}] Operation failed for '{}': {}", name, input, e.getMessage());
+            }
+          });
+    }
+    executor.shutdown();
+    executor.awaitTermination(5, HOURS);
+    recorder.stop();
+    return recorder.summarize();
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import static bio.overture.song.loadtest.scenario.PayloadFactory.resolveStorageObjects;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.BulkSubmitConfig;
+import bio.overture.song.loadtest.report.LatencySummary;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Submits many small, unique analyses concurrently. Each successfully submitted analysis has its
+ * files registered with the storage stand-in so that it can later be published.
+ */
+public class BulkSubmitScenario extends AbstractScenario {
+
+  private final BulkSubmitConfig config;
+
+  public BulkSubmitScenario(@NonNull BulkSubmitConfig config) {
+    super("bulk-submit", config.isEnabled());
+    this.config = config;
+  }
+
+  @Override
+  public LatencySummary run(@NonNull ScenarioContext context) {
+    val studyId = context.getRunConfig().getStudyId();
+    val payloadFactory = new PayloadFactory(studyId, config.getNumFilesPerAnalysis());
+    val payloads =
+        Stream.generate(payloadFactory::createPayload)
+            .limit(config.getNumAnalyses())
+            .collect(toUnmodifiableList());
+    return runConcurrently(
+        context.getRunConfig().getThreads(),
+        payloads,
+        payload -> {
+          val analysisId = context.getSongApi().submit(studyId, payload.getJson()).getAnalysisId();
+          resolveStorageObjects(analysisId, payload)
+              .forEach(
+                  o ->
+                      context
+                          .getStorageStandIn()
+                          .register(o.getObjectId(), o.getMd5(), o.getSize()));
+          context.getSubmittedAnalysisIds().add(analysisId);
+        });
+  }
+}
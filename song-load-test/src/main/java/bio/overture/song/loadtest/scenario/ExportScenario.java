@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.ExportConfig;
+import bio.overture.song.loadtest.report.LatencySummary;
+import com.google.common.collect.Lists;
+import java.util.List;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Exports the published analyses in batches, the same way the client's export command does, with a
+ * final whole-study export.
+ */
+public class ExportScenario extends AbstractScenario {
+
+  private final ExportConfig config;
+
+  public ExportScenario(@NonNull ExportConfig config) {
+    super("export", config.isEnabled());
+    this.config = config;
+  }
+
+  @Override
+  public LatencySummary run(@NonNull ScenarioContext context) {
+    val studyId = context.getRunConfig().getStudyId();
+    val batches =
+        Lists.<List<String>>newArrayList(
+            Lists.partition(List.copyOf(context.getPublishedAnalysisIds()), config.getBatchSize()));
+    // An empty batch marks the whole-study export
+    batches.add(List.of());
+    return runConcurrently(
+        context.getRunConfig().getThreads(),
+        batches,
+        batch -> {
+          if (batch.isEmpty()) {
+            context.getSongApi().exportStudy(studyId);
+          } else {
+            context.getSongApi().exportAnalyses(batch);
+          }
+        });
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.PaginatedCrawlConfig;
+import bio.overture.song.loadtest.report.LatencySummary;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Crawls every page of the study's paginated analysis listing, fetching pages concurrently as a
+ * downstream indexer would. The number of pages is derived from the number of submitted analyses.
+ */
+public class PaginatedCrawlScenario extends AbstractScenario {
+
+  private static final String PAGINATED_ENDPOINT_FORMAT =
+      "/studies/%s/analysis/paginated?analysisStates=PUBLISHED,UNPUBLISHED&limit=%s&offset=%s";
+
+  private final PaginatedCrawlConfig config;
+
+  public PaginatedCrawlScenario(@NonNull PaginatedCrawlConfig config) {
+    super("paginated-crawl", config.isEnabled());
+    this.config = config;
+  }
+
+  @Override
+  public LatencySummary run(@NonNull ScenarioContext context) {
+    val studyId = context.getRunConfig().getStudyId();
+    val pageSize = config.getPageSize();
+    val numPages =
+        Math.max(1, (context.getSubmittedAnalysisIds().size() + pageSize - 1) / pageSize);
+    val endpoints =
+        IntStream.range(0, config.getNumPasses() * numPages)
+            .mapToObj(
+                i ->
+                    format(PAGINATED_ENDPOINT_FORMAT, studyId, pageSize, (i % numPages) * pageSize))
+            .collect(toUnmodifiableList());
+    return runConcurrently(
+        context.getRunConfig().getThreads(),
+        endpoints,
+        endpoint -> context.getRestClient().get(endpoint, String.class));
+  }
+}
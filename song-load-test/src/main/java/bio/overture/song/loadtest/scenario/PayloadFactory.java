@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import static bio.overture.song.core.utils.JsonUtils.toJson;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import bio.overture.song.server.config.IdConfig;
+import bio.overture.song.server.service.id.LocalIdService;
+import com.google.common.hash.Hashing;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Generates unique, schema-valid payloads for the load-test analysis type, together with the
+ * objects the storage stand-in must know about for those payloads to be publishable.
+ */
+public class PayloadFactory {
+
+  public static final String ANALYSIS_TYPE_NAME = "loadTest";
+  public static final String ANALYSIS_TYPE_REGISTRATION =
+      "{\"name\":\""
+          + ANALYSIS_TYPE_NAME
+          + "\",\"schema\":{\"type\":\"object\",\"required\":[\"experiment\"],"
+          + "\"properties\":{\"experiment\":{\"type\":\"object\"}}}}";
+
+  private static final LocalIdService LOCAL_ID_SERVICE =
+      new LocalIdService(IdConfig::createNameBasedGenerator);
+
+  private final String studyId;
+  private final int numFilesPerAnalysis;
+
+  public PayloadFactory(@NonNull String studyId, int numFilesPerAnalysis) {
+    this.studyId = studyId;
+    this.numFilesPerAnalysis = numFilesPerAnalysis;
+  }
+
+  public GeneratedPayload createPayload() {
+    val suffix = UUID.randomUUID().toString();
+    val payload = new LinkedHashMap<String, Object>();
+    payload.put("studyId", studyId);
+    payload.put("analysisType", Map.of("name", ANALYSIS_TYPE_NAME));
+    payload.put("samples", List.of(createSample(suffix)));
+    val files = createFiles(suffix);
+    payload.put("files", files);
+    payload.put("experiment", Map.of("loadTestRun", suffix));
+    return new GeneratedPayload(toJson(payload), files);
+  }
+
+  /**
+   * Computes the storage objects for a submitted analysis, using the same id service the
+   * song-server uses for file object ids.
+   */
+  public static List<StorageObject> resolveStorageObjects(
+      @NonNull String analysisId, @NonNull GeneratedPayload payload) {
+    val fileIds =
+        LOCAL_ID_SERVICE.getFileIds(
+            analysisId,
+            payload.getFiles().stream()
+                .map(f -> (String) f.get("fileName"))
+                .collect(Collectors.toUnmodifiableList()));
+    return payload.getFiles().stream()
+        .map(
+            f ->
+                new StorageObject(
+                    fileIds.get((String) f.get("fileName")),
+                    (String) f.get("fileMd5sum"),
+                    ((Number) f.get("fileSize")).longValue()))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static Map<String, Object> createSample(String suffix) {
+    val specimen = new LinkedHashMap<String, Object>();
+    specimen.put("submitterSpecimenId", "specimen-" + suffix);
+    specimen.put("specimenType", "Normal");
+    specimen.put("tumourNormalDesignation", "Normal");
+    specimen.put("specimenTissueSource", "Solid tissue");
+
+    val donor = new LinkedHashMap<String, Object>();
+    donor.put("submitterDonorId", "donor-" + suffix);
+    donor.put("gender", "Other");
+
+    val sample = new LinkedHashMap<String, Object>();
+    sample.put("submitterSampleId", "sample-" + suffix);
+    sample.put("sampleType", "Total DNA");
+    sample.put("matchedNormalSubmitterSampleId", null);
+    sample.put("specimen", specimen);
+    sample.put("donor", donor);
+    return sample;
+  }
+
+  private List<Map<String, Object>> createFiles(String suffix) {
+    return IntStream.range(0, numFilesPerAnalysis)
+        .mapToObj(
+            i -> {
+              val fileName = format("file-%s-%s.bam", suffix, i);
+              val file = new LinkedHashMap<String, Object>();
+              file.put("fileName", fileName);
+              file.put("dataType", "LOAD_TEST");
+              file.put("fileSize", 1024L * (i + 1));
+              file.put("fileMd5sum", Hashing.md5().hashString(fileName, UTF_8).toString());
+              file.put("fileAccess", "open");
+              file.put("fileType", "BAM");
+              return (Map<String, Object>) file;
+            })
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  @Value
+  public static class GeneratedPayload {
+    String json;
+    List<Map<String, Object>> files;
+  }
+
+  @Value
+  public static class StorageObject {
+    String objectId;
+    String md5;
+    long size;
+  }
+}
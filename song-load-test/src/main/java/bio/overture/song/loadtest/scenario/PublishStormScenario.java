@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.ScenarioConfig;
+import bio.overture.song.loadtest.report.LatencySummary;
+import java.util.List;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Publishes every analysis created by the bulk submit scenario at once, exercising the storage
+ * verification round trips and the analysis state transitions under contention.
+ */
+public class PublishStormScenario extends AbstractScenario {
+
+  public PublishStormScenario(@NonNull ScenarioConfig config) {
+    super("publish-storm", config.isEnabled());
+  }
+
+  @Override
+  public LatencySummary run(@NonNull ScenarioContext context) {
+    val studyId = context.getRunConfig().getStudyId();
+    return runConcurrently(
+        context.getRunConfig().getThreads(),
+        List.copyOf(context.getSubmittedAnalysisIds()),
+        analysisId -> {
+          context.getSongApi().publish(studyId, analysisId, false);
+          context.getPublishedAnalysisIds().add(analysisId);
+        });
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.scenario;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.RunConfig;
+import bio.overture.song.loadtest.standin.StorageStandIn;
+import bio.overture.song.sdk.SongApi;
+import bio.overture.song.sdk.web.RestClient;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * State shared between scenarios. Scenarios run sequentially, so later scenarios (publish storm,
+ * crawl, export) operate on the analyses produced by earlier ones (bulk submit).
+ */
+@Value
+@Builder
+public class ScenarioContext {
+
+  @NonNull RunConfig runConfig;
+  @NonNull SongApi songApi;
+  @NonNull RestClient restClient;
+  @NonNull StorageStandIn storageStandIn;
+
+  @Builder.Default List<String> submittedAnalysisIds = new CopyOnWriteArrayList<>();
+  @Builder.Default List<String> publishedAnalysisIds = new CopyOnWriteArrayList<>();
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.standin;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.FaultConfig;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Impersonates the Ego endpoints the song-server depends on in the "secure" profile: the api key
+ * introspection endpoint consumed by {@code EgoApiKeyIntrospector}, and the public key endpoint
+ * used to configure the JWT decoder. Only the configured api key is accepted, and it is granted the
+ * system scope.
+ */
+public class EgoStandIn extends StandInServer {
+
+  public static final String INTROSPECTION_PATH = "/o/check_api_key";
+  public static final String PUBLIC_KEY_PATH = "/oauth/token/public_key";
+  private static final String API_KEY_PARAM = "apiKey=";
+
+  private final String apiKey;
+  private final String systemScope;
+  private final String publicKeyPem;
+
+  public EgoStandIn(
+      @NonNull FaultConfig faultConfig, @NonNull String apiKey, @NonNull String systemScope) {
+    super("ego", faultConfig);
+    this.apiKey = apiKey;
+    this.systemScope = systemScope;
+    this.publicKeyPem = generatePublicKeyPem();
+  }
+
+  public String getIntrospectionUri() {
+    return getBaseUrl() + INTROSPECTION_PATH;
+  }
+
+  public String getPublicKeyUri() {
+    return getBaseUrl() + PUBLIC_KEY_PATH;
+  }
+
+  @Override
+  protected void handle(HttpExchange exchange) throws IOException {
+    val path = exchange.getRequestURI().getPath();
+    if (path.equals(PUBLIC_KEY_PATH)) {
+      respond(exchange, 200, "text/plain", publicKeyPem);
+    } else if (path.equals(INTROSPECTION_PATH)) {
+      val query = exchange.getRequestURI().getQuery();
+      val isValid = query != null && query.contains(API_KEY_PARAM + apiKey);
+      if (isValid) {
+        val exp = System.currentTimeMillis() + HOURS.toMillis(1);
+        respond(
+            exchange,
+            200,
+            APPLICATION_JSON,
+            format(
+                "{\"exp\":%s,\"user_id\":\"song-load-test\",\"scope\":[\"%s\"]}",
+                exp, systemScope));
+      } else {
+        respond(exchange, 401, APPLICATION_JSON, "{\"error\":\"invalid_token\"}");
+      }
+    } else {
+      respond(exchange, 404, APPLICATION_JSON, "{}");
+    }
+  }
+
+  @SneakyThrows
+  private static String generatePublicKeyPem() {
+    val generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    val encoded =
+        Base64.getMimeEncoder()
+            .encodeToString(generator.generateKeyPair().getPublic().getEncoded());
+    return "-----BEGIN PUBLIC KEY-----\n" + encoded + "\n-----END PUBLIC KEY-----\n";
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.standin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.FaultConfig;
+import com.google.common.base.Splitter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Impersonates the federated ID service. Serves the donor, specimen and sample URI templates
+ * returned by {@link #getUriTemplates}, and deterministically derives an id from the requested
+ * study and submitter id so that resubmissions resolve to the same entities.
+ */
+public class IdStandIn extends StandInServer {
+
+  private static final Splitter.MapSplitter QUERY_SPLITTER =
+      Splitter.on('&').omitEmptyStrings().withKeyValueSeparator('=');
+  private static final String STUDY_PARAM = "submittedProjectId";
+
+  public IdStandIn(@NonNull FaultConfig faultConfig) {
+    super("id", faultConfig);
+  }
+
+  /** URI templates suitable for the {@code id.federated.uriTemplate.*} server properties */
+  public Map<String, String> getUriTemplates() {
+    return Map.of(
+        "donor", buildTemplate("donor", "submittedDonorId"),
+        "specimen", buildTemplate("specimen", "submittedSpecimenId"),
+        "sample", buildTemplate("sample", "submittedSampleId"));
+  }
+
+  @Override
+  protected void handle(HttpExchange exchange) throws IOException {
+    val path = exchange.getRequestURI().getPath();
+    val query = exchange.getRequestURI().getRawQuery();
+    val params = query == null ? Map.<String, String>of() : QUERY_SPLITTER.split(query);
+    val entityType = path.replaceAll("^/([^/]+)/id$", "$1");
+    val submitterId =
+        params.entrySet().stream()
+            .filter(e -> !e.getKey().equals(STUDY_PARAM) && e.getKey().startsWith("submitted"))
+            .map(Map.Entry::getValue)
+            .findFirst();
+    if (!params.containsKey(STUDY_PARAM) || submitterId.isEmpty()) {
+      respond(exchange, 400, "text/plain", "Missing submittedProjectId or submitter id");
+      return;
+    }
+    val key = entityType + ":" + params.get(STUDY_PARAM) + ":" + submitterId.get();
+    respond(exchange, 200, "text/plain", UUID.nameUUIDFromBytes(key.getBytes(UTF_8)).toString());
+  }
+
+  private String buildTemplate(String entityType, String submitterParam) {
+    return getBaseUrl()
+        + "/"
+        + entityType
+        + "/id?"
+        + STUDY_PARAM
+        + "={studyId}&"
+        + submitterParam
+        + "={submitterId}&create=true";
+  }
+}
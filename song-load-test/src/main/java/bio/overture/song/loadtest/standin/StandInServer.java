@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.standin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.FaultConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Minimal embedded HTTP server used to impersonate an external dependency of the song-server. Every
+ * request is delayed by the configured latency (plus uniform jitter) and fails with the configured
+ * status code at the configured error rate, before being handed to {@link #handle}.
+ */
+@Slf4j
+public abstract class StandInServer {
+
+  private static final String TEXT_PLAIN = "text/plain";
+  protected static final String APPLICATION_JSON = "application/json";
+
+  /** Config */
+  @Getter private final String name;
+
+  private final FaultConfig faultConfig;
+
+  /** State */
+  private HttpServer server;
+
+  private ExecutorService executor;
+  @Getter private final AtomicLong requestCount = new AtomicLong();
+  @Getter private final AtomicLong injectedErrorCount = new AtomicLong();
+
+  protected StandInServer(@NonNull String name, @NonNull FaultConfig faultConfig) {
+    this.name = name;
+    this.faultConfig = faultConfig;
+  }
+
+  @SneakyThrows
+  public void start() {
+    server = HttpServer.create(new InetSocketAddress("localhost", faultConfig.getPort()), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::dispatch);
+    server.start();
+    log.info("Started {} stand-in on {}", name, getBaseUrl());
+  }
+
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  public String getBaseUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  protected abstract void handle(HttpExchange exchange) throws IOException;
+
+  private void dispatch(HttpExchange exchange) throws IOException {
+    requestCount.incrementAndGet();
+    try {
+      injectLatency();
+      if (isInjectedError()) {
+        injectedErrorCount.incrementAndGet();
+        respond(exchange, faultConfig.getErrorStatus(), TEXT_PLAIN, "Injected error");
+      } else {
+        handle(exchange);
+      }
+    } catch (RuntimeException e) {
+      log.error("[{}] Unexpected error handling {}", name, exchange.getRequestURI(), e);
+      respond(exchange, 500, TEXT_PLAIN, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  @SneakyThrows
+  private void injectLatency() {
+    val jitter = faultConfig.getJitterMs();
+    val delay =
+        faultConfig.getLatencyMs()
+            + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    if (delay > 0) {
+      Thread.sleep(delay);
+    }
+  }
+
+  private boolean isInjectedError() {
+    return faultConfig.getErrorRate() > 0
+        && ThreadLocalRandom.current().nextDouble() < faultConfig.getErrorRate();
+  }
+
+  protected static void respond(HttpExchange exchange, int status, String contentType, String body)
+      throws IOException {
+    val bytes = body.getBytes(UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    if (bytes.length > 0) {
+      try (val os = exchange.getResponseBody()) {
+        os.write(bytes);
+      }
+    }
+  }
+
+  protected static String lastPathSegment(HttpExchange exchange) {
+    val path = exchange.getRequestURI().getPath();
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.standin;
+
+import static java.lang.String.format;
+
+import bio.overture.song.loadtest.config.LoadTestConfig.FaultConfig;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Impersonates the score storage server endpoints used by {@code StorageService}: {@code GET
+ * /upload/{objectId}} answers whether an object was uploaded, and {@code GET /download/{objectId}}
+ * describes its size and md5. Only objects registered by the harness exist.
+ */
+public class StorageStandIn extends StandInServer {
+
+  private static final String UPLOAD = "/upload/";
+  private static final String DOWNLOAD = "/download/";
+
+  private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+  public StorageStandIn(@NonNull FaultConfig faultConfig) {
+    super("storage", faultConfig);
+  }
+
+  public void register(@NonNull String objectId, @NonNull String md5, long size) {
+    objects.put(objectId, new StoredObject(md5, size));
+  }
+
+  @Override
+  protected void handle(HttpExchange exchange) throws IOException {
+    val path = exchange.getRequestURI().getPath();
+    val objectId = lastPathSegment(exchange);
+    if (path.startsWith(UPLOAD)) {
+      respond(exchange, 200, APPLICATION_JSON, Boolean.toString(objects.containsKey(objectId)));
+    } else if (path.startsWith(DOWNLOAD)) {
+      val object = objects.get(objectId);
+      if (object == null) {
+        respond(exchange, 404, APPLICATION_JSON, "{\"message\":\"Object not found\"}");
+      } else {
+        respond(
+            exchange,
+            200,
+            APPLICATION_JSON,
+            format(
+                "{\"objectId\":\"%s\",\"objectSize\":%s,\"objectMd5\":\"%s\"}",
+                objectId, object.getSize(), object.getMd5()));
+      }
+    } else {
+      respond(exchange, 404, APPLICATION_JSON, "{}");
+    }
+  }
+
+  @Value
+  private static class StoredObject {
+    String md5;
+    long size;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.loadtest.report;
+
+import static bio.overture.song.loadtest.report.LatencyRecorder.percentile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.stream.LongStream;
+import lombok.val;
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+  @Test
+  public void testPercentileNearestRank() {
+    val sorted = LongStream.rangeClosed(1, 100).toArray();
+    assertEquals(50L, percentile(sorted, 50));
+    assertEquals(90L, percentile(sorted, 90));
+    assertEquals(99L, percentile(sorted, 99));
+    assertEquals(100L, percentile(sorted, 100));
+    assertEquals(1L, percentile(sorted, 0));
+  }
+
+  @Test
+  public void testPercentileEmptyAndSingle() {
+    assertEquals(0L, percentile(new long[] {}, 99));
+    assertEquals(7L, percentile(new long[] {7}, 50));
+  }
+
+  @Test
+  public void testErrorsCountedButNotTimed() {
+    val recorder = new LatencyRecorder("test");
+    recorder.start();
+    recorder.time(() -> {});
+    try {
+      recorder.time(
+          () -> {
+            throw new IllegalStateException();
+          });
+      fail("Expected exception to be rethrown");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    recorder.stop();
+    val summary = recorder.summarize();
+    assertEquals(1L, summary.getCount());
+    assertEquals(1L, summary.getErrors());
+    assertTrue(summary.getThroughputPerSec() > 0);
+  }
+}
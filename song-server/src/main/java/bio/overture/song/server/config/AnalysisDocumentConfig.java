@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.config;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.properties.AnalysisDocumentProperties;
+import bio.overture.song.server.repository.AnalysisDocumentRepository;
+import bio.overture.song.server.service.analysis.AnalysisDocumentService;
+import bio.overture.song.server.service.analysis.AnalysisDocumentTransactionManager;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@ConditionalOnProperty(value = "song.analysis-documents.enabled")
+public class AnalysisDocumentConfig {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  /**
+   * Replaces the auto-configured transaction manager with one that rebuilds the documents of
+   * changed analyses before committing. The entity manager factory is found the same way.
+   */
+  @Bean
+  public PlatformTransactionManager transactionManager(
+      ObjectProvider<AnalysisDocumentService> analysisDocumentService,
+      ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+    val transactionManager = new AnalysisDocumentTransactionManager(analysisDocumentService);
+    transactionManagerCustomizers.ifAvailable(c -> c.customize(transactionManager));
+    return transactionManager;
+  }
+
+  @Bean
+  public AnalysisDocumentRepository analysisDocumentRepository() {
+    return new AnalysisDocumentRepository(entityManager);
+  }
+
+  /** Uses the same mapper as the JSON message converter, so documents match the responses. */
+  @Bean
+  public AnalysisDocumentService analysisDocumentService(
+      AnalysisService analysisServiceImpl,
+      AnalysisDocumentRepository analysisDocumentRepository,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager,
+      AnalysisDocumentProperties properties) {
+    return new AnalysisDocumentService(
+        analysisServiceImpl,
+        analysisDocumentRepository,
+        objectMapper.writerFor(Analysis.class),
+        entityManager,
+        new TransactionTemplate(transactionManager),
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("SongAnalysisDocuments-%d").build()),
+        properties.getBatchSize());
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.config;
+
+import bio.overture.song.server.properties.AnalysisResponseCacheProperties;
+import bio.overture.song.server.service.analysis.AnalysisResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(value = "song.analysis-response-cache.enabled", matchIfMissing = true)
+public class AnalysisResponseCacheConfig {
+
+  @Bean
+  public AnalysisResponseCache analysisResponseCache(
+      AnalysisResponseCacheProperties properties, MeterRegistry meterRegistry) {
+    return new AnalysisResponseCache(properties.getMaxSize().toBytes(), meterRegistry);
+  }
+}
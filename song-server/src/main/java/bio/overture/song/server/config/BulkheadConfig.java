@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.config;
+
+import bio.overture.song.server.properties.BulkheadProperties;
+import bio.overture.song.server.properties.BulkheadProperties.Workload;
+import bio.overture.song.server.utils.BulkheadInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(value = "song.bulkheads.enabled")
+public class BulkheadConfig {
+
+  @Autowired private BulkheadProperties bulkheadProperties;
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Bean
+  public BulkheadInterceptor exportBulkhead() {
+    return createBulkhead("export", bulkheadProperties.getExport());
+  }
+
+  @Bean
+  public BulkheadInterceptor writeBulkhead() {
+    return createBulkhead("write", bulkheadProperties.getWrite());
+  }
+
+  private BulkheadInterceptor createBulkhead(String name, Workload workload) {
+    return new BulkheadInterceptor(
+        name,
+        workload.getMaxConcurrent(),
+        workload.getMaxWait(),
+        workload.getPathPatterns(),
+        workload.getExcludedPathPatterns(),
+        workload.isWritesOnly(),
+        meterRegistry);
+  }
+}
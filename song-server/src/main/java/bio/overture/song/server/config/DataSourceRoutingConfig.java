@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.config;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.isNull;
+
+import bio.overture.song.server.properties.DataSourceReplicaProperties;
+import bio.overture.song.server.repository.routing.ReadWriteRoutingDataSource;
+import bio.overture.song.server.repository.routing.ReadYourWritesTracker;
+import bio.overture.song.server.repository.routing.ReplicaLagMonitor;
+import bio.overture.song.server.utils.ReadYourWritesInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the auto-configured datasource with one that sends read-only transactions to the
+ * configured read replicas. The primary pool is still configured with the standard
+ * spring.datasource properties.
+ */
+@Configuration
+@ConditionalOnProperty(value = "song.datasource.replicas.enabled")
+public class DataSourceRoutingConfig {
+
+  private static final String REPLICA_PREFIX = "replica-";
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public ReplicaLagMonitor replicaLagMonitor(
+      DataSourceProperties dataSourceProperties,
+      DataSourceReplicaProperties replicaProperties,
+      HikariDataSource primaryDataSource,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    return new ReplicaLagMonitor(
+        buildReplicas(
+            dataSourceProperties,
+            replicaProperties,
+            primaryDataSource,
+            meterRegistry.getIfAvailable()),
+        replicaProperties.getLagQuery(),
+        replicaProperties.getMaxLag(),
+        replicaProperties.getLagCheckInterval());
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor) {
+    return new LazyConnectionDataSourceProxy(
+        new ReadWriteRoutingDataSource(primaryDataSource, replicaLagMonitor));
+  }
+
+  @Bean
+  public ReadYourWritesInterceptor readYourWritesInterceptor(
+      DataSourceReplicaProperties replicaProperties) {
+    val window = replicaProperties.getReadYourWritesWindow();
+    return new ReadYourWritesInterceptor(
+        new ReadYourWritesTracker(window, Clock.systemUTC()), window);
+  }
+
+  private static Map<String, DataSource> buildReplicas(
+      DataSourceProperties dataSourceProperties,
+      DataSourceReplicaProperties replicaProperties,
+      HikariDataSource primaryDataSource,
+      MeterRegistry meterRegistry) {
+    checkState(
+        !replicaProperties.getNodes().isEmpty(),
+        "Replica routing is enabled but no replica nodes are configured");
+    val replicas = new LinkedHashMap<String, DataSource>();
+    val nodes = replicaProperties.getNodes();
+    for (int i = 0; i < nodes.size(); i++) {
+      val node = nodes.get(i);
+      val key = REPLICA_PREFIX + i;
+      val replica = new HikariDataSource();
+      replica.setPoolName(key);
+      replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+      replica.setJdbcUrl(node.getUrl());
+      replica.setUsername(node.getUsername());
+      replica.setPassword(node.getPassword());
+      replica.setReadOnly(true);
+      replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+      replica.setMaximumPoolSize(
+          isNull(node.getMaximumPoolSize())
+              ? primaryDataSource.getMaximumPoolSize()
+              : node.getMaximumPoolSize());
+      if (!isNull(meterRegistry)) {
+        replica.setMetricRegistry(meterRegistry);
+      }
+      replicas.put(key, replica);
+    }
+    return replicas;
+  }
+}
@@ -65,7 +65,7 @@ public class IdConfig {
 
   @Bean
   public IdService idService() {
-    val localIdService = new LocalIdService(createNameBasedGenerator());
+    val localIdService = new LocalIdService(IdConfig::createNameBasedGenerator);
     if (idProperties.isUseLocal()) {
       log.info("Loading LOCAL mode for IdService");
       return localIdService;
@@ -78,6 +78,7 @@ public class IdConfig {
     }
   }
 
+  /** Generators synchronize on their MessageDigest, so each thread should create its own */
   @SneakyThrows
   public static NameBasedGenerator createNameBasedGenerator() {
     return Generators.nameBasedGenerator(NAMESPACE_UUID, MessageDigest.getInstance("SHA-1"));
@@ -17,6 +17,11 @@
 
 package bio.overture.song.server.config;
 
+import bio.overture.song.server.repository.AnalysisChangeRepository;
+import bio.overture.song.server.repository.AnalysisStateTransitionRepository;
+import bio.overture.song.server.repository.EntityUpsertRepository;
+import bio.overture.song.server.repository.PublishJobLeaseRepository;
+import bio.overture.song.server.repository.ResourceVersionRepository;
 import bio.overture.song.server.repository.UpgradedAnalysisRepository;
 import bio.overture.song.server.repository.search.SearchRepository;
 import javax.persistence.EntityManager;
@@ -38,4 +43,29 @@ public class RepositoryConfig {
   public UpgradedAnalysisRepository upgradedAnalysisRepository() {
     return new UpgradedAnalysisRepository(entityManager);
   }
+
+  @Bean
+  public AnalysisStateTransitionRepository analysisStateTransitionRepository() {
+    return new AnalysisStateTransitionRepository(entityManager);
+  }
+
+  @Bean
+  public AnalysisChangeRepository analysisChangeRepository() {
+    return new AnalysisChangeRepository(entityManager);
+  }
+
+  @Bean
+  public EntityUpsertRepository entityUpsertRepository() {
+    return new EntityUpsertRepository(entityManager);
+  }
+
+  @Bean
+  public PublishJobLeaseRepository publishJobLeaseRepository() {
+    return new PublishJobLeaseRepository(entityManager);
+  }
+
+  @Bean
+  public ResourceVersionRepository resourceVersionRepository() {
+    return new ResourceVersionRepository(entityManager);
+  }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.config;
+
+import static bio.overture.song.server.model.enums.CacheRegions.ANALYSIS_SCHEMA;
+import static bio.overture.song.server.model.enums.CacheRegions.STUDY;
+import static bio.overture.song.server.model.enums.CacheRegions.STUDY_INFO;
+import static java.util.Objects.isNull;
+
+import bio.overture.song.server.properties.SecondLevelCacheProperties;
+import bio.overture.song.server.properties.SecondLevelCacheProperties.Region;
+import java.net.URI;
+import javax.cache.Caching;
+import lombok.val;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One heap-only JCache manager holds both the Hibernate second-level cache regions and the Spring
+ * caches, so all of them are sized by song.cache and reported through the same cache metrics.
+ */
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(value = "song.cache.enabled", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+  private static final URI CACHE_MANAGER_URI = URI.create("song");
+
+  @Bean
+  public javax.cache.CacheManager jCacheManager(SecondLevelCacheProperties properties) {
+    val configuration =
+        ConfigurationBuilder.newConfigurationBuilder()
+            .withCache(ANALYSIS_SCHEMA, buildCacheConfiguration(properties.getAnalysisSchema()))
+            .withCache(STUDY, buildCacheConfiguration(properties.getStudy()))
+            .withCache(STUDY_INFO, buildCacheConfiguration(properties.getStudyInfo()))
+            .build();
+    val provider =
+        (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+    val cacheManager = provider.getCacheManager(CACHE_MANAGER_URI, configuration);
+    if (properties.isStatistics()) {
+      cacheManager.getCacheNames().forEach(name -> cacheManager.enableStatistics(name, true));
+    }
+    return cacheManager;
+  }
+
+  /** Defers puts and evictions to after the transaction commits. */
+  @Bean
+  public CacheManager cacheManager(javax.cache.CacheManager jCacheManager) {
+    val cacheManager = new JCacheCacheManager(jCacheManager);
+    cacheManager.setTransactionAware(true);
+    return cacheManager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+      javax.cache.CacheManager jCacheManager) {
+    return hibernateProperties -> {
+      hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      hibernateProperties.put(ConfigSettings.CACHE_MANAGER, jCacheManager);
+      hibernateProperties.put(
+          ConfigSettings.MISSING_CACHE_STRATEGY,
+          MissingCacheStrategy.FAIL.getExternalRepresentation());
+    };
+  }
+
+  private static CacheConfiguration<Object, Object> buildCacheConfiguration(Region region) {
+    val builder =
+        CacheConfigurationBuilder.newCacheConfigurationBuilder(
+            Object.class, Object.class, ResourcePoolsBuilder.heap(region.getHeapEntries()));
+    if (isNull(region.getTimeToLive())) {
+      return builder.build();
+    }
+    return builder
+        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(region.getTimeToLive()))
+        .build();
+  }
+}
@@ -1,12 +1,17 @@
 package bio.overture.song.server.config;
 
 import bio.overture.song.server.exceptions.CustomErrorReportValve;
+import bio.overture.song.server.properties.GzipRequestProperties;
+import bio.overture.song.server.utils.GzipRequestFilter;
 import java.util.Collections;
 import lombok.val;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 
 @Configuration
 public class TomcatConfig {
@@ -17,4 +22,19 @@ public class TomcatConfig {
     tomcat.setContextValves(Collections.singletonList(err));
     return tomcat;
   }
+
+  /**
+   * Response compression is configured with the standard server.compression properties. Requests
+   * are decompressed before any other filter reads the body.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "song.gzip-requests.enabled", matchIfMissing = true)
+  public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter(
+      GzipRequestProperties properties) {
+    val registration =
+        new FilterRegistrationBean<>(
+            new GzipRequestFilter(properties.getMaxDecompressedSize().toBytes()));
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
 }
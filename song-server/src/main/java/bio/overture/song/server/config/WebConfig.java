@@ -19,11 +19,20 @@ package bio.overture.song.server.config;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 
 import bio.overture.song.server.controller.analysisType.AnalysisTypePageableResolver;
+import bio.overture.song.server.utils.BulkheadInterceptor;
+import bio.overture.song.server.utils.ReadYourWritesInterceptor;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import java.util.List;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -31,12 +40,39 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
   @Autowired private SwaggerConfig swaggerConfig;
+  @Autowired private Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+  @Autowired private ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor;
+  @Autowired private ObjectProvider<BulkheadInterceptor> bulkheadInterceptors;
 
   @Override
   public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
     configurer.defaultContentType(APPLICATION_JSON);
   }
 
+  /**
+   * Adds Smile after the JSON converters, so it is only used when a client explicitly asks for it
+   * and JSON stays the default for browsers and other clients.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    val smileMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+    converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper));
+  }
+
+  /** The interceptors are only present when their feature is enabled. */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    bulkheadInterceptors
+        .orderedStream()
+        .forEach(
+            x ->
+                registry
+                    .addInterceptor(x)
+                    .addPathPatterns(x.getPathPatterns())
+                    .excludePathPatterns(x.getExcludedPathPatterns()));
+    readYourWritesInterceptor.ifAvailable(registry::addInterceptor);
+  }
+
   @Override
   public void addViewControllers(ViewControllerRegistry registry) {
     registry.addRedirectViewController(swaggerConfig.getAlternateSwaggerUrl(), "/swagger-ui.html");
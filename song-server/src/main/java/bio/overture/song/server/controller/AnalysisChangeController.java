@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.controller;
+
+import bio.overture.song.server.service.AnalysisChangeService;
+import bio.overture.song.server.service.analysis.GetAnalysisChangesResponse;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/studies/{studyId}/analysis/changes")
+@Api(tags = "Analysis Changes", description = "Incrementally sync the analyses of a study")
+public class AnalysisChangeController {
+
+  /** Dependencies */
+  private final AnalysisChangeService analysisChangeService;
+
+  @Autowired
+  public AnalysisChangeController(@NonNull AnalysisChangeService analysisChangeService) {
+    this.analysisChangeService = analysisChangeService;
+  }
+
+  @ApiOperation(
+      value = "GetAnalysisChanges",
+      notes =
+          "Retrieve the analyses of a study that changed since a cursor, ordered by change. "
+              + "Omit 'since' to start from the beginning, then pass the returned 'nextCursor' "
+              + "to resume. Only the last change of each analysis is returned. Changes are only "
+              + "returned once every transaction that started before them has ended, so a "
+              + "long-running transaction on any table, such as a bulk publish, holds back the "
+              + "feed until it ends. The returned 'lag' reports the number of such transactions "
+              + "and, in seconds, how long the oldest withheld change has been waiting.")
+  @GetMapping
+  public GetAnalysisChangesResponse getAnalysisChanges(
+      @PathVariable("studyId") String studyId,
+      @ApiParam(value = "Cursor returned by a previous request")
+          @RequestParam(value = "since", required = false)
+          String since,
+      @RequestParam(value = "limit", defaultValue = "100", required = false) int limit,
+      @ApiParam(value = "Includes the full analysis in each change")
+          @RequestParam(value = "includeAnalyses", defaultValue = "false", required = false)
+          boolean includeAnalyses) {
+    return analysisChangeService.getAnalysisChanges(studyId, since, limit, includeAnalyses);
+  }
+}
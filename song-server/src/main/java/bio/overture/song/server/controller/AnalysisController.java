@@ -16,16 +16,26 @@
  */
 package bio.overture.song.server.controller;
 
+import static bio.overture.song.core.model.enums.AnalysisStates.SUPPRESSED;
+import static bio.overture.song.core.model.enums.AnalysisStates.UNPUBLISHED;
+import static bio.overture.song.core.utils.JsonUtils.APPLICATION_SMILE_VALUE;
 import static bio.overture.song.core.utils.Separators.COMMA;
 import static bio.overture.song.server.repository.search.IdSearchRequest.createIdSearchRequest;
+import static java.util.Objects.isNull;
+import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.ResponseEntity.ok;
+import static org.springframework.transaction.annotation.Isolation.REPEATABLE_READ;
 
 import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.dto.BulkAnalysisStateRequest;
 import bio.overture.song.server.model.entity.FileEntity;
 import bio.overture.song.server.repository.search.IdSearchRequest;
+import bio.overture.song.server.service.EntityTagService;
+import bio.overture.song.server.service.analysis.AnalysisJsonService;
 import bio.overture.song.server.service.analysis.AnalysisService;
 import bio.overture.song.server.service.analysis.GetAnalysisResponse;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -40,7 +50,9 @@ import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/studies/{studyId}/analysis")
@@ -65,21 +77,39 @@ public class AnalysisController {
   /** Dependencies */
   private final AnalysisService analysisService;
 
+  private final EntityTagService entityTagService;
+  private final AnalysisJsonService analysisJsonService;
+
   @Autowired
-  public AnalysisController(@NonNull AnalysisService analysisService) {
+  public AnalysisController(
+      @NonNull AnalysisService analysisService,
+      @NonNull EntityTagService entityTagService,
+      @NonNull AnalysisJsonService analysisJsonService) {
     this.analysisService = analysisService;
+    this.entityTagService = entityTagService;
+    this.analysisJsonService = analysisJsonService;
   }
 
   @ApiOperation(
       value = "GetAnalysesForStudy",
-      notes = "Retrieve all analysis objects for a studyId")
+      notes = "Retrieve all analysis objects for a studyId",
+      response = Analysis.class,
+      responseContainer = "List")
   @GetMapping(value = "")
-  public List<Analysis> getAnalysis(
+  public ResponseEntity<?> getAnalysis(
       @PathVariable("studyId") String studyId,
       @ApiParam(value = "Non-empty comma separated list of analysis states to filter by")
           @RequestParam(value = "analysisStates", defaultValue = "PUBLISHED", required = false)
-          String analysisStates) {
-    return analysisService.getAnalysis(studyId, ImmutableSet.copyOf(COMMA.split(analysisStates)));
+          String analysisStates,
+      WebRequest webRequest) {
+    val states = ImmutableSet.copyOf(COMMA.split(analysisStates));
+    if (!isSmileRequested(webRequest)) {
+      val json = analysisJsonService.readAll(studyId, states);
+      if (json.isPresent()) {
+        return ok().contentType(APPLICATION_JSON).body(json.get());
+      }
+    }
+    return ok(analysisService.getAnalysis(studyId, states));
   }
 
   @ApiOperation(
@@ -105,7 +135,7 @@ public class AnalysisController {
   @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
   @PutMapping(
       value = "/{analysisId}",
-      consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE})
+      consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE, APPLICATION_SMILE_VALUE})
   public void updateAnalysis(
       @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
       @PathVariable("studyId") String studyId,
@@ -118,7 +148,7 @@ public class AnalysisController {
   @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
   @PatchMapping(
           value = "/{analysisId}",
-          consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE})
+          consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE, APPLICATION_SMILE_VALUE})
   public void patchUpdateAnalysis(
           @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
           @PathVariable("studyId") String studyId,
@@ -176,16 +206,70 @@ public class AnalysisController {
     return ok("AnalysisId " + id + " was suppressed");
   }
 
+  @ApiOperation(
+      value = "BulkUnpublishAnalyses",
+      notes =
+          "Unpublish many analyses of a study in a single transaction. "
+              + "Either all the analyses are unpublished, or none are")
+  @PutMapping(value = "/unpublish", consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+  @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
+  public List<String> bulkUnpublishAnalyses(
+      @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
+      @PathVariable("studyId") String studyId,
+      @RequestBody BulkAnalysisStateRequest request) {
+    return analysisService.bulkUpdateState(studyId, request.getAnalysisIds(), UNPUBLISHED);
+  }
+
+  @ApiOperation(
+      value = "BulkSuppressAnalyses",
+      notes =
+          "Suppress many analyses of a study in a single transaction. "
+              + "Either all the analyses are suppressed, or none are")
+  @PutMapping(value = "/suppress", consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+  @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
+  public List<String> bulkSuppressAnalyses(
+      @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
+      @PathVariable("studyId") String studyId,
+      @RequestBody BulkAnalysisStateRequest request) {
+    return analysisService.bulkUpdateState(studyId, request.getAnalysisIds(), SUPPRESSED);
+  }
+
   /**
    * * Return the JSON for this analysis (it's type, details, fileIds, etc.)
    *
    * @param id An analysis id
    * @return A JSON object representing this analysis
    */
-  @ApiOperation(value = "ReadAnalysis", notes = "Retrieve the analysis object for an analysisId")
+  @ApiOperation(
+      value = "ReadAnalysis",
+      notes = "Retrieve the analysis object for an analysisId",
+      response = Analysis.class)
   @GetMapping(value = "/{id}")
-  public Analysis read(@PathVariable("studyId") String studyId, @PathVariable("id") String id) {
-    return analysisService.securedDeepRead(studyId, id);
+  @Transactional(readOnly = true, isolation = REPEATABLE_READ)
+  public ResponseEntity<?> read(
+      @PathVariable("studyId") String studyId,
+      @PathVariable("id") String id,
+      WebRequest webRequest) {
+    // Answer conditional requests before the deep read. The tag and the body are read from one
+    // snapshot, so a cached body always matches the version it is cached under
+    val tag = entityTagService.getAnalysisTag(studyId, id);
+    if (tag.map(webRequest::checkNotModified).orElse(false)) {
+      return null;
+    }
+
+    // The cache and documents hold JSON, so Smile requests are always serialized. A missing tag
+    // means the analysis is not in the study, which the deep read reports.
+    if (tag.isPresent() && !isSmileRequested(webRequest)) {
+      return ok()
+          .contentType(APPLICATION_JSON)
+          .body(analysisJsonService.read(studyId, id, tag.get()));
+    }
+    return ok(analysisService.securedDeepRead(studyId, id));
+  }
+
+  private static boolean isSmileRequested(WebRequest webRequest) {
+    val accept = webRequest.getHeader(ACCEPT);
+    return !isNull(accept) && accept.contains(APPLICATION_SMILE_VALUE);
   }
 
   /**
@@ -196,8 +280,17 @@ public class AnalysisController {
    */
   @ApiOperation(value = "ReadAnalysisFiles", notes = "Retrieve the file objects for an analysisId")
   @GetMapping(value = "/{id}/files")
+  @Transactional(readOnly = true)
   public List<FileEntity> getFilesById(
-      @PathVariable("studyId") String studyId, @PathVariable("id") String id) {
+      @PathVariable("studyId") String studyId,
+      @PathVariable("id") String id,
+      WebRequest webRequest) {
+    if (entityTagService
+        .getAnalysisFilesTag(studyId, id)
+        .map(webRequest::checkNotModified)
+        .orElse(false)) {
+      return null;
+    }
     return analysisService.securedReadFiles(studyId, id);
   }
 
@@ -225,7 +318,7 @@ public class AnalysisController {
       notes = "Search for analysis objects by specifying an IdSearchRequest")
   @PostMapping(
       value = "/search/id",
-      consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE})
+      consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE, APPLICATION_SMILE_VALUE})
   @ResponseBody
   public List<Analysis> idSearch(
       @PathVariable("studyId") String studyId, @RequestBody IdSearchRequest request) {
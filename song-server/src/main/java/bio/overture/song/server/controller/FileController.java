@@ -21,16 +21,17 @@ import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import bio.overture.song.core.model.FileUpdateRequest;
 import bio.overture.song.core.model.FileUpdateResponse;
 import bio.overture.song.server.model.entity.FileEntity;
+import bio.overture.song.server.service.EntityTagService;
 import bio.overture.song.server.service.FileModificationService;
 import bio.overture.song.server.service.FileService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import java.util.List;
-import javax.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -40,6 +41,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
@@ -52,10 +54,19 @@ public class FileController {
 
   @Autowired private final FileModificationService fileModificationService;
 
+  @Autowired private final EntityTagService entityTagService;
+
   @ApiOperation(value = "ReadFile", notes = "Retrieves file data for a fileId")
   @GetMapping(value = "/files/{id}")
   @ResponseBody
-  public FileEntity read(@PathVariable("studyId") String studyId, @PathVariable("id") String id) {
+  @Transactional(readOnly = true)
+  public FileEntity read(
+      @PathVariable("studyId") String studyId,
+      @PathVariable("id") String id,
+      WebRequest webRequest) {
+    if (entityTagService.getFileTag(studyId, id).map(webRequest::checkNotModified).orElse(false)) {
+      return null;
+    }
     return fileService.securedRead(studyId, id);
   }
 
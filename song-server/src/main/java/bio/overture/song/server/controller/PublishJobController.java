@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.controller;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import bio.overture.song.server.model.dto.PublishJobRequest;
+import bio.overture.song.server.model.dto.PublishJobResponse;
+import bio.overture.song.server.service.PublishJobService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/studies/{studyId}/analysis/publish/jobs")
+@Api(tags = "Publish Jobs", description = "Asynchronously publish many analyses")
+public class PublishJobController {
+
+  /** Dependencies */
+  private final PublishJobService publishJobService;
+
+  @Autowired
+  public PublishJobController(@NonNull PublishJobService publishJobService) {
+    this.publishJobService = publishJobService;
+  }
+
+  @ApiOperation(
+      value = "SubmitPublishJob",
+      notes =
+          "Submit a job that publishes the requested analyses in the background. "
+              + "If no analysisIds are specified, all UNPUBLISHED analyses of the study are published. "
+              + "Returns the job id used to poll the job status")
+  @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_JSON_UTF8_VALUE})
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
+  public PublishJobResponse submitPublishJob(
+      @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
+      @PathVariable("studyId") String studyId,
+      @RequestBody PublishJobRequest request) {
+    return publishJobService.submit(studyId, request);
+  }
+
+  @ApiOperation(
+      value = "GetPublishJob",
+      notes = "Retrieve the progress of a publish job, and optionally the result of each analysis")
+  @GetMapping(value = "/{jobId}")
+  public PublishJobResponse getPublishJob(
+      @PathVariable("studyId") String studyId,
+      @PathVariable("jobId") String jobId,
+      @ApiParam(value = "Include the result of each analysis in the response")
+          @RequestParam(value = "includeResults", defaultValue = "false", required = false)
+          boolean includeResults) {
+    return publishJobService.getJob(studyId, jobId, includeResults);
+  }
+}
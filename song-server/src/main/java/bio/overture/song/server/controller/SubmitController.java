@@ -17,12 +17,15 @@
 
 package bio.overture.song.server.controller;
 
+import static bio.overture.song.core.utils.JsonUtils.APPLICATION_SMILE_VALUE;
+import static bio.overture.song.core.utils.JsonUtils.toJson;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import bio.overture.song.core.model.SubmitResponse;
 import bio.overture.song.server.service.SubmitService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import javax.validation.Valid;
@@ -44,6 +47,9 @@ import org.springframework.web.bind.annotation.RestController;
 @Api(tags = "Submit", description = "Submit and validate json metadata")
 public class SubmitController {
 
+  /** Identifies a submit, so that retries of it return the analysis it created */
+  public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
   /** Dependencies */
   @Autowired private final SubmitService submitService;
 
@@ -54,8 +60,20 @@ public class SubmitController {
   @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
   public SubmitResponse submit(
       @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
+      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) final String idempotencyKey,
       @PathVariable("studyId") String studyId,
       @RequestBody @Valid String json_payload) {
-    return submitService.submit(studyId, json_payload);
+    return submitService.submit(studyId, json_payload, idempotencyKey);
+  }
+
+  @ApiOperation(value = "SubmitSmile", notes = "Synchronously submit a Smile encoded payload")
+  @PostMapping(value = "/{studyId}", consumes = APPLICATION_SMILE_VALUE)
+  @PreAuthorize("@studySecurity.authorize(authentication, #studyId)")
+  public SubmitResponse submitSmile(
+      @RequestHeader(value = AUTHORIZATION, required = false) final String accessToken,
+      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) final String idempotencyKey,
+      @PathVariable("studyId") String studyId,
+      @RequestBody JsonNode payload) {
+    return submitService.submit(studyId, toJson(payload), idempotencyKey);
   }
 }
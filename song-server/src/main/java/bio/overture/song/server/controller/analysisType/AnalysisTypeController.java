@@ -32,6 +32,7 @@ import bio.overture.song.core.model.AnalysisType;
 import bio.overture.song.core.model.PageDTO;
 import bio.overture.song.server.model.dto.schema.RegisterAnalysisTypeRequest;
 import bio.overture.song.server.service.AnalysisTypeService;
+import bio.overture.song.server.service.EntityTagService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -44,6 +45,7 @@ import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -53,6 +55,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping(path = "/schemas")
@@ -62,16 +65,21 @@ public class AnalysisTypeController {
   public static final String REGISTRATION = "registration";
 
   private final AnalysisTypeService analysisTypeService;
+  private final EntityTagService entityTagService;
 
   @Autowired
-  public AnalysisTypeController(@NonNull AnalysisTypeService analysisTypeService) {
+  public AnalysisTypeController(
+      @NonNull AnalysisTypeService analysisTypeService,
+      @NonNull EntityTagService entityTagService) {
     this.analysisTypeService = analysisTypeService;
+    this.entityTagService = entityTagService;
   }
 
   @GetMapping("/{name}")
   @ApiOperation(
       value = "GetAnalysisTypeVersion",
       notes = "Retrieves the latest version of a schema for an analysisType")
+  @Transactional(readOnly = true)
   public AnalysisType getAnalysisTypeVersion(
       @ApiParam(value = "The name of an analysisType", type = "string", required = true)
           @PathVariable(value = "name", required = true)
@@ -88,7 +96,14 @@ public class AnalysisTypeController {
               type = "integer",
               required = false)
           @RequestParam(value = "version", required = false)
-          Integer version) {
+          Integer version,
+      WebRequest webRequest) {
+    if (entityTagService
+        .getAnalysisTypeTag(name, version, unrenderedOnly)
+        .map(webRequest::checkNotModified)
+        .orElse(false)) {
+      return null;
+    }
     return analysisTypeService.getAnalysisType(name, version, unrenderedOnly);
   }
 
@@ -17,7 +17,17 @@
 
 package bio.overture.song.server.kafka;
 
+import java.util.Map;
+
 public interface Sender {
 
     void send(String payload, String key);
+
+    /**
+     * Sends a batch of payloads, keyed by message key. Implementations may override this to
+     * flush the whole batch at once instead of message by message.
+     */
+    default void sendAll(Map<String, String> payloadsByKey) {
+        payloadsByKey.forEach((key, payload) -> send(payload, key));
+    }
 }
@@ -18,6 +18,7 @@
 package bio.overture.song.server.kafka.impl;
 
 import bio.overture.song.server.kafka.Sender;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
@@ -34,4 +35,11 @@ public class KafkaSender implements Sender {
         log.debug("sending payload='{}' to topic='{}'", payload, kafkaTemplate.getDefaultTopic());
         kafkaTemplate.send(kafkaTemplate.getDefaultTopic(), key, payload);
     }
+
+    @Override
+    public void sendAll(Map<String, String> payloadsByKey) {
+        log.debug("sending {} payloads to topic='{}'", payloadsByKey.size(), kafkaTemplate.getDefaultTopic());
+        payloadsByKey.forEach((key, payload) -> kafkaTemplate.send(kafkaTemplate.getDefaultTopic(), key, payload));
+        kafkaTemplate.flush();
+    }
 }
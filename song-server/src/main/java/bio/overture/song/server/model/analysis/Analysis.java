@@ -18,12 +18,12 @@
 package bio.overture.song.server.model.analysis;
 
 import static bio.overture.song.core.model.enums.AnalysisStates.*;
-import static bio.overture.song.core.utils.JsonUtils.toMap;
 import static bio.overture.song.server.service.AnalysisTypeService.resolveAnalysisTypeId;
+import static bio.overture.song.server.utils.RawJsonValue.splitFields;
+import static java.util.Objects.isNull;
 import static java.util.stream.Collectors.toUnmodifiableList;
 
 import bio.overture.song.core.model.AnalysisTypeId;
-import bio.overture.song.core.utils.JsonUtils;
 import bio.overture.song.server.model.entity.AnalysisSchema;
 import bio.overture.song.server.model.entity.FileEntity;
 import bio.overture.song.server.model.entity.composites.CompositeEntity;
@@ -68,8 +68,17 @@ public class Analysis {
   @UpdateTimestamp
   private LocalDateTime updatedAt;
 
-  @Transient private LocalDateTime firstPublishedAt;
-  @Transient private LocalDateTime publishedAt;
+  /** Set by the state transitions that publish the analysis, never by saving the entity */
+  @Column(name = TableAttributeNames.FIRST_PUBLISHED_AT, insertable = false, updatable = false)
+  private LocalDateTime firstPublishedAt;
+
+  @Column(name = TableAttributeNames.PUBLISHED_AT, insertable = false, updatable = false)
+  private LocalDateTime publishedAt;
+
+  /** Identifies the submit that created the analysis, so that retries of it return the analysis */
+  @JsonIgnore
+  @Column(name = TableAttributeNames.SUBMIT_KEY, updatable = false)
+  private String submitKey;
 
   @NotNull
   @JsonIgnore
@@ -79,7 +88,7 @@ public class Analysis {
   @JoinColumn(name = TableAttributeNames.ANALYSIS_SCHEMA_ID, nullable = false)
   private AnalysisSchema analysisSchema;
 
-  @OneToOne
+  @OneToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = TableAttributeNames.ANALYSIS_DATA_ID)
   @JsonIgnore
   private AnalysisData analysisData;
@@ -94,6 +103,7 @@ public class Analysis {
       orphanRemoval = true,
       fetch = FetchType.LAZY)
   @SortNatural
+  @BatchSize(size = 100)
   private Set<AnalysisStateChange> analysisStateHistory = new TreeSet<>();
 
   @Transient private List<CompositeEntity> samples;
@@ -105,16 +115,23 @@ public class Analysis {
     return resolveAnalysisTypeId(analysisSchema);
   }
 
-  @SneakyThrows
+  /**
+   * The fields of the analysis data, merged with the core fields when serialized. The values are
+   * the stored JSON text, written as is, so the data is never parsed to build a response.
+   */
   @JsonAnyGetter
   public Map<String, Object> getData() {
-    return toMap(JsonUtils.toJson(analysisData.getData()));
+    val rawData = analysisData.getRawData();
+    return isNull(rawData) ? null : splitFields(rawData);
   }
 
   public void setAnalysisState(String state) {
     this.analysisState = resolveAnalysisState(state).toString();
   }
 
+  /**
+   * Sets the published times from the state history, for analyses that are not loaded as entities
+   */
   public void populatePublishTimes() {
     val history = this.analysisStateHistory;
 
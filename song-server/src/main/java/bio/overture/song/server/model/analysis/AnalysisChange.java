@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.analysis;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/** The last change of an analysis. The full analysis is only included when explicitly requested. */
+@Value
+@Builder(toBuilder = true)
+@JsonInclude(NON_NULL)
+public class AnalysisChange {
+  @NonNull private String analysisId;
+  @NonNull private String analysisState;
+  @NonNull private LocalDateTime changedAt;
+  @NonNull private String cursor;
+  private Analysis analysis;
+}
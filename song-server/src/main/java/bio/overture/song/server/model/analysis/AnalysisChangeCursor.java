@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.analysis;
+
+import static bio.overture.song.core.exceptions.ServerErrors.MALFORMED_PARAMETER;
+import static bio.overture.song.core.exceptions.ServerException.buildServerException;
+
+import com.google.common.base.Splitter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Position in the analysis change feed. Changes are ordered by the id of the transaction that made
+ * them, then by a sequence number, and are rendered to clients as the opaque {@code txid.seq}
+ * string.
+ */
+@Value
+public class AnalysisChangeCursor {
+
+  public static final AnalysisChangeCursor START = new AnalysisChangeCursor(0, 0);
+
+  private static final Splitter DOT = Splitter.on('.');
+
+  private final long txid;
+  private final long seq;
+
+  public static AnalysisChangeCursor parseAnalysisChangeCursor(@NonNull String cursor) {
+    val parts = DOT.splitToList(cursor);
+    try {
+      if (parts.size() == 2) {
+        val txid = Long.parseLong(parts.get(0));
+        val seq = Long.parseLong(parts.get(1));
+        if (txid >= 0 && seq >= 0) {
+          return new AnalysisChangeCursor(txid, seq);
+        }
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw buildServerException(
+        AnalysisChangeCursor.class,
+        MALFORMED_PARAMETER,
+        "The change cursor '%s' is malformed. It must be a cursor returned by a previous request",
+        cursor);
+  }
+
+  @Override
+  public String toString() {
+    return txid + "." + seq;
+  }
+}
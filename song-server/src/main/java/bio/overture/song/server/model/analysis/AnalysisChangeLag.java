@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.analysis;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * How far the change feed of a study is behind the database. Changes are withheld while any older
+ * transaction is still running, on any table, so a single long-running transaction holds back the
+ * whole feed until it ends.
+ */
+@Value
+@Builder
+@JsonInclude(NON_NULL)
+public class AnalysisChangeLag {
+  /** Number of transactions started since the oldest running one, as seen by txid_current() */
+  private long pendingTransactions;
+
+  /** Age in seconds of the oldest committed change of the study that is still withheld, if any */
+  private Long withheldSeconds;
+}
@@ -1,8 +1,11 @@
 package bio.overture.song.server.model.analysis;
 
+import static bio.overture.song.core.utils.JsonUtils.readTree;
+import static bio.overture.song.core.utils.JsonUtils.toJson;
 import static bio.overture.song.server.model.enums.TableAttributeNames.DATA;
 import static bio.overture.song.server.model.enums.TableAttributeNames.ID;
-import static bio.overture.song.server.repository.CustomJsonType.CUSTOM_JSON_TYPE_PKG_PATH;
+import static bio.overture.song.server.repository.RawJsonType.RAW_JSON_TYPE_PKG_PATH;
+import static java.util.Objects.isNull;
 
 import bio.overture.song.server.model.enums.ModelAttributeNames;
 import bio.overture.song.server.model.enums.TableNames;
@@ -22,6 +25,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.ToString;
 import org.hibernate.annotations.Type;
 
@@ -47,13 +51,35 @@ public class AnalysisData {
       optional = false)
   private Analysis analysis;
 
+  /**
+   * The stored JSON, kept as text so that reads can write it to responses without parsing it. Use
+   * {@link #getData()} when the content needs to be inspected. Equality compares this text as is,
+   * without parsing it, so compare {@link #getData()} when the formatting may differ.
+   */
   @NotNull
   @Column(name = DATA)
-  @Type(type = CUSTOM_JSON_TYPE_PKG_PATH)
-  private JsonNode data;
+  @Type(type = RAW_JSON_TYPE_PKG_PATH)
+  private String rawData;
 
   public void setAnalysis(Analysis a) {
     this.analysis = a;
     a.setAnalysisData(this);
   }
+
+  /** Parses the stored JSON. Changes to the returned node are only persisted through setData. */
+  @SneakyThrows
+  public JsonNode getData() {
+    return isNull(rawData) ? null : readTree(rawData);
+  }
+
+  public void setData(JsonNode data) {
+    this.rawData = isNull(data) ? null : toJson(data);
+  }
+
+  public static class AnalysisDataBuilder {
+    public AnalysisDataBuilder data(JsonNode data) {
+      this.rawData = isNull(data) ? null : toJson(data);
+      return this;
+    }
+  }
 }
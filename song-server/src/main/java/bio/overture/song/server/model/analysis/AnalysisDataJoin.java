@@ -2,10 +2,9 @@ package bio.overture.song.server.model.analysis;
 
 import static bio.overture.song.core.model.enums.AnalysisStates.UNPUBLISHED;
 import static bio.overture.song.server.model.enums.TableAttributeNames.DATA;
-import static bio.overture.song.server.repository.CustomJsonType.CUSTOM_JSON_TYPE_PKG_PATH;
+import static bio.overture.song.server.repository.RawJsonType.RAW_JSON_TYPE_PKG_PATH;
 
 import bio.overture.song.server.model.enums.TableAttributeNames;
-import com.fasterxml.jackson.databind.JsonNode;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
@@ -39,6 +38,6 @@ public class AnalysisDataJoin {
 
   @NotNull
   @Column(name = DATA)
-  @Type(type = CUSTOM_JSON_TYPE_PKG_PATH)
-  private JsonNode data;
+  @Type(type = RAW_JSON_TYPE_PKG_PATH)
+  private String rawData;
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.analysis;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/** The assembled JSON of an analysis, as of the change it was built from. */
+@Value
+@Builder
+public class AnalysisDocument {
+  @NonNull private String analysisId;
+  @NonNull private String studyId;
+  private String analysisState;
+  private long changeSeq;
+  private LocalDateTime firstPublishedAt;
+  private LocalDateTime publishedAt;
+  @NonNull private String document;
+}
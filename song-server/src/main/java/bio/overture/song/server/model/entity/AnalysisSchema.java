@@ -8,6 +8,7 @@ import static bio.overture.song.server.repository.CustomJsonType.CUSTOM_JSON_TYP
 import static com.google.common.collect.Sets.newHashSet;
 
 import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.enums.CacheRegions;
 import bio.overture.song.server.model.enums.ModelAttributeNames;
 import bio.overture.song.server.model.enums.TableAttributeNames;
 import bio.overture.song.server.model.enums.TableNames;
@@ -15,6 +16,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.time.LocalDateTime;
 import java.util.Set;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -31,6 +33,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.Type;
 
@@ -40,6 +44,9 @@ import org.hibernate.annotations.Type;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = TableNames.ANALYSIS_SCHEMA)
+@Cacheable
+// Not READ_ONLY, since the version is only set by an update right after the insert
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.ANALYSIS_SCHEMA)
 public class AnalysisSchema {
 
   @Id
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.enums;
+
+import static bio.overture.song.core.utils.Streams.stream;
+import static java.lang.String.format;
+
+import lombok.NonNull;
+
+public enum PublishJobStates {
+  RUNNING,
+  COMPLETED;
+
+  public static PublishJobStates resolvePublishJobState(@NonNull String publishJobState) {
+    return stream(values())
+        .filter(x -> x.name().equals(publishJobState))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalStateException(
+                    format("The publish job state '%s' cannot be resolved", publishJobState)));
+  }
+}
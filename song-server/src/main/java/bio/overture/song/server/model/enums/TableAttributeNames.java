@@ -61,6 +61,9 @@ public class TableAttributeNames {
   public static final String PAYLOAD = "payload";
   public static final String CREATED_AT = "created_at";
   public static final String UPDATED_AT = "updated_at";
+  public static final String FIRST_PUBLISHED_AT = "first_published_at";
+  public static final String PUBLISHED_AT = "published_at";
+  public static final String SUBMIT_KEY = "submit_key";
   public static final String SAMPLE_ID = "sample_id";
 
   public static final String VARIANT_CALLING_TOOL = "variant_calling_tool";
@@ -79,6 +82,10 @@ public class TableAttributeNames {
 
   public static final String INITIAL_STATE = "initial_state";
   public static final String UPDATED_STATE = "updated_state";
+  public static final String JOB_ID = "job_id";
+  public static final String IGNORE_UNDEFINED_MD5 = "ignore_undefined_md5";
+  public static final String OWNER = "owner";
+  public static final String LEASE_UNTIL = "lease_until";
 
   public static final String SUBMITTER_SAMPLE_ID = "submitter_sample_id";
   public static final String SUBMITTER_DONOR_ID = "submitter_donor_id";
@@ -40,4 +40,6 @@ public class TableNames {
   public static final String ANALYSIS_SCHEMA = "analysis_schema";
   public static final String ANALYSIS_DATA = "analysis_data";
   public static final String ANALYSIS_STATE_CHANGE = "analysis_state_change";
+  public static final String PUBLISH_JOB = "publish_job";
+  public static final String PUBLISH_JOB_RESULT = "publish_job_result";
 }
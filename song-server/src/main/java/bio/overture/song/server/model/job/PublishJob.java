@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.job;
+
+import bio.overture.song.server.model.enums.TableAttributeNames;
+import bio.overture.song.server.model.enums.TableNames;
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = TableNames.PUBLISH_JOB)
+public class PublishJob {
+
+  @Id
+  @Column(name = TableAttributeNames.ID, updatable = false, unique = true, nullable = false)
+  private String jobId;
+
+  @Column(name = TableAttributeNames.STUDY_ID, updatable = false, nullable = false)
+  private String studyId;
+
+  @Column(name = TableAttributeNames.STATE, nullable = false)
+  private String state;
+
+  @Column(name = TableAttributeNames.IGNORE_UNDEFINED_MD5, updatable = false, nullable = false)
+  private boolean ignoreUndefinedMd5;
+
+  /** Maintained by the PublishJobLeaseRepository */
+  @Column(name = TableAttributeNames.OWNER, updatable = false)
+  private String owner;
+
+  @Column(name = TableAttributeNames.LEASE_UNTIL, insertable = false, updatable = false)
+  private LocalDateTime leaseUntil;
+
+  @CreationTimestamp
+  @Column(name = TableAttributeNames.CREATED_AT, updatable = false, nullable = false)
+  private LocalDateTime createdAt;
+
+  @UpdateTimestamp
+  @Column(name = TableAttributeNames.UPDATED_AT, nullable = false)
+  private LocalDateTime updatedAt;
+}
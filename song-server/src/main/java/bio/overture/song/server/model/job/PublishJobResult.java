@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.model.job;
+
+import bio.overture.song.server.model.enums.TableAttributeNames;
+import bio.overture.song.server.model.enums.TableNames;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/** The outcome of publishing a single analysis as part of a {@link PublishJob} */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = TableNames.PUBLISH_JOB_RESULT)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PublishJobResult {
+
+  private static final String ID_GENERATOR = "publish_job_result_id_generator";
+
+  @Id
+  @JsonIgnore
+  @Column(name = TableAttributeNames.ID)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_GENERATOR)
+  @SequenceGenerator(
+      name = ID_GENERATOR,
+      sequenceName = "publish_job_result_id_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @JsonIgnore
+  @Column(name = TableAttributeNames.JOB_ID, updatable = false, nullable = false)
+  private String jobId;
+
+  @Column(name = TableAttributeNames.ANALYSIS_ID, updatable = false, nullable = false)
+  private String analysisId;
+
+  @Column(name = TableAttributeNames.STATE, nullable = false)
+  private String state;
+
+  @Column(name = TableAttributeNames.ERRORS)
+  private String errors;
+
+  @UpdateTimestamp
+  @Column(name = TableAttributeNames.UPDATED_AT, nullable = false)
+  private LocalDateTime updatedAt;
+}
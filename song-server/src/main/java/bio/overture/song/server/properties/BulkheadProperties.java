@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.properties;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits on concurrent requests per workload, so that one workload cannot hold every database
+ * connection. Disabled by default. Requests over a limit are rejected after a short wait rather
+ * than queued, so the limits bound the requests in flight and not only the connections in use.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("song.bulkheads")
+public class BulkheadProperties {
+
+  private boolean enabled;
+
+  /** Long-running reads: exports and crawls over whole studies. */
+  private final Workload export =
+      new Workload(
+          8,
+          Duration.ZERO,
+          List.of(
+              "/export/**",
+              "/entities/**",
+              "/studies/*/all",
+              "/studies/*/analysis",
+              "/studies/*/analysis/paginated",
+              "/studies/*/analysis/search/**",
+              "/studies/*/analysis/changes"),
+          List.of(),
+          false);
+
+  /**
+   * Requests that modify data, on any path. Searches are POSTs that only read, and are limited by
+   * the export workload instead.
+   */
+  private final Workload write =
+      new Workload(
+          32,
+          Duration.ofMillis(100),
+          List.of("/**"),
+          List.of("/studies/*/analysis/search/**"),
+          true);
+
+  @Getter
+  @Setter
+  public static class Workload {
+    private int maxConcurrent;
+    private Duration maxWait;
+    private List<String> pathPatterns;
+    private List<String> excludedPathPatterns;
+    private boolean writesOnly;
+
+    public Workload(
+        int maxConcurrent,
+        Duration maxWait,
+        List<String> pathPatterns,
+        List<String> excludedPathPatterns,
+        boolean writesOnly) {
+      this.maxConcurrent = maxConcurrent;
+      this.maxWait = maxWait;
+      this.pathPatterns = pathPatterns;
+      this.excludedPathPatterns = excludedPathPatterns;
+      this.writesOnly = writesOnly;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.properties;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("song.datasource.replicas")
+public class DataSourceReplicaProperties {
+
+  /**
+   * Replay lag in milliseconds. A replica that is streaming but has nothing left to replay reports
+   * 0. The default uses the PostgreSQL 9.6 function names. For PostgreSQL 10+ use the
+   * pg_last_wal_receive_lsn() and pg_last_wal_replay_lsn() functions instead.
+   */
+  public static final String DEFAULT_LAG_QUERY =
+      "SELECT CASE "
+          + "WHEN NOT pg_is_in_recovery() THEN 0 "
+          + "WHEN pg_last_xlog_receive_location() = pg_last_xlog_replay_location() THEN 0 "
+          + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) "
+          + "END";
+
+  private boolean enabled;
+  private List<Node> nodes = List.of();
+  private Duration maxLag = Duration.ofSeconds(5);
+  private Duration lagCheckInterval = Duration.ofSeconds(2);
+  private Duration readYourWritesWindow = Duration.ofSeconds(30);
+  private String lagQuery = DEFAULT_LAG_QUERY;
+
+  @Getter
+  @Setter
+  public static class Node {
+    private String url;
+    private String username;
+    private String password;
+    private Integer maximumPoolSize;
+  }
+}
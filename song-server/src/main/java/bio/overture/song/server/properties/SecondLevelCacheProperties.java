@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.properties;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Heap sizes of the cache regions. Analysis schemas never change once registered, so they are never
+ * expired. Studies and study info are only expired to bound how long a change made directly in the
+ * database goes unnoticed.
+ *
+ * <p>There is no query cache. Its results are only invalidated on the node that makes a change, so
+ * with several nodes they would go stale without a bound.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("song.cache")
+public class SecondLevelCacheProperties {
+
+  private boolean enabled = true;
+
+  /** Record hits, misses and evictions for each region, exported as cache.* metrics. */
+  private boolean statistics = true;
+
+  private final Region analysisSchema = new Region(1000, null);
+  private final Region study = new Region(10000, Duration.ofHours(1));
+  private final Region studyInfo = new Region(10000, Duration.ofHours(1));
+
+  @Getter
+  @Setter
+  public static class Region {
+    private long heapEntries;
+    private Duration timeToLive;
+
+    public Region(long heapEntries, Duration timeToLive) {
+      this.heapEntries = heapEntries;
+      this.timeToLive = timeToLive;
+    }
+  }
+}
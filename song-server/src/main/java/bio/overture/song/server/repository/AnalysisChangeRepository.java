@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toList;
+
+import bio.overture.song.server.model.analysis.AnalysisChange;
+import bio.overture.song.server.model.analysis.AnalysisChangeCursor;
+import bio.overture.song.server.model.analysis.AnalysisChangeLag;
+import java.sql.Timestamp;
+import java.util.List;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.hibernate.Session;
+
+/**
+ * Reads the analysis change feed maintained by the analysis_change triggers. Only changes made by
+ * transactions older than the oldest running transaction are returned, since those are the only
+ * ones guaranteed to never be committed behind a cursor that was already returned. As a result, a
+ * long-running transaction on any table, such as a bulk publish or a backfill, holds back the feed
+ * until it ends. {@link #getAnalysisChangeLag} reports how far behind the feed is.
+ */
+@RequiredArgsConstructor
+public class AnalysisChangeRepository {
+
+  private final EntityManager em;
+
+  public List<AnalysisChange> getAnalysisChanges(
+      @NonNull String studyId, @NonNull AnalysisChangeCursor since, int limit) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT c.analysis_id, CAST(a.state AS VARCHAR), c.changed_at, c.change_txid, c.change_seq "
+                    + "FROM analysis_change c JOIN analysis a ON a.id = c.analysis_id "
+                    + "WHERE c.study_id = :studyId "
+                    + "AND (c.change_txid, c.change_seq) > (:txid, :seq) "
+                    + "AND c.change_txid < txid_snapshot_xmin(txid_current_snapshot()) "
+                    + "ORDER BY c.change_txid, c.change_seq "
+                    + "LIMIT :limit")
+            .setParameter("studyId", studyId)
+            .setParameter("txid", since.getTxid())
+            .setParameter("seq", since.getSeq())
+            .setParameter("limit", limit)
+            .list();
+    return rows.stream().map(AnalysisChangeRepository::toAnalysisChange).collect(toList());
+  }
+
+  /**
+   * Returns the number of transactions between the oldest running one and the next one to start,
+   * which is the distance between the feed and txid_current() without assigning a transaction id,
+   * and the age of the oldest change of the study that was committed but is still withheld.
+   */
+  public AnalysisChangeLag getAnalysisChangeLag(@NonNull String studyId) {
+    val session = em.unwrap(Session.class);
+    val row =
+        (Object[])
+            session
+                .createSQLQuery(
+                    "SELECT txid_snapshot_xmax(s) - txid_snapshot_xmin(s), "
+                        + "(SELECT CAST(EXTRACT(EPOCH FROM LOCALTIMESTAMP - MIN(c.changed_at)) "
+                        + "AS BIGINT) "
+                        + "FROM analysis_change c "
+                        + "WHERE c.study_id = :studyId "
+                        + "AND c.change_txid >= txid_snapshot_xmin(s)) "
+                        + "FROM txid_current_snapshot() s")
+                .setParameter("studyId", studyId)
+                .uniqueResult();
+    val withheldSeconds = (Number) row[1];
+    return AnalysisChangeLag.builder()
+        .pendingTransactions(((Number) row[0]).longValue())
+        .withheldSeconds(isNull(withheldSeconds) ? null : withheldSeconds.longValue())
+        .build();
+  }
+
+  private static AnalysisChange toAnalysisChange(Object[] row) {
+    val cursor =
+        new AnalysisChangeCursor(((Number) row[3]).longValue(), ((Number) row[4]).longValue());
+    return AnalysisChange.builder()
+        .analysisId((String) row[0])
+        .analysisState((String) row[1])
+        .changedAt(((Timestamp) row[2]).toLocalDateTime())
+        .cursor(cursor.toString())
+        .build();
+  }
+}
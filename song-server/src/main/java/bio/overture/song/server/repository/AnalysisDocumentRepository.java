@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import bio.overture.song.server.model.analysis.AnalysisDocument;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.hibernate.Session;
+import org.hibernate.type.LocalDateTimeType;
+
+/**
+ * Stores the assembled JSON of analyses. A document is only returned while its change_seq matches
+ * the last change recorded for the analysis by the analysis_change triggers, so a stale document is
+ * never served.
+ */
+@RequiredArgsConstructor
+public class AnalysisDocumentRepository {
+
+  private static final String TABLE = "analysis_document";
+  private static final String BACKFILL_LOCK = "analysis_document_backfill";
+
+  private final EntityManager em;
+
+  /** Returns the ids of the analyses changed by the current transaction. */
+  public List<String> findChangedInCurrentTransaction() {
+    val session = em.unwrap(Session.class);
+    List<String> rows =
+        session
+            .createSQLQuery(
+                "SELECT analysis_id FROM analysis_change WHERE change_txid = txid_current()")
+            .list();
+    return rows;
+  }
+
+  /** Returns the latest change_seq of each of the input analyses. */
+  public Map<String, Long> findChangeSeqs(@NonNull Collection<String> analysisIds) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT analysis_id, change_seq FROM analysis_change "
+                    + "WHERE analysis_id = ANY(:analysisIds)")
+            .setParameter(
+                "analysisIds", analysisIds.toArray(String[]::new), StringArrayType.INSTANCE)
+            .list();
+    return toChangeSeqMap(rows);
+  }
+
+  /**
+   * Takes the backfill lock until the end of the current transaction, unless another transaction
+   * holds it.
+   */
+  public boolean tryLockBackfill() {
+    val session = em.unwrap(Session.class);
+    return (Boolean)
+        session
+            .createSQLQuery("SELECT pg_try_advisory_xact_lock(hashtext(:lock))")
+            .setParameter("lock", BACKFILL_LOCK)
+            .uniqueResult();
+  }
+
+  /** Returns up to {@code limit} analyses whose document is missing or stale. */
+  public Map<String, Long> findStale(int limit) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT c.analysis_id, c.change_seq FROM analysis_change c "
+                    + "LEFT JOIN analysis_document d ON d.analysis_id = c.analysis_id "
+                    + "WHERE d.analysis_id IS NULL OR d.change_seq <> c.change_seq "
+                    + "ORDER BY c.change_seq "
+                    + "LIMIT :limit")
+            .setParameter("limit", limit)
+            .list();
+    return toChangeSeqMap(rows);
+  }
+
+  /**
+   * Saves the document, unless a document built from a later change was already saved. The
+   * published times are typed, since they are null until the analysis is published.
+   */
+  public void save(@NonNull AnalysisDocument document) {
+    val session = em.unwrap(Session.class);
+    session
+        .createSQLQuery(
+            "INSERT INTO analysis_document "
+                + "(analysis_id, study_id, change_seq, first_published_at, published_at, document) "
+                + "VALUES (:analysisId, :studyId, :changeSeq, :firstPublishedAt, :publishedAt, :document) "
+                + "ON CONFLICT (analysis_id) DO UPDATE SET "
+                + "change_seq = EXCLUDED.change_seq, "
+                + "first_published_at = EXCLUDED.first_published_at, "
+                + "published_at = EXCLUDED.published_at, "
+                + "document = EXCLUDED.document "
+                + "WHERE analysis_document.change_seq <= EXCLUDED.change_seq")
+        .addSynchronizedQuerySpace(TABLE)
+        .setParameter("analysisId", document.getAnalysisId())
+        .setParameter("studyId", document.getStudyId())
+        .setParameter("changeSeq", document.getChangeSeq())
+        .setParameter(
+            "firstPublishedAt", document.getFirstPublishedAt(), LocalDateTimeType.INSTANCE)
+        .setParameter("publishedAt", document.getPublishedAt(), LocalDateTimeType.INSTANCE)
+        .setParameter("document", document.getDocument())
+        .executeUpdate();
+  }
+
+  public Optional<AnalysisDocument> findCurrent(
+      @NonNull String studyId, @NonNull String analysisId) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT d.analysis_id, d.study_id, CAST(a.state AS VARCHAR), d.change_seq, d.document "
+                    + "FROM analysis_document d "
+                    + "JOIN analysis a ON a.id = d.analysis_id "
+                    + "JOIN analysis_change c ON c.analysis_id = d.analysis_id "
+                    + "AND c.change_seq = d.change_seq "
+                    + "WHERE d.analysis_id = :analysisId AND d.study_id = :studyId")
+            .setParameter("analysisId", analysisId)
+            .setParameter("studyId", studyId)
+            .list();
+    return rows.stream().findFirst().map(AnalysisDocumentRepository::toAnalysisDocument);
+  }
+
+  /**
+   * Returns the documents of every analysis of the study in one of the {@code analysisStates}, or
+   * nothing if any of them is missing or stale.
+   */
+  public Optional<List<String>> findAllCurrent(
+      @NonNull String studyId, @NonNull Collection<String> analysisStates) {
+    val session = em.unwrap(Session.class);
+    val numAnalyses =
+        ((Number)
+                session
+                    .createSQLQuery(
+                        "SELECT COUNT(*) FROM analysis "
+                            + "WHERE study_id = :studyId AND CAST(state AS VARCHAR) IN (:states)")
+                    .setParameter("studyId", studyId)
+                    .setParameterList("states", analysisStates)
+                    .uniqueResult())
+            .intValue();
+    List<String> documents =
+        session
+            .createSQLQuery(
+                "SELECT d.document FROM analysis a "
+                    + "JOIN analysis_change c ON c.analysis_id = a.id "
+                    + "JOIN analysis_document d ON d.analysis_id = a.id "
+                    + "AND d.change_seq = c.change_seq "
+                    + "WHERE a.study_id = :studyId AND CAST(a.state AS VARCHAR) IN (:states) "
+                    + "ORDER BY a.id")
+            .setParameter("studyId", studyId)
+            .setParameterList("states", analysisStates)
+            .list();
+    return documents.size() == numAnalyses ? Optional.of(documents) : Optional.empty();
+  }
+
+  private static Map<String, Long> toChangeSeqMap(List<Object[]> rows) {
+    val result = new LinkedHashMap<String, Long>();
+    rows.forEach(r -> result.put((String) r[0], ((Number) r[1]).longValue()));
+    return result;
+  }
+
+  private static AnalysisDocument toAnalysisDocument(Object[] row) {
+    return AnalysisDocument.builder()
+        .analysisId((String) row[0])
+        .studyId((String) row[1])
+        .analysisState((String) row[2])
+        .changeSeq(((Number) row[3]).longValue())
+        .document((String) row[4])
+        .build();
+  }
+}
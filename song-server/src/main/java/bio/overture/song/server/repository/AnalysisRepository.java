@@ -17,11 +17,49 @@
 package bio.overture.song.server.repository;
 
 import bio.overture.song.server.model.analysis.Analysis;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AnalysisRepository
     extends JpaRepository<Analysis, String>, JpaSpecificationExecutor<Analysis> {
 
   long countAllByStudyIdAndAnalysisId(String studyId, String analysisId);
+
+  @Query("SELECT a.analysisState FROM Analysis a WHERE a.analysisId = :analysisId")
+  Optional<String> findAnalysisStateByAnalysisId(@Param("analysisId") String analysisId);
+
+  @Query(
+      "SELECT a.analysisId FROM Analysis a "
+          + "WHERE a.studyId = :studyId AND a.submitKey = :submitKey")
+  Optional<String> findAnalysisIdByStudyIdAndSubmitKey(
+      @Param("studyId") String studyId, @Param("submitKey") String submitKey);
+
+  @Query(
+      "SELECT a.analysisId FROM Analysis a "
+          + "WHERE a.studyId = :studyId AND a.analysisState = :analysisState")
+  List<String> findAllAnalysisIdsByStudyIdAndAnalysisState(
+      @Param("studyId") String studyId, @Param("analysisState") String analysisState);
+
+  @Query(
+      "SELECT a.analysisId FROM Analysis a "
+          + "WHERE a.studyId = :studyId AND a.analysisId IN :analysisIds")
+  List<String> findAllAnalysisIdsByStudyIdAndAnalysisIdIn(
+      @Param("studyId") String studyId, @Param("analysisIds") Collection<String> analysisIds);
+
+  /**
+   * Returns the analyses of the study last published at or after {@code since}, in publishing
+   * order. Served by the (study_id, published_at) index.
+   */
+  @Query(
+      "SELECT a.analysisId FROM Analysis a "
+          + "WHERE a.studyId = :studyId AND a.publishedAt >= :since "
+          + "ORDER BY a.publishedAt")
+  List<String> findAllAnalysisIdsByStudyIdPublishedSince(
+      @Param("studyId") String studyId, @Param("since") LocalDateTime since);
 }
@@ -25,6 +25,8 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 public interface AnalysisSchemaRepository
     extends JpaRepository<AnalysisSchema, Integer>, JpaSpecificationExecutor<AnalysisSchema> {
 
+  // The lookups by name do not use the query cache, which is only invalidated on the node that
+  // registers a schema, so other nodes would miss new versions. The entities are cached by id.
   Integer countAllByName(String name);
 
   Integer countAllByNameAndIdLessThanEqual(String name, Integer id);
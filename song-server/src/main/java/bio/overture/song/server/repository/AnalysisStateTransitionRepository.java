@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import static bio.overture.song.core.model.enums.AnalysisStates.PUBLISHED;
+
+import bio.overture.song.core.model.enums.AnalysisStates;
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.analysis.AnalysisStateChange;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.hibernate.Session;
+
+/**
+ * Set-based analysis state transitions. Rather than loading and saving every analysis entity, the
+ * rows are locked, the history rows are inserted and the state column is updated with one statement
+ * each, regardless of the number of analyses. Must be called within a transaction. The updates
+ * declare the entities they modify, otherwise Hibernate evicts every second-level cache region.
+ */
+@RequiredArgsConstructor
+public class AnalysisStateTransitionRepository {
+
+  private static final String PUBLISHED_AT_ASSIGNMENTS =
+      ", first_published_at = COALESCE(first_published_at, :updatedAt), published_at = :updatedAt";
+
+  private final EntityManager em;
+
+  /**
+   * Locks the analysis row until the end of the current transaction and returns its current state,
+   * without loading the analysis entity.
+   */
+  public Optional<String> lockAnalysisState(@NonNull String analysisId) {
+    val session = em.unwrap(Session.class);
+    List<String> rows =
+        session
+            .createSQLQuery(
+                "SELECT CAST(state AS VARCHAR) FROM analysis WHERE id = :analysisId FOR UPDATE")
+            .setParameter("analysisId", analysisId)
+            .list();
+    return rows.stream().findFirst();
+  }
+
+  /**
+   * Locks the analysis rows of the study that match the input ids until the end of the current
+   * transaction, and returns their current state. Ids that do not exist or belong to another study
+   * are absent from the result.
+   */
+  public Map<String, String> lockAnalysisStates(
+      @NonNull String studyId, @NonNull Collection<String> analysisIds) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT id, CAST(state AS VARCHAR) FROM analysis "
+                    + "WHERE study_id = :studyId AND id = ANY(:analysisIds) "
+                    + "ORDER BY id FOR UPDATE")
+            .setParameter("studyId", studyId)
+            .setParameter("analysisIds", toArray(analysisIds), StringArrayType.INSTANCE)
+            .list();
+    val result = new LinkedHashMap<String, String>();
+    rows.forEach(r -> result.put((String) r[0], (String) r[1]));
+    return result;
+  }
+
+  /** Records the transition of the input analyses from their current state to {@code state}. */
+  public int insertStateChanges(
+      @NonNull Collection<String> analysisIds,
+      @NonNull AnalysisStates state,
+      @NonNull LocalDateTime updatedAt) {
+    val session = em.unwrap(Session.class);
+    return session
+        .createSQLQuery(
+            "INSERT INTO analysis_state_change (analysis_id, initial_state, updated_state, updated_at) "
+                + "SELECT id, state, CAST(:state AS ANALYSIS_STATE), :updatedAt FROM analysis "
+                + "WHERE id = ANY(:analysisIds)")
+        .addSynchronizedEntityClass(AnalysisStateChange.class)
+        .setParameter("state", state.name())
+        .setParameter("updatedAt", updatedAt)
+        .setParameter("analysisIds", toArray(analysisIds), StringArrayType.INSTANCE)
+        .executeUpdate();
+  }
+
+  /**
+   * Updates the state of the input analyses, and their published times when they are published.
+   * Analyses already loaded in the persistence context are detached, since they no longer reflect
+   * the database, so that subsequent reads load the updated state and history.
+   */
+  public int updateStates(
+      @NonNull Collection<String> analysisIds,
+      @NonNull AnalysisStates state,
+      @NonNull LocalDateTime updatedAt) {
+    val session = em.unwrap(Session.class);
+    val numUpdated =
+        session
+            .createSQLQuery(
+                "UPDATE analysis SET state = CAST(:state AS ANALYSIS_STATE), updated_at = :updatedAt"
+                    + (state == PUBLISHED ? PUBLISHED_AT_ASSIGNMENTS : "")
+                    + " WHERE id = ANY(:analysisIds)")
+            .addSynchronizedEntityClass(Analysis.class)
+            .setParameter("state", state.name())
+            .setParameter("updatedAt", updatedAt)
+            .setParameter("analysisIds", toArray(analysisIds), StringArrayType.INSTANCE)
+            .executeUpdate();
+    analysisIds.forEach(id -> em.detach(em.getReference(Analysis.class, id)));
+    return numUpdated;
+  }
+
+  private static String[] toArray(Collection<String> values) {
+    return values.toArray(String[]::new);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import bio.overture.song.server.model.entity.Donor;
+import bio.overture.song.server.model.entity.Sample;
+import bio.overture.song.server.model.entity.Specimen;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.hibernate.Session;
+import org.hibernate.type.StringType;
+
+/**
+ * Inserts donors, specimens and samples unless they already exist. Their ids are derived from the
+ * business keys by the id service, so concurrent submissions of the same entity insert it once
+ * rather than one of them failing on the primary key. An insert that conflicts with an uncommitted
+ * one waits for it to complete. The inserts declare the entities they modify, otherwise Hibernate
+ * evicts every second-level cache region.
+ */
+@RequiredArgsConstructor
+public class EntityUpsertRepository {
+
+  private final EntityManager em;
+
+  /** Returns true if the donor was inserted, or false if it already exists */
+  public boolean insertDonorIfAbsent(@NonNull Donor donor) {
+    val session = em.unwrap(Session.class);
+    return session
+            .createSQLQuery(
+                "INSERT INTO donor (id, study_id, submitter_id, gender) "
+                    + "VALUES (:id, :studyId, :submitterId, CAST(:gender AS GENDER)) "
+                    + "ON CONFLICT (id) DO NOTHING")
+            .addSynchronizedEntityClass(Donor.class)
+            .setParameter("id", donor.getDonorId())
+            .setParameter("studyId", donor.getStudyId())
+            .setParameter("submitterId", donor.getSubmitterDonorId())
+            .setParameter("gender", donor.getGender())
+            .executeUpdate()
+        > 0;
+  }
+
+  /** Returns true if the specimen was inserted, or false if it already exists */
+  public boolean insertSpecimenIfAbsent(@NonNull Specimen specimen) {
+    val session = em.unwrap(Session.class);
+    return session
+            .createSQLQuery(
+                "INSERT INTO specimen "
+                    + "(id, donor_id, submitter_id, tumour_normal_designation, tissue_source, type) "
+                    + "VALUES (:id, :donorId, :submitterId, "
+                    + "CAST(:tumourNormalDesignation AS TUMOUR_NORMAL_DESIGNATION_TYPE), "
+                    + "CAST(:tissueSource AS TISSUE_SOURCE_TYPE), CAST(:type AS SPECIMEN_TYPE)) "
+                    + "ON CONFLICT (id) DO NOTHING")
+            .addSynchronizedEntityClass(Specimen.class)
+            .setParameter("id", specimen.getSpecimenId())
+            .setParameter("donorId", specimen.getDonorId())
+            .setParameter("submitterId", specimen.getSubmitterSpecimenId())
+            .setParameter("tumourNormalDesignation", specimen.getTumourNormalDesignation())
+            .setParameter("tissueSource", specimen.getSpecimenTissueSource())
+            .setParameter("type", specimen.getSpecimenType())
+            .executeUpdate()
+        > 0;
+  }
+
+  /** Returns true if the sample was inserted, or false if it already exists */
+  public boolean insertSampleIfAbsent(@NonNull Sample sample) {
+    val session = em.unwrap(Session.class);
+    return session
+            .createSQLQuery(
+                "INSERT INTO sample "
+                    + "(id, specimen_id, submitter_id, matched_normal_submitter_sample_id, type) "
+                    + "VALUES (:id, :specimenId, :submitterId, :matchedNormalSubmitterSampleId, "
+                    + "CAST(:type AS SAMPLE_TYPE)) "
+                    + "ON CONFLICT (id) DO NOTHING")
+            .addSynchronizedEntityClass(Sample.class)
+            .setParameter("id", sample.getSampleId())
+            .setParameter("specimenId", sample.getSpecimenId())
+            .setParameter("submitterId", sample.getSubmitterSampleId())
+            .setParameter(
+                "matchedNormalSubmitterSampleId",
+                sample.getMatchedNormalSubmitterSampleId(),
+                StringType.INSTANCE)
+            .setParameter("type", sample.getSampleType())
+            .executeUpdate()
+        > 0;
+  }
+}
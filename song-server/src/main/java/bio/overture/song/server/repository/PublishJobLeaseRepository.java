@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import static bio.overture.song.server.model.enums.PublishJobResultStates.PENDING;
+import static bio.overture.song.server.model.enums.PublishJobStates.COMPLETED;
+import static bio.overture.song.server.model.enums.PublishJobStates.RUNNING;
+
+import bio.overture.song.server.model.job.PublishJob;
+import bio.overture.song.server.model.job.PublishJobResult;
+import java.time.Duration;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.hibernate.Session;
+import org.hibernate.type.StringType;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Leases RUNNING publish jobs to the server running them. Lease times come from the database clock,
+ * so servers with skewed clocks agree on when a lease has expired. A job whose lease expired is
+ * claimed by exactly one server, since concurrent claims of the same row are serialized and the
+ * losing claim no longer matches the expired lease once it is re-evaluated.
+ *
+ * <p>A server only records results and completes jobs it still holds the lease of, so a server that
+ * stalled past its lease cannot overwrite the work of the server that claimed the job.
+ */
+@RequiredArgsConstructor
+public class PublishJobLeaseRepository {
+
+  private final EntityManager em;
+
+  /** Extends the leases of the RUNNING jobs of the owner. Returns the number of jobs renewed */
+  @Transactional
+  public int renewLeases(@NonNull String owner, @NonNull Duration leaseDuration) {
+    return update(
+        "UPDATE publish_job SET lease_until = now() + :leaseSeconds * INTERVAL '1 second' "
+            + "WHERE owner = :owner AND state = :state",
+        owner,
+        leaseDuration);
+  }
+
+  /**
+   * Leases the RUNNING jobs whose owner stopped renewing its lease to the owner. Returns the number
+   * of jobs claimed
+   */
+  @Transactional
+  public int claimExpiredLeases(@NonNull String owner, @NonNull Duration leaseDuration) {
+    return update(
+        "UPDATE publish_job "
+            + "SET owner = :owner, lease_until = now() + :leaseSeconds * INTERVAL '1 second' "
+            + "WHERE state = :state AND (lease_until IS NULL OR lease_until < now())",
+        owner,
+        leaseDuration);
+  }
+
+  /**
+   * Records the state and errors of a PENDING result, if the owner still holds the lease of its
+   * job. Returns 0 if the lease was lost or the result was already recorded
+   */
+  @Transactional
+  public int recordResult(@NonNull String owner, @NonNull PublishJobResult result) {
+    val session = em.unwrap(Session.class);
+    return session
+        .createSQLQuery(
+            "UPDATE publish_job_result SET state = :state, errors = :errors, updated_at = now() "
+                + "WHERE job_id = :jobId AND analysis_id = :analysisId AND state = :pending "
+                + "AND EXISTS (SELECT 1 FROM publish_job "
+                + "WHERE id = :jobId AND owner = :owner AND state = :running)")
+        .addSynchronizedEntityClass(PublishJobResult.class)
+        .setParameter("state", result.getState())
+        .setParameter("errors", result.getErrors(), StringType.INSTANCE)
+        .setParameter("jobId", result.getJobId())
+        .setParameter("analysisId", result.getAnalysisId())
+        .setParameter("pending", PENDING.name())
+        .setParameter("owner", owner)
+        .setParameter("running", RUNNING.name())
+        .executeUpdate();
+  }
+
+  /**
+   * Completes the RUNNING job, if the owner still holds its lease. Returns 0 if the lease was lost
+   */
+  @Transactional
+  public int completeJob(@NonNull String owner, @NonNull String jobId) {
+    val session = em.unwrap(Session.class);
+    return session
+        .createSQLQuery(
+            "UPDATE publish_job SET state = :completed, updated_at = now() "
+                + "WHERE id = :jobId AND owner = :owner AND state = :running")
+        .addSynchronizedEntityClass(PublishJob.class)
+        .setParameter("completed", COMPLETED.name())
+        .setParameter("jobId", jobId)
+        .setParameter("owner", owner)
+        .setParameter("running", RUNNING.name())
+        .executeUpdate();
+  }
+
+  private int update(String sql, String owner, Duration leaseDuration) {
+    val session = em.unwrap(Session.class);
+    return session
+        .createSQLQuery(sql)
+        .addSynchronizedEntityClass(PublishJob.class)
+        .setParameter("owner", owner)
+        .setParameter("state", RUNNING.name())
+        .setParameter("leaseSeconds", leaseDuration.toSeconds())
+        .executeUpdate();
+  }
+}
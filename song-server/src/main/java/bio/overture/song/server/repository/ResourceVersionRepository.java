@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.joining;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.hibernate.Session;
+
+/**
+ * Reads the version of a resource with a single indexed query, so that conditional requests can be
+ * answered without reading or serializing the resource. The version of an analysis combines its
+ * update timestamp with its last recorded change, which covers its state history, data, files,
+ * samples and their info.
+ */
+@RequiredArgsConstructor
+public class ResourceVersionRepository {
+
+  private final EntityManager em;
+
+  public Optional<String> getAnalysisVersion(@NonNull String studyId, @NonNull String analysisId) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT a.updated_at, c.change_seq FROM analysis a "
+                    + "LEFT JOIN analysis_change c ON c.analysis_id = a.id "
+                    + "WHERE a.id = :analysisId AND a.study_id = :studyId")
+            .setParameter("analysisId", analysisId)
+            .setParameter("studyId", studyId)
+            .list();
+    return rows.stream().findFirst().map(ResourceVersionRepository::toAnalysisVersion);
+  }
+
+  public Optional<String> getFileVersion(@NonNull String studyId, @NonNull String objectId) {
+    val session = em.unwrap(Session.class);
+    List<Object[]> rows =
+        session
+            .createSQLQuery(
+                "SELECT a.updated_at, c.change_seq FROM file f "
+                    + "JOIN analysis a ON a.id = f.analysis_id "
+                    + "LEFT JOIN analysis_change c ON c.analysis_id = a.id "
+                    + "WHERE f.id = :objectId AND f.study_id = :studyId")
+            .setParameter("objectId", objectId)
+            .setParameter("studyId", studyId)
+            .list();
+    return rows.stream().findFirst().map(ResourceVersionRepository::toAnalysisVersion);
+  }
+
+  /**
+   * Analysis schemas are immutable once registered, so their id and version identify them. If
+   * {@code version} is null, the latest version is used.
+   */
+  public Optional<String> getAnalysisSchemaVersion(@NonNull String name, Integer version) {
+    val session = em.unwrap(Session.class);
+    val versionFilter = isNull(version) ? "" : "AND version = :version ";
+    val query =
+        session
+            .createSQLQuery(
+                "SELECT id, version FROM analysis_schema WHERE name = :name "
+                    + versionFilter
+                    + "ORDER BY version DESC LIMIT 1")
+            .setParameter("name", name);
+    if (!isNull(version)) {
+      query.setParameter("version", version);
+    }
+    List<Object[]> rows = query.list();
+    return rows.stream().findFirst().map(r -> join(r[0], r[1]));
+  }
+
+  private static String toAnalysisVersion(Object[] row) {
+    return join(((Timestamp) row[0]).getTime(), row[1]);
+  }
+
+  private static String join(Object... parts) {
+    return Stream.of(parts).map(String::valueOf).collect(joining("-"));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import lombok.val;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.CustomType;
+import org.hibernate.type.Type;
+import org.hibernate.usertype.UserType;
+
+/**
+ * Binds a String[] as a varchar[] parameter, for native queries that match a column against a set
+ * of values with {@code = ANY(:values)}. The values are sent as a real array, so they need no
+ * quoting or escaping.
+ */
+public class StringArrayType implements UserType {
+
+  public static final Type INSTANCE = new CustomType(new StringArrayType());
+
+  private static final String ELEMENT_TYPE = "varchar";
+
+  @Override
+  public int[] sqlTypes() {
+    return new int[] {Types.ARRAY};
+  }
+
+  @Override
+  public Class returnedClass() {
+    return String[].class;
+  }
+
+  @Override
+  public boolean equals(Object x, Object y) throws HibernateException {
+    return Arrays.equals((String[]) x, (String[]) y);
+  }
+
+  @Override
+  public int hashCode(Object x) throws HibernateException {
+    return Arrays.hashCode((String[]) x);
+  }
+
+  @Override
+  public Object nullSafeGet(
+      ResultSet rs, String[] names, SharedSessionContractImplementor session, Object owner)
+      throws HibernateException, SQLException {
+    val array = rs.getArray(names[0]);
+    return array == null ? null : array.getArray();
+  }
+
+  @Override
+  public void nullSafeSet(
+      PreparedStatement st, Object value, int index, SharedSessionContractImplementor session)
+      throws HibernateException, SQLException {
+    if (value == null) {
+      st.setNull(index, Types.ARRAY);
+    } else {
+      st.setArray(index, st.getConnection().createArrayOf(ELEMENT_TYPE, (String[]) value));
+    }
+  }
+
+  @Override
+  public Object deepCopy(Object value) throws HibernateException {
+    return value == null ? null : ((String[]) value).clone();
+  }
+
+  @Override
+  public boolean isMutable() {
+    return true;
+  }
+
+  @Override
+  public Serializable disassemble(Object value) throws HibernateException {
+    return (Serializable) deepCopy(value);
+  }
+
+  @Override
+  public Object assemble(Serializable cached, Object owner) throws HibernateException {
+    return deepCopy(cached);
+  }
+
+  @Override
+  public Object replace(Object original, Object target, Object owner) throws HibernateException {
+    return deepCopy(original);
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository.routing;
+
+import static org.springframework.transaction.support.TransactionSynchronizationManager.isCurrentTransactionReadOnly;
+
+import java.util.HashMap;
+import javax.sql.DataSource;
+import lombok.NonNull;
+import lombok.val;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Sends read-only transactions to a healthy read replica and everything else to the primary. The
+ * read-only flag is only known once the transaction has started, so this datasource must be wrapped
+ * in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  public static final String PRIMARY = "primary";
+
+  private final ReplicaLagMonitor replicaLagMonitor;
+
+  public ReadWriteRoutingDataSource(
+      @NonNull DataSource primary, @NonNull ReplicaLagMonitor replicaLagMonitor) {
+    this.replicaLagMonitor = replicaLagMonitor;
+    val targets = new HashMap<Object, Object>(replicaLagMonitor.getReplicas());
+    targets.put(PRIMARY, primary);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!isCurrentTransactionReadOnly() || RoutingContext.isPrimaryForced()) {
+      return PRIMARY;
+    }
+    return replicaLagMonitor.nextHealthyReplica().orElse(PRIMARY);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository.routing;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Remembers which studies were recently written through this server, so that reads of those studies
+ * go to the primary until the replicas have had time to catch up. Entries expire after {@code
+ * window}, which should be larger than the maximum tolerated replica lag.
+ */
+public class ReadYourWritesTracker {
+
+  private final Map<String, Long> lastWriteMillis = new ConcurrentHashMap<>();
+  private final long windowMillis;
+  private final Clock clock;
+
+  public ReadYourWritesTracker(@NonNull Duration window, @NonNull Clock clock) {
+    this.windowMillis = window.toMillis();
+    this.clock = clock;
+  }
+
+  public void markWritten(@NonNull String studyId) {
+    val now = clock.millis();
+    lastWriteMillis.put(studyId, now);
+    lastWriteMillis.values().removeIf(x -> now - x > windowMillis);
+  }
+
+  public boolean isRecentlyWritten(@NonNull String studyId) {
+    val lastWrite = lastWriteMillis.get(studyId);
+    return lastWrite != null && clock.millis() - lastWrite <= windowMillis;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository.routing;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Periodically measures the replay lag of each read replica and keeps the list of replicas whose
+ * lag is within {@code maxLag}. A replica whose lag cannot be measured is treated as unhealthy, so
+ * reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+  @Getter private final Map<String, DataSource> replicas;
+  private final String lagQuery;
+  private final long maxLagMillis;
+  private final Duration checkInterval;
+  private final AtomicInteger nextReplica = new AtomicInteger(0);
+  private final ScheduledExecutorService scheduler =
+      newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setNameFormat("replica-lag-monitor").setDaemon(true).build());
+
+  private volatile List<String> healthyReplicas = List.of();
+
+  public ReplicaLagMonitor(
+      @NonNull Map<String, DataSource> replicas,
+      @NonNull String lagQuery,
+      @NonNull Duration maxLag,
+      @NonNull Duration checkInterval) {
+    this.replicas = Map.copyOf(replicas);
+    this.lagQuery = lagQuery;
+    this.maxLagMillis = maxLag.toMillis();
+    this.checkInterval = checkInterval;
+  }
+
+  public void start() {
+    checkLag();
+    scheduler.scheduleWithFixedDelay(
+        this::checkLag, checkInterval.toMillis(), checkInterval.toMillis(), MILLISECONDS);
+  }
+
+  /** Picks the next healthy replica in round-robin order. */
+  public Optional<String> nextHealthyReplica() {
+    val healthy = healthyReplicas;
+    if (healthy.isEmpty()) {
+      return Optional.empty();
+    }
+    val index = Math.floorMod(nextReplica.getAndIncrement(), healthy.size());
+    return Optional.of(healthy.get(index));
+  }
+
+  public List<String> getHealthyReplicas() {
+    return healthyReplicas;
+  }
+
+  void checkLag() {
+    healthyReplicas =
+        replicas.entrySet().stream()
+            .filter(e -> isHealthy(e.getKey(), e.getValue()))
+            .map(Map.Entry::getKey)
+            .sorted()
+            .collect(toUnmodifiableList());
+  }
+
+  private boolean isHealthy(String key, DataSource replica) {
+    try (val connection = replica.getConnection();
+        val statement = connection.createStatement();
+        val resultSet = statement.executeQuery(lagQuery)) {
+      val lagMillis = resultSet.next() ? resultSet.getDouble(1) : Double.MAX_VALUE;
+      if (lagMillis > maxLagMillis) {
+        log.warn(
+            "Replica '{}' is {}ms behind the primary and will not serve reads", key, lagMillis);
+        return false;
+      }
+      return true;
+    } catch (Exception e) {
+      log.warn("Failed to check the lag of replica '{}': {}", key, e.getMessage());
+      return false;
+    }
+  }
+
+  /** Stops monitoring and closes the replica datasources. */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    for (val replica : replicas.values()) {
+      if (replica instanceof AutoCloseable) {
+        try {
+          ((AutoCloseable) replica).close();
+        } catch (Exception e) {
+          log.warn("Failed to close a replica datasource: {}", e.getMessage());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository.routing;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import lombok.NoArgsConstructor;
+
+/** Per-thread hint that forces read-only transactions onto the primary datasource. */
+@NoArgsConstructor(access = PRIVATE)
+public class RoutingContext {
+
+  private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> false);
+
+  public static void forcePrimary() {
+    PRIMARY_FORCED.set(true);
+  }
+
+  public static boolean isPrimaryForced() {
+    return PRIMARY_FORCED.get();
+  }
+
+  public static void clear() {
+    PRIMARY_FORCED.remove();
+  }
+}
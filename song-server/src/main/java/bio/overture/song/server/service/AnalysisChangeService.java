@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static bio.overture.song.core.exceptions.ServerErrors.MALFORMED_PARAMETER;
+import static bio.overture.song.core.exceptions.ServerException.checkServer;
+import static bio.overture.song.server.model.analysis.AnalysisChangeCursor.parseAnalysisChangeCursor;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.isNull;
+import static java.util.function.Function.identity;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.analysis.AnalysisChange;
+import bio.overture.song.server.model.analysis.AnalysisChangeCursor;
+import bio.overture.song.server.model.analysis.AnalysisChangeLag;
+import bio.overture.song.server.repository.AnalysisChangeRepository;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import bio.overture.song.server.service.analysis.GetAnalysisChangesResponse;
+import java.time.Duration;
+import java.util.List;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves the analyses of a study that changed since a cursor, so that clients can incrementally
+ * sync a study instead of re-reading it. A change is recorded whenever an analysis, its data or its
+ * files are written, and only the last change of each analysis is kept.
+ */
+@Slf4j
+@Service
+public class AnalysisChangeService {
+
+  public static final int MAX_LIMIT = 1000;
+
+  /** Dependencies */
+  private final AnalysisChangeRepository analysisChangeRepository;
+
+  private final AnalysisService analysisService;
+  private final StudyService studyService;
+
+  /** Changes withheld for longer than this are logged as a warning */
+  private final Duration lagWarning;
+
+  @Autowired
+  public AnalysisChangeService(
+      @NonNull AnalysisChangeRepository analysisChangeRepository,
+      @NonNull AnalysisService analysisService,
+      @NonNull StudyService studyService,
+      @Value("${song.analysis-changes.lagWarning:5m}") @NonNull Duration lagWarning) {
+    this.analysisChangeRepository = analysisChangeRepository;
+    this.analysisService = analysisService;
+    this.studyService = studyService;
+    this.lagWarning = lagWarning;
+  }
+
+  public GetAnalysisChangesResponse getAnalysisChanges(
+      @NonNull String studyId, String since, int limit, boolean includeAnalyses) {
+    checkServer(
+        limit > 0 && limit <= MAX_LIMIT,
+        getClass(),
+        MALFORMED_PARAMETER,
+        "The limit must be between 1 and %s, but was %s",
+        MAX_LIMIT,
+        limit);
+    studyService.checkStudyExist(studyId);
+    val cursor = isNull(since) ? AnalysisChangeCursor.START : parseAnalysisChangeCursor(since);
+
+    // Fetch one more than requested to know if there are more changes
+    val changes = analysisChangeRepository.getAnalysisChanges(studyId, cursor, limit + 1);
+    val hasMore = changes.size() > limit;
+    List<AnalysisChange> page = hasMore ? changes.subList(0, limit) : changes;
+    if (includeAnalyses) {
+      page = withAnalyses(page);
+    }
+    val nextCursor = page.isEmpty() ? cursor.toString() : page.get(page.size() - 1).getCursor();
+    return GetAnalysisChangesResponse.builder()
+        .changes(page)
+        .nextCursor(nextCursor)
+        .hasMore(hasMore)
+        .lag(getLag(studyId))
+        .build();
+  }
+
+  private AnalysisChangeLag getLag(String studyId) {
+    val lag = analysisChangeRepository.getAnalysisChangeLag(studyId);
+    if (!isNull(lag.getWithheldSeconds()) && lag.getWithheldSeconds() > lagWarning.getSeconds()) {
+      log.warn(
+          "The changes of study '{}' have been withheld for {}s behind {} transactions that "
+              + "started before them. A long-running transaction is holding back the change feed",
+          studyId,
+          lag.getWithheldSeconds(),
+          lag.getPendingTransactions());
+    }
+    return lag;
+  }
+
+  private List<AnalysisChange> withAnalyses(List<AnalysisChange> changes) {
+    val ids = changes.stream().map(AnalysisChange::getAnalysisId).collect(toImmutableList());
+    val analysisMap =
+        analysisService.unsecuredDeepReads(ids).stream()
+            .collect(toImmutableMap(Analysis::getAnalysisId, identity()));
+    return changes.stream()
+        .map(c -> c.toBuilder().analysis(analysisMap.get(c.getAnalysisId())).build())
+        .collect(toImmutableList());
+  }
+}
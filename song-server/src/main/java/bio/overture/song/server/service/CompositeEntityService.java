@@ -67,24 +67,29 @@ public class CompositeEntityService {
       val sampleCreateRequest = buildPersistentSample(s);
 
       sampleCreateRequest.setSpecimenId(s.getSpecimenId());
-      id = sampleService.create(studyId, sampleCreateRequest);
-      s.setSampleId(id);
-    } else {
-      val sample = sampleService.securedRead(studyId, id);
-      val specimen = specimenService.securedRead(studyId, sample.getSpecimenId());
-
-      checkServer(
-          specimen.getSubmitterSpecimenId().equals(submitterSpecimenId),
-          getClass(),
-          SAMPLE_TO_SPECIMEN_ID_MISMATCH,
-          "Existing sample (submitterSampleId='%s') has submitterSpecimenId='%s', but this submission says it has "
-              + "submitterSpecimenId='%s' instead. Please re-submit with the correct submitterSpecimenId.",
-          submitterSampleId,
-          specimen.getSubmitterSpecimenId(),
-          submitterSpecimenId);
-      s.setSampleId(id);
-      checkSameSample(sample, s);
+      val created = sampleService.createIfAbsent(studyId, sampleCreateRequest);
+      id = sampleCreateRequest.getSampleId();
+      if (created) {
+        s.setSampleId(id);
+        return id;
+      }
+      // Otherwise a concurrent submission created the sample since it was looked up
     }
+
+    val sample = sampleService.securedRead(studyId, id);
+    val specimen = specimenService.securedRead(studyId, sample.getSpecimenId());
+
+    checkServer(
+        specimen.getSubmitterSpecimenId().equals(submitterSpecimenId),
+        getClass(),
+        SAMPLE_TO_SPECIMEN_ID_MISMATCH,
+        "Existing sample (submitterSampleId='%s') has submitterSpecimenId='%s', but this submission says it has "
+            + "submitterSpecimenId='%s' instead. Please re-submit with the correct submitterSpecimenId.",
+        submitterSampleId,
+        specimen.getSubmitterSpecimenId(),
+        submitterSpecimenId);
+    s.setSampleId(id);
+    checkSameSample(sample, s);
     return id;
   }
 
@@ -106,23 +111,28 @@ public class CompositeEntityService {
 
     if (isNull(specimenId)) {
       inputSpecimen.setDonorId(getSpecimenParent(studyId, s));
-      specimenId = specimenService.create(studyId, inputSpecimen);
-    } else {
-      val existingSpecimen = specimenService.securedRead(studyId, specimenId);
-      val existingDonor = donorService.securedRead(studyId, existingSpecimen.getDonorId());
-      checkServer(
-          s.getDonor().getSubmitterDonorId().equals(existingDonor.getSubmitterDonorId()),
-          getClass(),
-          SPECIMEN_TO_DONOR_ID_MISMATCH,
-          "Existing specimen (specimenId='%s') donorId='%s', but this submission says it has "
-              + "donorId='%s' instead. Please re-submit with the correct donorId.",
-          existingSpecimen.getSubmitterSpecimenId(),
-          existingDonor.getSubmitterDonorId(),
-          s.getDonor().getSubmitterDonorId());
-      inputSpecimen.setSpecimenId(specimenId);
-      inputSpecimen.setDonorId(getSpecimenParent(studyId, s));
-      checkSameSpecimen(existingSpecimen, inputSpecimen);
+      val created = specimenService.createIfAbsent(studyId, inputSpecimen);
+      specimenId = inputSpecimen.getSpecimenId();
+      if (created) {
+        return specimenId;
+      }
+      // Otherwise a concurrent submission created the specimen since it was looked up
     }
+
+    val existingSpecimen = specimenService.securedRead(studyId, specimenId);
+    val existingDonor = donorService.securedRead(studyId, existingSpecimen.getDonorId());
+    checkServer(
+        s.getDonor().getSubmitterDonorId().equals(existingDonor.getSubmitterDonorId()),
+        getClass(),
+        SPECIMEN_TO_DONOR_ID_MISMATCH,
+        "Existing specimen (specimenId='%s') donorId='%s', but this submission says it has "
+            + "donorId='%s' instead. Please re-submit with the correct donorId.",
+        existingSpecimen.getSubmitterSpecimenId(),
+        existingDonor.getSubmitterDonorId(),
+        s.getDonor().getSubmitterDonorId());
+    inputSpecimen.setSpecimenId(specimenId);
+    inputSpecimen.setDonorId(getSpecimenParent(studyId, s));
+    checkSameSpecimen(existingSpecimen, inputSpecimen);
     return specimenId;
   }
 
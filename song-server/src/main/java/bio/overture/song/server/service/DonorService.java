@@ -32,6 +32,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import bio.overture.song.server.model.entity.Donor;
 import bio.overture.song.server.model.entity.composites.DonorWithSpecimens;
 import bio.overture.song.server.repository.DonorRepository;
+import bio.overture.song.server.repository.EntityUpsertRepository;
 import bio.overture.song.server.service.InfoService.DonorInfoService;
 import bio.overture.song.server.service.id.IdService;
 import java.util.ArrayList;
@@ -54,12 +55,20 @@ public class DonorService {
   @Autowired private final IdService idService;
   @Autowired private final SpecimenService specimenService;
   @Autowired private final StudyService studyService;
+  @Autowired private final EntityUpsertRepository entityUpsertRepository;
 
   private String createDonorId(DonorWithSpecimens donorWithSpecimens) {
-    studyService.checkStudyExist(donorWithSpecimens.getStudyId());
-    val inputDonorId = donorWithSpecimens.getDonorId();
-    val studyId = donorWithSpecimens.getStudyId();
-    val donorSubmitterId = donorWithSpecimens.getSubmitterDonorId();
+    val id =
+        resolveDonorId(
+            donorWithSpecimens.getStudyId(),
+            donorWithSpecimens.getDonorId(),
+            donorWithSpecimens.getSubmitterDonorId());
+    checkDonorDoesNotExist(id);
+    return id;
+  }
+
+  private String resolveDonorId(String studyId, String inputDonorId, String donorSubmitterId) {
+    studyService.checkStudyExist(studyId);
     val result = idService.getDonorId(studyId, donorSubmitterId);
     val id =
         checkServerOptional(
@@ -77,7 +86,6 @@ public class DonorService {
         "The input donorId '%s' is corrupted because it does not match the federated donorId '%s'",
         inputDonorId,
         id);
-    checkDonorDoesNotExist(id);
     return id;
   }
 
@@ -218,20 +226,29 @@ public class DonorService {
     donor.setStudyId(studyId);
 
     val donorIdResult = findByBusinessKey(studyId, donor.getSubmitterDonorId());
-    val donorWithSpecimens = new DonorWithSpecimens();
-    donorWithSpecimens.setDonor(donor);
-    String donorId;
-    if (donorIdResult.isEmpty()) {
-      donorId = create(donorWithSpecimens);
-    } else {
-      donorId = donorIdResult.get();
-      val existingDonor = unsecuredRead(donorId);
-      donor.setDonorId(donorId);
-      checkSameDonor(existingDonor, donor);
+    if (donorIdResult.isEmpty() && createIfAbsent(donor)) {
+      return donor.getDonorId();
     }
+
+    // The donor exists, or was created by a concurrent submission since it was looked up
+    val donorId = donorIdResult.orElseGet(donor::getDonorId);
+    val existingDonor = unsecuredRead(donorId);
+    donor.setDonorId(donorId);
+    checkSameDonor(existingDonor, donor);
     return donorId;
   }
 
+  /** Creates the donor and its info, unless it already exists, in which case false is returned */
+  private boolean createIfAbsent(Donor donor) {
+    val id = resolveDonorId(donor.getStudyId(), donor.getDonorId(), donor.getSubmitterDonorId());
+    donor.setDonorId(id);
+    if (!entityUpsertRepository.insertDonorIfAbsent(donor)) {
+      return false;
+    }
+    infoService.create(id, donor.getInfoAsString());
+    return true;
+  }
+
   private void checkSameDonor(Donor existing, Donor input) {
     checkServer(
         existing.equals(input),
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import bio.overture.song.server.repository.ResourceVersionRepository;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Computes strong entity tags for read endpoints from the version of the underlying resource, so
+ * that conditional requests can be answered with a 304 before the resource is read. An empty result
+ * means the resource does not exist, and the request should be handled normally so that the usual
+ * error is returned.
+ *
+ * <p>Tags are read-only reads, routed like the reads of the resources. Read a tag and its resource
+ * in the same read-only transaction, so that both come from the same database and the tag is never
+ * newer than the body it is sent with.
+ */
+@Service
+@Transactional(readOnly = true)
+public class EntityTagService {
+
+  /** Dependencies */
+  private final ResourceVersionRepository resourceVersionRepository;
+
+  @Autowired
+  public EntityTagService(@NonNull ResourceVersionRepository resourceVersionRepository) {
+    this.resourceVersionRepository = resourceVersionRepository;
+  }
+
+  public Optional<String> getAnalysisTag(@NonNull String studyId, @NonNull String analysisId) {
+    return resourceVersionRepository
+        .getAnalysisVersion(studyId, analysisId)
+        .map(v -> createTag("analysis", v));
+  }
+
+  public Optional<String> getAnalysisFilesTag(@NonNull String studyId, @NonNull String analysisId) {
+    return resourceVersionRepository
+        .getAnalysisVersion(studyId, analysisId)
+        .map(v -> createTag("files", v));
+  }
+
+  public Optional<String> getFileTag(@NonNull String studyId, @NonNull String objectId) {
+    return resourceVersionRepository
+        .getFileVersion(studyId, objectId)
+        .map(v -> createTag("file", v));
+  }
+
+  public Optional<String> getAnalysisTypeTag(
+      @NonNull String name, Integer version, boolean unrenderedOnly) {
+    val view = unrenderedOnly ? "unrendered" : "rendered";
+    return resourceVersionRepository
+        .getAnalysisSchemaVersion(name, version)
+        .map(v -> createTag("schema-" + view, v));
+  }
+
+  /** Weak, so the tags stay valid for compressed responses */
+  private static String createTag(String resource, String version) {
+    return "W/\"" + resource + "-" + version + "\"";
+  }
+}
@@ -18,7 +18,7 @@
 package bio.overture.song.server.service;
 
 import static bio.overture.song.core.model.ExportedPayload.createExportedPayload;
-import static bio.overture.song.core.utils.JsonUtils.mapper;
+import static bio.overture.song.core.utils.JsonUtils.mapperWithMixIns;
 import static bio.overture.song.server.service.AnalysisTypeService.resolveAnalysisTypeId;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
@@ -37,7 +37,9 @@ import bio.overture.song.server.model.entity.Specimen;
 import bio.overture.song.server.service.analysis.AnalysisService;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,6 +48,7 @@ import lombok.SneakyThrows;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ExportService {
@@ -54,6 +57,18 @@ public class ExportService {
   private static final Set<String> ALL_ANALYSIS_STATES =
       stream(AnalysisStates.values()).map(AnalysisStates::toString).collect(toImmutableSet());
 
+  /** Built once so its serializer cache is shared across exports */
+  private static final ObjectMapper EXPORT_MAPPER =
+      mapperWithMixIns(
+          ImmutableMap.<Class<?>, Class<?>>builder()
+              .put(Donor.class, PayloadNonEmptyMixin.class)
+              .put(Payload.class, PayloadNonEmptyMixin.class)
+              .put(CompositeEntityService.class, PayloadNonEmptyMixin.class)
+              .put(Sample.class, PayloadNonEmptyMixin.class)
+              .put(Specimen.class, PayloadNonEmptyMixin.class)
+              .put(FileEntity.class, PayloadNonEmptyMixin.class)
+              .build());
+
   /** Dependencies */
   private final AnalysisService analysisService;
 
@@ -67,6 +82,7 @@ public class ExportService {
   }
 
   @SneakyThrows
+  @Transactional(readOnly = true)
   public List<ExportedPayload> exportPayload(@NonNull List<String> analysisIds) {
     val payloadMap = aggregateByStudy(analysisIds);
     return payloadMap.entrySet().stream()
@@ -75,6 +91,7 @@ public class ExportService {
   }
 
   @SneakyThrows
+  @Transactional(readOnly = true)
   public List<ExportedPayload> exportPayloadsForStudy(@NonNull String studyId) {
     val payloads =
         analysisService.getAnalysis(studyId, ALL_ANALYSIS_STATES).stream()
@@ -108,16 +125,8 @@ public class ExportService {
     return createExportedPayload(studyId, payloadJsons);
   }
 
-  @SneakyThrows
   private static JsonNode convertToExportedPayload(@NonNull Payload p) {
-    return mapper()
-        .addMixIn(Donor.class, PayloadNonEmptyMixin.class)
-        .addMixIn(Payload.class, PayloadNonEmptyMixin.class)
-        .addMixIn(CompositeEntityService.class, PayloadNonEmptyMixin.class)
-        .addMixIn(Sample.class, PayloadNonEmptyMixin.class)
-        .addMixIn(Specimen.class, PayloadNonEmptyMixin.class)
-        .addMixIn(FileEntity.class, PayloadNonEmptyMixin.class)
-        .valueToTree(p);
+    return EXPORT_MAPPER.valueToTree(p);
   }
 
   @JsonInclude(JsonInclude.Include.NON_EMPTY)
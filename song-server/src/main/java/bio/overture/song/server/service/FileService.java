@@ -23,6 +23,7 @@ import static bio.overture.song.core.exceptions.ServerException.buildServerExcep
 import static bio.overture.song.core.exceptions.ServerException.checkServer;
 import static bio.overture.song.core.exceptions.ServerException.checkServerOptional;
 import static bio.overture.song.core.utils.Responses.OK;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import bio.overture.song.server.converter.FileConverter;
 import bio.overture.song.server.model.entity.FileEntity;
@@ -30,6 +31,7 @@ import bio.overture.song.server.repository.FileRepository;
 import bio.overture.song.server.service.InfoService.FileInfoService;
 import bio.overture.song.server.service.id.IdService;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.transaction.Transactional;
 import lombok.NoArgsConstructor;
@@ -52,24 +54,9 @@ public class FileService {
   public String create(
       @NonNull String analysisId, @NonNull String studyId, @NonNull FileEntity file) {
     studyService.checkStudyExist(studyId);
-
-    val result = idService.getFileId(analysisId, file.getFileName());
     val id =
-        checkServerOptional(
-            result,
-            getClass(),
-            ID_NOT_FOUND,
-            "The objectId for analysisId '%s' and fileName '%s' was not found",
-            analysisId,
-            file.getFileName());
-
-    file.setObjectId(id);
-    file.setStudyId(studyId);
-    file.setAnalysisId(analysisId);
-
-    repository.save(file);
-    infoService.create(id, file.getInfoAsString());
-    return id;
+        checkFileIdFound(idService.getFileId(analysisId, file.getFileName()), analysisId, file);
+    return insert(analysisId, studyId, file, id);
   }
 
   public void checkFileAndStudyRelated(@NonNull String studyId, @NonNull String id) {
@@ -136,13 +123,64 @@ public class FileService {
       fileId = create(analysisId, studyId, file);
     } else {
       fileId = result.get();
-      file.setObjectId(fileId);
-      val transientFile = fileConverter.copyFile(file);
-      unsafeUpdate(transientFile);
+      update(file, fileId);
     }
     return fileId;
   }
 
+  /**
+   * Saves all the files of an analysis. The objectIds of the new files are generated with one call
+   * to the IdService, rather than one call per file.
+   */
+  public List<String> save(
+      @NonNull String analysisId, @NonNull String studyId, @NonNull List<FileEntity> files) {
+    studyService.checkStudyExist(studyId);
+    val fileIds =
+        idService.getFileIds(
+            analysisId, files.stream().map(FileEntity::getFileName).collect(toImmutableList()));
+    return files.stream()
+        .map(f -> save(analysisId, studyId, f, fileIds))
+        .collect(toImmutableList());
+  }
+
+  private String save(
+      String analysisId, String studyId, FileEntity file, Map<String, String> fileIds) {
+    val result = findByBusinessKey(analysisId, file.getFileName());
+    if (result.isPresent()) {
+      update(file, result.get());
+      return result.get();
+    }
+    val id =
+        checkFileIdFound(Optional.ofNullable(fileIds.get(file.getFileName())), analysisId, file);
+    return insert(analysisId, studyId, file, id);
+  }
+
+  private String insert(String analysisId, String studyId, FileEntity file, String id) {
+    file.setObjectId(id);
+    file.setStudyId(studyId);
+    file.setAnalysisId(analysisId);
+
+    repository.save(file);
+    infoService.create(id, file.getInfoAsString());
+    return id;
+  }
+
+  private void update(FileEntity file, String id) {
+    file.setObjectId(id);
+    val transientFile = fileConverter.copyFile(file);
+    unsafeUpdate(transientFile);
+  }
+
+  private String checkFileIdFound(Optional<String> result, String analysisId, FileEntity file) {
+    return checkServerOptional(
+        result,
+        getClass(),
+        ID_NOT_FOUND,
+        "The objectId for analysisId '%s' and fileName '%s' was not found",
+        analysisId,
+        file.getFileName());
+  }
+
   private FileEntity unsecuredRead(@NonNull String id) {
     val result = repository.findById(id);
     fileNotFoundCheck(result.isPresent(), id);
@@ -29,6 +29,7 @@ import static java.util.stream.Collectors.toMap;
 import bio.overture.song.core.utils.JsonUtils;
 import bio.overture.song.server.model.entity.Info;
 import bio.overture.song.server.model.entity.InfoPK;
+import bio.overture.song.server.model.enums.CacheRegions;
 import bio.overture.song.server.model.enums.InfoTypes;
 import bio.overture.song.server.repository.InfoRepository;
 import java.util.List;
@@ -39,6 +40,8 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -125,6 +128,30 @@ public abstract class InfoService {
     StudyInfoService(InfoRepository repo) {
       super(InfoTypes.STUDY, repo);
     }
+
+    @Override
+    @Cacheable(cacheNames = CacheRegions.STUDY_INFO)
+    public String readNullableInfo(String id) {
+      return super.readNullableInfo(id);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheRegions.STUDY_INFO, key = "#p0")
+    public void create(@NonNull String id, String info) {
+      super.create(id, info);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheRegions.STUDY_INFO, key = "#p0")
+    public void update(@NonNull String id, String info) {
+      super.update(id, info);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheRegions.STUDY_INFO, key = "#p0")
+    public void delete(@NonNull String id) {
+      super.delete(id);
+    }
   }
 
   @Service
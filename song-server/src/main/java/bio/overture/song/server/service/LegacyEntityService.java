@@ -41,6 +41,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.MultiValueMap;
 
 @Service
@@ -68,6 +69,7 @@ public class LegacyEntityService {
     this.legacyEntityConverter = legacyEntityConverter;
   }
 
+  @Transactional(readOnly = true)
   public LegacyDto getEntity(String id) {
     val result = legacyEntityRepository.findById(id);
     checkServer(
@@ -79,6 +81,7 @@ public class LegacyEntityService {
     return legacyEntityConverter.convertToLegacyDto(result.get());
   }
 
+  @Transactional(readOnly = true)
   public JsonNode find(MultiValueMap<String, String> params, LegacyDto probe, Pageable pageable) {
     val queryParameters = extractQueryParameters(params);
     val filterParameters = extractFilterParameters(params);
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static bio.overture.song.core.exceptions.ServerErrors.ENTITY_NOT_RELATED_TO_STUDY;
+import static bio.overture.song.core.exceptions.ServerErrors.MALFORMED_PARAMETER;
+import static bio.overture.song.core.exceptions.ServerErrors.PUBLISH_JOB_NOT_FOUND;
+import static bio.overture.song.core.exceptions.ServerException.checkServer;
+import static bio.overture.song.core.model.enums.AnalysisStates.UNPUBLISHED;
+import static bio.overture.song.server.model.enums.PublishJobResultStates.FAILED;
+import static bio.overture.song.server.model.enums.PublishJobResultStates.PENDING;
+import static bio.overture.song.server.model.enums.PublishJobResultStates.PUBLISHED;
+import static bio.overture.song.server.model.enums.PublishJobStates.RUNNING;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.isNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toMap;
+
+import bio.overture.song.server.model.dto.PublishJobRequest;
+import bio.overture.song.server.model.dto.PublishJobResponse;
+import bio.overture.song.server.model.job.PublishJob;
+import bio.overture.song.server.model.job.PublishJobResult;
+import bio.overture.song.server.repository.AnalysisRepository;
+import bio.overture.song.server.repository.PublishJobLeaseRepository;
+import bio.overture.song.server.repository.PublishJobRepository;
+import bio.overture.song.server.repository.PublishJobResultRepository;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes many analyses in the background. A job and a PENDING result for each of its analyses
+ * are persisted when the job is submitted, and a bounded pool of workers then publishes the
+ * analyses in parallel, recording the outcome of each one.
+ *
+ * <p>Each RUNNING job is leased to the server running it, which renews the lease while it runs.
+ * Jobs whose lease expired, because their server stopped, are claimed and resumed by another server
+ * (or by the same one after a restart), picking up only the analyses that are still PENDING. A
+ * server that lost the lease of a job stops publishing it, and can no longer record its results.
+ */
+@Slf4j
+@Service
+public class PublishJobService {
+
+  private static final int ID_QUERY_BATCH_SIZE = 1000;
+  private static final int MAX_REPORTED_IDS = 20;
+
+  /** Dependencies */
+  private final AnalysisService analysisService;
+
+  private final AnalysisRepository analysisRepository;
+  private final PublishJobRepository publishJobRepository;
+  private final PublishJobLeaseRepository publishJobLeaseRepository;
+  private final PublishJobResultRepository publishJobResultRepository;
+  private final StudyService studyService;
+
+  /** Config */
+  private final int numWorkers;
+
+  private final Duration leaseDuration;
+
+  /** State */
+  private final String owner = UUID.randomUUID().toString();
+
+  private final Set<String> activeJobIds = ConcurrentHashMap.newKeySet();
+  private final ExecutorService executor;
+  private final ScheduledExecutorService leaseScheduler;
+
+  @Autowired
+  public PublishJobService(
+      @Value("${publish.jobs.threads}") int numWorkers,
+      @Value("${publish.jobs.leaseDuration:60s}") @NonNull Duration leaseDuration,
+      @NonNull AnalysisService analysisService,
+      @NonNull AnalysisRepository analysisRepository,
+      @NonNull PublishJobRepository publishJobRepository,
+      @NonNull PublishJobLeaseRepository publishJobLeaseRepository,
+      @NonNull PublishJobResultRepository publishJobResultRepository,
+      @NonNull StudyService studyService) {
+    this.numWorkers = numWorkers;
+    this.leaseDuration = leaseDuration;
+    this.analysisService = analysisService;
+    this.analysisRepository = analysisRepository;
+    this.publishJobRepository = publishJobRepository;
+    this.publishJobLeaseRepository = publishJobLeaseRepository;
+    this.publishJobResultRepository = publishJobResultRepository;
+    this.studyService = studyService;
+    this.executor =
+        Executors.newFixedThreadPool(
+            numWorkers, new ThreadFactoryBuilder().setNameFormat("SongPublishJob-%d").build());
+    this.leaseScheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("SongPublishJobLease-%d").build());
+  }
+
+  @Transactional
+  public PublishJobResponse submit(@NonNull String studyId, @NonNull PublishJobRequest request) {
+    studyService.checkStudyExist(studyId);
+    val analysisIds = resolveAnalysisIds(studyId, request);
+
+    val job =
+        publishJobRepository.save(
+            PublishJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .studyId(studyId)
+                .state(RUNNING.name())
+                .owner(owner)
+                .ignoreUndefinedMd5(request.isIgnoreUndefinedMd5())
+                .build());
+    publishJobResultRepository.saveAll(
+        analysisIds.stream()
+            .map(
+                id ->
+                    PublishJobResult.builder()
+                        .jobId(job.getJobId())
+                        .analysisId(id)
+                        .state(PENDING.name())
+                        .build())
+            .collect(toImmutableList()));
+
+    publishJobLeaseRepository.renewLeases(owner, leaseDuration);
+
+    log.info(
+        "Submitted publish job '{}' for {} analyses of study '{}'",
+        job.getJobId(),
+        analysisIds.size(),
+        studyId);
+    val response = buildResponse(job, analysisIds.size(), analysisIds.size(), 0, 0, null);
+
+    // Only start publishing once the job and its results are committed, otherwise the workers
+    // could not see them
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              dispatch(job);
+            }
+          });
+    } else {
+      dispatch(job);
+    }
+    return response;
+  }
+
+  public PublishJobResponse getJob(
+      @NonNull String studyId, @NonNull String jobId, boolean includeResults) {
+    val result = publishJobRepository.findById(jobId);
+    checkServer(
+        result.isPresent(),
+        getClass(),
+        PUBLISH_JOB_NOT_FOUND,
+        "The publish job '%s' does not exist",
+        jobId);
+    val job = result.get();
+    checkServer(
+        job.getStudyId().equals(studyId),
+        getClass(),
+        ENTITY_NOT_RELATED_TO_STUDY,
+        "The publish job '%s' is not related to the input studyId '%s'",
+        jobId,
+        studyId);
+    val counts =
+        publishJobResultRepository.countAllByJobIdGroupByState(jobId).stream()
+            .collect(toMap(r -> (String) r[0], r -> (Long) r[1]));
+    long pending = counts.getOrDefault(PENDING.name(), 0L);
+    long published = counts.getOrDefault(PUBLISHED.name(), 0L);
+    long failed = counts.getOrDefault(FAILED.name(), 0L);
+    val results = includeResults ? publishJobResultRepository.findAllByJobId(jobId) : null;
+    return buildResponse(job, pending + published + failed, pending, published, failed, results);
+  }
+
+  /** Renews the leases of this server and claims expired ones, a few times per lease duration */
+  @EventListener(ApplicationReadyEvent.class)
+  public void startLeasing() {
+    val period = leaseDuration.toMillis() / 3;
+    leaseScheduler.scheduleAtFixedRate(this::renewAndClaimLeases, 0, period, MILLISECONDS);
+  }
+
+  void renewAndClaimLeases() {
+    try {
+      publishJobLeaseRepository.renewLeases(owner, leaseDuration);
+      if (publishJobLeaseRepository.claimExpiredLeases(owner, leaseDuration) > 0) {
+        val jobs = publishJobRepository.findAllByStateAndOwner(RUNNING.name(), owner);
+        jobs.stream()
+            .filter(j -> !activeJobIds.contains(j.getJobId()))
+            .forEach(
+                j -> {
+                  log.info("Resuming publish job '{}' whose lease expired", j.getJobId());
+                  dispatch(j);
+                });
+      }
+    } catch (RuntimeException e) {
+      // Keep the schedule running, the next attempt renews before the lease expires
+      log.error("Failed to renew publish job leases: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    leaseScheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  private void dispatch(PublishJob job) {
+    if (!activeJobIds.add(job.getJobId())) {
+      return;
+    }
+    val pending =
+        new ConcurrentLinkedQueue<>(
+            publishJobResultRepository.findAllByJobIdAndState(job.getJobId(), PENDING.name()));
+    val numJobWorkers = Math.min(numWorkers, pending.size());
+    if (numJobWorkers == 0) {
+      complete(job);
+      return;
+    }
+
+    // Each worker drains the shared queue, so a single job never occupies more than the pool size
+    // and many jobs share the pool fairly
+    val remainingWorkers = new AtomicInteger(numJobWorkers);
+    val leaseLost = new AtomicBoolean(false);
+    for (int i = 0; i < numJobWorkers; i++) {
+      executor.execute(
+          () -> {
+            try {
+              PublishJobResult result;
+              while (!Thread.currentThread().isInterrupted()
+                  && !leaseLost.get()
+                  && (result = pending.poll()) != null) {
+                if (!publish(job, result)) {
+                  leaseLost.set(true);
+                }
+              }
+            } finally {
+              if (remainingWorkers.decrementAndGet() == 0) {
+                if (leaseLost.get()) {
+                  activeJobIds.remove(job.getJobId());
+                  log.warn(
+                      "Stopped publish job '{}', since its lease was claimed by another server",
+                      job.getJobId());
+                } else if (pending.isEmpty()) {
+                  complete(job);
+                }
+              }
+            }
+          });
+    }
+  }
+
+  /** Publishes the analysis and records the result. Returns false if the lease was lost */
+  private boolean publish(PublishJob job, PublishJobResult result) {
+    try {
+      analysisService.publish(job.getStudyId(), result.getAnalysisId(), job.isIgnoreUndefinedMd5());
+      result.setState(PUBLISHED.name());
+      result.setErrors(null);
+    } catch (RuntimeException e) {
+      log.debug(
+          "[PublishJob:{}] Failed to publish analysis '{}': {}",
+          job.getJobId(),
+          result.getAnalysisId(),
+          e.getMessage());
+      result.setState(FAILED.name());
+      result.setErrors(e.getMessage());
+    }
+    return publishJobLeaseRepository.recordResult(owner, result) > 0;
+  }
+
+  private void complete(PublishJob job) {
+    activeJobIds.remove(job.getJobId());
+    if (publishJobLeaseRepository.completeJob(owner, job.getJobId()) > 0) {
+      log.info("Completed publish job '{}'", job.getJobId());
+    } else {
+      log.warn(
+          "Did not complete publish job '{}', since its lease was claimed by another server",
+          job.getJobId());
+    }
+  }
+
+  private List<String> resolveAnalysisIds(String studyId, PublishJobRequest request) {
+    if (isNull(request.getAnalysisIds()) || request.getAnalysisIds().isEmpty()) {
+      val ids =
+          analysisRepository.findAllAnalysisIdsByStudyIdAndAnalysisState(
+              studyId, UNPUBLISHED.name());
+      checkServer(
+          !ids.isEmpty(),
+          getClass(),
+          MALFORMED_PARAMETER,
+          "There are no UNPUBLISHED analyses to publish in the study '%s'",
+          studyId);
+      return ids;
+    }
+
+    val requestedIds = new LinkedHashSet<>(request.getAnalysisIds());
+    val relatedIds = Sets.<String>newHashSetWithExpectedSize(requestedIds.size());
+    for (val batch : Lists.partition(List.copyOf(requestedIds), ID_QUERY_BATCH_SIZE)) {
+      relatedIds.addAll(
+          analysisRepository.findAllAnalysisIdsByStudyIdAndAnalysisIdIn(studyId, batch));
+    }
+    val unrelatedIds = Sets.difference(requestedIds, relatedIds);
+    checkServer(
+        unrelatedIds.isEmpty(),
+        getClass(),
+        ENTITY_NOT_RELATED_TO_STUDY,
+        "%s of the requested analysisIds do not exist or are not related to the studyId '%s': %s",
+        unrelatedIds.size(),
+        studyId,
+        Iterables.limit(unrelatedIds, MAX_REPORTED_IDS));
+    return List.copyOf(requestedIds);
+  }
+
+  private static PublishJobResponse buildResponse(
+      PublishJob job,
+      long total,
+      long pending,
+      long published,
+      long failed,
+      List<PublishJobResult> results) {
+    return PublishJobResponse.builder()
+        .jobId(job.getJobId())
+        .studyId(job.getStudyId())
+        .state(job.getState())
+        .ignoreUndefinedMd5(job.isIgnoreUndefinedMd5())
+        .total(total)
+        .pending(pending)
+        .published(published)
+        .failed(failed)
+        .createdAt(job.getCreatedAt())
+        .updatedAt(job.getUpdatedAt())
+        .results(results)
+        .build();
+  }
+}
@@ -31,6 +31,7 @@ import static java.util.stream.Collectors.toList;
 import bio.overture.song.server.model.entity.BusinessKeyView;
 import bio.overture.song.server.model.entity.Sample;
 import bio.overture.song.server.repository.BusinessKeyRepository;
+import bio.overture.song.server.repository.EntityUpsertRepository;
 import bio.overture.song.server.repository.SampleRepository;
 import bio.overture.song.server.service.InfoService.SampleInfoService;
 import bio.overture.song.server.service.id.IdService;
@@ -58,6 +59,8 @@ public class SampleService {
 
   @Autowired private final BusinessKeyRepository businessKeyRepository;
 
+  @Autowired private final EntityUpsertRepository entityUpsertRepository;
+
   // TODO: [Related to SONG-260] should we add a
   // specimenService.checkSpecimenExists(sample.getSpecimenId()) here?
   public String create(@NonNull String studyId, @NonNull Sample sample) {
@@ -69,6 +72,20 @@ public class SampleService {
     return id;
   }
 
+  /**
+   * Creates the sample and its info, unless it already exists, in which case false is returned.
+   * Either way, the sampleId of the input is set.
+   */
+  public boolean createIfAbsent(@NonNull String studyId, @NonNull Sample sample) {
+    val id = resolveSampleId(studyId, sample);
+    sample.setSampleId(id);
+    if (!entityUpsertRepository.insertSampleIfAbsent(sample)) {
+      return false;
+    }
+    infoService.create(id, sample.getInfoAsString());
+    return true;
+  }
+
   public void checkSampleRelatedToStudy(@NonNull String studyId, @NonNull String id) {
     val numSamples = businessKeyRepository.countAllByStudyIdAndSampleId(studyId, id);
     if (numSamples < 1) {
@@ -171,6 +188,12 @@ public class SampleService {
   }
 
   private String createSampleId(String studyId, Sample sample) {
+    val id = resolveSampleId(studyId, sample);
+    checkSampleDoesNotExist(id);
+    return id;
+  }
+
+  private String resolveSampleId(String studyId, Sample sample) {
     studyService.checkStudyExist(studyId);
     val inputSampleId = sample.getSampleId();
     val sampleSubmitterId = sample.getSubmitterSampleId();
@@ -190,7 +213,6 @@ public class SampleService {
         "The input sampleId '%s' is corrupted because it does not match the federated sampleId '%s'",
         inputSampleId,
         id);
-    checkSampleDoesNotExist(id);
     return id;
   }
 
@@ -31,6 +31,7 @@ import bio.overture.song.server.model.entity.BusinessKeyView;
 import bio.overture.song.server.model.entity.Specimen;
 import bio.overture.song.server.model.entity.composites.SpecimenWithSamples;
 import bio.overture.song.server.repository.BusinessKeyRepository;
+import bio.overture.song.server.repository.EntityUpsertRepository;
 import bio.overture.song.server.repository.SpecimenRepository;
 import bio.overture.song.server.service.InfoService.SpecimenInfoService;
 import bio.overture.song.server.service.id.IdService;
@@ -53,8 +54,15 @@ public class SpecimenService {
   @Autowired private final SpecimenRepository repository;
   @Autowired private final StudyService studyService;
   @Autowired private final BusinessKeyRepository businessKeyRepository;
+  @Autowired private final EntityUpsertRepository entityUpsertRepository;
 
   private String createSpecimenId(String studyId, Specimen specimen) {
+    val id = resolveSpecimenId(studyId, specimen);
+    checkSpecimenDoesNotExist(id);
+    return id;
+  }
+
+  private String resolveSpecimenId(String studyId, Specimen specimen) {
     studyService.checkStudyExist(studyId);
     val inputSpecimenId = specimen.getSpecimenId();
     val specimenSubmitterId = specimen.getSubmitterSpecimenId();
@@ -75,7 +83,6 @@ public class SpecimenService {
         "The input specimenId '%s' is corrupted because it does not match the federated specimenId '%s'",
         inputSpecimenId,
         id);
-    checkSpecimenDoesNotExist(id);
     return id;
   }
 
@@ -87,6 +94,20 @@ public class SpecimenService {
     return id;
   }
 
+  /**
+   * Creates the specimen and its info, unless it already exists, in which case false is returned.
+   * Either way, the specimenId of the input is set.
+   */
+  public boolean createIfAbsent(@NonNull String studyId, @NonNull Specimen specimen) {
+    val id = resolveSpecimenId(studyId, specimen);
+    specimen.setSpecimenId(id);
+    if (!entityUpsertRepository.insertSpecimenIfAbsent(specimen)) {
+      return false;
+    }
+    infoService.create(id, specimen.getInfoAsString());
+    return true;
+  }
+
   public Specimen securedRead(@NonNull String studyId, String id) {
     checkSpecimenRelatedToStudy(studyId, id);
     return unsecuredRead(id);
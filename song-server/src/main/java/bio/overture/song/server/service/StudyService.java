@@ -58,8 +58,9 @@ public class StudyService {
     return study;
   }
 
+  /** Looks up the entity rather than counting rows, so the check is served by the study cache. */
   public boolean isStudyExist(String studyId) {
-    return studyRepository.existsById(studyId);
+    return studyRepository.findById(studyId).isPresent();
   }
 
   @Transactional
@@ -25,43 +25,84 @@ import static bio.overture.song.core.utils.Responses.OK;
 import static bio.overture.song.server.model.enums.ModelAttributeNames.ANALYSIS_TYPE;
 import static bio.overture.song.server.model.enums.ModelAttributeNames.NAME;
 import static bio.overture.song.server.model.enums.ModelAttributeNames.STUDY_ID;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.isNull;
 
 import bio.overture.song.core.model.AnalysisTypeId;
 import bio.overture.song.core.model.SubmitResponse;
 import bio.overture.song.server.model.dto.Payload;
+import bio.overture.song.server.properties.SubmitProperties;
+import bio.overture.song.server.repository.AnalysisRepository;
 import bio.overture.song.server.service.analysis.AnalysisService;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 @Service
 @Slf4j
 public class SubmitService {
 
+  /** Sorts object fields, so that payloads differing only by field order are the same */
+  private static final ObjectMapper CANONICAL_MAPPER =
+      new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  private static final String IDEMPOTENCY_KEY_PREFIX = "key:";
+  private static final String PAYLOAD_PREFIX = "payload:";
+
   private final ValidationService validator;
   private final AnalysisService analysisService;
   private final StudyService studyService;
+  private final AnalysisRepository analysisRepository;
+  private final SubmitProperties submitProperties;
 
   @Autowired
   public SubmitService(
       @NonNull ValidationService validator,
       @NonNull AnalysisService analysisService,
-      @NonNull StudyService studyService) {
+      @NonNull StudyService studyService,
+      @NonNull AnalysisRepository analysisRepository,
+      @NonNull SubmitProperties submitProperties) {
     this.validator = validator;
     this.analysisService = analysisService;
     this.studyService = studyService;
+    this.analysisRepository = analysisRepository;
+    this.submitProperties = submitProperties;
   }
 
   public SubmitResponse submit(@NonNull String studyId, String payloadString) {
+    return submit(studyId, payloadString, null);
+  }
+
+  /**
+   * Submits the payload. A submit with the same {@code idempotencyKey} as an earlier submit to the
+   * study, or with the same payload when payload fingerprints are enabled, is a retry of it, and
+   * returns the response of the original submit without validating or creating anything.
+   */
+  public SubmitResponse submit(
+      @NonNull String studyId, String payloadString, String idempotencyKey) {
     // Check study exists
     studyService.checkStudyExist(studyId);
 
+    // Return the analysis of a previous attempt of this submit
+    val submitKey = resolveSubmitKey(payloadString, idempotencyKey);
+    if (!isNull(submitKey)) {
+      val existingAnalysisId =
+          analysisRepository.findAnalysisIdByStudyIdAndSubmitKey(studyId, submitKey);
+      if (existingAnalysisId.isPresent()) {
+        return buildSubmitResponse(existingAnalysisId.get());
+      }
+    }
+
     // Parse JSON payload
     val payloadJson = parsePayload(payloadString);
 
@@ -75,8 +116,51 @@ public class SubmitService {
     checkStudyInPayload(studyId, payload);
 
     // Create the analysis
-    val analysis = analysisService.create(studyId, payload);
-    return SubmitResponse.builder().analysisId(analysis.getAnalysisId()).status(OK).build();
+    return buildSubmitResponse(createAnalysis(studyId, payload, submitKey));
+  }
+
+  private String createAnalysis(String studyId, Payload payload, String submitKey) {
+    try {
+      return analysisService.create(studyId, payload, submitKey).getAnalysisId();
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent attempt of the same submit created the analysis first
+      if (!isNull(submitKey)) {
+        val existingAnalysisId =
+            analysisRepository.findAnalysisIdByStudyIdAndSubmitKey(studyId, submitKey);
+        if (existingAnalysisId.isPresent()) {
+          return existingAnalysisId.get();
+        }
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the hash of the idempotency key if there is one, otherwise the hash of the canonical
+   * payload if payload fingerprints are enabled and the payload can be parsed.
+   */
+  private String resolveSubmitKey(String payloadString, String idempotencyKey) {
+    if (!isNullOrEmpty(idempotencyKey)) {
+      return hash(IDEMPOTENCY_KEY_PREFIX + idempotencyKey);
+    }
+    if (submitProperties.isFingerprintPayloads() && !isNull(payloadString)) {
+      try {
+        val payload = CANONICAL_MAPPER.treeToValue(readTree(payloadString), Object.class);
+        return hash(PAYLOAD_PREFIX + CANONICAL_MAPPER.writeValueAsString(payload));
+      } catch (IOException e) {
+        // Reported when the payload is parsed
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static String hash(String value) {
+    return Hashing.sha256().hashString(value, UTF_8).toString();
+  }
+
+  private static SubmitResponse buildSubmitResponse(String analysisId) {
+    return SubmitResponse.builder().analysisId(analysisId).status(OK).build();
   }
 
   private JsonNode parsePayload(String payloadString) {
@@ -19,7 +19,7 @@ package bio.overture.song.server.service;
 import static bio.overture.song.core.exceptions.ServerErrors.MALFORMED_PARAMETER;
 import static bio.overture.song.core.exceptions.ServerException.checkServer;
 import static bio.overture.song.core.utils.JsonUtils.fromJson;
-import static bio.overture.song.core.utils.JsonUtils.mapper;
+import static bio.overture.song.core.utils.JsonUtils.objectToTree;
 import static bio.overture.song.core.utils.Separators.COMMA;
 import static bio.overture.song.server.utils.JsonParser.extractAnalysisTypeFromPayload;
 import static bio.overture.song.server.utils.JsonSchemas.buildSchema;
@@ -104,7 +104,7 @@ public class ValidationService {
 
   // TODO: transition to everit json schema library
   public Optional<String> validate(FileData fileData) {
-    val json = mapper().valueToTree(fileData);
+    val json = objectToTree(fileData);
     val resp = validator.validate(FILE_DATA_SCHEMA_ID, json);
     return processResponse(resp);
   }
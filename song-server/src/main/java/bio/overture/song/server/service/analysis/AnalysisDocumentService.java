@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service.analysis;
+
+import static java.util.Objects.isNull;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization;
+
+import bio.overture.song.server.model.analysis.AnalysisDocument;
+import bio.overture.song.server.repository.AnalysisDocumentRepository;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.collect.Lists;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the analysis_document table. The analyses changed by a transaction are found by {@link
+ * AnalysisDocumentTransactionManager} before it commits, and their documents are rebuilt in batches
+ * on a background thread once it has committed, so writes never wait for the deep reads. Until then
+ * the documents are stale and reads fall back to the deep read.
+ *
+ * <p>Documents that are still missing or stale on startup, for example because they were written
+ * before the table was enabled or the node stopped before rebuilding them, are rebuilt by whichever
+ * node holds the backfill lock.
+ */
+@Slf4j
+public class AnalysisDocumentService {
+
+  /** Dependencies */
+  private final AnalysisService analysisService;
+
+  private final AnalysisDocumentRepository analysisDocumentRepository;
+  private final ObjectWriter writer;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService executor;
+
+  /** Config */
+  private final int batchSize;
+
+  public AnalysisDocumentService(
+      @NonNull AnalysisService analysisService,
+      @NonNull AnalysisDocumentRepository analysisDocumentRepository,
+      @NonNull ObjectWriter writer,
+      @NonNull EntityManager entityManager,
+      @NonNull TransactionTemplate transactionTemplate,
+      @NonNull ExecutorService executor,
+      int batchSize) {
+    this.analysisService = analysisService;
+    this.analysisDocumentRepository = analysisDocumentRepository;
+    this.writer = writer;
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.executor = executor;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Schedules the documents of the analyses changed by the current transaction to be rebuilt after
+   * it commits. Pending changes are flushed first, so the triggers record them.
+   */
+  public void rebuildChangedAnalysesAfterCommit() {
+    entityManager.flush();
+    val changed = analysisDocumentRepository.findChangedInCurrentTransaction();
+    if (!changed.isEmpty()) {
+      registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              executor.execute(() -> rebuild(changed));
+            }
+          });
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<AnalysisDocument> find(@NonNull String studyId, @NonNull String analysisId) {
+    return analysisDocumentRepository.findCurrent(studyId, analysisId);
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<List<String>> findAll(
+      @NonNull String studyId, @NonNull Collection<String> analysisStates) {
+    return analysisDocumentRepository.findAllCurrent(studyId, analysisStates);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildStaleAnalysesInBackground() {
+    executor.execute(this::rebuildStaleAnalyses);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Each batch reads the latest change of its analyses in its own transaction, so a document is
+   * never saved under a change older than the one it was read after.
+   */
+  private void rebuild(List<String> analysisIds) {
+    try {
+      for (val batch : Lists.partition(analysisIds, batchSize)) {
+        transactionTemplate.execute(
+            status -> {
+              rebuildAll(analysisDocumentRepository.findChangeSeqs(batch));
+              return null;
+            });
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to rebuild analysis documents: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Every batch takes the backfill lock, so nodes that start together do not rebuild the same
+   * documents. A node that finds the lock held leaves the backfill to the node holding it.
+   */
+  private void rebuildStaleAnalyses() {
+    try {
+      int total = 0;
+      Map<String, Long> batch;
+      do {
+        batch =
+            transactionTemplate.execute(
+                status -> {
+                  if (!analysisDocumentRepository.tryLockBackfill()) {
+                    return null;
+                  }
+                  val stale = analysisDocumentRepository.findStale(batchSize);
+                  rebuildAll(stale);
+                  return stale;
+                });
+        if (isNull(batch)) {
+          log.info("Missing or stale analysis documents are being rebuilt by another node");
+          return;
+        }
+        total += batch.size();
+      } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+      if (total > 0) {
+        log.info("Rebuilt {} missing or stale analysis documents", total);
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to rebuild stale analysis documents: {}", e.getMessage(), e);
+    }
+  }
+
+  @SneakyThrows
+  private void rebuildAll(Map<String, Long> changeSeqs) {
+    for (val analysis : analysisService.unsecuredDeepReads(changeSeqs.keySet())) {
+      analysisDocumentRepository.save(
+          AnalysisDocument.builder()
+              .analysisId(analysis.getAnalysisId())
+              .studyId(analysis.getStudyId())
+              .changeSeq(changeSeqs.get(analysis.getAnalysisId()))
+              .firstPublishedAt(analysis.getFirstPublishedAt())
+              .publishedAt(analysis.getPublishedAt())
+              .document(writer.writeValueAsString(analysis))
+              .build());
+    }
+  }
+}
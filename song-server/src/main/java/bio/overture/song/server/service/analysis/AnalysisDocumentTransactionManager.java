@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service.analysis;
+
+import static java.util.Objects.isNull;
+
+import lombok.NonNull;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Finds the analyses changed by a transaction just before it commits, and has their documents
+ * rebuilt once it has. Every write path is covered, since the changed analyses are found from the
+ * analysis_change rows written by the database triggers.
+ */
+public class AnalysisDocumentTransactionManager extends JpaTransactionManager {
+
+  private final ObjectProvider<AnalysisDocumentService> analysisDocumentService;
+
+  public AnalysisDocumentTransactionManager(
+      @NonNull ObjectProvider<AnalysisDocumentService> analysisDocumentService) {
+    this.analysisDocumentService = analysisDocumentService;
+  }
+
+  @Override
+  protected void prepareForCommit(DefaultTransactionStatus status) {
+    super.prepareForCommit(status);
+    if (status.hasTransaction()
+        && status.isNewTransaction()
+        && !status.isReadOnly()
+        && !status.isRollbackOnly()) {
+      val service = analysisDocumentService.getIfAvailable();
+      if (!isNull(service)) {
+        service.rebuildChangedAnalysesAfterCommit();
+      }
+    }
+  }
+}
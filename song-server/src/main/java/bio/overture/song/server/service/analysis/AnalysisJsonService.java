@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service.analysis;
+
+import static bio.overture.song.server.service.analysis.AnalysisServiceImpl.resolveSelectedAnalysisStates;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static org.springframework.transaction.annotation.Propagation.MANDATORY;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.service.StudyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.Optional;
+import java.util.Set;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads analyses as JSON, from the response cache or the analysis documents when they are enabled,
+ * and otherwise by reading and serializing the analysis. Uses the same mapper as the JSON message
+ * converter, so the responses are identical either way.
+ */
+@Service
+public class AnalysisJsonService {
+
+  /** Dependencies */
+  private final AnalysisService analysisService;
+
+  private final StudyService studyService;
+  private final ObjectWriter writer;
+  private final ObjectProvider<AnalysisResponseCache> analysisResponseCache;
+  private final ObjectProvider<AnalysisDocumentService> analysisDocumentService;
+
+  @Autowired
+  public AnalysisJsonService(
+      @NonNull AnalysisService analysisService,
+      @NonNull StudyService studyService,
+      @NonNull ObjectMapper objectMapper,
+      @NonNull ObjectProvider<AnalysisResponseCache> analysisResponseCache,
+      @NonNull ObjectProvider<AnalysisDocumentService> analysisDocumentService) {
+    this.analysisService = analysisService;
+    this.studyService = studyService;
+    this.writer = objectMapper.writerFor(Analysis.class);
+    this.analysisResponseCache = analysisResponseCache;
+    this.analysisDocumentService = analysisDocumentService;
+  }
+
+  /**
+   * Returns the JSON of the analysis, which is at {@code version}. Must run in the transaction that
+   * read {@code version}, so that a body read on a cache miss comes from the same database, and is
+   * cached under its own version.
+   */
+  @Transactional(readOnly = true, propagation = MANDATORY)
+  public byte[] read(@NonNull String studyId, @NonNull String analysisId, @NonNull String version) {
+    val cache = analysisResponseCache.getIfAvailable();
+    if (isNull(cache)) {
+      return readJson(studyId, analysisId).getJson();
+    }
+    return cache.get(analysisId, version, () -> readJson(studyId, analysisId));
+  }
+
+  /**
+   * Returns the JSON array of the analyses of the study in one of the {@code analysisStates}, if
+   * all of their documents are current.
+   */
+  public Optional<byte[]> readAll(@NonNull String studyId, @NonNull Set<String> analysisStates) {
+    val documents = analysisDocumentService.getIfAvailable();
+    if (isNull(documents)) {
+      return Optional.empty();
+    }
+    studyService.checkStudyExist(studyId);
+    return documents
+        .findAll(studyId, resolveSelectedAnalysisStates(analysisStates))
+        .map(x -> ("[" + String.join(",", x) + "]").getBytes(UTF_8));
+  }
+
+  @SneakyThrows
+  private AnalysisJson readJson(String studyId, String analysisId) {
+    val documents = analysisDocumentService.getIfAvailable();
+    if (!isNull(documents)) {
+      val document = documents.find(studyId, analysisId);
+      if (document.isPresent()) {
+        return new AnalysisJson(
+            document.get().getAnalysisState(), document.get().getDocument().getBytes(UTF_8));
+      }
+    }
+    val analysis = analysisService.securedDeepRead(studyId, analysisId);
+    return new AnalysisJson(analysis.getAnalysisState(), writer.writeValueAsBytes(analysis));
+  }
+}
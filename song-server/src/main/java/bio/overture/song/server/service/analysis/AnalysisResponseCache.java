@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service.analysis;
+
+import static bio.overture.song.core.model.enums.AnalysisStates.PUBLISHED;
+import static java.util.Objects.isNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Holds the serialized JSON of published analyses, bounded by the total number of bytes. Each entry
+ * records the version of the analysis it was serialized from, which is maintained by the database
+ * for every change to the analysis, its files, samples and info. A read with a different version is
+ * a miss, so entries are invalidated across every node without any messaging between them.
+ * Invalidating an analysis on this node only frees its entry early.
+ */
+public class AnalysisResponseCache {
+
+  private static final String METRIC_PREFIX = "song.analysis.response.cache";
+
+  private final Cache<String, SerializedAnalysis> cache;
+  private final Counter hits;
+  private final Counter misses;
+
+  public AnalysisResponseCache(long maxBytes, @NonNull MeterRegistry meterRegistry) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String id, SerializedAnalysis entry) -> id.length() + entry.getJson().length)
+            .build();
+    this.hits = meterRegistry.counter(METRIC_PREFIX + ".requests", "result", "hit");
+    this.misses = meterRegistry.counter(METRIC_PREFIX + ".requests", "result", "miss");
+    Gauge.builder(METRIC_PREFIX + ".bytes", this, AnalysisResponseCache::getBytes)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".hit.ratio", this, AnalysisResponseCache::getHitRatio)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the JSON of the analysis at {@code version}, reading it with {@code reader} on a miss.
+   * Only published analyses are kept.
+   */
+  public byte[] get(
+      @NonNull String analysisId, @NonNull String version, @NonNull Supplier<AnalysisJson> reader) {
+    val cached = cache.getIfPresent(analysisId);
+    if (!isNull(cached) && cached.getVersion().equals(version)) {
+      hits.increment();
+      return cached.getJson();
+    }
+    misses.increment();
+    val analysis = reader.get();
+    val json = analysis.getJson();
+    if (PUBLISHED.name().equals(analysis.getAnalysisState())) {
+      cache.put(analysisId, new SerializedAnalysis(version, json));
+    } else if (!isNull(cached)) {
+      cache.invalidate(analysisId);
+    }
+    return json;
+  }
+
+  public void invalidate(@NonNull String analysisId) {
+    cache.invalidate(analysisId);
+  }
+
+  public void invalidateAll(@NonNull Collection<String> analysisIds) {
+    cache.invalidateAll(analysisIds);
+  }
+
+  /** Applies pending writes first, since the size is otherwise updated asynchronously. */
+  public long getBytes() {
+    cache.cleanUp();
+    return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+  }
+
+  public double getHitRatio() {
+    val requests = hits.count() + misses.count();
+    return requests == 0 ? 0 : hits.count() / requests;
+  }
+
+  @Value
+  private static class SerializedAnalysis {
+    String version;
+    byte[] json;
+  }
+}
@@ -11,10 +11,19 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import lombok.NonNull;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface AnalysisService {
 
-  Analysis create(String studyId, Payload payload);
+  /**
+   * Creates the analysis. The {@code submitKey} identifies the submit that created it, and is null
+   * when the analysis is not created by an idempotent submit.
+   */
+  Analysis create(String studyId, Payload payload, String submitKey);
+
+  default Analysis create(@NonNull String studyId, @NonNull Payload payload) {
+    return create(studyId, payload, null);
+  }
 
   Analysis updateAnalysis(String studyId, String analysisId, JsonNode updateAnalysisRequest);
 
@@ -45,6 +54,14 @@ public interface AnalysisService {
 
   Analysis suppress(String studyId, String id);
 
+  /**
+   * Transitions all the input analyses of a study to {@code state} using set-based statements,
+   * and returns the ids of the updated analyses. Publishing is not supported, since it requires
+   * per-analysis storage validation.
+   */
+  List<String> bulkUpdateState(
+      String studyId, Collection<String> analysisIds, AnalysisStates state);
+
   List<CompositeEntity> readSamples(String id);
 
   AnalysisStates readState(String id);
@@ -58,6 +75,7 @@ public interface AnalysisService {
    * Securely reads an analysis WITH all of its files, samples and info, and verifies the input
    * studyId is related to the requested analysisId
    */
+  @Transactional(readOnly = true)
   default Analysis securedDeepRead(@NonNull String studyId, String id) {
     checkAnalysisAndStudyRelated(studyId, id);
     return unsecuredDeepRead(id);
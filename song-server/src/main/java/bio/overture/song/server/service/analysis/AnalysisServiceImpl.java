@@ -63,21 +63,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.fge.jsonpatch.JsonPatchException;
 import com.github.fge.jsonpatch.mergepatch.JsonMergePatch;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import io.vavr.Tuple3;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import javax.transaction.Transactional;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.everit.json.schema.ValidationException;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
@@ -103,11 +105,12 @@ public class AnalysisServiceImpl implements AnalysisService {
   @Autowired private final AnalysisDataRepository analysisDataRepository;
   @Autowired private final AnalysisTypeService analysisTypeService;
   @Autowired private final AnalysisStateChangeRepository analysisStateChangeRepository;
+  @Autowired private final AnalysisStateTransitionRepository analysisStateTransitionRepository;
   @Autowired private final ValidationService validationService;
 
   @Override
   @Transactional
-  public Analysis create(@NonNull String studyId, @NonNull Payload payload) {
+  public Analysis create(@NonNull String studyId, @NonNull Payload payload, String submitKey) {
     studyService.checkStudyExist(studyId);
 
     val analysisId = idService.generateAnalysisId();
@@ -115,7 +118,7 @@ public class AnalysisServiceImpl implements AnalysisService {
         analysisTypeService.getAnalysisSchema(
             payload.getAnalysisType().getName(), payload.getAnalysisType().getVersion());
 
-    val analysisData = AnalysisData.builder().data(toJsonNode(payload.getData())).build();
+    val analysisData = AnalysisData.builder().rawData(toJson(payload.getData())).build();
     analysisDataRepository.save(analysisData);
 
     val a = new Analysis();
@@ -125,6 +128,7 @@ public class AnalysisServiceImpl implements AnalysisService {
     a.setAnalysisState(UNPUBLISHED.name());
     a.setStudyId(studyId);
     a.setAnalysisSchema(analysisSchema);
+    a.setSubmitKey(submitKey);
 
     analysisData.setAnalysis(a);
 
@@ -156,7 +160,8 @@ public class AnalysisServiceImpl implements AnalysisService {
     // Validate the updateAnalysisRequest against the scheme
     validateUpdateRequest(updateAnalysisRequest, newAnalysisSchema);
 
-    // Now that the request is validated, is safe to fetch the old analysis with all files, samples and info
+    // Now that the request is validated, is safe to fetch the old analysis with all files, samples
+    // and info
     val analysis = unsecuredDeepRead(analysisId);
 
     // Update the association between the old schema and new schema entities for the requested
@@ -175,18 +180,20 @@ public class AnalysisServiceImpl implements AnalysisService {
   @Override
   @Transactional
   public Analysis patchUpdateAnalysis(
-          @NonNull String studyId,
-          @NonNull String analysisId,
-          @NonNull JsonNode patchUpdateAnalysisRequest) {
+      @NonNull String studyId,
+      @NonNull String analysisId,
+      @NonNull JsonNode patchUpdateAnalysisRequest) {
 
     // Securely read analysis with all files, samples and info
     val analysis = securedDeepRead(studyId, analysisId);
     log.debug("analysis found:" + analysis);
 
-    val originalData = analysis.getData();
-    originalData.put("analysisType", analysis.getAnalysisType()); // we need this to validate against schema.
+    // Parse the stored data once, since it needs to be inspected
+    val originalData = (ObjectNode) analysis.getAnalysisData().getData();
+    // we need this to validate against schema.
+    originalData.set("analysisType", objectToTree(analysis.getAnalysisType()));
 
-    val updatedAnalysis = mergePatchRequest(toJsonNode(originalData), patchUpdateAnalysisRequest);
+    val updatedAnalysis = mergePatchRequest(originalData, patchUpdateAnalysisRequest);
 
     // get existing Analysis Schema
     val analysisSchema = analysis.getAnalysisSchema();
@@ -214,24 +221,27 @@ public class AnalysisServiceImpl implements AnalysisService {
    * @return returns a List of analysis with the child entities.
    */
   @Override
+  @Transactional(readOnly = true)
   public List<Analysis> getAnalysis(@NonNull String studyId, @NonNull Set<String> analysisStates) {
     studyService.checkStudyExist(studyId);
     val finalStates = resolveSelectedAnalysisStates(analysisStates);
     val analyses =
         repository.findAll(
-            new AnalysisSpecificationBuilder(true, true, true)
+            new AnalysisSpecificationBuilder(false, true, false)
                 .buildByStudyAndAnalysisStates(studyId, finalStates));
     analyses.forEach(
         a -> {
           val id = a.getAnalysisId();
+          initializeAnalysisSchema(a);
+          initializeAnalysisStateHistory(a);
           a.setFiles(unsecuredReadFiles(id));
           a.setSamples(readSamples(id));
-          a.populatePublishTimes();
         });
     return analyses;
   }
 
   @Override
+  @Transactional(readOnly = true)
   public GetAnalysisResponse getAnalysis(
       @NonNull String studyId,
       @NonNull Set<String> analysisStates,
@@ -310,6 +320,7 @@ public class AnalysisServiceImpl implements AnalysisService {
    *     nothing is found, an empty list is returned.
    */
   @Override
+  @Transactional(readOnly = true)
   public List<Analysis> idSearch(@NonNull String studyId, @NonNull IdSearchRequest request) {
     val analysisList =
         searchRepository.idSearch(studyId, request).stream()
@@ -349,6 +360,7 @@ public class AnalysisServiceImpl implements AnalysisService {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Analysis> unsecuredDeepReads(@NonNull Collection<String> ids) {
     return ids.stream().map(this::unsecuredDeepRead).collect(Collectors.toList());
   }
@@ -358,11 +370,11 @@ public class AnalysisServiceImpl implements AnalysisService {
    * the studyId used in the request is allowed to read this analysis
    */
   @Override
+  @Transactional(readOnly = true)
   public Analysis unsecuredDeepRead(@NonNull String id) {
     val analysis = get(id, true, true, true);
     analysis.setFiles(unsecuredReadFiles(id));
     analysis.setSamples(readSamples(id));
-    analysis.populatePublishTimes();
     return analysis;
   }
 
@@ -391,7 +403,8 @@ public class AnalysisServiceImpl implements AnalysisService {
   public Analysis publish(@NonNull String studyId, @NonNull String id, boolean ignoreUndefinedMd5) {
     checkAnalysisAndStudyRelated(studyId, id);
 
-    val a = shallowRead(id);
+    // The schema is validated below, so it is loaded with the analysis rather than lazily
+    val a = get(id, true, false, false);
 
     // Validations before publishing
     val analysisSchema = a.getAnalysisSchema();
@@ -405,31 +418,87 @@ public class AnalysisServiceImpl implements AnalysisService {
     // Publish
     checkedUpdateState(id, PUBLISHED);
 
-    // Recalculate publish times now that it has a new PUBLISHED state in history
-    a.populatePublishTimes();
-
-    return a;
+    // The full analysis, including the new PUBLISHED state in its history, is only read once the
+    // transition is done
+    return unsecuredDeepRead(id);
   }
 
   @Override
   @Transactional
   public Analysis unpublish(@NonNull String studyId, @NonNull String id) {
     checkAnalysisAndStudyRelated(studyId, id);
-    checkNotSuppressed(
-        id,
+    val currentState = lockAnalysisState(id);
+    checkServer(
+        resolveAnalysisState(currentState) != SUPPRESSED,
+        getClass(),
+        SUPPRESSED_STATE_TRANSITION,
         "Cannot change the analysis state for analysisId '%s' from '%s' to '%s'",
         id,
         SUPPRESSED,
         UNPUBLISHED);
-    val analysis = checkedUpdateState(id, UNPUBLISHED);
-    return analysis;
+    updateState(id, UNPUBLISHED);
+    return unsecuredDeepRead(id);
   }
 
   @Override
   @Transactional
   public Analysis suppress(@NonNull String studyId, @NonNull String id) {
     checkAnalysisAndStudyRelated(studyId, id);
-    return checkedUpdateState(id, SUPPRESSED);
+    checkedUpdateState(id, SUPPRESSED);
+    return unsecuredDeepRead(id);
+  }
+
+  @Override
+  @Transactional
+  public List<String> bulkUpdateState(
+      @NonNull String studyId, Collection<String> analysisIds, @NonNull AnalysisStates state) {
+    checkServer(
+        state != PUBLISHED,
+        getClass(),
+        MALFORMED_PARAMETER,
+        "Bulk transitions to the state '%s' are not supported, use a publish job instead",
+        PUBLISHED);
+    studyService.checkStudyExist(studyId);
+    checkServer(
+        !isNull(analysisIds) && !analysisIds.isEmpty(),
+        getClass(),
+        MALFORMED_PARAMETER,
+        "At least one analysisId must be specified");
+    val ids = ImmutableSet.copyOf(analysisIds);
+
+    // Lock the rows so that concurrent transitions of the same analyses are serialized
+    val currentStates = analysisStateTransitionRepository.lockAnalysisStates(studyId, ids);
+    val unrelatedIds =
+        ids.stream().filter(id -> !currentStates.containsKey(id)).collect(toImmutableList());
+    checkServer(
+        unrelatedIds.isEmpty(),
+        getClass(),
+        ENTITY_NOT_RELATED_TO_STUDY,
+        "The following analysisIds do not exist or are not related to the studyId '%s': %s",
+        studyId,
+        COMMA.join(unrelatedIds));
+
+    if (state == UNPUBLISHED) {
+      val suppressedIds =
+          currentStates.entrySet().stream()
+              .filter(e -> resolveAnalysisState(e.getValue()) == SUPPRESSED)
+              .map(Map.Entry::getKey)
+              .collect(toImmutableList());
+      checkServer(
+          suppressedIds.isEmpty(),
+          getClass(),
+          SUPPRESSED_STATE_TRANSITION,
+          "Cannot change the analysis state from '%s' to '%s' for the analysisIds: %s",
+          SUPPRESSED,
+          UNPUBLISHED,
+          COMMA.join(suppressedIds));
+    }
+
+    // History must be recorded before the update, since it captures the initial state
+    val now = LocalDateTime.now();
+    analysisStateTransitionRepository.insertStateChanges(ids, state, now);
+    analysisStateTransitionRepository.updateStates(ids, state, now);
+    return ImmutableList.copyOf(currentStates.keySet());
   }
 
   @Override
@@ -465,12 +534,9 @@ public class AnalysisServiceImpl implements AnalysisService {
 
   @Override
   public AnalysisStates readState(@NonNull String id) {
-    checkAnalysisExists(id);
-    return repository
-        .findById(id)
-        .map(Analysis::getAnalysisState)
-        .map(AnalysisStates::resolveAnalysisState)
-        .get();
+    val analysisState = repository.findAnalysisStateByAnalysisId(id);
+    validateAnalysisExistence(analysisState.isPresent(), id);
+    return resolveAnalysisState(analysisState.get());
   }
 
   // iterates list,
@@ -629,7 +695,10 @@ public class AnalysisServiceImpl implements AnalysisService {
     dataList.forEach(
         data -> {
           val analysisData =
-              AnalysisData.builder().id(data.getAnalysisDataId()).data(data.getData()).build();
+              AnalysisData.builder()
+                  .id(data.getAnalysisDataId())
+                  .rawData(data.getRawData())
+                  .build();
           if (!dataMap.containsKey(data.getAnalysisId())) {
             dataMap.put(data.getAnalysisId(), analysisData);
           } else {
@@ -653,15 +722,6 @@ public class AnalysisServiceImpl implements AnalysisService {
     return transformToMap(files, f -> storageService.downloadObject(f.getObjectId()));
   }
 
-  private void checkNotSuppressed(String id, String format, Object... args) {
-    checkServer(
-        resolveAnalysisState(shallowRead(id).getAnalysisState()) != SUPPRESSED,
-        getClass(),
-        SUPPRESSED_STATE_TRANSITION,
-        format,
-        args);
-  }
-
   private void checkMissingFiles(String analysisId, List<FileEntity> files) {
     val missingFileIds =
         files.stream().filter(f -> !confirmUploaded(f.getObjectId())).collect(toImmutableList());
@@ -691,30 +751,30 @@ public class AnalysisServiceImpl implements AnalysisService {
   }
 
   private List<String> saveFiles(String id, String studyId, List<FileEntity> files) {
-    return files.stream().map(f -> fileService.save(id, studyId, f)).collect(toImmutableList());
+    return fileService.save(id, studyId, files);
   }
 
-  private Analysis checkedUpdateState(String id, AnalysisStates analysisState) {
-    // Fetch Analysis
-    val analysis = unsecuredDeepRead(id);
-
-    // Create state history
-    val initialState = analysis.getAnalysisState();
-    val updatedState = analysisState.name();
-    val stateChange =
-        AnalysisStateChange.builder()
-            .analysis(analysis)
-            .initialState(initialState)
-            .updatedState(updatedState)
-            .updatedAt(LocalDateTime.now())
-            .build();
+  private void checkedUpdateState(String id, AnalysisStates analysisState) {
+    lockAnalysisState(id);
+    updateState(id, analysisState);
+  }
 
-    // Update analysis state and state history
-    analysis.setAnalysisState(updatedState);
-    analysis.getAnalysisStateHistory().add(stateChange);
-    repository.save(analysis);
+  /**
+   * Locks the analysis row and returns its current state. Only the analysis row is read, the
+   * analysis graph is not loaded.
+   */
+  private String lockAnalysisState(String id) {
+    val state = analysisStateTransitionRepository.lockAnalysisState(id);
+    validateAnalysisExistence(state.isPresent(), id);
+    return state.get();
+  }
 
-    return analysis;
+  /** Records the state history and updates the state of a previously locked analysis */
+  private void updateState(String id, AnalysisStates analysisState) {
+    val ids = List.of(id);
+    val now = LocalDateTime.now();
+    analysisStateTransitionRepository.insertStateChanges(ids, analysisState, now);
+    analysisStateTransitionRepository.updateStates(ids, analysisState, now);
   }
 
   private boolean confirmUploaded(String fileId) {
@@ -769,18 +829,35 @@ public class AnalysisServiceImpl implements AnalysisService {
       boolean fetchStateHistory) {
     val analysisResult =
         repository.findOne(
-            new AnalysisSpecificationBuilder(
-                    fetchAnalysisSchema, fetchAnalysisData, fetchStateHistory)
-                .buildById(id));
+            new AnalysisSpecificationBuilder(false, fetchAnalysisData, false).buildById(id));
 
     validateAnalysisExistence(analysisResult.isPresent(), id);
     val analysis = analysisResult.get();
+    if (fetchAnalysisSchema) {
+      initializeAnalysisSchema(analysis);
+    }
     if (fetchStateHistory) {
-      analysis.populatePublishTimes();
+      initializeAnalysisStateHistory(analysis);
     }
     return analysis;
   }
 
+  /**
+   * Schemas are few and large, so rather than being joined into every analysis read they are loaded
+   * by id, which is served from the second-level cache
+   */
+  private static void initializeAnalysisSchema(Analysis analysis) {
+    Hibernate.initialize(analysis.getAnalysisSchema());
+  }
+
+  /**
+   * The published times are stored on the analysis, so the history is only loaded to be returned
+   * with it, in a separate query rather than joined with the analysis data
+   */
+  private static void initializeAnalysisStateHistory(Analysis analysis) {
+    Hibernate.initialize(analysis.getAnalysisStateHistory());
+  }
+
   private static void checkMismatchingFileSizes(
       String analysisId, Map<FileEntity, StorageObject> fileStorageObjectMap) {
     val mismatchingFileSizes =
@@ -871,7 +948,7 @@ public class AnalysisServiceImpl implements AnalysisService {
     return input.stream().collect(toImmutableMap(x -> x, functionCallback));
   }
 
-  private static Set<String> resolveSelectedAnalysisStates(Set<String> analysisStates) {
+  static Set<String> resolveSelectedAnalysisStates(Set<String> analysisStates) {
     Set<String> finalStates = DEFAULT_ANALYSIS_STATES;
     if (!analysisStates.isEmpty()) {
       val errorSet = findIncorrectAnalysisStates(analysisStates);
@@ -892,7 +969,7 @@ public class AnalysisServiceImpl implements AnalysisService {
     return root;
   }
 
-  private JsonNode mergePatchRequest(JsonNode original, JsonNode patch){
+  private JsonNode mergePatchRequest(JsonNode original, JsonNode patch) {
     try {
       JsonMergePatch jsonMergePatch = JsonMergePatch.fromJson(patch);
       JsonNode updatedAnalysis = jsonMergePatch.apply(original);
@@ -900,10 +977,7 @@ public class AnalysisServiceImpl implements AnalysisService {
       return updatedAnalysis;
     } catch (JsonPatchException e) {
       log.error(e.getMessage());
-      throw buildServerException(
-              getClass(),
-              PAYLOAD_PARSING,
-              "Unable to read the input payload");
+      throw buildServerException(getClass(), PAYLOAD_PARSING, "Unable to read the input payload");
     }
   }
 }
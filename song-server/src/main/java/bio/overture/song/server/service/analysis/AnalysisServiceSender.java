@@ -14,11 +14,14 @@ import bio.overture.song.server.model.entity.FileEntity;
 import bio.overture.song.server.model.entity.composites.CompositeEntity;
 import bio.overture.song.server.repository.search.IdSearchRequest;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 import lombok.NonNull;
 import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
@@ -31,25 +34,30 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 @Primary
 public class AnalysisServiceSender implements AnalysisService {
 
+  private static final int MESSAGE_BATCH_SIZE = 100;
+
   private final String songServerId;
   private final Sender sender;
   private final AnalysisService internalAnalysisService;
+  private final ObjectProvider<AnalysisResponseCache> analysisResponseCache;
 
   @Autowired
   public AnalysisServiceSender(
       @Value("${song.id}") @NonNull String songServerId,
       @NonNull Sender sender,
-      @NonNull AnalysisService analysisServiceImpl) {
+      @NonNull AnalysisService analysisServiceImpl,
+      @NonNull ObjectProvider<AnalysisResponseCache> analysisResponseCache) {
     this.songServerId = songServerId;
     this.sender = sender;
     this.internalAnalysisService = analysisServiceImpl;
+    this.analysisResponseCache = analysisResponseCache;
   }
 
   /** Decorated methods */
   @Override
   @Transactional
-  public Analysis create(String studyId, Payload payload) {
-    val analysis = internalAnalysisService.create(studyId, payload);
+  public Analysis create(String studyId, Payload payload, String submitKey) {
+    val analysis = internalAnalysisService.create(studyId, payload, submitKey);
 
     // Current internalAnalysisService is instance of AnalysisServiceImpl which has
     // `create` as transactional. This means the analysis returned is from memory not
@@ -76,6 +84,7 @@ public class AnalysisServiceSender implements AnalysisService {
   @Override
   public Analysis publish(String studyId, String id, boolean ignoreUndefinedMd5) {
     val analysis = internalAnalysisService.publish(studyId, id, ignoreUndefinedMd5);
+    invalidateResponse(id);
     sendAnalysisMessage(analysis, PUBLISHED, PUBLISH);
     return analysis;
   }
@@ -83,6 +92,7 @@ public class AnalysisServiceSender implements AnalysisService {
   @Override
   public Analysis unpublish(String studyId, String id) {
     val analysis = internalAnalysisService.unpublish(studyId, id);
+    invalidateResponse(id);
     sendAnalysisMessage(analysis, UNPUBLISHED, UNPUBLISH);
     return analysis;
   }
@@ -90,14 +100,38 @@ public class AnalysisServiceSender implements AnalysisService {
   @Override
   public Analysis suppress(String studyId, String id) {
     val analysis = internalAnalysisService.suppress(studyId, id);
+    invalidateResponse(id);
     sendAnalysisMessage(analysis, SUPPRESSED, SUPPRESS);
     return analysis;
   }
 
+  @Override
+  @Transactional
+  public List<String> bulkUpdateState(
+      String studyId, Collection<String> analysisIds, AnalysisStates state) {
+    val updatedIds = internalAnalysisService.bulkUpdateState(studyId, analysisIds, state);
+    analysisResponseCache.ifAvailable(c -> c.invalidateAll(updatedIds));
+    val action = state == SUPPRESSED ? SUPPRESS : UNPUBLISH;
+
+    // The updates are set-based, so the messages are built from the committed analyses
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            public void afterCommit() {
+              sendAnalysisMessages(updatedIds, action);
+            }
+          });
+    } else {
+      sendAnalysisMessages(updatedIds, action);
+    }
+    return updatedIds;
+  }
+
   /** Delegated methods */
   @Override
   public Analysis updateAnalysis(String studyId, String analysisId, JsonNode updateAnalysisRequest) {
     Analysis analysis = internalAnalysisService.updateAnalysis(studyId, analysisId, updateAnalysisRequest);
+    invalidateResponse(analysisId);
     sendAnalysisMessage(analysis, PUBLISHED, PUBLISH);
     return analysis;
   }
@@ -105,6 +139,7 @@ public class AnalysisServiceSender implements AnalysisService {
   @Override
   public Analysis patchUpdateAnalysis(String studyId, String analysisId, JsonNode patchUpdateAnalysisRequest) {
     Analysis analysis = internalAnalysisService.patchUpdateAnalysis(studyId, analysisId, patchUpdateAnalysisRequest);
+    invalidateResponse(analysisId);
     sendAnalysisMessage(analysis, PUBLISHED, PUBLISH);
     return analysis;
   }
@@ -175,9 +210,25 @@ public class AnalysisServiceSender implements AnalysisService {
     return internalAnalysisService.securedDeepRead(studyId, id);
   }
 
+  /** Frees the cached response early. Other nodes see the new version of the analysis. */
+  private void invalidateResponse(String analysisId) {
+    analysisResponseCache.ifAvailable(c -> c.invalidate(analysisId));
+  }
+
   private void sendAnalysisMessage(
       Analysis analysis, AnalysisStates analysisState, AnalysisActions action) {
     val message = createAnalysisMessage(action, analysis, songServerId);
     sender.send(toJson(message), message.getAnalysisId());
   }
+
+  private void sendAnalysisMessages(List<String> analysisIds, AnalysisActions action) {
+    for (val batch : Lists.partition(analysisIds, MESSAGE_BATCH_SIZE)) {
+      val payloadsByKey = new LinkedHashMap<String, String>();
+      for (val analysis : internalAnalysisService.unsecuredDeepReads(batch)) {
+        val message = createAnalysisMessage(action, analysis, songServerId);
+        payloadsByKey.put(message.getAnalysisId(), toJson(message));
+      }
+      sender.sendAll(payloadsByKey);
+    }
+  }
 }
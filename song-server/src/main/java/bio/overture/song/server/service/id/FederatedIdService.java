@@ -3,6 +3,8 @@ package bio.overture.song.server.service.id;
 import static bio.overture.song.core.exceptions.ServerErrors.ID_SERVICE_ERROR;
 import static bio.overture.song.core.exceptions.ServerException.buildServerException;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import lombok.NonNull;
@@ -51,6 +53,12 @@ public class FederatedIdService implements IdService {
     return localIdService.getFileId(analysisId, fileName);
   }
 
+  @Override
+  public Map<String, String> getFileIds(
+      @NonNull String analysisId, @NonNull Collection<String> fileNames) {
+    return localIdService.getFileIds(analysisId, fileNames);
+  }
+
   /**
    * This method calls the callback function with the input url, and if successful (1xx/2xx/3xx
    * status code) returns the result, otherwise throws a ServerException
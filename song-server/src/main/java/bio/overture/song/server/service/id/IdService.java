@@ -17,6 +17,10 @@
 
 package bio.overture.song.server.service.id;
 
+import static java.util.stream.Collectors.toUnmodifiableMap;
+
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,6 +31,17 @@ public interface IdService {
 
   Optional<String> getFileId(String analysisId, String fileName);
 
+  /**
+   * Retrieves the objectIds of all the files of an analysis in one call, keyed by fileName. Files
+   * whose objectId is not found are left out.
+   */
+  default Map<String, String> getFileIds(String analysisId, Collection<String> fileNames) {
+    return fileNames.stream()
+        .distinct()
+        .flatMap(f -> getFileId(analysisId, f).map(id -> Map.entry(f, id)).stream())
+        .collect(toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
   Optional<String> getDonorId(String studyId, String submitterDonorId);
 
   Optional<String> getSpecimenId(String studyId, String submitterSpecimenId);
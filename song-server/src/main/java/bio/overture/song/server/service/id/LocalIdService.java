@@ -18,17 +18,29 @@
 package bio.overture.song.server.service.id;
 
 import static com.fasterxml.uuid.Generators.randomBasedGenerator;
+import static java.util.stream.Collectors.toUnmodifiableMap;
 
 import com.fasterxml.uuid.impl.NameBasedGenerator;
 import com.fasterxml.uuid.impl.RandomBasedGenerator;
 import com.google.common.base.Joiner;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 
 /**
  * Local implementation of the IdService, that does not require an external REST service for
  * registering canonical IDs. Uses the database for ID resolution.
+ *
+ * <p>Generators synchronize on their MessageDigest or SecureRandom, so every thread gets its own
+ * instances, and concurrent submissions never wait on each other for ids.
  */
 @Slf4j
 public class LocalIdService implements IdService {
@@ -36,18 +48,35 @@ public class LocalIdService implements IdService {
   /** Constants */
   private static final Joiner COLON = Joiner.on(":");
 
-  private static final RandomBasedGenerator RANDOM_UUID_GENERATOR = randomBasedGenerator();
+  private static final String RANDOM_ALGORITHM = "SHA1PRNG";
+  private static final String SEED_ALGORITHM = "NativePRNGNonBlocking";
+  private static final int SEED_BYTES = 32;
+
+  private static final ThreadLocal<RandomBasedGenerator> RANDOM_UUID_GENERATOR =
+      ThreadLocal.withInitial(LocalIdService::createRandomBasedGenerator);
 
   /** Dependencies */
-  private final NameBasedGenerator nameBasedGenerator;
+  private final ThreadLocal<NameBasedGenerator> nameBasedGenerator;
 
-  public LocalIdService(@NonNull NameBasedGenerator nameBasedGenerator) {
-    this.nameBasedGenerator = nameBasedGenerator;
+  public LocalIdService(@NonNull Supplier<NameBasedGenerator> nameBasedGeneratorFactory) {
+    this.nameBasedGenerator = ThreadLocal.withInitial(nameBasedGeneratorFactory);
   }
 
   @Override
   public String generateAnalysisId() {
-    return RANDOM_UUID_GENERATOR.generate().toString();
+    return RANDOM_UUID_GENERATOR.get().generate().toString();
+  }
+
+  @Override
+  public Map<String, String> getFileIds(
+      @NonNull String analysisId, @NonNull Collection<String> fileNames) {
+    val generator = nameBasedGenerator.get();
+    return fileNames.stream()
+        .distinct()
+        .collect(
+            toUnmodifiableMap(
+                Function.identity(),
+                f -> generator.generate(COLON.join(analysisId, f)).toString()));
   }
 
   @Override
@@ -72,6 +101,25 @@ public class LocalIdService implements IdService {
   }
 
   private Optional<String> generateId(String... keys) {
-    return Optional.of(nameBasedGenerator.generate(COLON.join(keys)).toString());
+    return Optional.of(nameBasedGenerator.get().generate(COLON.join(keys)).toString());
+  }
+
+  /**
+   * SHA1PRNG instances only lock themselves, unlike the default NativePRNG which shares one lock
+   * across the JVM. Each is seeded once from /dev/urandom where available, which never blocks.
+   */
+  @SneakyThrows
+  private static RandomBasedGenerator createRandomBasedGenerator() {
+    val random = SecureRandom.getInstance(RANDOM_ALGORITHM);
+    random.setSeed(createSeedSource().generateSeed(SEED_BYTES));
+    return randomBasedGenerator(random);
+  }
+
+  private static SecureRandom createSeedSource() {
+    try {
+      return SecureRandom.getInstance(SEED_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      return new SecureRandom();
+    }
   }
 }
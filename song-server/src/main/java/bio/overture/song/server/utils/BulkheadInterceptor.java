@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static bio.overture.song.core.exceptions.ServerErrors.SERVICE_UNAVAILABLE;
+import static bio.overture.song.core.exceptions.ServerException.buildServerException;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Caps the number of concurrent requests of one workload. A request waits up to {@code maxWait} for
+ * a permit and is then rejected with a 503, instead of waiting for a database connection that other
+ * workloads need. Keep {@code maxWait} short: waiting requests still hold a servlet thread.
+ *
+ * <p>Publishes the song.bulkhead.active and song.bulkhead.waiting gauges, the song.bulkhead.wait
+ * timer and the song.bulkhead.rejected counter, all tagged with the bulkhead name.
+ */
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  @Getter private final String name;
+  @Getter private final List<String> pathPatterns;
+  @Getter private final List<String> excludedPathPatterns;
+  private final boolean writesOnly;
+  private final int maxConcurrent;
+  private final long maxWaitNanos;
+  private final Semaphore permits;
+  private final String acquiredAttribute;
+  private final Timer waitTimer;
+  private final Counter rejectedCounter;
+
+  public BulkheadInterceptor(
+      @NonNull String name,
+      int maxConcurrent,
+      @NonNull Duration maxWait,
+      @NonNull List<String> pathPatterns,
+      @NonNull List<String> excludedPathPatterns,
+      boolean writesOnly,
+      @NonNull MeterRegistry meterRegistry) {
+    this.name = name;
+    this.pathPatterns = List.copyOf(pathPatterns);
+    this.excludedPathPatterns = List.copyOf(excludedPathPatterns);
+    this.writesOnly = writesOnly;
+    this.maxConcurrent = maxConcurrent;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.acquiredAttribute = BulkheadInterceptor.class.getName() + "." + name;
+    this.waitTimer =
+        Timer.builder("song.bulkhead.wait").tag("bulkhead", name).register(meterRegistry);
+    this.rejectedCounter =
+        Counter.builder("song.bulkhead.rejected").tag("bulkhead", name).register(meterRegistry);
+    Gauge.builder("song.bulkhead.active", permits, x -> maxConcurrent - x.availablePermits())
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder("song.bulkhead.waiting", permits, Semaphore::getQueueLength)
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws InterruptedException {
+    if (writesOnly && READ_METHODS.contains(request.getMethod())) {
+      return true;
+    }
+    val start = System.nanoTime();
+    val acquired = permits.tryAcquire(maxWaitNanos, NANOSECONDS);
+    waitTimer.record(System.nanoTime() - start, NANOSECONDS);
+    if (!acquired) {
+      rejectedCounter.increment();
+      throw buildServerException(
+          getClass(),
+          SERVICE_UNAVAILABLE,
+          "The '%s' workload is at its limit of %s concurrent requests. Please retry later",
+          name,
+          maxConcurrent);
+    }
+    request.setAttribute(acquiredAttribute, true);
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    if (request.getAttribute(acquiredAttribute) != null) {
+      request.removeAttribute(acquiredAttribute);
+      permits.release();
+    }
+  }
+}
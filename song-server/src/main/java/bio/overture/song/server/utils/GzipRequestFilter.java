@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static java.lang.String.format;
+import static java.util.Collections.enumeration;
+import static java.util.Collections.list;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decompresses request bodies sent with {@code Content-Encoding: gzip}, so controllers always read
+ * the plain body. Reading fails once the decompressed body exceeds the configured size, which
+ * guards against small requests that expand into very large bodies.
+ *
+ * <p>Non-blocking reads are delegated to the compressed stream of the container: the read listener
+ * is notified when compressed bytes arrive, and a read may block until enough of them arrived to
+ * inflate the next chunk. Requests dispatched after async processing started are left untouched,
+ * since their body was already wrapped, or read, by the initial dispatch.
+ */
+@RequiredArgsConstructor
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+  private static final String GZIP = "gzip";
+
+  private final long maxDecompressedBytes;
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!request.isAsyncStarted() && GZIP.equalsIgnoreCase(request.getHeader(CONTENT_ENCODING))) {
+      filterChain.doFilter(new GzipRequest(request, maxDecompressedBytes), response);
+    } else {
+      filterChain.doFilter(request, response);
+    }
+  }
+
+  private static class GzipRequest extends HttpServletRequestWrapper {
+
+    private final long maxDecompressedBytes;
+    private ServletInputStream inputStream;
+
+    GzipRequest(HttpServletRequest request, long maxDecompressedBytes) {
+      super(request);
+      this.maxDecompressedBytes = maxDecompressedBytes;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (inputStream == null) {
+        inputStream =
+            new DecompressedServletInputStream(super.getInputStream(), maxDecompressedBytes);
+      }
+      return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+      val encoding = getCharacterEncoding();
+      val charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public int getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return -1;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return isRemovedHeader(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      return isRemovedHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      return enumeration(
+          list(super.getHeaderNames()).stream()
+              .filter(name -> !isRemovedHeader(name))
+              .collect(toList()));
+    }
+
+    private static boolean isRemovedHeader(String name) {
+      return CONTENT_ENCODING.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class DecompressedServletInputStream extends ServletInputStream {
+
+    @NonNull private final ServletInputStream compressed;
+    private final long maxDecompressedBytes;
+    private InputStream body;
+    private boolean finished;
+
+    /** Created on the first read, since the gzip header is read when the inflater is created */
+    private InputStream body() throws IOException {
+      if (body == null) {
+        body = new LimitedInputStream(new GZIPInputStream(compressed), maxDecompressedBytes);
+      }
+      return body;
+    }
+
+    @Override
+    public int read() throws IOException {
+      val b = body().read();
+      finished = b < 0;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      val count = body().read(buffer, offset, length);
+      finished = count < 0;
+      return count;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return finished;
+    }
+
+    @Override
+    public boolean isReady() {
+      return finished || compressed.isReady();
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      compressed.setReadListener(readListener);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (body == null) {
+        compressed.close();
+      } else {
+        body.close();
+      }
+    }
+  }
+
+  private static class LimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+
+    LimitedInputStream(InputStream in, long maxBytes) {
+      super(in);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      val b = super.read();
+      if (b >= 0) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      val n = super.read(buffer, offset, length);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    private void count(int n) throws IOException {
+      count += n;
+      if (count > maxBytes) {
+        throw new IOException(
+            format("The decompressed request body exceeds the limit of %s bytes", maxBytes));
+      }
+    }
+  }
+}
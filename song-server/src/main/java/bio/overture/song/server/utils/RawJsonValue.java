@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static bio.overture.song.core.utils.JsonUtils.jsonReader;
+import static bio.overture.song.core.utils.JsonUtils.readTree;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * A JSON value kept as text, written to text generators as is instead of being parsed and
+ * re-serialized. Binary generators, and buffers used by {@code convertValue}, get the parsed value.
+ */
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class RawJsonValue implements JsonSerializable {
+
+  @NonNull private final String json;
+
+  /**
+   * Splits a JSON object into its top-level fields, without building a tree for the field values.
+   * The object is only tokenized, and each value is kept as its original text.
+   */
+  @SneakyThrows
+  public static Map<String, Object> splitFields(@NonNull String jsonObject) {
+    val fields = new LinkedHashMap<String, Object>();
+    try (val parser = jsonReader(JsonNode.class).createParser(jsonObject)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Expected a JSON object");
+      }
+      var token = parser.nextToken();
+      while (token == JsonToken.FIELD_NAME) {
+        val name = parser.getCurrentName();
+        parser.nextToken();
+        val start = (int) parser.getTokenLocation().getCharOffset();
+        parser.skipChildren();
+        token = parser.nextToken();
+        val end = (int) parser.getTokenLocation().getCharOffset();
+        fields.put(name, new RawJsonValue(trimSeparator(jsonObject.substring(start, end))));
+      }
+    }
+    return fields;
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    if (gen.canWriteBinaryNatively()) {
+      gen.writeTree(readTree(json));
+    } else {
+      gen.writeRawValue(json);
+    }
+  }
+
+  @Override
+  public void serializeWithType(
+      JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+      throws IOException {
+    serialize(gen, serializers);
+  }
+
+  @Override
+  public String toString() {
+    return json;
+  }
+
+  private static String trimSeparator(String value) {
+    val trimmed = value.trim();
+    return trimmed.endsWith(",") ? trimmed.substring(0, trimmed.length() - 1).trim() : trimmed;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static org.springframework.web.servlet.HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE;
+
+import bio.overture.song.server.repository.routing.ReadYourWritesTracker;
+import bio.overture.song.server.repository.routing.RoutingContext;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Routes reads of a study to the primary datasource for a short time after the study was modified,
+ * so that a client that submits and then reads an analysis sees its own write.
+ *
+ * <p>Writes are remembered by this server, and by the client in a cookie that expires after the
+ * window. Clients that keep cookies see their own writes from every server behind a load balancer.
+ * Other clients only see them from the server they wrote through, so without sticky sessions their
+ * reads may be served by a replica that has not replayed the write yet.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+  public static final String WRITE_COOKIE_PREFIX = "song-write-";
+  private static final String STUDY_ID = "studyId";
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  @NonNull private final ReadYourWritesTracker tracker;
+  @NonNull private final Duration window;
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    val studyId = getStudyId(request);
+    if (studyId == null) {
+      return true;
+    }
+    if (!isRead(request)) {
+      // Set before the response is committed, so the window starts when the write starts
+      addWriteCookie(response, studyId);
+    } else if (tracker.isRecentlyWritten(studyId) || hasWriteCookie(request, studyId)) {
+      RoutingContext.forcePrimary();
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    RoutingContext.clear();
+    val studyId = getStudyId(request);
+    if (studyId != null && !isRead(request)) {
+      tracker.markWritten(studyId);
+    }
+  }
+
+  private void addWriteCookie(HttpServletResponse response, String studyId) {
+    Cookie cookie;
+    try {
+      cookie = new Cookie(WRITE_COOKIE_PREFIX + studyId, "1");
+    } catch (IllegalArgumentException e) {
+      // Study ids that are not valid cookie names are only remembered by this server
+      return;
+    }
+    cookie.setPath("/");
+    cookie.setHttpOnly(true);
+    cookie.setMaxAge((int) Math.max(1, window.getSeconds()));
+    response.addCookie(cookie);
+  }
+
+  private static boolean hasWriteCookie(HttpServletRequest request, String studyId) {
+    val cookies = request.getCookies();
+    if (cookies == null) {
+      return false;
+    }
+    val name = WRITE_COOKIE_PREFIX + studyId;
+    return Arrays.stream(cookies).anyMatch(c -> name.equals(c.getName()));
+  }
+
+  private static boolean isRead(HttpServletRequest request) {
+    return READ_METHODS.contains(request.getMethod());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String getStudyId(HttpServletRequest request) {
+    val uriVariables = (Map<String, String>) request.getAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    return uriVariables == null ? null : uriVariables.get(STUDY_ID);
+  }
+}
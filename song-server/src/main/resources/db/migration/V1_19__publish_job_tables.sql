@@ -0,0 +1,24 @@
+------------------------------------------------------------------
+-- Create tables to persist asynchronous publish jobs and the
+-- per-analysis result of each job, so that jobs survive restarts
+------------------------------------------------------------------
+CREATE TABLE publish_job (
+  id                    VARCHAR(36) PRIMARY KEY,
+  study_id              VARCHAR(36) NOT NULL references Study,
+  state                 VARCHAR(32) NOT NULL,
+  ignore_undefined_md5  BOOLEAN NOT NULL DEFAULT FALSE,
+  created_at            TIMESTAMP NOT NULL DEFAULT NOW(),
+  updated_at            TIMESTAMP NOT NULL DEFAULT NOW()
+);
+CREATE INDEX publish_job_state_index ON public.publish_job (state);
+
+CREATE TABLE publish_job_result (
+  id            BIGSERIAL PRIMARY KEY,
+  job_id        VARCHAR(36) NOT NULL references publish_job ON DELETE CASCADE,
+  analysis_id   VARCHAR(36) NOT NULL references Analysis,
+  state         VARCHAR(32) NOT NULL,
+  errors        TEXT,
+  updated_at    TIMESTAMP NOT NULL DEFAULT NOW(),
+  UNIQUE (job_id, analysis_id)
+);
+CREATE INDEX publish_job_result_job_state_index ON public.publish_job_result (job_id, state);
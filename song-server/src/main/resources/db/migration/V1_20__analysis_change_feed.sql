@@ -0,0 +1,84 @@
+------------------------------------------------------------------
+-- Track the last change of every analysis so that clients can
+-- incrementally sync the analyses that changed since a cursor.
+--
+-- Changes are ordered by (change_txid, change_seq). Readers only
+-- return changes of transactions older than the oldest running
+-- transaction, so a change can never be committed behind a cursor
+-- that was already handed out.
+------------------------------------------------------------------
+CREATE SEQUENCE analysis_change_seq;
+
+CREATE TABLE analysis_change (
+  analysis_id   VARCHAR(36) PRIMARY KEY references Analysis ON DELETE CASCADE,
+  study_id      VARCHAR(36) NOT NULL,
+  change_txid   BIGINT NOT NULL,
+  change_seq    BIGINT NOT NULL,
+  changed_at    TIMESTAMP NOT NULL DEFAULT NOW()
+);
+CREATE INDEX analysis_change_study_cursor_index ON analysis_change (study_id, change_txid, change_seq);
+
+INSERT INTO analysis_change (analysis_id, study_id, change_txid, change_seq, changed_at)
+SELECT id, study_id, txid_current(), nextval('analysis_change_seq'), updated_at
+FROM (SELECT id, study_id, updated_at FROM analysis ORDER BY updated_at, id) AS ordered_analysis;
+
+create or replace function record_analysis_change(analysisId character varying, studyId character varying)
+returns void as
+$$
+	begin
+	INSERT INTO analysis_change (analysis_id, study_id, change_txid, change_seq, changed_at)
+	VALUES (analysisId, studyId, txid_current(), nextval('analysis_change_seq'), NOW())
+	ON CONFLICT (analysis_id) DO UPDATE
+	SET change_txid = EXCLUDED.change_txid,
+		change_seq = EXCLUDED.change_seq,
+		changed_at = EXCLUDED.changed_at;
+end;
+$$
+language plpgsql;
+
+create or replace function analysis_change_trigger()
+returns trigger as
+$$
+	begin
+	PERFORM record_analysis_change(NEW.id, NEW.study_id);
+	RETURN NULL;
+end;
+$$
+language plpgsql;
+
+create or replace function file_analysis_change_trigger()
+returns trigger as
+$$
+	begin
+	IF (TG_OP = 'DELETE') THEN
+		PERFORM record_analysis_change(OLD.analysis_id, OLD.study_id);
+	ELSE
+		PERFORM record_analysis_change(NEW.analysis_id, NEW.study_id);
+	END IF;
+	RETURN NULL;
+end;
+$$
+language plpgsql;
+
+create or replace function analysis_data_change_trigger()
+returns trigger as
+$$
+	begin
+	PERFORM record_analysis_change(analysis.id, analysis.study_id)
+	FROM analysis WHERE analysis.analysis_data_id = NEW.id;
+	RETURN NULL;
+end;
+$$
+language plpgsql;
+
+CREATE TRIGGER analysis_change_on_analysis
+AFTER INSERT OR UPDATE ON analysis
+FOR EACH ROW EXECUTE PROCEDURE analysis_change_trigger();
+
+CREATE TRIGGER analysis_change_on_file
+AFTER INSERT OR UPDATE OR DELETE ON file
+FOR EACH ROW EXECUTE PROCEDURE file_analysis_change_trigger();
+
+CREATE TRIGGER analysis_change_on_analysis_data
+AFTER UPDATE ON analysis_data
+FOR EACH ROW EXECUTE PROCEDURE analysis_data_change_trigger();
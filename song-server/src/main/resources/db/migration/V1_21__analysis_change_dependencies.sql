@@ -0,0 +1,79 @@
+------------------------------------------------------------------
+-- Also record an analysis change when the info of its files, or
+-- the samples, specimens and donors it references (or their info)
+-- change, since those are part of the analysis representation.
+-- This makes analysis_change.change_seq a complete version of an
+-- analysis, usable for ETags.
+------------------------------------------------------------------
+create or replace function record_analysis_changes_for_entity(entityType character varying, entityId character varying)
+returns void as
+$$
+	begin
+	IF entityType = 'File' THEN
+		PERFORM record_analysis_change(file.analysis_id, file.study_id)
+		FROM file WHERE file.id = entityId;
+	ELSIF entityType = 'Sample' THEN
+		PERFORM record_analysis_change(analysis.id, analysis.study_id)
+		FROM sampleset
+		JOIN analysis ON analysis.id = sampleset.analysis_id
+		WHERE sampleset.sample_id = entityId;
+	ELSIF entityType = 'Specimen' THEN
+		PERFORM record_analysis_change(analysis.id, analysis.study_id)
+		FROM sample
+		JOIN sampleset ON sampleset.sample_id = sample.id
+		JOIN analysis ON analysis.id = sampleset.analysis_id
+		WHERE sample.specimen_id = entityId;
+	ELSIF entityType = 'Donor' THEN
+		PERFORM record_analysis_change(analysis.id, analysis.study_id)
+		FROM specimen
+		JOIN sample ON sample.specimen_id = specimen.id
+		JOIN sampleset ON sampleset.sample_id = sample.id
+		JOIN analysis ON analysis.id = sampleset.analysis_id
+		WHERE specimen.donor_id = entityId;
+	END IF;
+end;
+$$
+language plpgsql;
+
+create or replace function info_analysis_change_trigger()
+returns trigger as
+$$
+	begin
+	IF (TG_OP = 'DELETE') THEN
+		PERFORM record_analysis_changes_for_entity(CAST(OLD.id_type AS VARCHAR), OLD.id);
+	ELSIF (TG_OP = 'INSERT' OR CAST(OLD.info AS TEXT) IS DISTINCT FROM CAST(NEW.info AS TEXT)) THEN
+		PERFORM record_analysis_changes_for_entity(CAST(NEW.id_type AS VARCHAR), NEW.id);
+	END IF;
+	RETURN NULL;
+end;
+$$
+language plpgsql;
+
+create or replace function entity_analysis_change_trigger()
+returns trigger as
+$$
+	begin
+	PERFORM record_analysis_changes_for_entity(TG_ARGV[0], NEW.id);
+	RETURN NULL;
+end;
+$$
+language plpgsql;
+
+CREATE TRIGGER analysis_change_on_info
+AFTER INSERT OR UPDATE OR DELETE ON info
+FOR EACH ROW EXECUTE PROCEDURE info_analysis_change_trigger();
+
+CREATE TRIGGER analysis_change_on_sample
+AFTER UPDATE ON sample
+FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*)
+EXECUTE PROCEDURE entity_analysis_change_trigger('Sample');
+
+CREATE TRIGGER analysis_change_on_specimen
+AFTER UPDATE ON specimen
+FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*)
+EXECUTE PROCEDURE entity_analysis_change_trigger('Specimen');
+
+CREATE TRIGGER analysis_change_on_donor
+AFTER UPDATE ON donor
+FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*)
+EXECUTE PROCEDURE entity_analysis_change_trigger('Donor');
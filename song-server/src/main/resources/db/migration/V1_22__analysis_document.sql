@@ -0,0 +1,20 @@
+------------------------------------------------------------------
+-- Optional materialized analysis documents. Each row holds the
+-- assembled JSON of an analysis as of the analysis_change.change_seq
+-- it was built from, so a document whose change_seq differs from
+-- the analysis_change row is stale and is not served.
+--
+-- Documents are rebuilt in the transaction that changes the
+-- analysis, which finds its changes by change_txid.
+------------------------------------------------------------------
+CREATE TABLE analysis_document (
+  analysis_id         VARCHAR(36) PRIMARY KEY references Analysis ON DELETE CASCADE,
+  study_id            VARCHAR(36) NOT NULL,
+  change_seq          BIGINT NOT NULL,
+  first_published_at  TIMESTAMP,
+  published_at        TIMESTAMP,
+  document            TEXT NOT NULL
+);
+CREATE INDEX analysis_document_study_index ON analysis_document (study_id);
+
+CREATE INDEX analysis_change_txid_index ON analysis_change (change_txid);
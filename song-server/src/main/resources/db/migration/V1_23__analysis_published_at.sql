@@ -0,0 +1,156 @@
+------------------------------------------------------------------
+-- Store the first and last time each analysis was published, so
+-- reads no longer compute them from the state history. Both are
+-- set by the state transition that publishes the analysis.
+--
+-- The backfill does not record analysis changes, since the
+-- published times were already part of the analysis.
+------------------------------------------------------------------
+ALTER TABLE analysis ADD COLUMN first_published_at TIMESTAMP;
+ALTER TABLE analysis ADD COLUMN published_at TIMESTAMP;
+
+ALTER TABLE analysis DISABLE TRIGGER analysis_change_on_analysis;
+UPDATE analysis
+SET first_published_at = published.first_published_at,
+    published_at = published.published_at
+FROM (SELECT analysis_id, MIN(updated_at) AS first_published_at, MAX(updated_at) AS published_at
+      FROM analysis_state_change
+      WHERE updated_state = 'PUBLISHED'
+      GROUP BY analysis_id) AS published
+WHERE analysis.id = published.analysis_id;
+ALTER TABLE analysis ENABLE TRIGGER analysis_change_on_analysis;
+
+CREATE INDEX analysis_study_published_at_index ON analysis (study_id, published_at);
+
+------------------------------------------------------------------
+-- The functions below selected every analysis column, which no
+-- longer matches their result type. They now list the columns.
+------------------------------------------------------------------
+create or replace function get_analysis(studyId character varying, analysisState analysis_state[], pageLimit integer, pageOffset integer)
+returns table (
+	-- Analysis table
+	id character varying, study_id character varying, type analysis_type, state analysis_state,
+	analysis_schema_id integer, analysis_data_id integer, created_at timestamp,updated_at timestamp,
+	-- File table
+	file_id character varying, file_analysis_id character varying, file_study_id character varying, name text,
+	size bigint, md5 character, access access_type, file_type file_type,
+	data_type character varying, info json,
+	-- Sampleset table
+	analysis_id character varying, sampleset_sample_id character varying,
+	-- Sample table
+	sample_id character varying,
+	sample_specimen_id character varying, sample_submitter_id text, legacy_sample_type legacy_sample_type,
+	sample_type sample_type, matched_normal_submitter_sample_id character varying,
+	-- Specimen table
+	specimen_id character varying, specimen_donor_id character varying, submitter_specimen_id text, specimen_class specimen_class,
+	legacy_specimen_type legacy_specimen_type, specimen_type specimen_type, tissue_source tissue_source_type, tumour_normal_designation tumour_normal_designation_type,
+	-- Donor table
+	donor_donor_id character varying, submitter_donor_id text, gender gender,
+	donor_study_id character varying,
+	-- info table
+	donor_info json,sample_info json, specimen_info json
+) as
+$$
+	begin
+         -- How this script works: analysis_file_join is the result of joining Analysis table with File table, and getting file info from Info table.
+		 -- take the result of analysis_file_join and join Sampleset, Sample, Specimen, and Donor table as well as the info columns.
+		 RETURN QUERY
+	     SELECT 			   analysis_file_sampleset_join.*,
+		 					   sample.id           				AS sample_id,
+							   sample.specimen_id  				AS sample_specimen_id,
+							   sample.submitter_id 				AS sample_submitter_id,
+							   sample.legacy_type  				AS legacy_sample_type,
+							   sample.type         				AS sample_type,
+							   sample.matched_normal_submitter_sample_id,
+							   specimen.id           AS specimen_id,
+							   specimen.donor_id     AS specimen_donor_id,
+							   specimen.submitter_id AS submitter_specimen_id,
+							   specimen.class        AS specimen_class,
+							   specimen.legacy_type  AS legacy_specimen_type,
+							   specimen.type         AS speciment_type,
+							   specimen.tissue_source,
+							   specimen.tumour_normal_designation,
+							   donor.id                				AS donor_donor_id,
+							   donor.submitter_id      				AS submitter_donor_id,
+							   donor.gender,
+						  	   donor.study_id          				AS donor_study_id,
+							   donor_info.info                 		AS donor_info,
+						   	   sample_info.info                 	AS sample_info,
+							   specimen_info.info               	AS specimen_info
+
+        FROM SAMPLE
+        INNER JOIN (SELECT  analysis_file_join.*,
+                            sampleset.analysis_id,
+                            sampleset.sample_id      			AS sampleset_sample_id
+                    FROM sampleset
+                    INNER JOIN (
+                        SELECT * FROM (
+                            SELECT analysis.id, analysis.study_id, analysis.type, analysis.state, analysis.analysis_schema_id,
+                                   analysis.analysis_data_id, analysis.created_at, analysis.updated_at
+                            FROM analysis WHERE analysis.study_id = studyId AND analysis.state = ANY(analysisState)
+                            ORDER BY analysis.id ASC
+                            LIMIT pageLimit
+                            OFFSET pageOffset
+                        ) AS filtered_analysis
+                        JOIN (   SELECT       filtered_file.id          AS file_id,
+                                              filtered_file.analysis_id AS file_analysis_id,
+                                              filtered_file.study_id    AS file_study_id,
+                                              filtered_file.name,
+                                              filtered_file.size,
+                                              filtered_file.md5,
+                                              filtered_file.access,
+                                              filtered_file.type       AS file_type,
+                                              filtered_file.data_type,
+                                              info.info
+                                      FROM (SELECT * FROM file WHERE file.study_id = studyId ) AS filtered_file
+                                      JOIN info ON filtered_file.id = info.id AND info.id_type = 'File')
+                                      AS file_info
+                        ON filtered_analysis.id = file_info.file_analysis_id
+                    ) AS analysis_file_join
+                    ON analysis_file_join.id = sampleset.analysis_id )
+                    AS analysis_file_sampleset_join
+                    ON analysis_file_sampleset_join.sampleset_sample_id = sample.id
+        LEFT JOIN info sample_info ON analysis_file_sampleset_join.sampleset_sample_id = sample_info.id AND sample_info.id_type = 'Sample'
+        INNER JOIN specimen ON specimen.id = sample.specimen_id
+        LEFT JOIN info AS specimen_info ON specimen_info.id = specimen.id AND specimen_info.id_type = 'Specimen'
+        INNER JOIN donor ON donor.id = specimen.donor_id
+        LEFT JOIN info AS donor_info ON  donor_info.id = donor.id AND donor_info.id_type = 'Donor'
+        ORDER BY analysis_file_sampleset_join.analysis_id ASC ;
+
+end;
+$$
+language plpgsql;
+
+create or replace function get_analysis_state_change(studyId character varying, analysisState analysis_state[], pageLimit integer, pageOffset integer )
+returns table (
+	id character varying, study_id character varying, type analysis_type, state analysis_state,
+	analysis_schema_id integer, analysis_data_id integer, created_at timestamp,updated_at timestamp,
+	analysis_state_change_id bigint, analysis_id character varying, initial_state analysis_state,
+	updated_state analysis_state, state_updated_at timestamp
+) as
+$$
+	begin
+	return query
+
+	SELECT *
+	FROM    ( SELECT analysis.id, analysis.study_id, analysis.type, analysis.state, analysis.analysis_schema_id,
+					 analysis.analysis_data_id, analysis.created_at, analysis.updated_at
+			 FROM analysis
+     		 WHERE analysis.study_id = studyId AND analysis.state =  ANY(analysisState)
+		     ORDER BY analysis.id  ASC
+			 LIMIT pageLimit
+		     OFFSET pageOffset) AS filtered_analysis
+	LEFT JOIN ( SELECT
+					analysis_state_change.id               AS analysis_state_change_id,
+					analysis_state_change.analysis_id,
+					analysis_state_change.initial_state,
+					analysis_state_change.updated_state,
+					analysis_state_change.updated_at       AS state_updated_at
+		        FROM analysis_state_change
+				ORDER BY analysis_state_change.analysis_id ASC ) AS history
+	ON filtered_analysis.id = history.analysis_id;
+
+end;
+
+$$
+language plpgsql;
@@ -0,0 +1,10 @@
+------------------------------------------------------------------
+-- Fingerprint of the submit that created an analysis, either a
+-- hash of the client Idempotency-Key or of the canonical payload.
+-- A repeated submit to the same study finds the original analysis
+-- with one index lookup, and concurrent retries cannot both
+-- create an analysis.
+------------------------------------------------------------------
+ALTER TABLE analysis ADD COLUMN submit_key VARCHAR(64);
+
+CREATE UNIQUE INDEX analysis_submit_key_index ON analysis (study_id, submit_key) WHERE submit_key IS NOT NULL;
@@ -0,0 +1,13 @@
+------------------------------------------------------------------
+-- Publish jobs are leased by the server that runs them, so that
+-- with several servers each RUNNING job is resumed by only one
+------------------------------------------------------------------
+ALTER TABLE publish_job ADD COLUMN owner VARCHAR(64);
+ALTER TABLE publish_job ADD COLUMN lease_until TIMESTAMP;
+CREATE INDEX publish_job_state_lease_index ON public.publish_job (state, lease_until);
+
+------------------------------------------------------------------
+-- Allocate result ids in blocks of 50, so that the results of a
+-- job are inserted in batches instead of one statement per row
+------------------------------------------------------------------
+ALTER SEQUENCE publish_job_result_id_seq INCREMENT BY 50;
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.config;
+
+import static bio.overture.song.server.model.enums.CacheRegions.ANALYSIS_SCHEMA;
+import static bio.overture.song.server.model.enums.CacheRegions.STUDY;
+import static bio.overture.song.server.model.enums.CacheRegions.STUDY_INFO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import bio.overture.song.server.properties.SecondLevelCacheProperties;
+import com.google.common.collect.ImmutableSet;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import lombok.val;
+import org.junit.Test;
+
+public class SecondLevelCacheConfigTest {
+
+  @Test
+  public void testRegionsAreCreatedWithConfiguredHeapSizes() {
+    val properties = new SecondLevelCacheProperties();
+    properties.getStudy().setHeapEntries(2);
+
+    try (val cacheManager = new SecondLevelCacheConfig().jCacheManager(properties)) {
+      assertEquals(
+          ImmutableSet.of(ANALYSIS_SCHEMA, STUDY, STUDY_INFO),
+          ImmutableSet.copyOf(cacheManager.getCacheNames()));
+
+      val studyCache = cacheManager.getCache(STUDY);
+      IntStream.range(0, 10).forEach(i -> studyCache.put("ABC" + i, i));
+      val size = StreamSupport.stream(studyCache.spliterator(), false).count();
+      assertTrue(size <= 2);
+    }
+  }
+}
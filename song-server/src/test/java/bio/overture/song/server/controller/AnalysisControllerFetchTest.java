@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.controller;
+
+import static bio.overture.song.core.utils.JsonUtils.APPLICATION_SMILE_VALUE;
+import static bio.overture.song.core.utils.JsonUtils.readTree;
+import static bio.overture.song.core.utils.JsonUtils.smileMapper;
+import static bio.overture.song.core.utils.RandomGenerator.createRandomGenerator;
+import static bio.overture.song.server.utils.generator.AnalysisGenerator.createAnalysisGenerator;
+import static bio.overture.song.server.utils.generator.StudyGenerator.createStudyGenerator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.service.StudyService;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Reads analyses through the controllers without a test transaction. Open-session-in-view is
+ * disabled, so responses are serialized after the service transaction has closed its session, and
+ * any association the service did not fetch fails with a LazyInitializationException.
+ */
+@ActiveProfiles({"test"})
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AnalysisControllerFetchTest {
+
+  private static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+  @Autowired private WebApplicationContext webApplicationContext;
+  @Autowired private StudyService studyService;
+  @Autowired private AnalysisService analysisService;
+
+  private MockMvc mockMvc;
+  private String studyId;
+  private Analysis analysis;
+
+  @Before
+  public void beforeEachTest() {
+    this.mockMvc = webAppContextSetup(webApplicationContext).build();
+    val randomGenerator = createRandomGenerator(getClass().getSimpleName());
+    this.studyId = createStudyGenerator(studyService, randomGenerator).createRandomStudy();
+    this.analysis =
+        createAnalysisGenerator(studyId, analysisService, randomGenerator)
+            .createDefaultRandomVariantCallAnalysis();
+    assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+  }
+
+  @Test
+  public void testReadSerializesFetchedAssociations() {
+    val path = "/studies/" + studyId + "/analysis/" + analysis.getAnalysisId();
+    assertFetched(readJson(path));
+    assertFetched(readSmile(path));
+  }
+
+  @Test
+  public void testListsSerializeFetchedAssociations() {
+    val path = "/studies/" + studyId + "/analysis?analysisStates=UNPUBLISHED";
+    assertFetched(findAnalysis(readJson(path)));
+    assertFetched(findAnalysis(readSmile(path)));
+    assertFetched(
+        findAnalysis(readJson(path.replace("analysis?", "analysis/paginated?")).path("analyses")));
+    assertFetched(
+        findAnalysis(
+            readJson(
+                "/studies/"
+                    + studyId
+                    + "/analysis/search/id?fileId="
+                    + analysis.getFiles().get(0).getObjectId())));
+  }
+
+  @Test
+  public void testReadFilesSerializesFetchedFiles() {
+    val files =
+        readJson("/studies/" + studyId + "/analysis/" + analysis.getAnalysisId() + "/files");
+    assertEquals(analysis.getFiles().size(), files.size());
+    files.forEach(x -> assertEquals(analysis.getAnalysisId(), x.path("analysisId").textValue()));
+  }
+
+  private void assertFetched(JsonNode actual) {
+    assertEquals(analysis.getAnalysisId(), actual.path("analysisId").textValue());
+    assertTrue(actual.path("experiment").isObject());
+    assertEquals(analysis.getFiles().size(), actual.path("files").size());
+    assertEquals(analysis.getSamples().size(), actual.path("samples").size());
+    actual
+        .path("samples")
+        .forEach(
+            x -> {
+              assertTrue(x.path("specimen").isObject());
+              assertTrue(x.path("donor").isObject());
+            });
+  }
+
+  private JsonNode findAnalysis(JsonNode analyses) {
+    for (val x : analyses) {
+      if (analysis.getAnalysisId().equals(x.path("analysisId").textValue())) {
+        return x;
+      }
+    }
+    throw new AssertionError("Analysis " + analysis.getAnalysisId() + " was not returned");
+  }
+
+  @SneakyThrows
+  private JsonNode readJson(String path) {
+    val response =
+        mockMvc
+            .perform(get(path).accept(APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse();
+    return readTree(response.getContentAsString());
+  }
+
+  @SneakyThrows
+  private JsonNode readSmile(String path) {
+    val response =
+        mockMvc
+            .perform(get(path).accept(APPLICATION_SMILE))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse();
+    return smileMapper().readTree(response.getContentAsByteArray());
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.repository.routing;
+
+import static bio.overture.song.server.repository.routing.ReadWriteRoutingDataSource.PRIMARY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReadWriteRoutingDataSourceTest {
+
+  private static final String LAG_QUERY = "SELECT 0";
+
+  @After
+  public void afterTest() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    RoutingContext.clear();
+  }
+
+  @Test
+  public void testRouting() {
+    val monitor =
+        newMonitor(Map.of("replica-0", replicaWithLag(0), "replica-1", replicaWithLag(100)));
+    val routing = new ReadWriteRoutingDataSource(mock(DataSource.class), monitor);
+
+    // Writes always go to the primary
+    assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+
+    // Read-only transactions are balanced across the healthy replicas
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    assertEquals("replica-0", routing.determineCurrentLookupKey());
+    assertEquals("replica-1", routing.determineCurrentLookupKey());
+    assertEquals("replica-0", routing.determineCurrentLookupKey());
+
+    // Read-your-writes forces the primary
+    RoutingContext.forcePrimary();
+    assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+  }
+
+  @Test
+  @SneakyThrows
+  public void testLaggingReplicasFallBackToPrimary() {
+    val failing = mock(DataSource.class);
+    when(failing.getConnection()).thenThrow(new SQLException("connection refused"));
+    val monitor = newMonitor(Map.of("replica-0", replicaWithLag(60_000), "replica-1", failing));
+    assertEquals(List.of(), monitor.getHealthyReplicas());
+
+    val routing = new ReadWriteRoutingDataSource(mock(DataSource.class), monitor);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+  }
+
+  @Test
+  public void testReadYourWritesTracker() {
+    val now = Instant.parse("2020-01-01T00:00:00Z");
+    val tracker =
+        new ReadYourWritesTracker(Duration.ofSeconds(30), Clock.fixed(now, ZoneOffset.UTC));
+    assertFalse(tracker.isRecentlyWritten("ABC123"));
+    tracker.markWritten("ABC123");
+    assertTrue(tracker.isRecentlyWritten("ABC123"));
+    assertFalse(tracker.isRecentlyWritten("XYZ234"));
+
+    val later =
+        new ReadYourWritesTracker(
+            Duration.ofSeconds(30), Clock.fixed(now.plusSeconds(31), ZoneOffset.UTC));
+    assertFalse(later.isRecentlyWritten("ABC123"));
+  }
+
+  private static ReplicaLagMonitor newMonitor(Map<String, DataSource> replicas) {
+    val monitor =
+        new ReplicaLagMonitor(replicas, LAG_QUERY, Duration.ofSeconds(5), Duration.ofHours(1));
+    monitor.checkLag();
+    return monitor;
+  }
+
+  @SneakyThrows
+  private static DataSource replicaWithLag(double lagMillis) {
+    val resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getDouble(1)).thenReturn(lagMillis);
+    val statement = mock(Statement.class);
+    when(statement.executeQuery(anyString())).thenReturn(resultSet);
+    val connection = mock(Connection.class);
+    when(connection.createStatement()).thenReturn(statement);
+    val dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    return dataSource;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static bio.overture.song.core.exceptions.ServerErrors.MALFORMED_PARAMETER;
+import static bio.overture.song.core.testing.SongErrorAssertions.assertSongError;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import bio.overture.song.server.model.analysis.AnalysisChange;
+import bio.overture.song.server.model.analysis.AnalysisChangeCursor;
+import bio.overture.song.server.model.analysis.AnalysisChangeLag;
+import bio.overture.song.server.repository.AnalysisChangeRepository;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AnalysisChangeServiceTest {
+
+  private static final String STUDY_ID = "ABC123";
+  private static final AnalysisChangeLag NO_LAG =
+      AnalysisChangeLag.builder().pendingTransactions(0).build();
+
+  @Mock private AnalysisChangeRepository analysisChangeRepository;
+  @Mock private AnalysisService analysisService;
+  @Mock private StudyService studyService;
+
+  private AnalysisChangeService service;
+
+  @Before
+  public void beforeTest() {
+    service =
+        new AnalysisChangeService(
+            analysisChangeRepository, analysisService, studyService, Duration.ofMinutes(5));
+  }
+
+  @Test
+  public void testPageWithMoreChanges() {
+    val since = new AnalysisChangeCursor(10, 3);
+    when(analysisChangeRepository.getAnalysisChanges(STUDY_ID, since, 3))
+        .thenReturn(createChanges(11, 3));
+    when(analysisChangeRepository.getAnalysisChangeLag(STUDY_ID)).thenReturn(NO_LAG);
+
+    val response = service.getAnalysisChanges(STUDY_ID, "10.3", 2, false);
+    assertTrue(response.isHasMore());
+    assertEquals(2, response.getChanges().size());
+    assertEquals("12.0", response.getNextCursor());
+  }
+
+  @Test
+  public void testLastPageKeepsCursor() {
+    when(analysisChangeRepository.getAnalysisChanges(
+            eq(STUDY_ID), eq(AnalysisChangeCursor.START), eq(101)))
+        .thenReturn(List.of());
+    when(analysisChangeRepository.getAnalysisChangeLag(STUDY_ID)).thenReturn(NO_LAG);
+
+    val response = service.getAnalysisChanges(STUDY_ID, null, 100, false);
+    assertFalse(response.isHasMore());
+    assertTrue(response.getChanges().isEmpty());
+    assertEquals(AnalysisChangeCursor.START.toString(), response.getNextCursor());
+  }
+
+  @Test
+  public void testLagIsReturned() {
+    val lag = AnalysisChangeLag.builder().pendingTransactions(42).withheldSeconds(3600L).build();
+    when(analysisChangeRepository.getAnalysisChanges(
+            eq(STUDY_ID), eq(AnalysisChangeCursor.START), eq(101)))
+        .thenReturn(List.of());
+    when(analysisChangeRepository.getAnalysisChangeLag(STUDY_ID)).thenReturn(lag);
+
+    val response = service.getAnalysisChanges(STUDY_ID, null, 100, false);
+    assertTrue(response.getChanges().isEmpty());
+    assertEquals(lag, response.getLag());
+  }
+
+  @Test
+  public void testMalformedParameters() {
+    assertSongError(
+        () -> service.getAnalysisChanges(STUDY_ID, "not-a-cursor", 10, false), MALFORMED_PARAMETER);
+    assertSongError(
+        () -> service.getAnalysisChanges(STUDY_ID, "1.-2", 10, false), MALFORMED_PARAMETER);
+    assertSongError(
+        () -> service.getAnalysisChanges(STUDY_ID, null, 0, false), MALFORMED_PARAMETER);
+    assertSongError(
+        () ->
+            service.getAnalysisChanges(STUDY_ID, null, AnalysisChangeService.MAX_LIMIT + 1, false),
+        MALFORMED_PARAMETER);
+  }
+
+  private static List<AnalysisChange> createChanges(long firstTxid, int count) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                AnalysisChange.builder()
+                    .analysisId("AN" + i)
+                    .analysisState("PUBLISHED")
+                    .changedAt(LocalDateTime.now())
+                    .cursor(new AnalysisChangeCursor(firstTxid + i, 0).toString())
+                    .build())
+        .collect(toList());
+  }
+}
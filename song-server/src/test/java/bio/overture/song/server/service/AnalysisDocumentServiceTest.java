@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.analysis.AnalysisData;
+import bio.overture.song.server.model.analysis.AnalysisDocument;
+import bio.overture.song.server.model.entity.AnalysisSchema;
+import bio.overture.song.server.repository.AnalysisDocumentRepository;
+import bio.overture.song.server.service.analysis.AnalysisDocumentService;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AnalysisDocumentServiceTest {
+
+  private static final String STUDY_ID = "ABC123";
+  private static final int BATCH_SIZE = 2;
+
+  @Mock private AnalysisService analysisService;
+  @Mock private AnalysisDocumentRepository analysisDocumentRepository;
+  @Mock private EntityManager entityManager;
+  @Mock private TransactionTemplate transactionTemplate;
+
+  private AnalysisDocumentService analysisDocumentService;
+
+  @Before
+  public void beforeTest() {
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(analysisService.unsecuredDeepReads(anyCollection()))
+        .thenAnswer(
+            i ->
+                i.<Collection<String>>getArgument(0).stream()
+                    .map(AnalysisDocumentServiceTest::buildAnalysis)
+                    .collect(Collectors.toList()));
+    analysisDocumentService =
+        new AnalysisDocumentService(
+            analysisService,
+            analysisDocumentRepository,
+            new ObjectMapper().writerFor(Analysis.class),
+            entityManager,
+            transactionTemplate,
+            MoreExecutors.newDirectExecutorService(),
+            BATCH_SIZE);
+  }
+
+  @Test
+  public void testChangedAnalysesRebuiltInBatchesAfterCommit() {
+    when(analysisDocumentRepository.findChangedInCurrentTransaction())
+        .thenReturn(List.of("AN1", "AN2", "AN3"));
+    when(analysisDocumentRepository.findChangeSeqs(List.of("AN1", "AN2")))
+        .thenReturn(Map.of("AN1", 11L, "AN2", 12L));
+    when(analysisDocumentRepository.findChangeSeqs(List.of("AN3"))).thenReturn(Map.of("AN3", 13L));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      analysisDocumentService.rebuildChangedAnalysesAfterCommit();
+      verify(entityManager).flush();
+
+      // Nothing is read until the transaction has committed
+      verify(analysisService, never()).unsecuredDeepReads(anyCollection());
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    verify(analysisService, times(2)).unsecuredDeepReads(anyCollection());
+    val saved = captureSaved(3);
+    assertEquals(Map.of("AN1", 11L, "AN2", 12L, "AN3", 13L), saved);
+  }
+
+  @Test
+  public void testBackfillRebuildsStaleAnalysesInBatches() {
+    when(analysisDocumentRepository.tryLockBackfill()).thenReturn(true);
+    when(analysisDocumentRepository.findStale(BATCH_SIZE))
+        .thenReturn(Map.of("AN1", 1L, "AN2", 2L), Map.of("AN3", 3L));
+
+    analysisDocumentService.rebuildStaleAnalysesInBackground();
+
+    assertEquals(Map.of("AN1", 1L, "AN2", 2L, "AN3", 3L), captureSaved(3));
+  }
+
+  @Test
+  public void testBackfillLeftToLockHolder() {
+    when(analysisDocumentRepository.tryLockBackfill()).thenReturn(false);
+
+    analysisDocumentService.rebuildStaleAnalysesInBackground();
+
+    verify(analysisDocumentRepository, never()).findStale(anyInt());
+    verify(analysisDocumentRepository, never()).save(any());
+  }
+
+  private Map<String, Long> captureSaved(int numDocuments) {
+    val captor = ArgumentCaptor.forClass(AnalysisDocument.class);
+    verify(analysisDocumentRepository, times(numDocuments)).save(captor.capture());
+    captor.getAllValues().forEach(x -> assertEquals(STUDY_ID, x.getStudyId()));
+    return captor.getAllValues().stream()
+        .collect(Collectors.toMap(AnalysisDocument::getAnalysisId, AnalysisDocument::getChangeSeq));
+  }
+
+  private static Analysis buildAnalysis(String analysisId) {
+    val analysis = new Analysis();
+    analysis.setAnalysisId(analysisId);
+    analysis.setStudyId(STUDY_ID);
+    analysis.setAnalysisState("UNPUBLISHED");
+    analysis.setAnalysisSchema(AnalysisSchema.builder().name("variantCall").version(1).build());
+    analysis.setAnalysisData(AnalysisData.builder().rawData("{\"experiment\":{}}").build());
+    return analysis;
+  }
+}
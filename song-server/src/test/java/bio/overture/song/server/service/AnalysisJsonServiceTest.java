@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static bio.overture.song.core.model.enums.AnalysisStates.PUBLISHED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.analysis.AnalysisData;
+import bio.overture.song.server.model.analysis.AnalysisDocument;
+import bio.overture.song.server.model.entity.AnalysisSchema;
+import bio.overture.song.server.service.analysis.AnalysisDocumentService;
+import bio.overture.song.server.service.analysis.AnalysisJsonService;
+import bio.overture.song.server.service.analysis.AnalysisResponseCache;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AnalysisJsonServiceTest {
+
+  private static final String STUDY_ID = "ABC123";
+  private static final String ANALYSIS_ID = "AN1";
+  private static final String DOCUMENT = "{\"analysisId\":\"AN1\"}";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Mock private AnalysisService analysisService;
+  @Mock private StudyService studyService;
+  @Mock private ObjectProvider<AnalysisResponseCache> analysisResponseCache;
+  @Mock private ObjectProvider<AnalysisDocumentService> analysisDocumentService;
+  @Mock private AnalysisDocumentService documents;
+
+  private AnalysisJsonService analysisJsonService;
+
+  @Before
+  public void beforeTest() {
+    analysisJsonService =
+        new AnalysisJsonService(
+            analysisService,
+            studyService,
+            objectMapper,
+            analysisResponseCache,
+            analysisDocumentService);
+  }
+
+  @Test
+  public void testReadWithoutDocumentsSerializesAnalysis() throws Exception {
+    val analysis = buildAnalysis();
+    when(analysisService.securedDeepRead(STUDY_ID, ANALYSIS_ID)).thenReturn(analysis);
+
+    val json = analysisJsonService.read(STUDY_ID, ANALYSIS_ID, "v1");
+    assertArrayEquals(objectMapper.writerFor(Analysis.class).writeValueAsBytes(analysis), json);
+    assertFalse(analysisJsonService.readAll(STUDY_ID, ImmutableSet.of()).isPresent());
+  }
+
+  @Test
+  public void testReadUsesCurrentDocument() {
+    when(analysisDocumentService.getIfAvailable()).thenReturn(documents);
+    when(documents.find(STUDY_ID, ANALYSIS_ID))
+        .thenReturn(
+            Optional.of(
+                AnalysisDocument.builder()
+                    .analysisId(ANALYSIS_ID)
+                    .studyId(STUDY_ID)
+                    .analysisState(PUBLISHED.name())
+                    .changeSeq(1)
+                    .document(DOCUMENT)
+                    .build()));
+
+    assertArrayEquals(
+        DOCUMENT.getBytes(UTF_8), analysisJsonService.read(STUDY_ID, ANALYSIS_ID, "v1"));
+    verify(analysisService, never()).securedDeepRead(anyString(), anyString());
+  }
+
+  @Test
+  public void testReadFallsBackWhenDocumentIsStale() {
+    when(analysisDocumentService.getIfAvailable()).thenReturn(documents);
+    when(documents.find(STUDY_ID, ANALYSIS_ID)).thenReturn(Optional.empty());
+    when(analysisService.securedDeepRead(STUDY_ID, ANALYSIS_ID)).thenReturn(buildAnalysis());
+
+    analysisJsonService.read(STUDY_ID, ANALYSIS_ID, "v1");
+    verify(analysisService).securedDeepRead(STUDY_ID, ANALYSIS_ID);
+  }
+
+  @Test
+  public void testReadAllJoinsDocuments() {
+    when(analysisDocumentService.getIfAvailable()).thenReturn(documents);
+    when(documents.findAll(STUDY_ID, ImmutableSet.of(PUBLISHED.name())))
+        .thenReturn(Optional.of(ImmutableList.of(DOCUMENT, DOCUMENT)));
+
+    val json = analysisJsonService.readAll(STUDY_ID, ImmutableSet.of());
+    assertEquals("[" + DOCUMENT + "," + DOCUMENT + "]", new String(json.get(), UTF_8));
+    verify(studyService).checkStudyExist(STUDY_ID);
+  }
+
+  private static Analysis buildAnalysis() {
+    val analysis = new Analysis();
+    analysis.setAnalysisId(ANALYSIS_ID);
+    analysis.setStudyId(STUDY_ID);
+    analysis.setAnalysisState(PUBLISHED.name());
+    analysis.setAnalysisSchema(AnalysisSchema.builder().name("variantCall").version(1).build());
+    analysis.setAnalysisData(AnalysisData.builder().rawData("{\"experiment\":{}}").build());
+    return analysis;
+  }
+}
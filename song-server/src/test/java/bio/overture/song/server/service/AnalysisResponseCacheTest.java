@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static bio.overture.song.core.model.enums.AnalysisStates.PUBLISHED;
+import static bio.overture.song.core.model.enums.AnalysisStates.UNPUBLISHED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import bio.overture.song.core.model.enums.AnalysisStates;
+import bio.overture.song.server.service.analysis.AnalysisJson;
+import bio.overture.song.server.service.analysis.AnalysisResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.val;
+import org.junit.Test;
+
+public class AnalysisResponseCacheTest {
+
+  private static final String ANALYSIS_ID = "AN1";
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AnalysisResponseCache cache = new AnalysisResponseCache(1024 * 1024, registry);
+  private final AtomicInteger reads = new AtomicInteger();
+
+  @Test
+  public void testPublishedAnalysisIsCachedPerVersion() {
+    val first = cache.get(ANALYSIS_ID, "v1", reader(PUBLISHED));
+    val second = cache.get(ANALYSIS_ID, "v1", reader(PUBLISHED));
+    assertArrayEquals(first, second);
+    assertEquals(1, reads.get());
+    assertTrue(cache.getBytes() >= first.length);
+
+    cache.get(ANALYSIS_ID, "v2", reader(PUBLISHED));
+    assertEquals(2, reads.get());
+    assertEquals(1.0 / 3, cache.getHitRatio(), 0.0001);
+    assertEquals(
+        1.0,
+        registry
+            .get("song.analysis.response.cache.requests")
+            .tag("result", "hit")
+            .counter()
+            .count(),
+        0);
+  }
+
+  @Test
+  public void testUnpublishedAndInvalidatedAnalysesAreRead() {
+    cache.get(ANALYSIS_ID, "v1", reader(UNPUBLISHED));
+    cache.get(ANALYSIS_ID, "v1", reader(UNPUBLISHED));
+    assertEquals(2, reads.get());
+
+    cache.get(ANALYSIS_ID, "v2", reader(PUBLISHED));
+    cache.invalidate(ANALYSIS_ID);
+    cache.get(ANALYSIS_ID, "v2", reader(PUBLISHED));
+    assertEquals(4, reads.get());
+  }
+
+  private Supplier<AnalysisJson> reader(AnalysisStates state) {
+    return () -> {
+      reads.incrementAndGet();
+      val json = "{\"analysisId\":\"" + ANALYSIS_ID + "\",\"analysisState\":\"" + state + "\"}";
+      return new AnalysisJson(state.name(), json.getBytes(UTF_8));
+    };
+  }
+}
@@ -1,6 +1,7 @@
 package bio.overture.song.server.service;
 
 import static bio.overture.song.core.model.enums.AnalysisActions.*;
+import static bio.overture.song.core.model.enums.AnalysisStates.SUPPRESSED;
 import static bio.overture.song.core.model.enums.AnalysisStates.UNPUBLISHED;
 import static bio.overture.song.core.utils.JsonUtils.toJson;
 import static bio.overture.song.core.utils.RandomGenerator.createRandomGenerator;
@@ -17,10 +18,12 @@ import bio.overture.song.server.model.analysis.Analysis;
 import bio.overture.song.server.model.analysis.AnalysisData;
 import bio.overture.song.server.model.dto.Payload;
 import bio.overture.song.server.model.entity.AnalysisSchema;
+import bio.overture.song.server.service.analysis.AnalysisResponseCache;
 import bio.overture.song.server.service.analysis.AnalysisService;
 import bio.overture.song.server.service.analysis.AnalysisServiceSender;
 import bio.overture.song.server.utils.generator.AnalysisGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -31,6 +34,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 
 @Slf4j
@@ -44,6 +48,7 @@ public class AnalysisServiceSenderTest {
   private static final ResponseEntity<String> DUMMY_RESPONSE = ResponseEntity.ok("some text");
 
   @Mock private AnalysisService internalAnalysisService;
+  @Mock private ObjectProvider<AnalysisResponseCache> analysisResponseCache;
 
   /** State */
   private String studyId;
@@ -79,7 +84,7 @@ public class AnalysisServiceSenderTest {
 
   @Test
   public void testAnalysisCreate() {
-    when(internalAnalysisService.create(studyId, DUMMY_PAYLOAD)).thenReturn(analysis);
+    when(internalAnalysisService.create(studyId, DUMMY_PAYLOAD, null)).thenReturn(analysis);
     val analysisServiceSender = createTestAnalysisServiceSender(CREATE);
     val actualAnalysis = analysisServiceSender.create(studyId, DUMMY_PAYLOAD);
     assertEquals(analysisId, actualAnalysis.getAnalysisId());
@@ -109,9 +114,21 @@ public class AnalysisServiceSenderTest {
     assertEquals(analysis, response);
   }
 
+  @Test
+  public void testAnalysisBulkSuppressed() {
+    val analysisIds = List.of(analysisId);
+    when(internalAnalysisService.bulkUpdateState(studyId, analysisIds, SUPPRESSED))
+        .thenReturn(analysisIds);
+    when(internalAnalysisService.unsecuredDeepReads(analysisIds)).thenReturn(List.of(analysis));
+    val analysisServiceSender = createTestAnalysisServiceSender(SUPPRESS);
+    val response = analysisServiceSender.bulkUpdateState(studyId, analysisIds, SUPPRESSED);
+    assertEquals(analysisIds, response);
+  }
+
   private AnalysisServiceSender createTestAnalysisServiceSender(AnalysisActions action) {
     val sender = createTestSender(action);
-    return new AnalysisServiceSender(SONG_ID, sender, internalAnalysisService);
+    return new AnalysisServiceSender(
+        SONG_ID, sender, internalAnalysisService, analysisResponseCache);
   }
 
   private TestSender createTestSender(AnalysisActions action) {
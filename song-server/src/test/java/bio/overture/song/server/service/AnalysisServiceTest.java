@@ -19,6 +19,7 @@ package bio.overture.song.server.service;
 import static bio.overture.song.core.exceptions.ServerErrors.ANALYSIS_ID_NOT_FOUND;
 import static bio.overture.song.core.exceptions.ServerErrors.ANALYSIS_MISSING_FILES;
 import static bio.overture.song.core.exceptions.ServerErrors.ANALYSIS_MISSING_SAMPLES;
+import static bio.overture.song.core.exceptions.ServerErrors.ENTITY_NOT_RELATED_TO_STUDY;
 import static bio.overture.song.core.exceptions.ServerErrors.MALFORMED_PARAMETER;
 import static bio.overture.song.core.exceptions.ServerErrors.STUDY_ID_DOES_NOT_EXIST;
 import static bio.overture.song.core.exceptions.ServerErrors.SUPPRESSED_STATE_TRANSITION;
@@ -78,6 +79,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -1159,6 +1161,143 @@ public class AnalysisServiceTest {
     assertTrue(stateHistory[2].getUpdatedAt().isBefore(stateHistory[3].getUpdatedAt()));
   }
 
+  @Test
+  public void testUnpublishReturnsUnpublishedAnalysis() {
+    val published = createSRAnalysisWithState(analysisGenerator, PUBLISHED);
+
+    val unpublished = service.unpublish(published.getStudyId(), published.getAnalysisId());
+    assertEquals(UNPUBLISHED.name(), unpublished.getAnalysisState());
+    assertSameContent(published, unpublished);
+    // Unpublishing keeps the time of the last publish
+    assertEquals(published.getPublishedAt(), unpublished.getPublishedAt());
+    assertEquals(2, unpublished.getAnalysisStateHistory().size());
+    assertEquals(unpublished, service.unsecuredDeepRead(published.getAnalysisId()));
+  }
+
+  @Test
+  public void testSuppressReturnsSuppressedAnalysis() {
+    val created = analysisGenerator.createDefaultRandomSequencingReadAnalysis();
+
+    val suppressed = service.suppress(created.getStudyId(), created.getAnalysisId());
+    assertEquals(SUPPRESSED.name(), suppressed.getAnalysisState());
+    assertSameContent(created, suppressed);
+    assertEquals(1, suppressed.getAnalysisStateHistory().size());
+    assertEquals(suppressed, service.unsecuredDeepRead(created.getAnalysisId()));
+  }
+
+  @Test
+  public void testIllegalStateTransitions() {
+    val suppressed = createSRAnalysisWithState(analysisGenerator, SUPPRESSED);
+    val studyId = suppressed.getStudyId();
+    val analysisId = suppressed.getAnalysisId();
+
+    assertSongError(() -> service.unpublish(studyId, analysisId), SUPPRESSED_STATE_TRANSITION);
+    val reloaded = service.unsecuredDeepRead(analysisId);
+    assertEquals(SUPPRESSED.name(), reloaded.getAnalysisState());
+    assertEquals(1, reloaded.getAnalysisStateHistory().size());
+
+    val nonExistentAnalysisId = analysisGenerator.generateNonExistingAnalysisId();
+    assertSongError(
+        () -> service.unpublish(DEFAULT_STUDY_ID, nonExistentAnalysisId), ANALYSIS_ID_NOT_FOUND);
+    assertSongError(
+        () -> service.suppress(DEFAULT_STUDY_ID, nonExistentAnalysisId), ANALYSIS_ID_NOT_FOUND);
+    assertSongError(
+        () -> service.publish(DEFAULT_STUDY_ID, nonExistentAnalysisId, false),
+        ANALYSIS_ID_NOT_FOUND);
+  }
+
+  @Test
+  public void testBulkSuppressRecordsStateChangeHistory() {
+    val unpublished = analysisGenerator.createDefaultRandomSequencingReadAnalysis();
+    val published = createSRAnalysisWithState(analysisGenerator, PUBLISHED);
+    val suppressed = createSRAnalysisWithState(analysisGenerator, SUPPRESSED);
+    val ids =
+        List.of(unpublished.getAnalysisId(), published.getAnalysisId(), suppressed.getAnalysisId());
+
+    val updatedIds = service.bulkUpdateState(DEFAULT_STUDY_ID, ids, SUPPRESSED);
+    assertCollectionsMatchExactly(Set.copyOf(updatedIds), Set.copyOf(ids));
+
+    assertBulkTransition(unpublished, UNPUBLISHED, SUPPRESSED);
+    assertBulkTransition(published, PUBLISHED, SUPPRESSED);
+    // Already SUPPRESSED analyses still get a history record, like single transitions do
+    assertBulkTransition(suppressed, SUPPRESSED, SUPPRESSED);
+  }
+
+  @Test
+  public void testBulkUnpublishRejectsSuppressedAnalyses() {
+    val published = createSRAnalysisWithState(analysisGenerator, PUBLISHED);
+    val suppressed = createSRAnalysisWithState(analysisGenerator, SUPPRESSED);
+    val ids = List.of(published.getAnalysisId(), suppressed.getAnalysisId());
+
+    assertSongError(
+        () -> service.bulkUpdateState(DEFAULT_STUDY_ID, ids, UNPUBLISHED),
+        SUPPRESSED_STATE_TRANSITION);
+
+    // Nothing is transitioned when any of the analyses cannot be
+    val reloaded = service.unsecuredDeepRead(published.getAnalysisId());
+    assertEquals(PUBLISHED.name(), reloaded.getAnalysisState());
+    assertEquals(1, reloaded.getAnalysisStateHistory().size());
+  }
+
+  @Test
+  public void testBulkUpdateStateOfAnalysesFromAnotherStudy() {
+    val otherStudyId = studyGenerator.createRandomStudy();
+    val otherAnalysisGenerator = createAnalysisGenerator(otherStudyId, service, randomGenerator);
+    val other = otherAnalysisGenerator.createDefaultRandomSequencingReadAnalysis();
+    val own = analysisGenerator.createDefaultRandomSequencingReadAnalysis();
+
+    assertSongError(
+        () ->
+            service.bulkUpdateState(
+                DEFAULT_STUDY_ID, List.of(own.getAnalysisId(), other.getAnalysisId()), SUPPRESSED),
+        ENTITY_NOT_RELATED_TO_STUDY);
+    assertEquals(
+        UNPUBLISHED.name(), service.unsecuredDeepRead(own.getAnalysisId()).getAnalysisState());
+    assertEquals(
+        UNPUBLISHED.name(), service.unsecuredDeepRead(other.getAnalysisId()).getAnalysisState());
+  }
+
+  @Test
+  public void testBulkUpdateStateWithQuotedIds() {
+    val own = analysisGenerator.createDefaultRandomSequencingReadAnalysis();
+    assertSongError(
+        () ->
+            service.bulkUpdateState(
+                DEFAULT_STUDY_ID,
+                List.of(own.getAnalysisId(), "an\"id", "an\\id", "{an,id}"),
+                SUPPRESSED),
+        ENTITY_NOT_RELATED_TO_STUDY);
+  }
+
+  @Test
+  public void testBulkPublishIsRejected() {
+    val own = analysisGenerator.createDefaultRandomSequencingReadAnalysis();
+    assertSongError(
+        () -> service.bulkUpdateState(DEFAULT_STUDY_ID, List.of(own.getAnalysisId()), PUBLISHED),
+        MALFORMED_PARAMETER);
+  }
+
+  private static void assertSameContent(Analysis expected, Analysis actual) {
+    assertEquals(expected.getAnalysisId(), actual.getAnalysisId());
+    assertEquals(expected.getStudyId(), actual.getStudyId());
+    assertEquals(expected.getAnalysisSchema().getName(), actual.getAnalysisSchema().getName());
+    assertEquals(expected.getAnalysisData().getData(), actual.getAnalysisData().getData());
+    assertCollectionsMatchExactly(newHashSet(expected.getFiles()), newHashSet(actual.getFiles()));
+    assertCollectionsMatchExactly(
+        newHashSet(expected.getSamples()), newHashSet(actual.getSamples()));
+  }
+
+  private void assertBulkTransition(
+      Analysis before, AnalysisStates initialState, AnalysisStates updatedState) {
+    val reloaded = service.unsecuredDeepRead(before.getAnalysisId());
+    assertEquals(updatedState.name(), reloaded.getAnalysisState());
+    val history = new ArrayList<>(reloaded.getAnalysisStateHistory());
+    val last = history.get(history.size() - 1);
+    assertEquals(initialState.name(), last.getInitialState());
+    assertEquals(updatedState.name(), last.getUpdatedState());
+    assertEquals(last.getUpdatedAt(), reloaded.getUpdatedAt());
+  }
+
   private void runUnpublishStateTest(LegacyAnalysisTypeName legacyAnalysisTypeName) {
     val a = analysisGenerator.createDefaultRandomAnalysis(legacyAnalysisTypeName);
     val analysisId = a.getAnalysisId();
@@ -1248,6 +1387,6 @@ public class AnalysisServiceTest {
     val rightSamples = newHashSet(r.getSamples());
     assertCollectionsMatchExactly(leftSamples, rightSamples);
 
-    assertEquals(l.getAnalysisData(), r.getAnalysisData());
+    assertFunctionEqual(l, r, x -> x.getAnalysisData().getId());
   }
 }
@@ -19,6 +19,7 @@ package bio.overture.song.server.service;
 import static bio.overture.song.core.exceptions.ServerErrors.DONOR_ALREADY_EXISTS;
 import static bio.overture.song.core.exceptions.ServerErrors.DONOR_DOES_NOT_EXIST;
 import static bio.overture.song.core.exceptions.ServerErrors.DONOR_ID_IS_CORRUPTED;
+import static bio.overture.song.core.exceptions.ServerErrors.MISMATCHING_DONOR_DATA;
 import static bio.overture.song.core.exceptions.ServerErrors.STUDY_ID_DOES_NOT_EXIST;
 import static bio.overture.song.core.utils.RandomGenerator.createRandomGenerator;
 import static bio.overture.song.server.utils.TestConstants.DEFAULT_DONOR_ID;
@@ -28,6 +29,7 @@ import static bio.overture.song.server.utils.TestFiles.getInfoName;
 import static bio.overture.song.server.utils.generator.StudyGenerator.createStudyGenerator;
 import static bio.overture.song.server.utils.securestudy.impl.SecureDonorTester.createSecureDonorTester;
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toSet;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
@@ -36,6 +38,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import bio.overture.song.core.testing.SongErrorAssertions;
 import bio.overture.song.core.utils.JsonUtils;
@@ -43,6 +49,7 @@ import bio.overture.song.core.utils.RandomGenerator;
 import bio.overture.song.server.model.entity.Donor;
 import bio.overture.song.server.model.entity.Specimen;
 import bio.overture.song.server.model.entity.composites.DonorWithSpecimens;
+import bio.overture.song.server.repository.DonorRepository;
 import bio.overture.song.server.service.id.IdService;
 import bio.overture.song.server.utils.securestudy.impl.SecureDonorTester;
 import com.google.common.collect.Sets;
@@ -56,6 +63,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @Slf4j
 @SpringBootTest
@@ -67,6 +76,7 @@ public class DonorServiceTest {
   @Autowired SpecimenService specimenService;
   @Autowired IdService idService;
   @Autowired StudyService studyService;
+  @Autowired DonorRepository donorRepository;
 
   private final RandomGenerator randomGenerator =
       createRandomGenerator(DonorServiceTest.class.getSimpleName());
@@ -181,6 +191,55 @@ public class DonorServiceTest {
     assertTrue(service.isDonorExist(donorId));
   }
 
+  @Test
+  public void testSaveExisting() {
+    val submitterDonorId = randomGenerator.generateRandomUUIDAsString();
+    val donorId = service.save(DEFAULT_STUDY_ID, buildDonor(submitterDonorId, "Male"));
+
+    // A matching donor resolves to the existing donor, without creating another one
+    assertEquals(service.save(DEFAULT_STUDY_ID, buildDonor(submitterDonorId, "Male")), donorId);
+    assertEquals(
+        donorRepository
+            .findAllByStudyIdAndSubmitterDonorId(DEFAULT_STUDY_ID, submitterDonorId)
+            .size(),
+        1);
+
+    // A mismatching donor is rejected, and the existing donor is left as is
+    SongErrorAssertions.assertSongError(
+        () -> service.save(DEFAULT_STUDY_ID, buildDonor(submitterDonorId, "Female")),
+        MISMATCHING_DONOR_DATA);
+    assertEquals(service.unsecuredRead(donorId).getGender(), "Male");
+  }
+
+  @Test
+  public void testSaveCreatedSinceLookup() {
+    val submitterDonorId = randomGenerator.generateRandomUUIDAsString();
+    val donorId = service.save(DEFAULT_STUDY_ID, buildDonor(submitterDonorId, "Male"));
+
+    // Hide the donor from the lookup, as if a concurrent submission created it after the lookup,
+    // so that the insert finds the row already exists
+    val target = (DonorService) AopTestUtils.getUltimateTargetObject(service);
+    val staleRepository = mock(DonorRepository.class, delegatesTo(donorRepository));
+    doReturn(emptyList())
+        .when(staleRepository)
+        .findAllByStudyIdAndSubmitterDonorId(anyString(), anyString());
+    ReflectionTestUtils.setField(target, "donorRepository", staleRepository);
+    try {
+      assertEquals(service.save(DEFAULT_STUDY_ID, buildDonor(submitterDonorId, "Male")), donorId);
+      SongErrorAssertions.assertSongError(
+          () -> service.save(DEFAULT_STUDY_ID, buildDonor(submitterDonorId, "Female")),
+          MISMATCHING_DONOR_DATA);
+    } finally {
+      ReflectionTestUtils.setField(target, "donorRepository", donorRepository);
+    }
+    assertEquals(service.unsecuredRead(donorId).getGender(), "Male");
+    assertEquals(
+        donorRepository
+            .findAllByStudyIdAndSubmitterDonorId(DEFAULT_STUDY_ID, submitterDonorId)
+            .size(),
+        1);
+  }
+
   @Test
   public void testSaveStudyDNE() {
     val studyId = DEFAULT_STUDY_ID;
@@ -371,4 +430,13 @@ public class DonorServiceTest {
         .gender("Male")
         .build();
   }
+
+  private Donor buildDonor(String submitterDonorId, String gender) {
+    return Donor.builder()
+        .donorId(null)
+        .submitterDonorId(submitterDonorId)
+        .studyId(DEFAULT_STUDY_ID)
+        .gender(gender)
+        .build();
+  }
 }
@@ -38,6 +38,7 @@ import bio.overture.song.core.utils.JsonUtils;
 import bio.overture.song.core.utils.RandomGenerator;
 import bio.overture.song.server.model.entity.FileEntity;
 import bio.overture.song.server.service.analysis.AnalysisService;
+import bio.overture.song.server.service.id.IdService;
 import javax.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -56,6 +57,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 public class FileServiceTest {
 
   @Autowired FileService fileService;
+  @Autowired IdService idService;
   @Autowired StudyService studyService;
   @Autowired AnalysisService analysisService;
 
@@ -145,6 +147,26 @@ public class FileServiceTest {
     assertEquals(updatedFile, actualFile);
   }
 
+  @Test
+  public void testSaveFiles() {
+    val analysisId = DEFAULT_ANALYSIS_ID;
+    val studyId = DEFAULT_STUDY_ID;
+    analysisService.checkAnalysisExists(analysisId);
+
+    val existingFile = createRandomFile(studyId, analysisId);
+    val existingFileId = fileService.save(analysisId, studyId, existingFile);
+    val updatedFile = fileService.securedRead(studyId, existingFileId);
+    updatedFile.setFileSize(1010101L);
+    val newFile = createRandomFile(studyId, analysisId);
+
+    val fileIds = fileService.save(analysisId, studyId, newArrayList(updatedFile, newFile));
+    assertEquals(fileIds.size(), 2);
+    assertEquals(fileIds.get(0), existingFileId);
+    assertEquals(fileIds.get(1), idService.getFileId(analysisId, newFile.getFileName()).get());
+    assertEquals(fileService.securedRead(studyId, fileIds.get(0)), updatedFile);
+    assertEquals(fileService.securedRead(studyId, fileIds.get(1)), newFile);
+  }
+
   @Test
   public void testSaveFileAsTgz() {
     val analysisId = DEFAULT_ANALYSIS_ID;
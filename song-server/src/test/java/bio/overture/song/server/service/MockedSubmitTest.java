@@ -29,8 +29,11 @@ import static bio.overture.song.core.utils.Responses.OK;
 import static bio.overture.song.server.utils.generator.LegacyAnalysisTypeName.VARIANT_CALL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import bio.overture.song.core.model.AnalysisTypeId;
@@ -41,6 +44,8 @@ import bio.overture.song.server.model.dto.Payload;
 import bio.overture.song.server.model.entity.Donor;
 import bio.overture.song.server.model.entity.Specimen;
 import bio.overture.song.server.model.entity.composites.CompositeEntity;
+import bio.overture.song.server.properties.SubmitProperties;
+import bio.overture.song.server.repository.AnalysisRepository;
 import bio.overture.song.server.repository.UploadRepository;
 import bio.overture.song.server.service.analysis.AnalysisService;
 import bio.overture.song.server.service.id.IdService;
@@ -50,6 +55,7 @@ import java.util.Optional;
 import lombok.val;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -67,6 +73,8 @@ public class MockedSubmitTest {
   @Mock private SampleService sampleService;
   @Mock private SpecimenService specimenService;
   @Mock private DonorService donorService;
+  @Mock private AnalysisRepository analysisRepository;
+  @Mock private SubmitProperties submitProperties;
 
   /** DUT */
   @InjectMocks private SubmitService submitService;
@@ -109,7 +117,7 @@ public class MockedSubmitTest {
     assertSongError(
         () -> submitService.submit("anyStudy", "anyAnalysisId"), STUDY_ID_DOES_NOT_EXIST);
     verify(validationService, never()).validate(isA(JsonNode.class));
-    verify(analysisService, never()).create(anyString(), isA(Payload.class));
+    verify(analysisService, never()).create(anyString(), isA(Payload.class), any());
   }
 
   @Test
@@ -120,7 +128,7 @@ public class MockedSubmitTest {
     // Verify
     assertSongError(() -> submitService.submit("anyStudy", "non json format"), PAYLOAD_PARSING);
     verify(validationService, never()).validate(isA(JsonNode.class));
-    verify(analysisService, never()).create(anyString(), isA(Payload.class));
+    verify(analysisService, never()).create(anyString(), isA(Payload.class), any());
   }
 
   @Test
@@ -143,7 +151,7 @@ public class MockedSubmitTest {
     // Verify
     assertSongError(() -> submitService.submit(studyId, invalidPayload), SCHEMA_VIOLATION);
     verify(validationService, times(1)).validate(isA(JsonNode.class));
-    verify(analysisService, never()).create(anyString(), isA(Payload.class));
+    verify(analysisService, never()).create(anyString(), isA(Payload.class), any());
   }
 
   @Test
@@ -165,7 +173,7 @@ public class MockedSubmitTest {
     assertNotEquals(study1, study2);
     assertSongError(() -> submitService.submit(study2, payloadString), STUDY_ID_MISMATCH);
     verify(validationService, times(1)).validate(isA(JsonNode.class));
-    verify(analysisService, never()).create(anyString(), isA(Payload.class));
+    verify(analysisService, never()).create(anyString(), isA(Payload.class), any());
   }
 
   @Test
@@ -190,7 +198,7 @@ public class MockedSubmitTest {
     when(validationService.validate(isA(JsonNode.class))).thenReturn(Optional.empty());
 
     val payloadString = toJson(payload);
-    when(analysisService.create(study, payload))
+    when(analysisService.create(study, payload, null))
         .thenReturn(Analysis.builder().analysisId(analysisId).build());
     val expectedSubmitResponse = SubmitResponse.builder().analysisId(analysisId).status(OK).build();
 
@@ -198,6 +206,44 @@ public class MockedSubmitTest {
     val actualSubmitResponse = submitService.submit(study, payloadString);
     assertEquals(expectedSubmitResponse, actualSubmitResponse);
     verify(validationService, times(1)).validate(isA(JsonNode.class));
-    verify(analysisService, times(1)).create(anyString(), isA(Payload.class));
+    verify(analysisService, times(1)).create(anyString(), isA(Payload.class), isNull());
+  }
+
+  @Test
+  public void submit_repeatedIdempotencyKey_OriginalResponse() {
+    // Setup
+    val study = "study1";
+    val analysisId = "analysis123";
+    doNothing().when(studyService).checkStudyExist(anyString());
+    when(analysisRepository.findAnalysisIdByStudyIdAndSubmitKey(eq(study), anyString()))
+        .thenReturn(Optional.of(analysisId));
+    val expectedSubmitResponse = SubmitResponse.builder().analysisId(analysisId).status(OK).build();
+
+    // Verify
+    val actualSubmitResponse = submitService.submit(study, "anyPayload", "key1");
+    assertEquals(expectedSubmitResponse, actualSubmitResponse);
+    verify(validationService, never()).validate(isA(JsonNode.class));
+    verify(analysisService, never()).create(anyString(), isA(Payload.class), any());
+  }
+
+  @Test
+  public void submit_fingerprintPayloads_FieldOrderIgnored() {
+    // Setup
+    val study = "study1";
+    doNothing().when(studyService).checkStudyExist(anyString());
+    when(submitProperties.isFingerprintPayloads()).thenReturn(true);
+    val submitKeys = ArgumentCaptor.forClass(String.class);
+
+    // Verify
+    assertSongError(
+        () -> submitService.submit(study, "{\"a\":1,\"b\":[1,2]}"), MALFORMED_PARAMETER);
+    assertSongError(
+        () -> submitService.submit(study, "{\"b\":[1,2],\"a\":1}"), MALFORMED_PARAMETER);
+    assertSongError(
+        () -> submitService.submit(study, "{\"a\":1,\"b\":[2,1]}"), MALFORMED_PARAMETER);
+    verify(analysisRepository, times(3))
+        .findAnalysisIdByStudyIdAndSubmitKey(eq(study), submitKeys.capture());
+    assertEquals(submitKeys.getAllValues().get(0), submitKeys.getAllValues().get(1));
+    assertNotEquals(submitKeys.getAllValues().get(0), submitKeys.getAllValues().get(2));
   }
 }
@@ -36,8 +36,12 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Sets.newHashSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -51,13 +55,20 @@ import bio.overture.song.server.converter.FileConverter;
 import bio.overture.song.server.model.StorageObject;
 import bio.overture.song.server.model.analysis.Analysis;
 import bio.overture.song.server.model.entity.FileEntity;
+import bio.overture.song.server.model.entity.Sample;
+import bio.overture.song.server.repository.AnalysisRepository;
 import bio.overture.song.server.service.analysis.AnalysisServiceImpl;
 import bio.overture.song.server.utils.generator.LegacyAnalysisTypeName;
 import com.google.common.collect.ImmutableList;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import lombok.Builder;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -67,6 +78,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -82,6 +94,8 @@ public class PublishAnalysisTest {
   private static final int MAX_FILES = 1 << 4;
   private static final int MIN_SIZE = 1 << 3;
   private static final List<FileEntity> EMPTY_FILE_LIST = ImmutableList.of();
+  private static final String PUBLISHED_AT_MIGRATION =
+      "db/migration/V1_23__analysis_published_at.sql";
 
   @Autowired private AnalysisServiceImpl service;
 
@@ -89,6 +103,10 @@ public class PublishAnalysisTest {
 
   @Autowired private StudyService studyService;
 
+  @Autowired private AnalysisRepository analysisRepository;
+
+  @Autowired private EntityManager entityManager;
+
   private RandomGenerator randomGenerator;
 
   /** State */
@@ -250,6 +268,135 @@ public class PublishAnalysisTest {
     assertAllPublishErrors(MISSING_STORAGE_OBJECTS);
   }
 
+  @Test
+  public void testPublishReturnsPublishedAnalysis() {
+    setupTest(ALL, NONE, NONE, NONE);
+    val published = service.publish(testStudyId, testAnalysisId, false);
+
+    assertEquals(testAnalysisId, published.getAnalysisId());
+    assertEquals(PUBLISHED.name(), published.getAnalysisState());
+    assertNotNull(published.getPublishedAt());
+    assertEquals(published.getPublishedAt(), published.getFirstPublishedAt());
+    assertEquals(objectIds(testFiles), objectIds(published.getFiles()));
+    assertEquals(sampleIds(testAnalysis), sampleIds(published));
+    assertEquals(testAnalysis.getAnalysisData().getData(), published.getAnalysisData().getData());
+
+    val history = List.copyOf(published.getAnalysisStateHistory());
+    assertEquals(1, history.size());
+    assertEquals(UNPUBLISHED.name(), history.get(0).getInitialState());
+    assertEquals(PUBLISHED.name(), history.get(0).getUpdatedState());
+    assertEquals(published, service.unsecuredDeepRead(testAnalysisId));
+  }
+
+  @Test
+  public void testFailedPublishRecordsNoHistory() {
+    setupTest(SOME, NONE, NONE, NONE);
+    assertAllPublishErrors(MISSING_STORAGE_OBJECTS);
+    val analysis = service.unsecuredDeepRead(testAnalysisId);
+    assertTrue(analysis.getAnalysisStateHistory().isEmpty());
+    assertNull(analysis.getPublishedAt());
+  }
+
+  @Test
+  public void testRepublishKeepsFirstPublishedAt() {
+    setupTest(ALL, NONE, NONE, NONE);
+    val first = service.publish(testStudyId, testAnalysisId, false);
+    service.unpublish(testStudyId, testAnalysisId);
+    val unpublished = service.unsecuredDeepRead(testAnalysisId);
+    assertEquals(first.getFirstPublishedAt(), unpublished.getFirstPublishedAt());
+    assertEquals(first.getPublishedAt(), unpublished.getPublishedAt());
+
+    val republished = service.publish(testStudyId, testAnalysisId, false);
+    assertEquals(first.getFirstPublishedAt(), republished.getFirstPublishedAt());
+    assertFalse(republished.getPublishedAt().isBefore(first.getPublishedAt()));
+
+    // The published times match the first and last PUBLISHED transitions of the history
+    val publishTimes =
+        republished.getAnalysisStateHistory().stream()
+            .filter(x -> x.getUpdatedState().equals(PUBLISHED.name()))
+            .map(x -> x.getUpdatedAt())
+            .sorted()
+            .collect(toImmutableList());
+    assertEquals(2, publishTimes.size());
+    assertEquals(publishTimes.get(0), republished.getFirstPublishedAt());
+    assertEquals(publishTimes.get(1), republished.getPublishedAt());
+  }
+
+  @Test
+  public void testPublishedAtBackfilledFromHistory() {
+    val neverPublishedId =
+        createAnalysisGenerator(testStudyId, service, randomGenerator)
+            .createDefaultRandomAnalysis(randomGenerator.randomEnum(LegacyAnalysisTypeName.class))
+            .getAnalysisId();
+
+    // History recorded before the columns existed: published, unpublished and republished
+    entityManager
+        .createNativeQuery(
+            "INSERT INTO analysis_state_change "
+                + "(analysis_id, initial_state, updated_state, updated_at) VALUES "
+                + "(:id, 'UNPUBLISHED', 'PUBLISHED', TIMESTAMP '2019-01-01 10:00:00'), "
+                + "(:id, 'PUBLISHED', 'UNPUBLISHED', TIMESTAMP '2019-02-01 10:00:00'), "
+                + "(:id, 'UNPUBLISHED', 'PUBLISHED', TIMESTAMP '2019-03-01 10:00:00')")
+        .setParameter("id", testAnalysisId)
+        .executeUpdate();
+    entityManager
+        .createNativeQuery(
+            "UPDATE analysis SET first_published_at = NULL, published_at = NULL "
+                + "WHERE id IN (:ids)")
+        .setParameter("ids", List.of(testAnalysisId, neverPublishedId))
+        .executeUpdate();
+
+    entityManager.createNativeQuery(readPublishedAtBackfill()).executeUpdate();
+    entityManager.flush();
+    entityManager.clear();
+
+    val backfilled = service.unsecuredDeepRead(testAnalysisId);
+    assertEquals(LocalDateTime.of(2019, 1, 1, 10, 0), backfilled.getFirstPublishedAt());
+    assertEquals(LocalDateTime.of(2019, 3, 1, 10, 0), backfilled.getPublishedAt());
+    val neverPublished = service.unsecuredDeepRead(neverPublishedId);
+    assertNull(neverPublished.getFirstPublishedAt());
+    assertNull(neverPublished.getPublishedAt());
+  }
+
+  @Test
+  public void testFindPublishedSince() {
+    setupTest(ALL, NONE, NONE, NONE);
+    val publishedAt = service.publish(testStudyId, testAnalysisId, false).getPublishedAt();
+
+    assertEquals(
+        List.of(testAnalysisId),
+        analysisRepository.findAllAnalysisIdsByStudyIdPublishedSince(testStudyId, publishedAt));
+    assertTrue(
+        analysisRepository
+            .findAllAnalysisIdsByStudyIdPublishedSince(testStudyId, publishedAt.plusSeconds(1))
+            .isEmpty());
+
+    val otherStudyId = createStudyGenerator(studyService, randomGenerator).createRandomStudy();
+    assertTrue(
+        analysisRepository
+            .findAllAnalysisIdsByStudyIdPublishedSince(otherStudyId, publishedAt.minusDays(1))
+            .isEmpty());
+  }
+
+  /** The backfill statement of the migration, run against rows that predate it */
+  @SneakyThrows
+  private static String readPublishedAtBackfill() {
+    val migration =
+        new String(
+            new ClassPathResource(PUBLISHED_AT_MIGRATION).getInputStream().readAllBytes(), UTF_8);
+    val start = migration.indexOf("UPDATE analysis");
+    checkState(start >= 0, "No backfill found in %s", PUBLISHED_AT_MIGRATION);
+    return migration.substring(start, migration.indexOf(';', start));
+  }
+
+  private static Set<String> objectIds(Collection<FileEntity> files) {
+    return files.stream().map(FileEntity::getObjectId).collect(toImmutableSet());
+  }
+
+  private static Set<String> sampleIds(Analysis analysis) {
+    return analysis.getSamples().stream().map(Sample::getSampleId).collect(toImmutableSet());
+  }
+
   private void assertAllPublish() {
     assertPublish(true, false);
   }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.service;
+
+import static bio.overture.song.core.exceptions.ServerErrors.ENTITY_NOT_RELATED_TO_STUDY;
+import static bio.overture.song.core.exceptions.ServerErrors.MISSING_STORAGE_OBJECTS;
+import static bio.overture.song.core.exceptions.ServerErrors.PUBLISH_JOB_NOT_FOUND;
+import static bio.overture.song.core.exceptions.ServerException.buildServerException;
+import static bio.overture.song.core.testing.SongErrorAssertions.assertSongError;
+import static bio.overture.song.server.model.enums.PublishJobResultStates.FAILED;
+import static bio.overture.song.server.model.enums.PublishJobResultStates.PENDING;
+import static bio.overture.song.server.model.enums.PublishJobResultStates.PUBLISHED;
+import static bio.overture.song.server.model.enums.PublishJobStates.RUNNING;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.song.server.model.dto.PublishJobRequest;
+import bio.overture.song.server.model.job.PublishJob;
+import bio.overture.song.server.model.job.PublishJobResult;
+import bio.overture.song.server.repository.AnalysisRepository;
+import bio.overture.song.server.repository.PublishJobLeaseRepository;
+import bio.overture.song.server.repository.PublishJobRepository;
+import bio.overture.song.server.repository.PublishJobResultRepository;
+import bio.overture.song.server.service.analysis.AnalysisService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PublishJobServiceTest {
+
+  private static final String STUDY_ID = "ABC123";
+  private static final String OTHER_STUDY_ID = "XYZ234";
+  private static final List<String> ANALYSIS_IDS = List.of("AN1", "AN2", "AN3", "AN4", "AN5");
+  private static final String BAD_ANALYSIS_ID = "AN3";
+
+  @Mock private AnalysisService analysisService;
+  @Mock private AnalysisRepository analysisRepository;
+  @Mock private PublishJobRepository publishJobRepository;
+  @Mock private PublishJobLeaseRepository publishJobLeaseRepository;
+  @Mock private PublishJobResultRepository publishJobResultRepository;
+  @Mock private StudyService studyService;
+
+  private PublishJobService service;
+
+  @Before
+  public void beforeTest() {
+    service =
+        new PublishJobService(
+            2,
+            Duration.ofMinutes(1),
+            analysisService,
+            analysisRepository,
+            publishJobRepository,
+            publishJobLeaseRepository,
+            publishJobResultRepository,
+            studyService);
+  }
+
+  @After
+  public void afterTest() {
+    service.shutdown();
+  }
+
+  @Test
+  public void testSubmitPublishesAllAnalysesAndRecordsFailures() {
+    val savedJob = new AtomicReference<PublishJob>();
+    val savedResults = new CopyOnWriteArrayList<PublishJobResult>();
+    when(analysisRepository.findAllAnalysisIdsByStudyIdAndAnalysisIdIn(
+            eq(STUDY_ID), anyCollection()))
+        .thenReturn(ANALYSIS_IDS);
+    when(publishJobRepository.save(any()))
+        .thenAnswer(
+            i -> {
+              savedJob.set(i.getArgument(0));
+              return i.getArgument(0);
+            });
+    when(publishJobResultRepository.saveAll(anyList()))
+        .thenAnswer(
+            i -> {
+              savedResults.addAll(i.getArgument(0));
+              return i.getArgument(0);
+            });
+    when(publishJobResultRepository.findAllByJobIdAndState(anyString(), anyString()))
+        .thenAnswer(
+            i ->
+                savedResults.stream()
+                    .filter(r -> r.getState().equals(i.getArgument(1)))
+                    .collect(toList()));
+    when(publishJobLeaseRepository.recordResult(anyString(), any())).thenReturn(1);
+    when(publishJobLeaseRepository.completeJob(anyString(), anyString())).thenReturn(1);
+    when(analysisService.publish(eq(STUDY_ID), eq(BAD_ANALYSIS_ID), anyBoolean()))
+        .thenThrow(buildServerException(getClass(), MISSING_STORAGE_OBJECTS, "Missing objects"));
+
+    val response =
+        service.submit(STUDY_ID, PublishJobRequest.builder().analysisIds(ANALYSIS_IDS).build());
+    assertEquals(RUNNING.name(), response.getState());
+    assertEquals(ANALYSIS_IDS.size(), response.getTotal());
+    assertEquals(ANALYSIS_IDS.size(), response.getPending());
+
+    verify(publishJobLeaseRepository, timeout(10000))
+        .completeJob(anyString(), eq(savedJob.get().getJobId()));
+    assertEquals(ANALYSIS_IDS.size(), savedResults.size());
+    for (val result : savedResults) {
+      if (result.getAnalysisId().equals(BAD_ANALYSIS_ID)) {
+        assertEquals(FAILED.name(), result.getState());
+      } else {
+        assertEquals(PUBLISHED.name(), result.getState());
+        assertNull(result.getErrors());
+        verify(analysisService).publish(STUDY_ID, result.getAnalysisId(), false);
+      }
+      verify(publishJobLeaseRepository).recordResult(anyString(), eq(result));
+    }
+  }
+
+  @Test
+  public void testSubmitUnrelatedAnalysisIds() {
+    when(analysisRepository.findAllAnalysisIdsByStudyIdAndAnalysisIdIn(
+            eq(STUDY_ID), anyCollection()))
+        .thenReturn(ANALYSIS_IDS.subList(0, 2));
+    assertSongError(
+        () ->
+            service.submit(STUDY_ID, PublishJobRequest.builder().analysisIds(ANALYSIS_IDS).build()),
+        ENTITY_NOT_RELATED_TO_STUDY);
+  }
+
+  @Test
+  public void testGetJobValidation() {
+    val job = PublishJob.builder().jobId("job1").studyId(STUDY_ID).state(RUNNING.name()).build();
+    when(publishJobRepository.findById("job1")).thenReturn(Optional.of(job));
+    when(publishJobRepository.findById("job2")).thenReturn(Optional.empty());
+    assertSongError(
+        () -> service.getJob(OTHER_STUDY_ID, "job1", false), ENTITY_NOT_RELATED_TO_STUDY);
+    assertSongError(() -> service.getJob(STUDY_ID, "job2", false), PUBLISH_JOB_NOT_FOUND);
+  }
+
+  @Test
+  public void testGetJobCounts() {
+    val job = PublishJob.builder().jobId("job1").studyId(STUDY_ID).state(RUNNING.name()).build();
+    when(publishJobRepository.findById("job1")).thenReturn(Optional.of(job));
+    when(publishJobResultRepository.countAllByJobIdGroupByState("job1"))
+        .thenReturn(List.of(new Object[] {PENDING.name(), 2L}, new Object[] {FAILED.name(), 1L}));
+    val response = service.getJob(STUDY_ID, "job1", false);
+    assertEquals(3, response.getTotal());
+    assertEquals(2, response.getPending());
+    assertEquals(0, response.getPublished());
+    assertEquals(1, response.getFailed());
+    assertNull(response.getResults());
+  }
+
+  @Test
+  public void testExpiredLeasesAreClaimedAndResumedOnce() {
+    val job = PublishJob.builder().jobId("job1").studyId(STUDY_ID).state(RUNNING.name()).build();
+    val pending = buildPendingResults("job1");
+    when(publishJobLeaseRepository.claimExpiredLeases(anyString(), any())).thenReturn(1);
+    when(publishJobRepository.findAllByStateAndOwner(eq(RUNNING.name()), anyString()))
+        .thenReturn(List.of(job));
+    when(publishJobResultRepository.findAllByJobIdAndState("job1", PENDING.name()))
+        .thenReturn(pending);
+    when(publishJobLeaseRepository.recordResult(anyString(), any())).thenReturn(1);
+    when(publishJobLeaseRepository.completeJob(anyString(), eq("job1"))).thenReturn(1);
+
+    // The second claim finds the job already running on this server
+    service.renewAndClaimLeases();
+    service.renewAndClaimLeases();
+
+    verify(publishJobLeaseRepository, timeout(10000)).completeJob(anyString(), eq("job1"));
+    ANALYSIS_IDS.forEach(id -> verify(analysisService).publish(STUDY_ID, id, false));
+    verify(publishJobResultRepository).findAllByJobIdAndState("job1", PENDING.name());
+  }
+
+  @Test
+  public void testNothingResumedWithoutExpiredLeases() {
+    when(publishJobLeaseRepository.claimExpiredLeases(anyString(), any())).thenReturn(0);
+    service.renewAndClaimLeases();
+    verify(publishJobLeaseRepository).renewLeases(anyString(), any());
+    verify(publishJobRepository, never()).findAllByStateAndOwner(anyString(), anyString());
+  }
+
+  @Test
+  public void testLostLeaseStopsJob() {
+    val singleWorkerService =
+        new PublishJobService(
+            1,
+            Duration.ofMinutes(1),
+            analysisService,
+            analysisRepository,
+            publishJobRepository,
+            publishJobLeaseRepository,
+            publishJobResultRepository,
+            studyService);
+    try {
+      val job = PublishJob.builder().jobId("job1").studyId(STUDY_ID).state(RUNNING.name()).build();
+      when(publishJobLeaseRepository.claimExpiredLeases(anyString(), any())).thenReturn(1);
+      when(publishJobRepository.findAllByStateAndOwner(eq(RUNNING.name()), anyString()))
+          .thenReturn(List.of(job));
+      when(publishJobResultRepository.findAllByJobIdAndState("job1", PENDING.name()))
+          .thenReturn(buildPendingResults("job1"));
+
+      // Another server claimed the job, so the first result is not recorded
+      when(publishJobLeaseRepository.recordResult(anyString(), any())).thenReturn(0);
+
+      singleWorkerService.renewAndClaimLeases();
+      verify(publishJobLeaseRepository, timeout(10000)).recordResult(anyString(), any());
+      verify(analysisService, after(200).times(1)).publish(anyString(), anyString(), anyBoolean());
+      verify(publishJobLeaseRepository, never()).completeJob(anyString(), anyString());
+    } finally {
+      singleWorkerService.shutdown();
+    }
+  }
+
+  private static List<PublishJobResult> buildPendingResults(String jobId) {
+    return ANALYSIS_IDS.stream()
+        .map(
+            id ->
+                PublishJobResult.builder()
+                    .jobId(jobId)
+                    .analysisId(id)
+                    .state(PENDING.name())
+                    .build())
+        .collect(toList());
+  }
+}
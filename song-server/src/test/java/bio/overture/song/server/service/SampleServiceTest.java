@@ -16,6 +16,7 @@
  */
 package bio.overture.song.server.service;
 
+import static bio.overture.song.core.exceptions.ServerErrors.MISMATCHING_SAMPLE_DATA;
 import static bio.overture.song.core.exceptions.ServerErrors.SAMPLE_ALREADY_EXISTS;
 import static bio.overture.song.core.exceptions.ServerErrors.SAMPLE_DOES_NOT_EXIST;
 import static bio.overture.song.core.exceptions.ServerErrors.SAMPLE_ID_IS_CORRUPTED;
@@ -35,12 +36,18 @@ import static java.util.stream.Collectors.toSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import bio.overture.song.core.testing.SongErrorAssertions;
 import bio.overture.song.core.utils.JsonUtils;
 import bio.overture.song.core.utils.RandomGenerator;
+import bio.overture.song.server.model.entity.Donor;
 import bio.overture.song.server.model.entity.Sample;
 import bio.overture.song.server.model.entity.Specimen;
+import bio.overture.song.server.model.entity.composites.CompositeEntity;
 import bio.overture.song.server.utils.TestConstants;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -53,6 +60,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @SpringBootTest
 @RunWith(SpringRunner.class)
@@ -62,6 +71,7 @@ public class SampleServiceTest {
   @Autowired SampleService sampleService;
   @Autowired StudyService studyService;
   @Autowired SpecimenService specimenService;
+  @Autowired CompositeEntityService compositeEntityService;
 
   private final RandomGenerator randomGenerator =
       createRandomGenerator(SampleServiceTest.class.getSimpleName());
@@ -182,6 +192,72 @@ public class SampleServiceTest {
         () -> sampleService.create(existingStudyId, sample2), SAMPLE_ID_IS_CORRUPTED);
   }
 
+  @Test
+  public void testCreateIfAbsent() {
+    val sampleTypes = Lists.newArrayList(TestConstants.SAMPLE_TYPE);
+    val submitterSampleId = randomGenerator.generateRandomUUIDAsString();
+    val sample = new Sample();
+    sample.setSubmitterSampleId(submitterSampleId);
+    sample.setSampleType(sampleTypes.get(0));
+    sample.setSpecimenId(DEFAULT_SPECIMEN_ID);
+    assertTrue(sampleService.createIfAbsent(DEFAULT_STUDY_ID, sample));
+    val sampleId = sample.getSampleId();
+    assertTrue(sampleService.isSampleExist(sampleId));
+
+    // The sample already exists, so its id is resolved and the existing row is left as is
+    val sample2 = new Sample();
+    sample2.setSubmitterSampleId(submitterSampleId);
+    sample2.setSampleType(sampleTypes.get(1));
+    sample2.setSpecimenId(DEFAULT_SPECIMEN_ID);
+    assertFalse(sampleService.createIfAbsent(DEFAULT_STUDY_ID, sample2));
+    assertEquals(sample2.getSampleId(), sampleId);
+    assertEquals(
+        sampleService.securedRead(DEFAULT_STUDY_ID, sampleId).getSampleType(), sampleTypes.get(0));
+  }
+
+  @Test
+  public void testSaveCreatedSinceLookup() {
+    val sampleTypes = Lists.newArrayList(TestConstants.SAMPLE_TYPE);
+    val submitterDonorId = randomGenerator.generateRandomUUIDAsString();
+    val submitterSpecimenId = randomGenerator.generateRandomUUIDAsString();
+    val submitterSampleId = randomGenerator.generateRandomUUIDAsString();
+    val sampleId =
+        compositeEntityService.save(
+            DEFAULT_STUDY_ID,
+            buildCompositeEntity(
+                submitterDonorId, submitterSpecimenId, submitterSampleId, sampleTypes.get(0)));
+
+    // Hide the sample from the lookup, as if a concurrent submission created it after the lookup,
+    // so that the insert finds the row already exists
+    val target =
+        (CompositeEntityService) AopTestUtils.getUltimateTargetObject(compositeEntityService);
+    val staleSampleService = mock(SampleService.class, delegatesTo(sampleService));
+    doReturn(null).when(staleSampleService).findByBusinessKey(anyString(), anyString());
+    ReflectionTestUtils.setField(target, "sampleService", staleSampleService);
+    try {
+      assertEquals(
+          compositeEntityService.save(
+              DEFAULT_STUDY_ID,
+              buildCompositeEntity(
+                  submitterDonorId, submitterSpecimenId, submitterSampleId, sampleTypes.get(0))),
+          sampleId);
+      SongErrorAssertions.assertSongError(
+          () ->
+              compositeEntityService.save(
+                  DEFAULT_STUDY_ID,
+                  buildCompositeEntity(
+                      submitterDonorId,
+                      submitterSpecimenId,
+                      submitterSampleId,
+                      sampleTypes.get(1))),
+          MISMATCHING_SAMPLE_DATA);
+    } finally {
+      ReflectionTestUtils.setField(target, "sampleService", sampleService);
+    }
+    assertEquals(
+        sampleService.securedRead(DEFAULT_STUDY_ID, sampleId).getSampleType(), sampleTypes.get(0));
+  }
+
   @Test
   public void testSampleExists() {
     val existingSampleId = DEFAULT_SAMPLE_ID;
@@ -288,4 +364,27 @@ public class SampleServiceTest {
     sample.setSpecimenId(DEFAULT_SPECIMEN_ID);
     SongErrorAssertions.assertSongError(() -> sampleService.update(sample), SAMPLE_DOES_NOT_EXIST);
   }
+
+  private CompositeEntity buildCompositeEntity(
+      String submitterDonorId,
+      String submitterSpecimenId,
+      String submitterSampleId,
+      String sampleType) {
+    val donor =
+        Donor.builder()
+            .submitterDonorId(submitterDonorId)
+            .studyId(DEFAULT_STUDY_ID)
+            .gender("Male")
+            .build();
+    val specimen = new Specimen();
+    specimen.setSubmitterSpecimenId(submitterSpecimenId);
+    specimen.setTumourNormalDesignation(TUMOUR_NORMAL_DESIGNATION.get(0));
+    specimen.setSpecimenType(SPECIMEN_TYPE.get(0));
+    specimen.setSpecimenTissueSource(SPECIMEN_TISSUE_SOURCE.get(0));
+    val compositeEntity =
+        CompositeEntity.compositeEntityBuilder().donor(donor).specimen(specimen).build();
+    compositeEntity.setSubmitterSampleId(submitterSampleId);
+    compositeEntity.setSampleType(sampleType);
+    return compositeEntity;
+  }
 }
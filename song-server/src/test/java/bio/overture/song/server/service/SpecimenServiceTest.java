@@ -16,6 +16,7 @@
  */
 package bio.overture.song.server.service;
 
+import static bio.overture.song.core.exceptions.ServerErrors.MISMATCHING_SPECIMEN_DATA;
 import static bio.overture.song.core.exceptions.ServerErrors.SPECIMEN_ALREADY_EXISTS;
 import static bio.overture.song.core.exceptions.ServerErrors.SPECIMEN_DOES_NOT_EXIST;
 import static bio.overture.song.core.exceptions.ServerErrors.SPECIMEN_ID_IS_CORRUPTED;
@@ -38,6 +39,10 @@ import static java.util.stream.Collectors.toSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import bio.overture.song.core.testing.SongErrorAssertions;
 import bio.overture.song.core.utils.JsonUtils;
@@ -45,6 +50,7 @@ import bio.overture.song.core.utils.RandomGenerator;
 import bio.overture.song.server.model.entity.Donor;
 import bio.overture.song.server.model.entity.Sample;
 import bio.overture.song.server.model.entity.Specimen;
+import bio.overture.song.server.model.entity.composites.CompositeEntity;
 import bio.overture.song.server.model.entity.composites.DonorWithSpecimens;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -60,6 +66,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @SpringBootTest
 @RunWith(SpringRunner.class)
@@ -71,6 +79,7 @@ public class SpecimenServiceTest {
   @Autowired SampleService sampleService;
   @Autowired StudyService studyService;
   @Autowired DonorService donorService;
+  @Autowired CompositeEntityService compositeEntityService;
 
   private final RandomGenerator randomGenerator =
       createRandomGenerator(SpecimenServiceTest.class.getSimpleName());
@@ -313,6 +322,59 @@ public class SpecimenServiceTest {
         () -> specimenService.create(existingStudyId, specimen2), SPECIMEN_ID_IS_CORRUPTED);
   }
 
+  @Test
+  public void testCreateIfAbsent() {
+    val submitterSpecimenId = randomGenerator.generateRandomUUIDAsString();
+    val specimen = buildSpecimen(submitterSpecimenId, SPECIMEN_TYPE.get(0));
+    specimen.setDonorId(DEFAULT_DONOR_ID);
+    assertTrue(specimenService.createIfAbsent(DEFAULT_STUDY_ID, specimen));
+    val specimenId = specimen.getSpecimenId();
+    assertTrue(specimenService.isSpecimenExist(specimenId));
+
+    // The specimen already exists, so its id is resolved and the existing row is left as is
+    val specimen2 = buildSpecimen(submitterSpecimenId, SPECIMEN_TYPE.get(1));
+    specimen2.setDonorId(DEFAULT_DONOR_ID);
+    assertFalse(specimenService.createIfAbsent(DEFAULT_STUDY_ID, specimen2));
+    assertEquals(specimen2.getSpecimenId(), specimenId);
+    assertEquals(specimenService.unsecuredRead(specimenId).getSpecimenType(), SPECIMEN_TYPE.get(0));
+  }
+
+  @Test
+  public void testSaveCreatedSinceLookup() {
+    val submitterDonorId = randomGenerator.generateRandomUUIDAsString();
+    val submitterSpecimenId = randomGenerator.generateRandomUUIDAsString();
+    compositeEntityService.save(
+        DEFAULT_STUDY_ID,
+        buildCompositeEntity(submitterDonorId, submitterSpecimenId, SPECIMEN_TYPE.get(0)));
+    val specimenId = specimenService.findByBusinessKey(DEFAULT_STUDY_ID, submitterSpecimenId);
+
+    // Hide the specimen from the lookup, as if a concurrent submission created it after the
+    // lookup, so that the insert finds the row already exists
+    val target =
+        (CompositeEntityService) AopTestUtils.getUltimateTargetObject(compositeEntityService);
+    val staleSpecimenService = mock(SpecimenService.class, delegatesTo(specimenService));
+    doReturn(null).when(staleSpecimenService).findByBusinessKey(anyString(), anyString());
+    ReflectionTestUtils.setField(target, "specimenService", staleSpecimenService);
+    try {
+      val sampleId =
+          compositeEntityService.save(
+              DEFAULT_STUDY_ID,
+              buildCompositeEntity(submitterDonorId, submitterSpecimenId, SPECIMEN_TYPE.get(0)));
+      assertEquals(
+          sampleService.securedRead(DEFAULT_STUDY_ID, sampleId).getSpecimenId(), specimenId);
+      SongErrorAssertions.assertSongError(
+          () ->
+              compositeEntityService.save(
+                  DEFAULT_STUDY_ID,
+                  buildCompositeEntity(
+                      submitterDonorId, submitterSpecimenId, SPECIMEN_TYPE.get(1))),
+          MISMATCHING_SPECIMEN_DATA);
+    } finally {
+      ReflectionTestUtils.setField(target, "specimenService", specimenService);
+    }
+    assertEquals(specimenService.unsecuredRead(specimenId).getSpecimenType(), SPECIMEN_TYPE.get(0));
+  }
+
   @Test
   public void testReadSpecimenDNE() {
     val randomSpecimenId = randomGenerator.generateRandomUUIDAsString();
@@ -449,4 +511,31 @@ public class SpecimenServiceTest {
     SongErrorAssertions.assertSongError(
         () -> specimenService.update(specimen), SPECIMEN_DOES_NOT_EXIST);
   }
+
+  private Specimen buildSpecimen(String submitterSpecimenId, String specimenType) {
+    val specimen = new Specimen();
+    specimen.setSubmitterSpecimenId(submitterSpecimenId);
+    specimen.setTumourNormalDesignation(TUMOUR_NORMAL_DESIGNATION.get(0));
+    specimen.setSpecimenType(specimenType);
+    specimen.setSpecimenTissueSource(SPECIMEN_TISSUE_SOURCE.get(0));
+    return specimen;
+  }
+
+  private CompositeEntity buildCompositeEntity(
+      String submitterDonorId, String submitterSpecimenId, String specimenType) {
+    val donor =
+        Donor.builder()
+            .submitterDonorId(submitterDonorId)
+            .studyId(DEFAULT_STUDY_ID)
+            .gender("Male")
+            .build();
+    val compositeEntity =
+        CompositeEntity.compositeEntityBuilder()
+            .donor(donor)
+            .specimen(buildSpecimen(submitterSpecimenId, specimenType))
+            .build();
+    compositeEntity.setSubmitterSampleId(randomGenerator.generateRandomUUIDAsString());
+    compositeEntity.setSampleType(newArrayList(SAMPLE_TYPE).get(0));
+    return compositeEntity;
+  }
 }
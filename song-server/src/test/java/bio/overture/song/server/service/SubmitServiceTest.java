@@ -32,6 +32,9 @@ import static bio.overture.song.server.utils.generator.LegacyAnalysisTypeName.SE
 import static bio.overture.song.server.utils.generator.PayloadGenerator.createPayloadGenerator;
 import static bio.overture.song.server.utils.generator.StudyGenerator.createStudyGenerator;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
@@ -40,12 +43,19 @@ import static org.junit.Assert.assertTrue;
 import bio.overture.song.core.utils.RandomGenerator;
 import bio.overture.song.core.utils.Responses;
 import bio.overture.song.server.model.dto.Payload;
+import bio.overture.song.server.model.entity.composites.CompositeEntity;
 import bio.overture.song.server.repository.UploadRepository;
 import bio.overture.song.server.service.analysis.AnalysisService;
 import bio.overture.song.server.service.id.IdService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Lists;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 import javax.transaction.Transactional;
 import lombok.Builder;
 import lombok.NonNull;
@@ -274,6 +284,44 @@ public class SubmitServiceTest {
     assertNotEquals("New analysisId expected", analysisId, result);
   }
 
+  @Test
+  @SneakyThrows
+  public void testConcurrentSaveSameSample() {
+    // The same sample, specimen and donor submitted concurrently. Every submission must resolve to
+    // the entities created by whichever insert won, rather than fail or create duplicates
+    val studyId = randomStudy();
+    val payload = randomPayload();
+    val numSubmits = 8;
+    val barrier = new CyclicBarrier(numSubmits);
+    val executor = Executors.newFixedThreadPool(numSubmits);
+    try {
+      val submits =
+          IntStream.range(0, numSubmits)
+              .mapToObj(
+                  i -> {
+                    val p = getModifiedPayload(payload, true, true, true);
+                    return (Callable<String>)
+                        () -> {
+                          barrier.await();
+                          return submitAnalysis(studyId, p);
+                        };
+                  })
+              .collect(toList());
+      val results = Lists.<String>newArrayList();
+      for (val future : executor.invokeAll(submits, 60, SECONDS)) {
+        results.add(future.get());
+      }
+      results.forEach(r -> assertFalse("No error results expected: " + r, r.startsWith("ERR")));
+      assertEquals("New analysisIds expected", numSubmits, results.stream().distinct().count());
+
+      val sampleIds = results.stream().map(id -> getSampleIds(studyId, id)).collect(toSet());
+      assertEquals("All analyses should share the same samples", 1, sampleIds.size());
+      assertEquals(payload.getSamples().size(), sampleIds.iterator().next().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private String randomStudy() {
     val studyGenerator = createStudyGenerator(studyService, randomGenerator);
     return studyGenerator.createRandomStudy();
@@ -293,6 +341,12 @@ public class SubmitServiceTest {
     return donorPayload;
   }
 
+  private Set<String> getSampleIds(String studyId, String analysisId) {
+    return analysisService.securedDeepRead(studyId, analysisId).getSamples().stream()
+        .map(CompositeEntity::getSampleId)
+        .collect(toSet());
+  }
+
   private String submitAnalysis(String studyId, Payload payload) {
     String actual;
     payload.setStudyId(studyId);
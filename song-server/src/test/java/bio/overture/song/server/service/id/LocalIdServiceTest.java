@@ -17,12 +17,19 @@
 
 package bio.overture.song.server.service.id;
 
-import static bio.overture.song.server.config.IdConfig.createNameBasedGenerator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import bio.overture.song.server.config.IdConfig;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
 import lombok.val;
 import org.junit.Before;
 import org.junit.Test;
@@ -40,7 +47,7 @@ public class LocalIdServiceTest {
 
   @Before
   public void beforeTest() {
-    this.localIdService = new LocalIdService(createNameBasedGenerator());
+    this.localIdService = new LocalIdService(IdConfig::createNameBasedGenerator);
   }
 
   @Test
@@ -70,6 +77,41 @@ public class LocalIdServiceTest {
     assertNotEquals(id1, id2);
   }
 
+  @Test
+  public void testFileIds() {
+    val fileIds =
+        localIdService.getFileIds("parameter1_1", List.of("parameter2_1", "parameter2_2"));
+    assertEquals(Map.of("parameter2_1", ID_A.get(), "parameter2_2", ID_B.get()), fileIds);
+  }
+
+  @Test
+  @SneakyThrows
+  public void testConcurrentIds() {
+    val numThreads = 8;
+    val executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      val tasks =
+          IntStream.range(0, numThreads)
+              .mapToObj(
+                  i ->
+                      (Callable<List<String>>)
+                          () ->
+                              IntStream.range(0, 1000)
+                                  .mapToObj(
+                                      j ->
+                                          localIdService.getDonorId("parameter1_1", "parameter2_1"))
+                                  .map(Optional::get)
+                                  .distinct()
+                                  .collect(Collectors.toList()))
+              .collect(Collectors.toList());
+      for (val result : executor.invokeAll(tasks)) {
+        assertEquals(List.of(ID_A.get()), result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private void twoParamTest(BiFunction<String, String, Optional<String>> idServiceFunction) {
     val p1_1 = "parameter1_1";
     val p1_2 = "parameter1_2";
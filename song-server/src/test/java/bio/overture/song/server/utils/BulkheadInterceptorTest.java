@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static bio.overture.song.core.exceptions.ServerErrors.SERVICE_UNAVAILABLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import bio.overture.song.core.exceptions.ServerException;
+import bio.overture.song.server.properties.BulkheadProperties;
+import bio.overture.song.server.properties.BulkheadProperties.Workload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+public class BulkheadInterceptorTest {
+
+  @Test
+  @SneakyThrows
+  public void testRejectsWhenFull() {
+    val registry = new SimpleMeterRegistry();
+    val bulkhead =
+        new BulkheadInterceptor(
+            "export", 1, Duration.ofMillis(10), List.of("/export/**"), List.of(), false, registry);
+    val response = new MockHttpServletResponse();
+    val first = new MockHttpServletRequest("GET", "/export/studies/ABC123");
+    val second = new MockHttpServletRequest("GET", "/export/studies/ABC123");
+
+    assertTrue(bulkhead.preHandle(first, response, null));
+    assertEquals(1.0, registry.get("song.bulkhead.active").gauge().value(), 0);
+    try {
+      bulkhead.preHandle(second, response, null);
+      fail("Expected the second request to be rejected");
+    } catch (ServerException e) {
+      assertEquals(SERVICE_UNAVAILABLE.getErrorId(), e.getSongError().getErrorId());
+    }
+    assertEquals(1.0, registry.get("song.bulkhead.rejected").counter().count(), 0);
+
+    // Releasing is idempotent and only applies to requests that acquired a permit
+    bulkhead.afterCompletion(second, response, null, null);
+    bulkhead.afterCompletion(first, response, null, null);
+    bulkhead.afterCompletion(first, response, null, null);
+    assertEquals(0.0, registry.get("song.bulkhead.active").gauge().value(), 0);
+    assertTrue(bulkhead.preHandle(second, response, null));
+    assertEquals(3, registry.get("song.bulkhead.wait").timer().count());
+  }
+
+  @Test
+  @SneakyThrows
+  public void testWritesOnly() {
+    val registry = new SimpleMeterRegistry();
+    val bulkhead =
+        new BulkheadInterceptor(
+            "write", 1, Duration.ofMillis(10), List.of("/**"), List.of(), true, registry);
+    val response = new MockHttpServletResponse();
+    assertTrue(bulkhead.preHandle(new MockHttpServletRequest("POST", "/submit/A"), response, null));
+
+    // Reads are not limited by a writes-only bulkhead
+    assertTrue(bulkhead.preHandle(new MockHttpServletRequest("GET", "/studies/A"), response, null));
+    assertEquals(1.0, registry.get("song.bulkhead.active").gauge().value(), 0);
+  }
+
+  @Test
+  @SneakyThrows
+  public void testFailsFastWithoutWait() {
+    val properties = new BulkheadProperties();
+    assertFalse(properties.isEnabled());
+    assertEquals(Duration.ZERO, properties.getExport().getMaxWait());
+
+    val bulkhead = createBulkhead("export", properties.getExport(), new SimpleMeterRegistry());
+    val response = new MockHttpServletResponse();
+    for (int i = 0; i < properties.getExport().getMaxConcurrent(); i++) {
+      assertTrue(bulkhead.preHandle(new MockHttpServletRequest("GET", "/export"), response, null));
+    }
+    val start = System.nanoTime();
+    try {
+      bulkhead.preHandle(new MockHttpServletRequest("GET", "/export"), response, null);
+      fail("Expected the request to be rejected");
+    } catch (ServerException e) {
+      assertEquals(SERVICE_UNAVAILABLE.getErrorId(), e.getSongError().getErrorId());
+    }
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+  }
+
+  @Test
+  public void testSearchesOnlyTakeExportPermits() {
+    val properties = new BulkheadProperties();
+    val registry = new SimpleMeterRegistry();
+    val export = map(createBulkhead("export", properties.getExport(), registry));
+    val write = map(createBulkhead("write", properties.getWrite(), registry));
+    val pathMatcher = new AntPathMatcher();
+
+    assertTrue(export.matches("/studies/ABC123/analysis/search/id", pathMatcher));
+    assertFalse(write.matches("/studies/ABC123/analysis/search/id", pathMatcher));
+    assertTrue(write.matches("/submit/ABC123", pathMatcher));
+    assertFalse(export.matches("/submit/ABC123", pathMatcher));
+  }
+
+  private static BulkheadInterceptor createBulkhead(
+      String name, Workload workload, SimpleMeterRegistry registry) {
+    return new BulkheadInterceptor(
+        name,
+        workload.getMaxConcurrent(),
+        workload.getMaxWait(),
+        workload.getPathPatterns(),
+        workload.getExcludedPathPatterns(),
+        workload.isWritesOnly(),
+        registry);
+  }
+
+  private static MappedInterceptor map(BulkheadInterceptor bulkhead) {
+    return new MappedInterceptor(
+        bulkhead.getPathPatterns().toArray(String[]::new),
+        bulkhead.getExcludedPathPatterns().toArray(String[]::new),
+        bulkhead);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+public class GzipRequestFilterTest {
+
+  private static final String BODY = "{\"data\":\"" + "A".repeat(4096) + "\"}";
+
+  @Test
+  @SneakyThrows
+  public void testGzipBodyDecompressed() {
+    val chain = new MockFilterChain();
+    new GzipRequestFilter(BODY.length())
+        .doFilter(gzipRequest(BODY), new MockHttpServletResponse(), chain);
+
+    val request = (HttpServletRequest) chain.getRequest();
+    assertNull(request.getHeader(CONTENT_ENCODING));
+    assertEquals(-1, request.getContentLength());
+    assertEquals(BODY, StreamUtils.copyToString(request.getInputStream(), UTF_8));
+  }
+
+  @Test
+  @SneakyThrows
+  public void testDecompressedSizeLimit() {
+    val chain = new MockFilterChain();
+    new GzipRequestFilter(BODY.length() - 1)
+        .doFilter(gzipRequest(BODY), new MockHttpServletResponse(), chain);
+
+    val request = (HttpServletRequest) chain.getRequest();
+    try {
+      StreamUtils.copyToString(request.getInputStream(), UTF_8);
+      throw new AssertionError("Expected the body to exceed the limit");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("exceeds the limit"));
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void testReadListenerDelegated() {
+    val compressed = new RecordingServletInputStream();
+    val chain = new MockFilterChain();
+    new GzipRequestFilter(BODY.length())
+        .doFilter(
+            new HttpServletRequestWrapper(gzipRequest(BODY)) {
+              @Override
+              public ServletInputStream getInputStream() {
+                return compressed;
+              }
+            },
+            new MockHttpServletResponse(),
+            chain);
+
+    val listener = mock(ReadListener.class);
+    val in = ((HttpServletRequest) chain.getRequest()).getInputStream();
+    in.setReadListener(listener);
+    assertSame(listener, compressed.readListener);
+    assertFalse(in.isReady());
+  }
+
+  @Test
+  @SneakyThrows
+  public void testAsyncRequestNotWrapped() {
+    val request = gzipRequest(BODY);
+    request.setAsyncStarted(true);
+    val chain = new MockFilterChain();
+    new GzipRequestFilter(BODY.length()).doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertSame(request, chain.getRequest());
+  }
+
+  private static class RecordingServletInputStream extends ServletInputStream {
+
+    private ReadListener readListener;
+
+    @Override
+    public int read() {
+      return -1;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return false;
+    }
+
+    @Override
+    public boolean isReady() {
+      return false;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      this.readListener = readListener;
+    }
+  }
+
+  @SneakyThrows
+  private static MockHttpServletRequest gzipRequest(String body) {
+    val out = new ByteArrayOutputStream();
+    try (val gzip = new GZIPOutputStream(out)) {
+      gzip.write(body.getBytes(UTF_8));
+    }
+    val request = new MockHttpServletRequest("POST", "/submit/ABC123");
+    request.addHeader(CONTENT_ENCODING, "gzip");
+    request.setContent(out.toByteArray());
+    return request;
+  }
+}
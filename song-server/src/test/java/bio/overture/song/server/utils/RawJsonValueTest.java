@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static bio.overture.song.core.utils.JsonUtils.mapper;
+import static bio.overture.song.core.utils.JsonUtils.readTree;
+import static bio.overture.song.core.utils.JsonUtils.toJson;
+import static bio.overture.song.core.utils.JsonUtils.toJsonNode;
+import static bio.overture.song.server.utils.RawJsonValue.splitFields;
+import static org.junit.Assert.assertEquals;
+
+import bio.overture.song.server.model.analysis.Analysis;
+import bio.overture.song.server.model.analysis.AnalysisData;
+import bio.overture.song.server.model.entity.AnalysisSchema;
+import java.util.List;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+public class RawJsonValueTest {
+
+  private static final String DATA =
+      "{ \"experiment\" : {\"name\": \"a, {b}\", \"values\": [1, 2, {\"c\": null}]},\n"
+          + "  \"count\": 12 , \"flag\":true,\"text\":\"x,\" }";
+
+  @Test
+  public void testSplitFields() {
+    val fields = splitFields(DATA);
+    assertEquals(List.of("experiment", "count", "flag", "text"), List.copyOf(fields.keySet()));
+    assertEquals(
+        "{\"name\": \"a, {b}\", \"values\": [1, 2, {\"c\": null}]}",
+        fields.get("experiment").toString());
+    assertEquals("12", fields.get("count").toString());
+    assertEquals("true", fields.get("flag").toString());
+    assertEquals("\"x,\"", fields.get("text").toString());
+    assertEquals(0, splitFields("{ }").size());
+  }
+
+  @Test
+  @SneakyThrows
+  public void testAnalysisSerialization() {
+    val analysis =
+        Analysis.builder()
+            .analysisId("AN1")
+            .studyId("ABC123")
+            .analysisState("PUBLISHED")
+            .analysisSchema(
+                AnalysisSchema.builder()
+                    .name("test-schema")
+                    .version(1)
+                    .schema(mapper().createObjectNode())
+                    .build())
+            .analysisData(AnalysisData.builder().rawData(DATA).build())
+            .build();
+    val expectedData = readTree(DATA);
+
+    // Text generators receive the raw values
+    val json = readTree(toJson(analysis));
+    assertEquals("AN1", json.path("analysisId").textValue());
+    expectedData.fields().forEachRemaining(e -> assertEquals(e.getValue(), json.get(e.getKey())));
+
+    // Token buffers receive the parsed values
+    val tree = mapper().valueToTree(analysis);
+    assertEquals(json, tree);
+    assertEquals(expectedData, toJsonNode(analysis.getData()));
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019. Ontario Institute for Cancer Research
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package bio.overture.song.server.utils;
+
+import static bio.overture.song.server.utils.ReadYourWritesInterceptor.WRITE_COOKIE_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.web.servlet.HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE;
+
+import bio.overture.song.server.repository.routing.ReadYourWritesTracker;
+import bio.overture.song.server.repository.routing.RoutingContext;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import javax.servlet.http.Cookie;
+import lombok.val;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ReadYourWritesInterceptorTest {
+
+  private static final String STUDY_ID = "ABC123";
+  private static final Duration WINDOW = Duration.ofSeconds(30);
+
+  @After
+  public void afterTest() {
+    RoutingContext.clear();
+  }
+
+  @Test
+  public void testWriteSetsCookieAndForcesPrimaryOnSameServer() {
+    val interceptor = newInterceptor();
+    val response = new MockHttpServletResponse();
+    val write = request("POST");
+    interceptor.preHandle(write, response, null);
+    interceptor.afterCompletion(write, response, null, null);
+
+    val cookie = response.getCookie(WRITE_COOKIE_PREFIX + STUDY_ID);
+    assertEquals(30, cookie.getMaxAge());
+    assertEquals("/", cookie.getPath());
+
+    interceptor.preHandle(request("GET"), new MockHttpServletResponse(), null);
+    assertTrue(RoutingContext.isPrimaryForced());
+  }
+
+  @Test
+  public void testWriteCookieForcesPrimaryOnAnotherServer() {
+    val read = request("GET");
+    read.setCookies(new Cookie(WRITE_COOKIE_PREFIX + STUDY_ID, "1"));
+    newInterceptor().preHandle(read, new MockHttpServletResponse(), null);
+    assertTrue(RoutingContext.isPrimaryForced());
+  }
+
+  @Test
+  public void testReadsOfOtherStudiesUseReplicas() {
+    val read = request("GET");
+    read.setCookies(new Cookie(WRITE_COOKIE_PREFIX + "XYZ234", "1"));
+    val response = new MockHttpServletResponse();
+    newInterceptor().preHandle(read, response, null);
+    assertFalse(RoutingContext.isPrimaryForced());
+    assertNull(response.getCookie(WRITE_COOKIE_PREFIX + STUDY_ID));
+  }
+
+  private static ReadYourWritesInterceptor newInterceptor() {
+    return new ReadYourWritesInterceptor(
+        new ReadYourWritesTracker(WINDOW, Clock.systemUTC()), WINDOW);
+  }
+
+  private static MockHttpServletRequest request(String method) {
+    val request = new MockHttpServletRequest(method, "/studies/" + STUDY_ID + "/analysis/AN1");
+    request.setAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("studyId", STUDY_ID));
+    return request;
+  }
+}